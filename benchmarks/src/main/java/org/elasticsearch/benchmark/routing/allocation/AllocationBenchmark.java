@@ -98,14 +98,23 @@ public class AllocationBenchmark {
             "       10|     10|        2|    50",
             "      100|      1|        2|    50",
             "      100|      3|        2|    50",
-            "      100|     10|        2|    50" }
+            "      100|     10|        2|    50",
+
+            // 100k shards
+            "    10000|      5|        1|   100",
+            "     1000|     50|        1|   100" }
     )
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
+    // the value of cluster.routing.allocation.balance.incremental.max_indices, -1 balances every index on every reroute
+    @Param({ "-1", "100" })
+    public String incrementalMaxIndices = "-1";
+
     public int numTags = 2;
 
     private AllocationService strategy;
     private ClusterState initialClusterState;
+    private ClusterState allocatedClusterState;
 
     @Setup
     public void setUp() throws Exception {
@@ -117,7 +126,10 @@ public class AllocationBenchmark {
         int numNodes = toInt(params[3]);
 
         strategy = Allocators.createAllocationService(
-            Settings.builder().put("cluster.routing.allocation.awareness.attributes", "tag").build()
+            Settings.builder()
+                .put("cluster.routing.allocation.awareness.attributes", "tag")
+                .put("cluster.routing.allocation.balance.incremental.max_indices", toInt(incrementalMaxIndices))
+                .build()
         );
 
         Metadata.Builder mb = Metadata.builder();
@@ -144,6 +156,7 @@ public class AllocationBenchmark {
             .routingTable(routingTable)
             .nodes(nb)
             .build();
+        allocatedClusterState = measureAllocation();
     }
 
     private int toInt(String v) {
@@ -166,4 +179,12 @@ public class AllocationBenchmark {
         }
         return clusterState;
     }
+
+    /**
+     * Measures a reroute of a cluster whose shards are all allocated, which is what most reroutes of a large and stable cluster are.
+     */
+    @Benchmark
+    public ClusterState measureRerouteOfAllocatedCluster() {
+        return strategy.reroute(allocatedClusterState, "reroute");
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.fetch;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterModule;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.AnalyzerScope;
+import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.MapperRegistry;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.SourceLoader;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesModule;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptCompiler;
+import org.elasticsearch.script.ScriptContext;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.elasticsearch.xcontent.XContentParserConfiguration;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time it takes to load the {@code _source} of a page of metrics documents from the stored {@code _source} field
+ * against rebuilding it from doc values with synthetic {@code _source}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class SourceLoaderBenchmark {
+
+    private static final int NUMBER_OF_DOCS = 10_000;
+
+    @Param({ "stored", "synthetic" })
+    private String mode;
+
+    @Param({ "10", "100", "1000" })
+    private int docsToLoad;
+
+    private Directory directory;
+    private IndexReader indexReader;
+    private SourceLoader sourceLoader;
+
+    @Setup
+    public void setup() throws IOException {
+        String mappings = """
+            {
+              "_doc": {
+                "_source": { "synthetic": %s },
+                "properties": {
+                  "@timestamp": { "type": "date" },
+                  "host": { "type": "keyword" },
+                  "ip": { "type": "ip" },
+                  "cpu": { "type": "double" },
+                  "load": { "type": "float" },
+                  "memory": { "type": "long" },
+                  "location": { "type": "geo_point" }
+                }
+              }
+            }""".formatted(mode.equals("synthetic"));
+        MapperService mapperService = createMapperService(mappings);
+        sourceLoader = mapperService.mappingLookup().sourceLoader();
+
+        directory = new ByteBuffersDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(IndexShard.buildIndexAnalyzer(mapperService));
+        try (IndexWriter iw = new IndexWriter(directory, iwc)) {
+            Random random = new Random(0);
+            for (int i = 0; i < NUMBER_OF_DOCS; i++) {
+                String source = """
+                    {
+                      "@timestamp": %d,
+                      "host": "host-%d",
+                      "ip": "10.0.%d.%d",
+                      "cpu": %s,
+                      "load": %s,
+                      "memory": %d,
+                      "location": { "lat": %s, "lon": %s }
+                    }""".formatted(
+                    1646092800000L + i * 1000L,
+                    random.nextInt(100),
+                    random.nextInt(256),
+                    random.nextInt(256),
+                    random.nextDouble(),
+                    random.nextFloat() * 10,
+                    random.nextInt(Integer.MAX_VALUE),
+                    random.nextDouble() * 180 - 90,
+                    random.nextDouble() * 360 - 180
+                );
+                iw.addDocument(
+                    mapperService.documentMapper().parse(new SourceToParse(Integer.toString(i), new BytesArray(source), XContentType.JSON))
+                        .rootDoc()
+                );
+            }
+            iw.forceMerge(1);
+        }
+        indexReader = DirectoryReader.open(directory);
+    }
+
+    @TearDown
+    public void tearDown() {
+        IOUtils.closeWhileHandlingException(indexReader, directory);
+    }
+
+    @Benchmark
+    public long loadSource() throws IOException {
+        long bytes = 0;
+        LeafReaderContext context = indexReader.leaves().get(0);
+        SourceLoader.Leaf leaf = sourceLoader.leaf(context.reader());
+        for (int docId = 0; docId < docsToLoad; docId++) {
+            // this mirrors the fetch phase which always visits the stored fields for _id and _routing
+            FieldsVisitor fieldsVisitor = new FieldsVisitor(true);
+            context.reader().document(docId, fieldsVisitor);
+            BytesReference source = leaf.source(fieldsVisitor, docId);
+            bytes += source.length();
+        }
+        return bytes;
+    }
+
+    private static MapperService createMapperService(String mappings) throws IOException {
+        Settings settings = Settings.builder()
+            .put("index.number_of_replicas", 0)
+            .put("index.number_of_shards", 1)
+            .put("index.version.created", Version.CURRENT)
+            .build();
+        IndexMetadata meta = IndexMetadata.builder("index").settings(settings).build();
+        IndexSettings indexSettings = new IndexSettings(meta, settings);
+        MapperRegistry mapperRegistry = new IndicesModule(Collections.emptyList()).getMapperRegistry();
+
+        SimilarityService similarityService = new SimilarityService(indexSettings, null, Map.of());
+        MapperService mapperService = new MapperService(
+            indexSettings,
+            new IndexAnalyzers(
+                Map.of("default", new NamedAnalyzer("default", AnalyzerScope.INDEX, new StandardAnalyzer())),
+                Map.of(),
+                Map.of()
+            ),
+            XContentParserConfiguration.EMPTY.withRegistry(new NamedXContentRegistry(ClusterModule.getNamedXWriteables()))
+                .withDeprecationHandler(LoggingDeprecationHandler.INSTANCE),
+            similarityService,
+            mapperRegistry,
+            () -> { throw new UnsupportedOperationException(); },
+            new IdFieldMapper(() -> true),
+            new ScriptCompiler() {
+                @Override
+                public <T> T compile(Script script, ScriptContext<T> scriptContext) {
+                    throw new UnsupportedOperationException();
+                }
+            }
+        );
+        mapperService.merge("_doc", new CompressedXContent(mappings), MapperService.MergeReason.MAPPING_UPDATE);
+        return mapperService;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.common.bytes;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@Warmup(iterations = 5)
+@Measurement(iterations = 7)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Fork(value = 1)
+public class CompositeBytesReferenceReadBytesBenchmark {
+
+    @Param(value = { "104857600" })
+    int length;
+
+    // the size of the network buffers that an inbound transport message is aggregated from
+    @Param(value = { "1024", "65536" })
+    int sliceSize;
+
+    // the size of the reads, e.g. documents of a bulk request or chunks of a recovery
+    @Param(value = { "100", "524288" })
+    int readSize;
+
+    private StreamInput streamInput;
+
+    private byte[] buffer;
+
+    @Setup
+    public void initResults() throws IOException {
+        final byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        final BytesReference composite = CompositeBytesReferenceReadVLongBenchmark.toComposite(new BytesArray(bytes), sliceSize);
+        // inbound transport messages are read through a releasable reference
+        this.streamInput = ReleasableBytesReference.wrap(composite).streamInput();
+        this.buffer = new byte[readSize];
+    }
+
+    @Benchmark
+    public int readBytes() throws IOException {
+        int res = 0;
+        streamInput.reset();
+        for (int remaining = length; remaining > 0; remaining -= readSize) {
+            final int len = Math.min(readSize, remaining);
+            streamInput.readBytes(buffer, 0, len);
+            res = res ^ buffer[len - 1];
+        }
+        return res;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.http.HttpPipelinedRequest;
+import org.elasticsearch.http.HttpPipelinedResponse;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Handles an HTTP/2 connection at the level of the connection itself, below the pipelines of its streams. The requests of all streams
+ * are dispatched with the {@link Netty4HttpChannel} of the connection, using the stream id as the sequence of the
+ * {@link HttpPipelinedRequest}, so that each stream counts as a request of the same client like the pipelined requests of an HTTP/1.1
+ * connection do. The responses are written to the connection channel in turn, and this handler routes each of them to the stream that
+ * the request came from. Unlike with HTTP/1.1 pipelining the responses don't wait for each other, every stream sends its own as soon as
+ * it is ready, subject to the flow control of that stream.
+ */
+final class Netty4Http2ConnectionHandler extends ChannelDuplexHandler {
+
+    private static final Logger logger = LogManager.getLogger(Netty4Http2ConnectionHandler.class);
+
+    private final Netty4HttpServerTransport serverTransport;
+    private final int connectionWindowSize;
+    // the streams whose requests await their response, only accessed on the event loop of the connection that its streams share
+    private final Map<Integer, Http2StreamChannel> streams = new HashMap<>();
+
+    /**
+     * @param connectionWindowSize the size of the flow control window of the whole connection, which starts at 64kb - 1 bytes
+     *                             regardless of the initial window size of the streams
+     */
+    Netty4Http2ConnectionHandler(Netty4HttpServerTransport serverTransport, int connectionWindowSize) {
+        this.serverTransport = serverTransport;
+        this.connectionWindowSize = connectionWindowSize;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        final int increment = connectionWindowSize - Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+        if (increment > 0) {
+            // a window update frame without a stream applies to the connection
+            ctx.writeAndFlush(new DefaultHttp2WindowUpdateFrame(increment));
+        }
+    }
+
+    private void addStream(Http2StreamChannel stream) {
+        final int id = stream.stream().id();
+        final Http2StreamChannel previous = streams.put(id, stream);
+        assert previous == null : "stream [" + id + "] already has a request";
+        stream.closeFuture().addListener(f -> streams.remove(id, stream));
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof HttpPipelinedResponse response) {
+            final Http2StreamChannel stream = streams.remove(response.getSequence());
+            if (stream == null) {
+                // the client reset the stream, or the connection closed, before the response was ready
+                promise.setFailure(new ClosedChannelException());
+            } else {
+                stream.writeAndFlush(response.getDelegateRequest()).addListener(f -> {
+                    if (f.isSuccess()) {
+                        promise.trySuccess();
+                    } else {
+                        promise.tryFailure(f.cause());
+                    }
+                });
+            }
+        } else {
+            ctx.write(msg, promise);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        ExceptionsHelper.maybeDieOnAnotherThread(cause);
+        Netty4HttpChannel channel = ctx.channel().attr(Netty4HttpServerTransport.HTTP_CHANNEL_KEY).get();
+        if (cause instanceof Error) {
+            serverTransport.onException(channel, new Exception(cause));
+        } else {
+            serverTransport.onException(channel, (Exception) cause);
+        }
+    }
+
+    /**
+     * The last handler in the pipeline of every stream, which dispatches the request of the stream on behalf of its connection.
+     */
+    @ChannelHandler.Sharable
+    static class StreamHandler extends SimpleChannelInboundHandler<Netty4HttpRequest> {
+
+        private final Netty4HttpServerTransport serverTransport;
+
+        StreamHandler(Netty4HttpServerTransport serverTransport) {
+            this.serverTransport = serverTransport;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Netty4HttpRequest request) {
+            final Http2StreamChannel stream = (Http2StreamChannel) ctx.channel();
+            final Channel connection = stream.parent();
+            final Netty4HttpChannel channel = connection.attr(Netty4HttpServerTransport.HTTP_CHANNEL_KEY).get();
+            final HttpPipelinedRequest pipelinedRequest = new HttpPipelinedRequest(stream.stream().id(), request);
+            boolean success = false;
+            try {
+                connection.pipeline().get(Netty4Http2ConnectionHandler.class).addStream(stream);
+                serverTransport.incomingRequest(pipelinedRequest, channel);
+                success = true;
+            } finally {
+                if (success == false) {
+                    pipelinedRequest.release();
+                }
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ExceptionsHelper.maybeDieOnAnotherThread(cause);
+            // errors that concern a single stream, like a request that is too large, reset only that stream and not the connection
+            logger.debug(() -> new ParameterizedMessage("closing HTTP/2 stream of [{}] after an exception", ctx.channel().parent()), cause);
+            ctx.close();
+        }
+    }
+}
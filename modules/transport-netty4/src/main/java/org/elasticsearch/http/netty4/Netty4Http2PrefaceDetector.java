@@ -0,0 +1,53 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Tells HTTP/2 connections apart from HTTP/1.1 ones by whether they start with the HTTP/2 connection preface, which clients that know
+ * that the server speaks HTTP/2 send right away, either because they were told so or because they negotiated {@code h2} via ALPN
+ * during the TLS handshake. The preface is no valid HTTP/1.1 request, so the first bytes that don't match it are enough to tell that the
+ * connection is an HTTP/1.1 one. Either way the detector removes itself from the pipeline once it knows, passing on the bytes it has
+ * buffered to the handlers that follow.
+ */
+final class Netty4Http2PrefaceDetector extends ByteToMessageDecoder {
+
+    private static final ByteBuf PREFACE = Http2CodecUtil.connectionPrefaceBuf();
+
+    private final Consumer<ChannelPipeline> http2Configurer;
+
+    /**
+     * @param http2Configurer switches the pipeline over to HTTP/2 once the preface has been received
+     */
+    Netty4Http2PrefaceDetector(Consumer<ChannelPipeline> http2Configurer) {
+        this.http2Configurer = http2Configurer;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        final int length = Math.min(in.readableBytes(), PREFACE.readableBytes());
+        if (ByteBufUtil.equals(in, in.readerIndex(), PREFACE, PREFACE.readerIndex(), length) == false) {
+            ctx.pipeline().remove(this);
+        } else if (length == PREFACE.readableBytes()) {
+            // the HTTP/2 codec reads the preface itself, so it stays in the buffer
+            http2Configurer.accept(ctx.pipeline());
+            ctx.pipeline().remove(this);
+        }
+        // otherwise the bytes so far match the preface but there are too few of them to be sure, so we wait for more
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.util.function.Predicate;
+
+/**
+ * Aggregates the content of HTTP requests like {@link HttpObjectAggregator} does, except for the requests whose body should be
+ * streamed: these go on as soon as their headers have arrived, as a {@link StreamedHttpRequest} without content, and their content
+ * follows through the {@link Netty4HttpBodyStream} of the request once the handler asks for it.
+ */
+final class Netty4HttpAggregator extends HttpObjectAggregator {
+
+    private final Predicate<HttpRequest> streamBody;
+    // the body of the request that is being received, if it is streamed
+    private Netty4HttpBodyStream currentStream;
+
+    Netty4HttpAggregator(int maxContentLength, Predicate<HttpRequest> streamBody) {
+        super(maxContentLength);
+        this.streamBody = streamBody;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (currentStream != null && msg instanceof HttpContent content) {
+            final Netty4HttpBodyStream stream = currentStream;
+            if (content instanceof LastHttpContent) {
+                currentStream = null;
+            }
+            stream.handleContent(content);
+        } else if (msg instanceof HttpRequest request
+            && msg instanceof FullHttpRequest == false
+            && request.decoderResult().isSuccess()
+            && streamBody.test(request)) {
+                if (HttpUtil.is100ContinueExpected(request)) {
+                    // a streamed body may be as long as it likes, so there is no reason to turn it down
+                    ctx.writeAndFlush(
+                        new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER)
+                    );
+                    request.headers().remove(HttpHeaderNames.EXPECT);
+                }
+                currentStream = new Netty4HttpBodyStream(ctx.channel());
+                ctx.fireChannelRead(new StreamedHttpRequest(request, currentStream));
+            } else {
+                super.channelRead(ctx, msg);
+            }
+    }
+
+    /**
+     * A request whose content follows through its {@link Netty4HttpBodyStream}, which otherwise goes through the rest of the pipeline
+     * like an aggregated request does.
+     */
+    static final class StreamedHttpRequest extends DefaultFullHttpRequest {
+
+        private final Netty4HttpBodyStream bodyStream;
+
+        StreamedHttpRequest(HttpRequest request, Netty4HttpBodyStream bodyStream) {
+            super(
+                request.protocolVersion(),
+                request.method(),
+                request.uri(),
+                Unpooled.EMPTY_BUFFER,
+                request.headers(),
+                new DefaultHttpHeaders()
+            );
+            this.bodyStream = bodyStream;
+        }
+
+        Netty4HttpBodyStream bodyStream() {
+            return bodyStream;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.transport.netty4.Netty4Utils;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * The body of a request that {@link Netty4HttpAggregator} doesn't aggregate. The channel stops reading automatically while the body
+ * arrives and only reads when the handler asks for a chunk that hasn't arrived yet, so that a handler that is slow to ask for chunks
+ * makes the client wait too, all the way back through TCP or HTTP/2 flow control. Everything but {@link #setHandler} and {@link #next}
+ * happens on the event loop of the channel.
+ */
+final class Netty4HttpBodyStream implements HttpBodyStream {
+
+    private final Channel channel;
+    // the content that has arrived but that the handler hasn't asked for yet, which is no more than what a single read decodes to
+    private final Queue<HttpContent> buffered = new ArrayDeque<>();
+    private volatile ChunkHandler handler;
+    private int requested;
+    private boolean receivedLast;
+    // whether the handler is done with the body, because it got all of it or because the request or the channel is closed
+    private boolean done;
+
+    Netty4HttpBodyStream(Channel channel) {
+        this.channel = channel;
+        channel.config().setAutoRead(false);
+        channel.closeFuture().addListener(f -> onClose());
+    }
+
+    @Override
+    public void setHandler(ChunkHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void next() {
+        assert handler != null : "the handler must be set before asking for chunks";
+        // always fork, so that handlers that ask for the next chunk while handling one don't recurse
+        channel.eventLoop().execute(() -> {
+            if (done == false) {
+                requested++;
+                deliver();
+            }
+        });
+    }
+
+    /**
+     * Takes the next piece of the body off the network.
+     */
+    void handleContent(HttpContent content) {
+        assert channel.eventLoop().inEventLoop();
+        if (content instanceof LastHttpContent) {
+            receivedLast = true;
+            // whatever follows the body belongs to the next request, which is read as usual
+            channel.config().setAutoRead(true);
+        }
+        if (content.decoderResult().isFailure()) {
+            // the rest of the body can't be trusted, and neither can anything that follows it on the connection
+            content.release();
+            channel.close();
+        } else if (done) {
+            content.release();
+        } else {
+            buffered.add(content);
+            deliver();
+        }
+    }
+
+    private void deliver() {
+        while (requested > 0 && buffered.isEmpty() == false) {
+            final HttpContent content = buffered.poll();
+            requested--;
+            final boolean isLast = content instanceof LastHttpContent;
+            if (isLast) {
+                done = true;
+            }
+            final ByteBuf buffer = content.content();
+            handler.onNext(new ReleasableBytesReference(Netty4Utils.toBytesReference(buffer), buffer::release), isLast);
+        }
+        if (requested > 0 && receivedLast == false) {
+            channel.read();
+        }
+    }
+
+    /**
+     * Drops the rest of the body, which nothing is going to ask for since the request has been released, reading it off the network
+     * as fast as it arrives so that the requests that follow it on the channel don't get stuck behind it.
+     */
+    void discard() {
+        channel.eventLoop().execute(() -> {
+            if (done == false) {
+                done = true;
+                releaseBuffered();
+                if (receivedLast == false) {
+                    channel.config().setAutoRead(true);
+                }
+            }
+        });
+    }
+
+    private void onClose() {
+        releaseBuffered();
+        if (done == false) {
+            done = true;
+            final ChunkHandler chunkHandler = handler;
+            if (chunkHandler != null) {
+                chunkHandler.close();
+            }
+        }
+    }
+
+    private void releaseBuffered() {
+        HttpContent content;
+        while ((content = buffered.poll()) != null) {
+            content.release();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.transport.netty4.NettyAllocator;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses HTTP responses with gzip or deflate, whichever the request prefers according to its {@code Accept-Encoding} header, like
+ * Netty's {@link HttpContentCompressor} does. Unlike Netty's compressor it doesn't create a {@link Deflater} and an intermediate
+ * channel for every response: it borrows a deflater from a {@link Netty4HttpDeflaterPool} that all channels share, feeds it the pages
+ * of the response straight from their buffers, and writes the compressed content to pooled buffers of bounded size.
+ */
+final class Netty4HttpContentCompressor extends MessageToMessageCodec<HttpRequest, HttpObject> {
+
+    // the compressed chunks stay well below the size of huge allocations, like the chunks of Netty4HttpResponseCreator do
+    static final int MAX_CHUNK_SIZE = (int) Math.min(64 * 1024, NettyAllocator.suggestedMaxAllocationSize());
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    enum Encoding {
+        GZIP("gzip", true),
+        DEFLATE("deflate", false);
+
+        private final String name;
+        private final boolean nowrap;
+
+        Encoding(String name, boolean nowrap) {
+            this.name = name;
+            this.nowrap = nowrap;
+        }
+
+        /**
+         * Picks the encoding with the highest quality value in the given {@code Accept-Encoding} header, preferring gzip on a tie.
+         * Encodings that we don't support, like {@code br}, are ignored.
+         *
+         * @return the encoding, or {@code null} if the header accepts neither gzip nor deflate
+         */
+        @Nullable
+        static Encoding negotiate(@Nullable String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return null;
+            }
+            float gzip = -1f;
+            float deflate = -1f;
+            float any = -1f;
+            for (String element : acceptEncoding.split(",")) {
+                final String[] parts = element.split(";");
+                final String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+                float quality = 1f;
+                for (int i = 1; i < parts.length; i++) {
+                    final String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            quality = Float.parseFloat(parameter.substring(2));
+                        } catch (NumberFormatException e) {
+                            quality = 0f;
+                        }
+                    }
+                }
+                switch (coding) {
+                    case "gzip", "x-gzip" -> gzip = Math.max(gzip, quality);
+                    case "deflate" -> deflate = Math.max(deflate, quality);
+                    case "*" -> any = Math.max(any, quality);
+                }
+            }
+            // the wildcard stands for the encodings that the header doesn't name
+            if (gzip < 0f) {
+                gzip = any;
+            }
+            if (deflate < 0f) {
+                deflate = any;
+            }
+            if (gzip > 0f && gzip >= deflate) {
+                return GZIP;
+            } else if (deflate > 0f) {
+                return DEFLATE;
+            }
+            return null;
+        }
+    }
+
+    private final Netty4HttpDeflaterPool deflaterPool;
+    // the Accept-Encoding headers of the requests whose responses are yet to be written, or "" if a response must not be compressed
+    private final Queue<String> acceptEncodings = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+
+    // the encoding and deflater of the response being written, if it is compressed
+    private Encoding encoding;
+    private Deflater deflater;
+    private ByteBuf output;
+    private int chunkSize;
+
+    Netty4HttpContentCompressor(Netty4HttpDeflaterPool deflaterPool) {
+        this.deflaterPool = deflaterPool;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, HttpRequest msg, List<Object> out) {
+        final String acceptEncoding = msg.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+        acceptEncodings.add(acceptEncoding == null || HttpMethod.HEAD.equals(msg.method()) ? "" : acceptEncoding);
+        out.add(ReferenceCountUtil.retain(msg));
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, HttpObject msg, List<Object> out) {
+        if (msg instanceof HttpResponse response) {
+            assert deflater == null : "the previous response is not complete yet";
+            if (response.status().code() < 200) {
+                // informational responses precede the actual response to the request
+                out.add(ReferenceCountUtil.retain(msg));
+                return;
+            }
+            final String acceptEncoding = acceptEncodings.poll();
+            if (acceptEncoding == null) {
+                throw new IllegalStateException("cannot send more responses than requests");
+            }
+            final Encoding negotiated = isCompressible(response) ? Encoding.negotiate(acceptEncoding) : null;
+            if (negotiated == null) {
+                out.add(ReferenceCountUtil.retain(msg));
+                return;
+            }
+
+            final HttpResponse head;
+            if (response instanceof FullHttpResponse) {
+                // the content follows in chunks of its own, the headers are shared since only the content needs releasing
+                head = new DefaultHttpResponse(response.protocolVersion(), response.status(), response.headers());
+            } else {
+                head = response;
+            }
+            head.headers().remove(HttpHeaderNames.CONTENT_LENGTH);
+            head.headers().set(HttpHeaderNames.CONTENT_ENCODING, negotiated.name);
+            head.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+            out.add(head);
+
+            encoding = negotiated;
+            deflater = deflaterPool.acquire(negotiated.nowrap);
+            if (response instanceof FullHttpResponse fullResponse) {
+                // size the output for content that compresses poorly, to avoid over-allocating for small responses
+                final long bound = deflateBound(fullResponse.content().readableBytes());
+                chunkSize = (int) Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, bound));
+            } else {
+                chunkSize = MAX_CHUNK_SIZE;
+            }
+            if (negotiated == Encoding.GZIP) {
+                crc.reset();
+                ensureWritable(ctx, GZIP_HEADER.length, out);
+                output.writeBytes(GZIP_HEADER);
+            }
+            if (response instanceof FullHttpResponse fullResponse) {
+                compress(ctx, fullResponse, out);
+            }
+        } else if (msg instanceof HttpContent content && deflater != null) {
+            compress(ctx, content, out);
+        } else {
+            out.add(ReferenceCountUtil.retain(msg));
+        }
+    }
+
+    private static boolean isCompressible(HttpResponse response) {
+        final int code = response.status().code();
+        if (code == 204 || code == 304) {
+            return false;
+        }
+        // compressed content has no length up front, so it needs chunked transfer encoding which HTTP/1.0 doesn't have
+        if (HttpVersion.HTTP_1_0.equals(response.protocolVersion())) {
+            return false;
+        }
+        final String contentEncoding = response.headers().get(HttpHeaderNames.CONTENT_ENCODING);
+        if (contentEncoding != null && HttpHeaderValues.IDENTITY.contentEqualsIgnoreCase(contentEncoding) == false) {
+            return false;
+        }
+        return response instanceof FullHttpResponse == false || ((FullHttpResponse) response).content().isReadable();
+    }
+
+    private void compress(ChannelHandlerContext ctx, HttpContent content, List<Object> out) {
+        final ByteBuf input = content.content();
+        if (input.isReadable()) {
+            // the pages of the content go into the deflater as they are, without copying them to a contiguous array first
+            for (ByteBuffer page : input.nioBuffers()) {
+                if (encoding == Encoding.GZIP) {
+                    crc.update(page.duplicate());
+                }
+                deflater.setInput(page);
+                while (deflater.needsInput() == false) {
+                    deflate(ctx, out);
+                }
+            }
+        }
+
+        if (content instanceof LastHttpContent lastContent) {
+            deflater.finish();
+            while (deflater.finished() == false) {
+                deflate(ctx, out);
+            }
+            if (encoding == Encoding.GZIP) {
+                ensureWritable(ctx, GZIP_TRAILER_SIZE, out);
+                output.writeIntLE((int) crc.getValue());
+                output.writeIntLE((int) deflater.getBytesRead());
+            }
+            final LastHttpContent last = new DefaultLastHttpContent(takeOutput());
+            last.trailingHeaders().set(lastContent.trailingHeaders());
+            out.add(last);
+            releaseDeflater();
+        } else {
+            // there must be a message for every message written, even if the deflater hasn't produced anything for this one yet
+            out.add(new DefaultHttpContent(takeOutput()));
+        }
+    }
+
+    private void deflate(ChannelHandlerContext ctx, List<Object> out) {
+        ensureWritable(ctx, 1, out);
+        final int writerIndex = output.writerIndex();
+        final int written = deflater.deflate(output.nioBuffer(writerIndex, output.writableBytes()), Deflater.NO_FLUSH);
+        output.writerIndex(writerIndex + written);
+    }
+
+    /**
+     * Makes sure that the output buffer has room for at least the given number of bytes, emitting it as a chunk and allocating the
+     * next one if it doesn't.
+     */
+    private void ensureWritable(ChannelHandlerContext ctx, int bytes, List<Object> out) {
+        if (output != null && output.writableBytes() >= bytes) {
+            return;
+        }
+        if (output != null) {
+            out.add(new DefaultHttpContent(takeOutput()));
+        }
+        output = ctx.alloc().buffer(Math.max(bytes, chunkSize));
+    }
+
+    private static long deflateBound(long length) {
+        // deflate adds 5 bytes per stored block of at most 16kb, plus the headers and trailers, if nothing compresses
+        return length + (length >> 12) + 64;
+    }
+
+    private ByteBuf takeOutput() {
+        final ByteBuf taken = output == null ? Unpooled.EMPTY_BUFFER : output;
+        output = null;
+        return taken;
+    }
+
+    private void releaseDeflater() {
+        if (deflater != null) {
+            deflaterPool.release(deflater, encoding.nowrap);
+            deflater = null;
+            encoding = null;
+        }
+        if (output != null) {
+            output.release();
+            output = null;
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        releaseDeflater();
+        super.handlerRemoved(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseDeflater();
+        super.channelInactive(ctx);
+    }
+}
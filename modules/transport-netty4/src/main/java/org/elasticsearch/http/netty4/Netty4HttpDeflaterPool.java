@@ -0,0 +1,88 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import org.elasticsearch.core.Releasable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * A pool of {@link Deflater}s that the HTTP channels of a node share for compressing responses. A deflater holds a few hundred
+ * kilobytes of native memory that creating it allocates and that only {@link Deflater#end()} frees, so creating one for every
+ * response costs more than compressing a small response does. Responses are compressed on the network threads without waiting for
+ * anything in between, so the pool only needs to keep about one deflater per network thread; any beyond that are ended when they are
+ * released.
+ */
+final class Netty4HttpDeflaterPool implements Releasable {
+
+    private final int level;
+    // deflaters that write the zlib header and trailer, for the deflate encoding
+    private final BlockingQueue<Deflater> zlibDeflaters;
+    // deflaters that write raw deflate blocks, which gzip wraps in its own header and trailer
+    private final BlockingQueue<Deflater> rawDeflaters;
+    private volatile boolean closed;
+
+    Netty4HttpDeflaterPool(int level, int maxPooled) {
+        if (maxPooled < 1) {
+            throw new IllegalArgumentException("max pooled deflaters must be at least 1 but was [" + maxPooled + "]");
+        }
+        this.level = level;
+        this.zlibDeflaters = new ArrayBlockingQueue<>(maxPooled);
+        this.rawDeflaters = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    /**
+     * Takes a deflater out of the pool, or creates one if the pool is empty.
+     *
+     * @param nowrap whether the deflater writes raw deflate blocks rather than the zlib format
+     */
+    Deflater acquire(boolean nowrap) {
+        final Deflater deflater = queue(nowrap).poll();
+        return deflater == null ? new Deflater(level, nowrap) : deflater;
+    }
+
+    /**
+     * Resets the given deflater and returns it to the pool, or frees it if the pool is full or closed.
+     *
+     * @param nowrap whether the deflater was {@link #acquire acquired} to write raw deflate blocks
+     */
+    void release(Deflater deflater, boolean nowrap) {
+        if (closed == false) {
+            deflater.reset();
+            if (queue(nowrap).offer(deflater)) {
+                if (closed == false || queue(nowrap).remove(deflater) == false) {
+                    return;
+                }
+            }
+        }
+        deflater.end();
+    }
+
+    private BlockingQueue<Deflater> queue(boolean nowrap) {
+        return nowrap ? rawDeflaters : zlibDeflaters;
+    }
+
+    int pooledCount() {
+        return zlibDeflaters.size() + rawDeflaters.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Deflater deflater;
+        while ((deflater = zlibDeflaters.poll()) != null) {
+            deflater.end();
+        }
+        while ((deflater = rawDeflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+}
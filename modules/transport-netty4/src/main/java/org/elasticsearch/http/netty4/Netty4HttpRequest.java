@@ -21,6 +21,7 @@ import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
 
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.http.HttpBodyStream;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
@@ -43,6 +44,7 @@ public class Netty4HttpRequest implements HttpRequest {
     private final AtomicBoolean released;
     private final Exception inboundException;
     private final boolean pooled;
+    private final Netty4HttpBodyStream bodyStream;
 
     Netty4HttpRequest(FullHttpRequest request) {
         this(
@@ -54,6 +56,21 @@ public class Netty4HttpRequest implements HttpRequest {
         );
     }
 
+    /**
+     * A request whose body follows through the given stream rather than with the request itself.
+     */
+    Netty4HttpRequest(FullHttpRequest request, Netty4HttpBodyStream bodyStream) {
+        this(
+            request,
+            new HttpHeadersMap(request.headers()),
+            new AtomicBoolean(false),
+            true,
+            Netty4Utils.toBytesReference(request.content()),
+            null,
+            bodyStream
+        );
+    }
+
     Netty4HttpRequest(FullHttpRequest request, Exception inboundException) {
         this(
             request,
@@ -61,7 +78,8 @@ public class Netty4HttpRequest implements HttpRequest {
             new AtomicBoolean(false),
             true,
             Netty4Utils.toBytesReference(request.content()),
-            inboundException
+            inboundException,
+            null
         );
     }
 
@@ -72,7 +90,7 @@ public class Netty4HttpRequest implements HttpRequest {
         boolean pooled,
         BytesReference content
     ) {
-        this(request, headers, released, pooled, content, null);
+        this(request, headers, released, pooled, content, null, null);
     }
 
     private Netty4HttpRequest(
@@ -81,7 +99,8 @@ public class Netty4HttpRequest implements HttpRequest {
         AtomicBoolean released,
         boolean pooled,
         BytesReference content,
-        Exception inboundException
+        Exception inboundException,
+        Netty4HttpBodyStream bodyStream
     ) {
         this.request = request;
         this.headers = headers;
@@ -89,6 +108,7 @@ public class Netty4HttpRequest implements HttpRequest {
         this.pooled = pooled;
         this.released = released;
         this.inboundException = inboundException;
+        this.bodyStream = bodyStream;
     }
 
     @Override
@@ -136,17 +156,26 @@ public class Netty4HttpRequest implements HttpRequest {
         return content;
     }
 
+    @Override
+    public HttpBodyStream bodyStream() {
+        return bodyStream;
+    }
+
     @Override
     public void release() {
         if (pooled && released.compareAndSet(false, true)) {
             request.release();
+            if (bodyStream != null) {
+                bodyStream.discard();
+            }
         }
     }
 
     @Override
     public HttpRequest releaseAndCopy() {
         assert released.get() == false;
-        if (pooled == false) {
+        // a streamed request has no content to copy, and releasing it would drop its body
+        if (pooled == false || bodyStream != null) {
             return this;
         }
         try {
@@ -214,7 +243,15 @@ public class Netty4HttpRequest implements HttpRequest {
             headersWithoutContentTypeHeader,
             trailingHeaders
         );
-        return new Netty4HttpRequest(requestWithoutHeader, new HttpHeadersMap(requestWithoutHeader.headers()), released, pooled, content);
+        return new Netty4HttpRequest(
+            requestWithoutHeader,
+            new HttpHeadersMap(requestWithoutHeader.headers()),
+            released,
+            pooled,
+            content,
+            null,
+            bodyStream
+        );
     }
 
     @Override
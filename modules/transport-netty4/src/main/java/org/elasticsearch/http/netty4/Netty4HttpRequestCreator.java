@@ -36,6 +36,8 @@ final class Netty4HttpRequestCreator extends MessageToMessageDecoder<FullHttpReq
                 nonError = (Exception) cause;
             }
             out.add(new Netty4HttpRequest(msg.retain(), nonError));
+        } else if (msg instanceof Netty4HttpAggregator.StreamedHttpRequest streamedRequest) {
+            out.add(new Netty4HttpRequest(streamedRequest.retain(), streamedRequest.bodyStream()));
         } else {
             out.add(new Netty4HttpRequest(msg.retain()));
         }
@@ -12,7 +12,6 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import io.netty.handler.codec.compression.JdkZlibEncoder;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
@@ -24,7 +23,7 @@ import org.elasticsearch.transport.netty4.NettyAllocator;
 import java.util.List;
 
 /**
- * Split up large responses to prevent batch compression {@link JdkZlibEncoder} down the pipeline.
+ * Split up large responses to prevent batch compression {@link Netty4HttpContentCompressor} down the pipeline.
  */
 @ChannelHandler.Sharable
 final class Netty4HttpResponseCreator extends MessageToMessageEncoder<Netty4HttpResponse> {
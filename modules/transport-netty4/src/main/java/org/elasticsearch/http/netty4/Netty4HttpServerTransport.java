@@ -16,15 +16,22 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.RecvByteBufAllocator;
-import io.netty.channel.socket.nio.NioChannelOption;
 import io.netty.handler.codec.ByteToMessageDecoder;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.timeout.ReadTimeoutException;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.util.AttributeKey;
@@ -42,12 +49,12 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.internal.io.IOUtils;
-import org.elasticsearch.core.internal.net.NetUtils;
 import org.elasticsearch.http.AbstractHttpServerTransport;
 import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.HttpHandlingSettings;
 import org.elasticsearch.http.HttpReadTimeoutException;
 import org.elasticsearch.http.HttpServerChannel;
+import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.netty4.Netty4Utils;
 import org.elasticsearch.transport.netty4.NettyAllocator;
@@ -56,7 +63,7 @@ import org.elasticsearch.transport.netty4.SharedGroupFactory;
 import org.elasticsearch.xcontent.NamedXContentRegistry;
 
 import java.net.InetSocketAddress;
-import java.net.SocketOption;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_MAX_CHUNK_SIZE;
@@ -127,6 +134,28 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
         Property.NodeScope
     );
 
+    public static final Setting<Boolean> SETTING_HTTP_HTTP2_ENABLED = Setting.boolSetting(
+        "http.netty.http2.enabled",
+        false,
+        Property.NodeScope
+    );
+
+    public static final Setting<Integer> SETTING_HTTP_HTTP2_MAX_CONCURRENT_STREAMS = Setting.intSetting(
+        "http.netty.http2.max_concurrent_streams",
+        128,
+        1,
+        Property.NodeScope
+    );
+
+    // HTTP/2 allows flow control windows of up to 2^31-1 bytes, and requires that they start at no less than 64kb - 1
+    public static final Setting<ByteSizeValue> SETTING_HTTP_HTTP2_INITIAL_WINDOW_SIZE = Setting.byteSizeSetting(
+        "http.netty.http2.initial_window_size",
+        new ByteSizeValue(1, ByteSizeUnit.MB),
+        new ByteSizeValue(Http2CodecUtil.DEFAULT_WINDOW_SIZE),
+        new ByteSizeValue(Http2CodecUtil.MAX_INITIAL_WINDOW_SIZE),
+        Property.NodeScope
+    );
+
     private final int pipeliningMaxEvents;
 
     private final SharedGroupFactory sharedGroupFactory;
@@ -135,6 +164,12 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
 
     private final int maxCompositeBufferComponents;
 
+    private final Netty4HttpDeflaterPool deflaterPool;
+
+    private final boolean http2Enabled;
+    private final Http2Settings http2Settings;
+    private final int http2ConnectionWindowSize;
+
     private volatile ServerBootstrap serverBootstrap;
     private volatile SharedGroupFactory.SharedGroup sharedGroup;
 
@@ -162,16 +197,36 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
         ByteSizeValue receivePredictor = SETTING_HTTP_NETTY_RECEIVE_PREDICTOR_SIZE.get(settings);
         recvByteBufAllocator = new FixedRecvByteBufAllocator(receivePredictor.bytesAsInt());
 
+        // responses are compressed on the network threads, which need no more than a deflater each
+        final int httpWorkerCount = SETTING_HTTP_WORKER_COUNT.get(settings);
+        this.deflaterPool = new Netty4HttpDeflaterPool(
+            handlingSettings.getCompressionLevel(),
+            httpWorkerCount > 0 ? httpWorkerCount : sharedGroupFactory.getTransportWorkerCount()
+        );
+
+        this.http2Enabled = SETTING_HTTP_HTTP2_ENABLED.get(settings);
+        this.http2Settings = Http2Settings.defaultSettings()
+            .maxConcurrentStreams(SETTING_HTTP_HTTP2_MAX_CONCURRENT_STREAMS.get(settings))
+            .initialWindowSize(SETTING_HTTP_HTTP2_INITIAL_WINDOW_SIZE.get(settings).bytesAsInt())
+            .maxHeaderListSize(handlingSettings.getMaxHeaderSize());
+        // a stream whose body is streamed keeps the part of its window that the handler hasn't asked for yet, so the window of the
+        // connection has room for the windows of all its streams, lest such a stream stop the others from sending their requests
+        this.http2ConnectionWindowSize = (int) Math.min(
+            (long) http2Settings.initialWindowSize() * http2Settings.maxConcurrentStreams(),
+            Http2CodecUtil.MAX_INITIAL_WINDOW_SIZE
+        );
+
         logger.debug(
             "using max_chunk_size[{}], max_header_size[{}], max_initial_line_length[{}], max_content_length[{}], "
-                + "receive_predictor[{}], max_composite_buffer_components[{}], pipelining_max_events[{}]",
+                + "receive_predictor[{}], max_composite_buffer_components[{}], pipelining_max_events[{}], http2_enabled[{}]",
             SETTING_HTTP_MAX_CHUNK_SIZE.get(settings),
             SETTING_HTTP_MAX_HEADER_SIZE.get(settings),
             SETTING_HTTP_MAX_INITIAL_LINE_LENGTH.get(settings),
             maxContentLength,
             receivePredictor,
             maxCompositeBufferComponents,
-            pipeliningMaxEvents
+            pipeliningMaxEvents,
+            http2Enabled
         );
     }
 
@@ -205,24 +260,21 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
                 // Netty logs a warning if it can't set the option, so try this only on supported platforms
                 if (IOUtils.LINUX || IOUtils.MAC_OS_X) {
                     if (SETTING_HTTP_TCP_KEEP_IDLE.get(settings) >= 0) {
-                        final SocketOption<Integer> keepIdleOption = NetUtils.getTcpKeepIdleSocketOptionOrNull();
+                        final ChannelOption<Integer> keepIdleOption = NettyAllocator.getTcpKeepIdleOption();
                         if (keepIdleOption != null) {
-                            serverBootstrap.childOption(NioChannelOption.of(keepIdleOption), SETTING_HTTP_TCP_KEEP_IDLE.get(settings));
+                            serverBootstrap.childOption(keepIdleOption, SETTING_HTTP_TCP_KEEP_IDLE.get(settings));
                         }
                     }
                     if (SETTING_HTTP_TCP_KEEP_INTERVAL.get(settings) >= 0) {
-                        final SocketOption<Integer> keepIntervalOption = NetUtils.getTcpKeepIntervalSocketOptionOrNull();
+                        final ChannelOption<Integer> keepIntervalOption = NettyAllocator.getTcpKeepIntervalOption();
                         if (keepIntervalOption != null) {
-                            serverBootstrap.childOption(
-                                NioChannelOption.of(keepIntervalOption),
-                                SETTING_HTTP_TCP_KEEP_INTERVAL.get(settings)
-                            );
+                            serverBootstrap.childOption(keepIntervalOption, SETTING_HTTP_TCP_KEEP_INTERVAL.get(settings));
                         }
                     }
                     if (SETTING_HTTP_TCP_KEEP_COUNT.get(settings) >= 0) {
-                        final SocketOption<Integer> keepCountOption = NetUtils.getTcpKeepCountSocketOptionOrNull();
+                        final ChannelOption<Integer> keepCountOption = NettyAllocator.getTcpKeepCountOption();
                         if (keepCountOption != null) {
-                            serverBootstrap.childOption(NioChannelOption.of(keepCountOption), SETTING_HTTP_TCP_KEEP_COUNT.get(settings));
+                            serverBootstrap.childOption(keepCountOption, SETTING_HTTP_TCP_KEEP_COUNT.get(settings));
                         }
                     }
                 }
@@ -269,6 +321,16 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
             sharedGroup.shutdown();
             sharedGroup = null;
         }
+        deflaterPool.close();
+    }
+
+    private boolean shouldStreamBody(HttpRequest request) {
+        if (HttpMethod.POST.equals(request.method())) {
+            return shouldStreamBody(RestRequest.Method.POST, request.uri());
+        } else if (HttpMethod.PUT.equals(request.method())) {
+            return shouldStreamBody(RestRequest.Method.PUT, request.uri());
+        }
+        return false;
     }
 
     @Override
@@ -289,14 +351,29 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
 
     protected static class HttpChannelHandler extends ChannelInitializer<Channel> {
 
+        // the handlers that a connection which switches to HTTP/2 no longer needs
+        private static final List<String> HTTP1_HANDLER_NAMES = List.of(
+            "decoder",
+            "decoder_compress",
+            "encoder",
+            "aggregator",
+            "encoder_compress",
+            "request_creator",
+            "response_creator",
+            "pipelining",
+            "handler"
+        );
+
         private final Netty4HttpServerTransport transport;
         private final Netty4HttpRequestHandler requestHandler;
+        private final Netty4Http2ConnectionHandler.StreamHandler http2StreamHandler;
         private final HttpHandlingSettings handlingSettings;
 
         protected HttpChannelHandler(final Netty4HttpServerTransport transport, final HttpHandlingSettings handlingSettings) {
             this.transport = transport;
             this.handlingSettings = handlingSettings;
             this.requestHandler = new Netty4HttpRequestHandler(transport);
+            this.http2StreamHandler = new Netty4Http2ConnectionHandler.StreamHandler(transport);
         }
 
         @Override
@@ -314,19 +391,67 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
             ch.pipeline().addLast("decoder", decoder);
             ch.pipeline().addLast("decoder_compress", new HttpContentDecompressor());
             ch.pipeline().addLast("encoder", new HttpResponseEncoder());
-            final HttpObjectAggregator aggregator = new HttpObjectAggregator(handlingSettings.getMaxContentLength());
+            final HttpObjectAggregator aggregator = new Netty4HttpAggregator(
+                handlingSettings.getMaxContentLength(),
+                transport::shouldStreamBody
+            );
             aggregator.setMaxCumulationBufferComponents(transport.maxCompositeBufferComponents);
             ch.pipeline().addLast("aggregator", aggregator);
             if (handlingSettings.isCompression()) {
-                ch.pipeline().addLast("encoder_compress", new HttpContentCompressor(handlingSettings.getCompressionLevel()));
+                ch.pipeline().addLast("encoder_compress", new Netty4HttpContentCompressor(transport.deflaterPool));
             }
             ch.pipeline().addLast("request_creator", Netty4HttpRequestCreator.INSTANCE);
             ch.pipeline().addLast("response_creator", Netty4HttpResponseCreator.INSTANCE);
             ch.pipeline().addLast("pipelining", new Netty4HttpPipeliningHandler(logger, transport.pipeliningMaxEvents));
             ch.pipeline().addLast("handler", requestHandler);
+            if (transport.http2Enabled) {
+                ch.pipeline().addBefore("decoder", "http2_detector", new Netty4Http2PrefaceDetector(this::configureHttp2));
+            }
             transport.serverAcceptedChannel(nettyHttpChannel);
         }
 
+        /**
+         * Switches a connection that starts with the HTTP/2 connection preface from the HTTP/1.1 handlers over to HTTP/2. The HTTP/1.1
+         * handlers are then set up for each stream instead, see {@link #configureHttp2Stream}, and the connection keeps the
+         * {@link Netty4HttpChannel} that it was accepted with, so all of its streams count towards the same client in the HTTP stats.
+         */
+        protected void configureHttp2(ChannelPipeline pipeline) {
+            for (String name : HTTP1_HANDLER_NAMES) {
+                if (pipeline.get(name) != null) {
+                    pipeline.remove(name);
+                }
+            }
+            pipeline.addLast("http2_codec", Http2FrameCodecBuilder.forServer().initialSettings(transport.http2Settings).build());
+            pipeline.addLast("http2_multiplexer", new Http2MultiplexHandler(new ChannelInitializer<Http2StreamChannel>() {
+                @Override
+                protected void initChannel(Http2StreamChannel ch) {
+                    configureHttp2Stream(ch);
+                }
+            }));
+            pipeline.addLast("http2_connection", new Netty4Http2ConnectionHandler(transport, transport.http2ConnectionWindowSize));
+        }
+
+        /**
+         * Sets up the pipeline of a single HTTP/2 stream, which converts its frames to the same HTTP/1.1 messages that the handlers of an
+         * HTTP/1.1 connection work with. Each stream carries a single request, so it needs no pipelining.
+         */
+        protected void configureHttp2Stream(Http2StreamChannel ch) {
+            ch.pipeline().addLast("codec", new Http2StreamFrameToHttpObjectCodec(true));
+            ch.pipeline().addLast("decoder_compress", new HttpContentDecompressor());
+            final HttpObjectAggregator aggregator = new Netty4HttpAggregator(
+                handlingSettings.getMaxContentLength(),
+                transport::shouldStreamBody
+            );
+            aggregator.setMaxCumulationBufferComponents(transport.maxCompositeBufferComponents);
+            ch.pipeline().addLast("aggregator", aggregator);
+            if (handlingSettings.isCompression()) {
+                ch.pipeline().addLast("encoder_compress", new Netty4HttpContentCompressor(transport.deflaterPool));
+            }
+            ch.pipeline().addLast("request_creator", Netty4HttpRequestCreator.INSTANCE);
+            ch.pipeline().addLast("response_creator", Netty4HttpResponseCreator.INSTANCE);
+            ch.pipeline().addLast("handler", http2StreamHandler);
+        }
+
         @Override
         public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
             ExceptionsHelper.maybeDieOnAnotherThread(cause);
@@ -53,6 +53,7 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
             transport.getVersion(),
             transport.getStatsTracker(),
             recycler,
+            transport.getCompressionDictionaries()::getDictionary,
             threadPool::relativeTimeInMillis,
             transport.getInflightBreaker(),
             requestHandlers::getHandler,
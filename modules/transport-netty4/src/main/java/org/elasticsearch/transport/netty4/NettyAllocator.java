@@ -14,18 +14,36 @@ import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannelConfig;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioChannelOption;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.recycler.Recycler;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.core.Booleans;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.internal.net.NetUtils;
 import org.elasticsearch.monitor.jvm.JvmInfo;
 
+import java.net.SocketOption;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class NettyAllocator {
@@ -41,14 +59,21 @@ public class NettyAllocator {
     private static final String USE_UNPOOLED = "es.use_unpooled_allocator";
     private static final String USE_NETTY_DEFAULT = "es.unsafe.use_netty_default_allocator";
     private static final String USE_NETTY_DEFAULT_CHUNK = "es.unsafe.use_netty_default_chunk_and_page_size";
+    private static final String USE_EPOLL = "es.use_netty_epoll";
+
+    // whether the channels use Netty's native epoll transport rather than NIO, which needs direct buffers to read and write
+    private static final boolean EPOLL;
 
     static {
+        EPOLL = epollEnabled();
         if (Booleans.parseBoolean(System.getProperty(USE_NETTY_DEFAULT), false)) {
             ALLOCATOR = ByteBufAllocator.DEFAULT;
             SUGGESTED_MAX_ALLOCATION_SIZE = 1024 * 1024;
             DESCRIPTION = "[name=netty_default, suggested_max_allocation_size="
                 + new ByteSizeValue(SUGGESTED_MAX_ALLOCATION_SIZE)
-                + ", factors={es.unsafe.use_netty_default_allocator=true}]";
+                + ", factors={es.unsafe.use_netty_default_allocator=true, es.use_netty_epoll="
+                + EPOLL
+                + "}]";
         } else {
             final long heapSizeInBytes = JvmInfo.jvmInfo().getMem().getHeapMax().getBytes();
             final boolean g1gcEnabled = Boolean.parseBoolean(JvmInfo.jvmInfo().useG1GC());
@@ -77,6 +102,8 @@ public class NettyAllocator {
                     + g1gcRegionSize
                     + ", heap_size="
                     + heapSize
+                    + ", es.use_netty_epoll="
+                    + EPOLL
                     + "}]";
             } else {
                 int nHeapArena = PooledByteBufAllocator.defaultNumHeapArena();
@@ -102,10 +129,11 @@ public class NettyAllocator {
                 int smallCacheSize = PooledByteBufAllocator.defaultSmallCacheSize();
                 int normalCacheSize = PooledByteBufAllocator.defaultNormalCacheSize();
                 boolean useCacheForAllThreads = PooledByteBufAllocator.defaultUseCacheForAllThreads();
+                // the epoll transport reads into and writes from direct buffers, which come from their own arenas
                 delegate = new PooledByteBufAllocator(
-                    false,
+                    EPOLL,
                     nHeapArena,
-                    0,
+                    EPOLL ? PooledByteBufAllocator.defaultNumDirectArena() : 0,
                     pageSize,
                     maxOrder,
                     tinyCacheSize,
@@ -126,9 +154,11 @@ public class NettyAllocator {
                     + g1gcEnabled
                     + ", g1gc_region_size="
                     + g1gcRegionSize
+                    + ", es.use_netty_epoll="
+                    + EPOLL
                     + "}]";
             }
-            ALLOCATOR = new NoDirectBuffers(delegate);
+            ALLOCATOR = EPOLL ? delegate : new NoDirectBuffers(delegate);
         }
 
         RECYCLER = new Recycler<>() {
@@ -179,8 +209,30 @@ public class NettyAllocator {
         return DESCRIPTION;
     }
 
+    /**
+     * Whether the channels use Netty's native epoll transport, which the {@code es.use_netty_epoll} system property enables on Linux.
+     * It saves the copies between heap buffers and direct buffers that the NIO channels make, and saves system calls by waiting for
+     * events with edge-triggered epoll and by writing the buffers of a message with a single call.
+     */
+    public static boolean useEpoll() {
+        return EPOLL;
+    }
+
+    /**
+     * Creates an event loop group for the channels of {@link #getChannelType()} and {@link #getServerChannelType()}.
+     */
+    public static EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+        if (EPOLL) {
+            return new EpollEventLoopGroup(threads, threadFactory);
+        } else {
+            return new NioEventLoopGroup(threads, threadFactory);
+        }
+    }
+
     public static Class<? extends Channel> getChannelType() {
-        if (ALLOCATOR instanceof NoDirectBuffers) {
+        if (EPOLL) {
+            return EpollSocketChannel.class;
+        } else if (ALLOCATOR instanceof NoDirectBuffers) {
             return CopyBytesSocketChannel.class;
         } else {
             return Netty4NioSocketChannel.class;
@@ -188,13 +240,83 @@ public class NettyAllocator {
     }
 
     public static Class<? extends ServerChannel> getServerChannelType() {
-        if (ALLOCATOR instanceof NoDirectBuffers) {
+        if (EPOLL) {
+            return EpollServerSocketChannel.class;
+        } else if (ALLOCATOR instanceof NoDirectBuffers) {
             return CopyBytesServerSocketChannel.class;
         } else {
             return NioServerSocketChannel.class;
         }
     }
 
+    /**
+     * The option that sets {@code TCP_KEEPIDLE} on the channels of {@link #getChannelType()}, or {@code null} if they can't set it.
+     */
+    @Nullable
+    public static ChannelOption<Integer> getTcpKeepIdleOption() {
+        return EPOLL ? EpollChannelOption.TCP_KEEPIDLE : nioChannelOptionOrNull(NetUtils.getTcpKeepIdleSocketOptionOrNull());
+    }
+
+    /**
+     * The option that sets {@code TCP_KEEPINTVL} on the channels of {@link #getChannelType()}, or {@code null} if they can't set it.
+     */
+    @Nullable
+    public static ChannelOption<Integer> getTcpKeepIntervalOption() {
+        return EPOLL ? EpollChannelOption.TCP_KEEPINTVL : nioChannelOptionOrNull(NetUtils.getTcpKeepIntervalSocketOptionOrNull());
+    }
+
+    /**
+     * The option that sets {@code TCP_KEEPCNT} on the channels of {@link #getChannelType()}, or {@code null} if they can't set it.
+     */
+    @Nullable
+    public static ChannelOption<Integer> getTcpKeepCountOption() {
+        return EPOLL ? EpollChannelOption.TCP_KEEPCNT : nioChannelOptionOrNull(NetUtils.getTcpKeepCountSocketOptionOrNull());
+    }
+
+    private static ChannelOption<Integer> nioChannelOptionOrNull(@Nullable SocketOption<Integer> option) {
+        return option == null ? null : NioChannelOption.of(option);
+    }
+
+    /**
+     * Lowers the keep-alive idle time and interval of the given channel to 5 minutes if they are higher, like
+     * {@link NetUtils#tryEnsureReasonableKeepAliveConfig} does for NIO channels.
+     */
+    public static void tryEnsureReasonableKeepAliveConfig(Channel channel) {
+        if (channel instanceof EpollSocketChannel epollChannel) {
+            final EpollSocketChannelConfig config = epollChannel.config();
+            try {
+                if (config.isKeepAlive()) {
+                    if (config.getTcpKeepIdle() > 300) {
+                        config.setTcpKeepIdle(300);
+                    }
+                    if (config.getTcpKeepIntvl() > 300) {
+                        config.setTcpKeepIntvl(300);
+                    }
+                }
+            } catch (ChannelException e) {
+                // Getting an exception here should be ok when concurrently closing the channel
+            }
+        } else {
+            assert channel instanceof Netty4NioSocketChannel;
+            NetUtils.tryEnsureReasonableKeepAliveConfig(((Netty4NioSocketChannel) channel).javaChannel());
+        }
+    }
+
+    private static boolean epollEnabled() {
+        if (Booleans.parseBoolean(System.getProperty(USE_EPOLL), false) == false) {
+            return false;
+        }
+        // loading the native library needs permissions that the code calling into the allocator may not have
+        if (AccessController.doPrivileged((PrivilegedAction<Boolean>) Epoll::isAvailable)) {
+            return true;
+        }
+        logger.warn(
+            new ParameterizedMessage("[{}] is set but the native epoll transport is not available, falling back to NIO", USE_EPOLL),
+            Epoll.unavailabilityCause()
+        );
+        return false;
+    }
+
     private static boolean useUnpooled(long heapSizeInBytes, boolean g1gcEnabled, boolean g1gcRegionSizeIsKnown, long g1RegionSize) {
         if (userForcedUnpooled()) {
             return true;
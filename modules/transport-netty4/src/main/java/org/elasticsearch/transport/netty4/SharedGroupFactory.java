@@ -9,7 +9,6 @@
 package org.elasticsearch.transport.netty4;
 
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.util.concurrent.Future;
 
 import org.apache.logging.log4j.LogManager;
@@ -30,7 +29,8 @@ import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadF
  * Creates and returns {@link io.netty.channel.EventLoopGroup} instances. It will return a shared group for
  * both {@link #getHttpGroup()} and {@link #getTransportGroup()} if
  * {@link org.elasticsearch.http.netty4.Netty4HttpServerTransport#SETTING_HTTP_WORKER_COUNT} is configured to be 0.
- * If that setting is not 0, then it will return a different group in the {@link #getHttpGroup()} call.
+ * If that setting is not 0, then it will return a different group in the {@link #getHttpGroup()} call. The groups are epoll event loop
+ * groups if {@link NettyAllocator#useEpoll()} and NIO event loop groups otherwise.
  */
 public final class SharedGroupFactory {
 
@@ -66,7 +66,7 @@ public final class SharedGroupFactory {
             return getGenericGroup();
         } else {
             if (dedicatedHttpGroup == null) {
-                NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(
+                EventLoopGroup eventLoopGroup = NettyAllocator.newEventLoopGroup(
                     httpWorkerCount,
                     daemonThreadFactory(settings, HttpServerTransport.HTTP_SERVER_WORKER_THREAD_NAME_PREFIX)
                 );
@@ -78,7 +78,7 @@ public final class SharedGroupFactory {
 
     private SharedGroup getGenericGroup() {
         if (genericGroup == null) {
-            EventLoopGroup eventLoopGroup = new NioEventLoopGroup(
+            EventLoopGroup eventLoopGroup = NettyAllocator.newEventLoopGroup(
                 workerCount,
                 EsExecutors.daemonThreadFactory(settings, TcpTransport.TRANSPORT_WORKER_THREAD_NAME_PREFIX)
             );
@@ -0,0 +1,109 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import org.apache.lucene.util.Constants;
+import org.elasticsearch.common.network.NetworkService;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Booleans;
+import org.elasticsearch.http.AbstractHttpServerTransportTestCase;
+import org.elasticsearch.http.HttpServerTransport;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.netty4.NettyAllocator;
+import org.elasticsearch.transport.netty4.SharedGroupFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.elasticsearch.rest.RestStatus.OK;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * Tests that the native epoll transport loads under the security manager and serves HTTP requests. These only run if the
+ * {@code es.use_netty_epoll} system property is set, which the {@code epollTest} task does on Linux.
+ */
+public class Netty4EpollTests extends AbstractHttpServerTransportTestCase {
+
+    public void testServesRequestsWithEpoll() throws Exception {
+        assumeTrue("es.use_netty_epoll is not set", Booleans.parseBoolean(System.getProperty("es.use_netty_epoll"), false));
+        assumeTrue("the native epoll transport is only available on Linux", Constants.LINUX);
+        assertNotNull("the native library must load under the security manager", System.getSecurityManager());
+
+        assertTrue("the native epoll transport failed to load", NettyAllocator.useEpoll());
+        assertSame(EpollSocketChannel.class, NettyAllocator.getChannelType());
+        assertSame(EpollServerSocketChannel.class, NettyAllocator.getServerChannelType());
+
+        final String url = "/" + randomAlphaOfLength(8);
+        final String responseString = randomAlphaOfLength(1024);
+        final HttpServerTransport.Dispatcher dispatcher = new HttpServerTransport.Dispatcher() {
+
+            @Override
+            public void dispatchRequest(final RestRequest request, final RestChannel channel, final ThreadContext threadContext) {
+                assertThat(request.uri(), equalTo(url));
+                channel.sendResponse(new BytesRestResponse(OK, responseString));
+            }
+
+            @Override
+            public void dispatchBadRequest(final RestChannel channel, final ThreadContext threadContext, final Throwable cause) {
+                throw new AssertionError(cause);
+            }
+        };
+
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        try (
+            Netty4HttpServerTransport transport = new Netty4HttpServerTransport(
+                Settings.EMPTY,
+                new NetworkService(Collections.emptyList()),
+                new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService()),
+                threadPool,
+                xContentRegistry(),
+                dispatcher,
+                randomClusterSettings(),
+                new SharedGroupFactory(Settings.EMPTY)
+            )
+        ) {
+            transport.start();
+            final TransportAddress remoteAddress = randomFrom(transport.boundAddress().boundAddresses());
+
+            try (Netty4HttpClient client = new Netty4HttpClient()) {
+                final String[] uris = new String[between(1, 5)];
+                Arrays.fill(uris, url);
+                final List<FullHttpResponse> responses = client.get(remoteAddress.address(), uris);
+                try {
+                    assertThat(responses, hasSize(uris.length));
+                    for (FullHttpResponse response : responses) {
+                        assertThat(response.status(), equalTo(HttpResponseStatus.OK));
+                        assertThat(response.content().toString(StandardCharsets.UTF_8), equalTo(responseString));
+                    }
+                } finally {
+                    responses.forEach(FullHttpResponse::release);
+                }
+            }
+        } finally {
+            terminate(threadPool);
+        }
+    }
+}
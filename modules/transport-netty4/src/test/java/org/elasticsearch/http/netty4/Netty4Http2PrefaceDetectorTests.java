@@ -0,0 +1,85 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class Netty4Http2PrefaceDetectorTests extends ESTestCase {
+
+    public void testPassesOnHttp1Requests() {
+        // an HTTP/1.1 request that starts like the preface does, up to the protocol version
+        final String request = randomFrom("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n", "PRI * HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        final AtomicReference<ChannelPipeline> switched = new AtomicReference<>();
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4Http2PrefaceDetector(switched::set));
+
+        writeInPieces(channel, request);
+
+        assertThat(channel.pipeline().get(Netty4Http2PrefaceDetector.class), nullValue());
+        assertThat(readInbound(channel), equalTo(request));
+        assertThat(switched.get(), nullValue());
+        assertFalse(channel.finish());
+    }
+
+    public void testSwitchesOnPreface() {
+        final String preface = Http2CodecUtil.connectionPrefaceBuf().toString(StandardCharsets.US_ASCII);
+        final AtomicReference<ChannelPipeline> switched = new AtomicReference<>();
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4Http2PrefaceDetector(switched::set));
+
+        // nothing passes before the whole preface is there
+        final int split = randomIntBetween(1, preface.length() - 1);
+        channel.writeInbound(Unpooled.copiedBuffer(preface.substring(0, split), StandardCharsets.US_ASCII));
+        assertThat(channel.pipeline().get(Netty4Http2PrefaceDetector.class), notNullValue());
+        assertThat(switched.get(), nullValue());
+        assertThat(channel.inboundMessages().size(), equalTo(0));
+
+        final String frames = randomAlphaOfLengthBetween(0, 64);
+        channel.writeInbound(Unpooled.copiedBuffer(preface.substring(split) + frames, StandardCharsets.US_ASCII));
+        assertThat(switched.get(), sameInstance(channel.pipeline()));
+        assertThat(channel.pipeline().get(Netty4Http2PrefaceDetector.class), nullValue());
+        // the preface is left for the HTTP/2 codec to read
+        assertThat(readInbound(channel), equalTo(preface + frames));
+        assertFalse(channel.finish());
+    }
+
+    private static void writeInPieces(EmbeddedChannel channel, String content) {
+        int offset = 0;
+        while (offset < content.length()) {
+            final int end = randomIntBetween(offset + 1, content.length());
+            channel.writeInbound(Unpooled.copiedBuffer(content.substring(offset, end), StandardCharsets.US_ASCII));
+            offset = end;
+        }
+    }
+
+    private static String readInbound(EmbeddedChannel channel) {
+        final StringBuilder builder = new StringBuilder();
+        ByteBuf buf;
+        while ((buf = channel.readInbound()) != null) {
+            try {
+                builder.append(buf.toString(StandardCharsets.US_ASCII));
+            } finally {
+                buf.release();
+            }
+        }
+        return builder.toString();
+    }
+}
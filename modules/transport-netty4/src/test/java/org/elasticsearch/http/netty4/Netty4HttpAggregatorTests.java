@@ -0,0 +1,166 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.test.ESTestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class Netty4HttpAggregatorTests extends ESTestCase {
+
+    public void testAggregatesRequestsThatAreNotStreamed() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpAggregator(1024, request -> false));
+        channel.writeInbound(new DefaultHttpRequest(HTTP_1_1, HttpMethod.POST, "/_bulk"));
+        channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8)));
+        assertNull(channel.readInbound());
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("bar", StandardCharsets.UTF_8)));
+
+        final FullHttpRequest request = channel.readInbound();
+        assertFalse(request instanceof Netty4HttpAggregator.StreamedHttpRequest);
+        assertEquals("foobar", request.content().toString(StandardCharsets.UTF_8));
+        assertTrue(channel.config().isAutoRead());
+        request.release();
+        assertFalse(channel.finish());
+    }
+
+    public void testStreamsBodyOnDemand() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpAggregator(1024, request -> true));
+        channel.writeInbound(new DefaultHttpRequest(HTTP_1_1, HttpMethod.POST, "/_bulk"));
+
+        final FullHttpRequest request = channel.readInbound();
+        assertThat(request, instanceOf(Netty4HttpAggregator.StreamedHttpRequest.class));
+        assertEquals(0, request.content().readableBytes());
+        assertFalse("the body is only read on demand", channel.config().isAutoRead());
+
+        final List<String> chunks = new ArrayList<>();
+        final boolean[] lastReceived = new boolean[1];
+        final HttpBodyStream bodyStream = ((Netty4HttpAggregator.StreamedHttpRequest) request).bodyStream();
+        bodyStream.setHandler(new HttpBodyStream.ChunkHandler() {
+            @Override
+            public void onNext(ReleasableBytesReference chunk, boolean isLast) {
+                try (chunk) {
+                    chunks.add(chunk.utf8ToString());
+                }
+                lastReceived[0] = isLast;
+            }
+
+            @Override
+            public void close() {
+                fail("the channel is not closed");
+            }
+        });
+
+        // content that arrives before the handler asks for it waits for it
+        channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8)));
+        assertEquals(List.of(), chunks);
+        bodyStream.next();
+        channel.runPendingTasks();
+        assertEquals(List.of("foo"), chunks);
+
+        // a handler that asks before the content arrives gets it as soon as it does
+        bodyStream.next();
+        channel.runPendingTasks();
+        assertEquals(List.of("foo"), chunks);
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("bar", StandardCharsets.UTF_8)));
+        assertEquals(List.of("foo", "bar"), chunks);
+        assertTrue(lastReceived[0]);
+        assertTrue("the next request is read as usual", channel.config().isAutoRead());
+        assertNull(channel.readInbound());
+        assertFalse(channel.finish());
+    }
+
+    public void testStreamsBodyOfHttp2Stream() {
+        // the same handlers as in the pipeline of an HTTP/2 stream, see Netty4HttpServerTransport#configureHttp2Stream
+        final EmbeddedChannel channel = new EmbeddedChannel(
+            new Http2StreamFrameToHttpObjectCodec(true),
+            new Netty4HttpAggregator(1024, request -> true)
+        );
+        channel.writeInbound(new DefaultHttp2HeadersFrame(new DefaultHttp2Headers().method("POST").path("/_bulk").scheme("http")));
+
+        final FullHttpRequest request = channel.readInbound();
+        assertThat(request, instanceOf(Netty4HttpAggregator.StreamedHttpRequest.class));
+        assertEquals("/_bulk", request.uri());
+        assertFalse("the stream only reads the body on demand, which holds back its flow control window", channel.config().isAutoRead());
+
+        final List<String> chunks = new ArrayList<>();
+        final HttpBodyStream bodyStream = ((Netty4HttpAggregator.StreamedHttpRequest) request).bodyStream();
+        bodyStream.setHandler(new HttpBodyStream.ChunkHandler() {
+            @Override
+            public void onNext(ReleasableBytesReference chunk, boolean isLast) {
+                try (chunk) {
+                    chunks.add(chunk.utf8ToString() + (isLast ? "$" : ""));
+                }
+            }
+
+            @Override
+            public void close() {
+                fail("the stream is not closed");
+            }
+        });
+
+        channel.writeInbound(new DefaultHttp2DataFrame(Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8), false));
+        assertEquals(List.of(), chunks);
+        bodyStream.next();
+        channel.runPendingTasks();
+        assertEquals(List.of("foo"), chunks);
+
+        bodyStream.next();
+        channel.runPendingTasks();
+        channel.writeInbound(new DefaultHttp2DataFrame(Unpooled.copiedBuffer("bar", StandardCharsets.UTF_8), true));
+        assertEquals(List.of("foo", "bar$"), chunks);
+        assertNull(channel.readInbound());
+        assertFalse(channel.finish());
+    }
+
+    public void testAnswersExpectContinueForStreamedRequests() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpAggregator(1024, request -> true));
+        final DefaultHttpRequest httpRequest = new DefaultHttpRequest(HTTP_1_1, HttpMethod.POST, "/_bulk");
+        httpRequest.headers().set(HttpHeaderNames.EXPECT, HttpHeaderValues.CONTINUE);
+        // a streamed body isn't limited by the maximum content length
+        httpRequest.headers().set(HttpHeaderNames.CONTENT_LENGTH, 4096);
+        channel.writeInbound(httpRequest);
+
+        final HttpResponse response = channel.readOutbound();
+        assertEquals(HttpResponseStatus.CONTINUE, response.status());
+        final FullHttpRequest request = channel.readInbound();
+        assertThat(request, instanceOf(Netty4HttpAggregator.StreamedHttpRequest.class));
+        assertFalse(request.headers().contains(HttpHeaderNames.EXPECT));
+
+        // releasing the request drops the rest of the body
+        ((Netty4HttpAggregator.StreamedHttpRequest) request).bodyStream().discard();
+        channel.runPendingTasks();
+        assertTrue(channel.config().isAutoRead());
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8)));
+        assertNull(channel.readInbound());
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.http.netty4.Netty4HttpContentCompressor.Encoding;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.After;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_0;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class Netty4HttpContentCompressorTests extends ESTestCase {
+
+    private final Netty4HttpDeflaterPool deflaterPool = new Netty4HttpDeflaterPool(randomIntBetween(1, 9), 1);
+
+    @After
+    public void closePool() {
+        deflaterPool.close();
+    }
+
+    public void testNegotiateEncoding() {
+        assertNull(Encoding.negotiate(null));
+        assertNull(Encoding.negotiate(""));
+        assertNull(Encoding.negotiate("identity"));
+        assertNull(Encoding.negotiate("br"));
+        assertNull(Encoding.negotiate("gzip;q=0, deflate;q=0"));
+        assertNull(Encoding.negotiate("*;q=0"));
+        assertEquals(Encoding.GZIP, Encoding.negotiate("gzip"));
+        assertEquals(Encoding.GZIP, Encoding.negotiate("x-gzip"));
+        assertEquals(Encoding.GZIP, Encoding.negotiate("GZIP"));
+        assertEquals(Encoding.GZIP, Encoding.negotiate("deflate, gzip"));
+        assertEquals(Encoding.GZIP, Encoding.negotiate("br, gzip, deflate"));
+        assertEquals(Encoding.GZIP, Encoding.negotiate("*"));
+        assertEquals(Encoding.GZIP, Encoding.negotiate("deflate;q=0.5, *"));
+        assertEquals(Encoding.DEFLATE, Encoding.negotiate("deflate"));
+        assertEquals(Encoding.DEFLATE, Encoding.negotiate("gzip;q=0.5, deflate"));
+        assertEquals(Encoding.DEFLATE, Encoding.negotiate("gzip;q=0, *"));
+        assertEquals(Encoding.DEFLATE, Encoding.negotiate("gzip;q=invalid, deflate;q=0.1"));
+    }
+
+    public void testCompressFullResponse() throws IOException {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpContentCompressor(deflaterPool));
+        final Encoding encoding = randomFrom(Encoding.values());
+        channel.writeInbound(request(HttpMethod.GET, encoding == Encoding.GZIP ? "gzip" : "deflate"));
+        releaseInbound(channel);
+
+        final byte[] content = randomContent();
+        channel.writeOutbound(new Netty4HttpResponse(HTTP_1_1, RestStatus.OK, new BytesArray(content)));
+
+        final HttpResponse response = channel.readOutbound();
+        assertThat(response.status(), equalTo(HttpResponseStatus.OK));
+        assertCompressedHeaders(response, encoding);
+        assertArrayEquals(content, decompress(encoding, readContent(channel)));
+        assertEquals(1, deflaterPool.pooledCount());
+    }
+
+    public void testCompressChunkedResponse() throws IOException {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpContentCompressor(deflaterPool));
+        final Encoding encoding = randomFrom(Encoding.values());
+        channel.writeInbound(request(HttpMethod.GET, encoding == Encoding.GZIP ? "gzip" : "deflate"));
+        releaseInbound(channel);
+
+        final byte[] content = randomContent();
+        final HttpResponse head = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.OK);
+        head.headers().set(HttpHeaderNames.CONTENT_LENGTH, content.length);
+        channel.write(head);
+        int offset = 0;
+        while (offset < content.length) {
+            // empty chunks too
+            final int length = randomIntBetween(0, content.length - offset);
+            channel.write(new DefaultHttpContent(Unpooled.wrappedBuffer(content, offset, length)));
+            offset += length;
+        }
+        final LastHttpContent last = new DefaultLastHttpContent();
+        last.trailingHeaders().set("X-Trailer", "value");
+        channel.writeAndFlush(last);
+
+        final HttpResponse response = channel.readOutbound();
+        assertSame(head, response);
+        assertCompressedHeaders(response, encoding);
+        final byte[] compressed = readContent(channel, "value");
+        assertArrayEquals(content, decompress(encoding, compressed));
+        assertEquals(1, deflaterPool.pooledCount());
+    }
+
+    public void testCompressionRespectsRequestOrder() throws IOException {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpContentCompressor(deflaterPool));
+        channel.writeInbound(request(HttpMethod.GET, "gzip"));
+        channel.writeInbound(request(HttpMethod.GET, null));
+        channel.writeInbound(request(HttpMethod.GET, "deflate"));
+        releaseInbound(channel);
+
+        final byte[] content = randomContent();
+        for (Encoding encoding : new Encoding[] { Encoding.GZIP, null, Encoding.DEFLATE }) {
+            channel.writeOutbound(new Netty4HttpResponse(HTTP_1_1, RestStatus.OK, new BytesArray(content)));
+            final HttpResponse response = channel.readOutbound();
+            if (encoding == null) {
+                assertThat(response, instanceOf(Netty4HttpResponse.class));
+                assertFalse(response.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+                assertArrayEquals(content, readContent(((Netty4HttpResponse) response).content()));
+                ReferenceCountUtil.release(response);
+            } else {
+                assertCompressedHeaders(response, encoding);
+                assertArrayEquals(content, decompress(encoding, readContent(channel)));
+            }
+        }
+        final EncoderException e = expectThrows(
+            EncoderException.class,
+            () -> channel.writeOutbound(new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.OK))
+        );
+        assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+    }
+
+    public void testDoesNotCompressUncompressibleResponses() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpContentCompressor(deflaterPool));
+        final DefaultFullHttpResponse response;
+        switch (between(0, 5)) {
+            case 0 -> {
+                channel.writeInbound(request(HttpMethod.GET, randomFrom("br", "identity", "gzip;q=0")));
+                response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.OK, randomContentBuffer());
+            }
+            case 1 -> {
+                channel.writeInbound(request(HttpMethod.HEAD, "gzip"));
+                response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.OK, randomContentBuffer());
+            }
+            case 2 -> {
+                channel.writeInbound(request(HttpMethod.GET, "gzip"));
+                final HttpResponseStatus status = randomFrom(HttpResponseStatus.NO_CONTENT, HttpResponseStatus.NOT_MODIFIED);
+                response = new DefaultFullHttpResponse(HTTP_1_1, status);
+            }
+            case 3 -> {
+                channel.writeInbound(request(HttpMethod.GET, "gzip"));
+                response = new DefaultFullHttpResponse(HTTP_1_0, HttpResponseStatus.OK, randomContentBuffer());
+            }
+            case 4 -> {
+                channel.writeInbound(request(HttpMethod.GET, "gzip"));
+                response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.OK, randomContentBuffer());
+                response.headers().set(HttpHeaderNames.CONTENT_ENCODING, "br");
+            }
+            default -> {
+                channel.writeInbound(request(HttpMethod.GET, "gzip"));
+                response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.OK);
+            }
+        }
+        releaseInbound(channel);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
+
+        channel.writeOutbound(response);
+        final Object written = channel.readOutbound();
+        assertSame(response, written);
+        assertTrue(response.headers().contains(HttpHeaderNames.CONTENT_LENGTH));
+        assertNull(channel.readOutbound());
+        ReferenceCountUtil.release(written);
+        assertEquals(0, deflaterPool.pooledCount());
+    }
+
+    public void testReleasesDeflaterWhenChannelCloses() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpContentCompressor(deflaterPool));
+        channel.writeInbound(request(HttpMethod.GET, "gzip"));
+        releaseInbound(channel);
+        channel.writeOutbound(new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeOutbound(new DefaultHttpContent(randomContentBuffer()));
+        assertEquals(0, deflaterPool.pooledCount());
+
+        channel.close();
+        assertEquals(1, deflaterPool.pooledCount());
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    public void testPoolEndsDeflatersBeyondItsCapacity() {
+        final Netty4HttpDeflaterPool pool = new Netty4HttpDeflaterPool(randomIntBetween(1, 9), 2);
+        try {
+            final boolean nowrap = randomBoolean();
+            final Deflater first = pool.acquire(nowrap);
+            final Deflater second = pool.acquire(nowrap);
+            final Deflater third = pool.acquire(nowrap);
+            pool.release(first, nowrap);
+            pool.release(second, nowrap);
+            pool.release(third, nowrap);
+            assertEquals(2, pool.pooledCount());
+            // the deflater that didn't fit is ended and can't be used anymore
+            expectThrows(NullPointerException.class, third::getBytesRead);
+            assertSame(first, pool.acquire(nowrap));
+            assertEquals(1, pool.pooledCount());
+            pool.release(first, nowrap);
+        } finally {
+            pool.close();
+        }
+        assertEquals(0, pool.pooledCount());
+    }
+
+    private static FullHttpRequest request(HttpMethod method, String acceptEncoding) {
+        final FullHttpRequest request = new DefaultFullHttpRequest(HTTP_1_1, method, "/");
+        if (acceptEncoding != null) {
+            request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+
+    private static void releaseInbound(EmbeddedChannel channel) {
+        Object msg;
+        while ((msg = channel.readInbound()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    private static byte[] randomContent() {
+        final StringBuilder builder = new StringBuilder();
+        final int documents = randomIntBetween(1, 5000);
+        for (int i = 0; i < documents; i++) {
+            builder.append("{\"@timestamp\":").append(randomNonNegativeLong()).append(",\"message\":\"");
+            builder.append(randomAlphaOfLengthBetween(0, 100)).append("\"}\n");
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuf randomContentBuffer() {
+        return Unpooled.wrappedBuffer(randomContent());
+    }
+
+    private static void assertCompressedHeaders(HttpResponse response, Encoding encoding) {
+        assertEquals(encoding == Encoding.GZIP ? "gzip" : "deflate", response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(HttpHeaderValues.CHUNKED.toString(), response.headers().get(HttpHeaderNames.TRANSFER_ENCODING));
+        assertFalse(response.headers().contains(HttpHeaderNames.CONTENT_LENGTH));
+    }
+
+    /**
+     * Reads the chunks of the response body up to and including the last one.
+     */
+    private static byte[] readContent(EmbeddedChannel channel) {
+        return readContent(channel, null);
+    }
+
+    /**
+     * Reads the chunks of the response body up to and including the last one, whose trailer must have the given value.
+     */
+    private static byte[] readContent(EmbeddedChannel channel, String trailer) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        while (true) {
+            final HttpContent content = channel.readOutbound();
+            assertNotNull("the response must end with the last content", content);
+            try {
+                assertThat(content.content().readableBytes(), lessThanOrEqualTo(Netty4HttpContentCompressor.MAX_CHUNK_SIZE));
+                final byte[] bytes = readContent(content.content());
+                output.write(bytes, 0, bytes.length);
+                if (content instanceof LastHttpContent lastContent) {
+                    assertEquals(trailer, lastContent.trailingHeaders().get("X-Trailer"));
+                    assertNull(channel.readOutbound());
+                    return output.toByteArray();
+                }
+            } finally {
+                content.release();
+            }
+        }
+    }
+
+    private static byte[] readContent(ByteBuf buffer) {
+        final byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), bytes);
+        return bytes;
+    }
+
+    private static byte[] decompress(Encoding encoding, byte[] compressed) throws IOException {
+        final InputStream input = new ByteArrayInputStream(compressed);
+        try (InputStream decompressing = encoding == Encoding.GZIP ? new GZIPInputStream(input) : new InflaterInputStream(input)) {
+            final byte[] decompressed = decompressing.readAllBytes();
+            assertEquals("the compressed content must end with the stream", -1, decompressing.read());
+            return decompressed;
+        }
+    }
+}
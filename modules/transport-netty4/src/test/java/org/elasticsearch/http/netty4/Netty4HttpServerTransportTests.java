@@ -15,10 +15,13 @@ import io.netty.buffer.PoolArenaMetric;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.PooledByteBufAllocatorMetric;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
@@ -29,9 +32,15 @@ import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.ElasticsearchException;
@@ -45,11 +54,13 @@ import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.http.AbstractHttpServerTransportTestCase;
 import org.elasticsearch.http.BindHttpException;
 import org.elasticsearch.http.CorsHandler;
+import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.HttpServerTransport;
 import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.http.NullDispatcher;
@@ -69,6 +80,8 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -527,6 +540,114 @@ public class Netty4HttpServerTransportTests extends AbstractHttpServerTransportT
         }
     }
 
+    public void testHttp2WithPriorKnowledge() throws Exception {
+        final Set<HttpChannel> httpChannels = ConcurrentCollections.newConcurrentSet();
+        final HttpServerTransport.Dispatcher dispatcher = new HttpServerTransport.Dispatcher() {
+
+            @Override
+            public void dispatchRequest(final RestRequest request, final RestChannel channel, final ThreadContext threadContext) {
+                httpChannels.add(request.getHttpChannel());
+                channel.sendResponse(new BytesRestResponse(OK, request.uri()));
+            }
+
+            @Override
+            public void dispatchBadRequest(final RestChannel channel, final ThreadContext threadContext, final Throwable cause) {
+                logger.error(
+                    new ParameterizedMessage("--> Unexpected bad request [{}]", FakeRestRequest.requestToString(channel.request())),
+                    cause
+                );
+                throw new AssertionError();
+            }
+
+        };
+
+        final int maxConcurrentStreams = randomIntBetween(1, 16);
+        final Settings settings = createBuilderWithPort().put(Netty4HttpServerTransport.SETTING_HTTP_HTTP2_ENABLED.getKey(), true)
+            .put(Netty4HttpServerTransport.SETTING_HTTP_HTTP2_MAX_CONCURRENT_STREAMS.getKey(), maxConcurrentStreams)
+            .build();
+
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try (
+            Netty4HttpServerTransport transport = new Netty4HttpServerTransport(
+                settings,
+                networkService,
+                bigArrays,
+                threadPool,
+                xContentRegistry(),
+                dispatcher,
+                randomClusterSettings(),
+                new SharedGroupFactory(settings)
+            )
+        ) {
+            transport.start();
+            final TransportAddress remoteAddress = randomFrom(transport.boundAddress().boundAddresses());
+
+            Bootstrap clientBootstrap = new Bootstrap().option(ChannelOption.ALLOCATOR, NettyAllocator.getAllocator())
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<SocketChannel>() {
+
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(Http2FrameCodecBuilder.forClient().build());
+                        ch.pipeline().addLast(new Http2MultiplexHandler(new ChannelHandlerAdapter() {
+                        }));
+                    }
+                })
+                .group(group);
+            final Channel connection = clientBootstrap.connect(remoteAddress.address()).sync().channel();
+
+            final int requestCount = randomIntBetween(1, maxConcurrentStreams);
+            final Map<String, String> responses = ConcurrentCollections.newConcurrentMap();
+            final CountDownLatch latch = new CountDownLatch(requestCount);
+            for (int i = 0; i < requestCount; i++) {
+                final String uri = "/" + i;
+                sendHttp2Request(connection, uri, responses, latch);
+            }
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            for (int i = 0; i < requestCount; i++) {
+                assertThat(responses.get("/" + i), equalTo("/" + i));
+            }
+            // all the streams of a connection share its HTTP channel
+            assertThat(httpChannels.size(), equalTo(1));
+            connection.close().sync();
+
+            // HTTP/1.1 still works on the same port
+            try (Netty4HttpClient client = new Netty4HttpClient()) {
+                final FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/http1");
+                final FullHttpResponse response = client.send(remoteAddress.address(), request);
+                try {
+                    assertThat(response.status(), equalTo(HttpResponseStatus.OK));
+                    assertThat(response.content().toString(StandardCharsets.UTF_8), equalTo("/http1"));
+                } finally {
+                    response.release();
+                }
+            }
+        } finally {
+            group.shutdownGracefully().await();
+        }
+    }
+
+    private static void sendHttp2Request(Channel connection, String uri, Map<String, String> responses, CountDownLatch latch) {
+        final Http2StreamChannel stream = new Http2StreamChannelBootstrap(connection).handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(false));
+                ch.pipeline().addLast(new HttpObjectAggregator(1024 * 1024));
+                ch.pipeline().addLast(new SimpleChannelInboundHandler<FullHttpResponse>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+                        assertThat(response.status(), equalTo(HttpResponseStatus.OK));
+                        responses.put(uri, response.content().toString(StandardCharsets.UTF_8));
+                        latch.countDown();
+                    }
+                });
+            }
+        }).open().syncUninterruptibly().getNow();
+        final FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+        request.headers().set(HttpHeaderNames.HOST, "localhost");
+        stream.writeAndFlush(request);
+    }
+
     private Settings createSettings() {
         return createBuilderWithPort().build();
     }
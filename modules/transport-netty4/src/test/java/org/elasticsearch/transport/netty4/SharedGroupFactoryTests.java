@@ -8,10 +8,15 @@
 
 package org.elasticsearch.transport.netty4;
 
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.http.netty4.Netty4HttpServerTransport;
 import org.elasticsearch.test.ESTestCase;
 
+import static org.hamcrest.Matchers.instanceOf;
+
 public final class SharedGroupFactoryTests extends ESTestCase {
 
     public void testSharedEventLoops() throws Exception {
@@ -22,6 +27,10 @@ public final class SharedGroupFactoryTests extends ESTestCase {
 
         try {
             assertSame(httpGroup.getLowLevelGroup(), transportGroup.getLowLevelGroup());
+            assertThat(
+                transportGroup.getLowLevelGroup(),
+                instanceOf(NettyAllocator.useEpoll() ? EpollEventLoopGroup.class : NioEventLoopGroup.class)
+            );
         } finally {
             httpGroup.shutdown();
             assertFalse(httpGroup.getLowLevelGroup().isShuttingDown());
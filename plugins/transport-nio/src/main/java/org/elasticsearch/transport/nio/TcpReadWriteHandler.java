@@ -41,6 +41,7 @@ public class TcpReadWriteHandler extends BytesWriteHandler {
             transport.getVersion(),
             transport.getStatsTracker(),
             recycler,
+            transport.getCompressionDictionaries()::getDictionary,
             threadPool::relativeTimeInMillis,
             breaker,
             requestHandlers::getHandler,
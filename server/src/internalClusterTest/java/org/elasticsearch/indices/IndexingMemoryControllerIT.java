@@ -76,7 +76,8 @@ public class IndexingMemoryControllerIT extends ESSingleNodeTestCase {
                 config.retentionLeasesSupplier(),
                 config.getPrimaryTermSupplier(),
                 config.getSnapshotCommitSupplier(),
-                config.getLeafSorter()
+                config.getLeafSorter(),
+                config.getSourceLoaderSupplier()
             );
         }
 
@@ -60,6 +60,8 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
                 .append(pendingClusterTask.getSource())
                 .append("/")
                 .append(pendingClusterTask.getTimeInQueue())
+                .append("/")
+                .append(pendingClusterTask.getBatchSize())
                 .append("\n");
         }
         return sb.toString();
@@ -77,6 +79,7 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
             builder.field(Fields.EXECUTING, pendingClusterTask.isExecuting());
             builder.field(Fields.TIME_IN_QUEUE_MILLIS, pendingClusterTask.getTimeInQueueInMillis());
             builder.field(Fields.TIME_IN_QUEUE, pendingClusterTask.getTimeInQueue());
+            builder.field(Fields.BATCH_SIZE, pendingClusterTask.getBatchSize());
             builder.endObject();
         }
         builder.endArray();
@@ -93,6 +96,7 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
         static final String SOURCE = "source";
         static final String TIME_IN_QUEUE_MILLIS = "time_in_queue_millis";
         static final String TIME_IN_QUEUE = "time_in_queue";
+        static final String BATCH_SIZE = "batch_size";
 
     }
 
@@ -83,13 +83,13 @@ public final class BulkRequestParser {
             .withRestApiVersion(restApiVersion);
     }
 
-    private static int findNextMarker(byte marker, int from, BytesReference data) {
+    private static int findNextMarker(byte marker, int from, BytesReference data, boolean lastData) {
         final int res = data.indexOf(marker, from);
         if (res != -1) {
             assert res >= 0;
             return res;
         }
-        if (from != data.length()) {
+        if (lastData && from != data.length()) {
             throw new IllegalArgumentException("The bulk request must be terminated by a newline [\\n]");
         }
         return res;
@@ -132,32 +132,266 @@ public final class BulkRequestParser {
         Consumer<UpdateRequest> updateRequestConsumer,
         Consumer<DeleteRequest> deleteRequestConsumer
     ) throws IOException {
-        XContent xContent = xContentType.xContent();
-        int line = 0;
-        int from = 0;
-        byte marker = xContent.streamSeparator();
+        new IncrementalParser(
+            defaultIndex,
+            defaultRouting,
+            defaultFetchSourceContext,
+            defaultPipeline,
+            defaultRequireAlias,
+            allowExplicitIndex,
+            xContentType,
+            indexRequestConsumer,
+            updateRequestConsumer,
+            deleteRequestConsumer
+        ).parse(data, true);
+    }
+
+    /**
+     * Creates a parser for bulk request data that arrives in pieces, which otherwise parses the data like
+     * {@link #parse(BytesReference, String, String, FetchSourceContext, String, Boolean, boolean, XContentType, BiConsumer, Consumer,
+     * Consumer)} does.
+     */
+    public IncrementalParser incrementalParser(
+        @Nullable String defaultIndex,
+        @Nullable String defaultRouting,
+        @Nullable FetchSourceContext defaultFetchSourceContext,
+        @Nullable String defaultPipeline,
+        @Nullable Boolean defaultRequireAlias,
+        boolean allowExplicitIndex,
+        XContentType xContentType,
+        BiConsumer<IndexRequest, String> indexRequestConsumer,
+        Consumer<UpdateRequest> updateRequestConsumer,
+        Consumer<DeleteRequest> deleteRequestConsumer
+    ) {
+        return new IncrementalParser(
+            defaultIndex,
+            defaultRouting,
+            defaultFetchSourceContext,
+            defaultPipeline,
+            defaultRequireAlias,
+            allowExplicitIndex,
+            xContentType,
+            indexRequestConsumer,
+            updateRequestConsumer,
+            deleteRequestConsumer
+        );
+    }
+
+    /**
+     * Parses bulk request data that arrives in pieces, like the body of an HTTP request that is streamed rather than aggregated in
+     * memory. Each call parses the complete items at the start of the data that it gets and returns the number of bytes that these
+     * took, and the caller passes the rest of the data again once more of it has arrived.
+     */
+    public final class IncrementalParser {
+
+        private final String defaultIndex;
+        private final String defaultRouting;
+        private final FetchSourceContext defaultFetchSourceContext;
+        private final String defaultPipeline;
+        private final Boolean defaultRequireAlias;
+        private final boolean allowExplicitIndex;
+        private final XContentType xContentType;
+        private final BiConsumer<IndexRequest, String> indexRequestConsumer;
+        private final Consumer<UpdateRequest> updateRequestConsumer;
+        private final Consumer<DeleteRequest> deleteRequestConsumer;
+
         // Bulk requests can contain a lot of repeated strings for the index, pipeline and routing parameters. This map is used to
         // deduplicate duplicate strings parsed for these parameters. While it does not prevent instantiating the duplicate strings, it
-        // reduces their lifetime to the lifetime of this parse call instead of the lifetime of the full bulk request.
-        final Map<String, String> stringDeduplicator = new HashMap<>();
-        boolean typesDeprecationLogged = false;
-
-        while (true) {
-            int nextMarker = findNextMarker(marker, from, data);
-            if (nextMarker == -1) {
-                break;
-            }
-            line++;
+        // reduces their lifetime to the lifetime of this parser instead of the lifetime of the full bulk request.
+        private final Map<String, String> stringDeduplicator = new HashMap<>();
+        private int line = 0;
+        private boolean typesDeprecationLogged = false;
+        // the parsed action line whose source hadn't arrived yet when the previous piece of data was parsed
+        private ActionLine pendingActionLine;
 
-            // now parse the action
-            try (XContentParser parser = createParser(xContent, data, from, nextMarker)) {
+        private IncrementalParser(
+            @Nullable String defaultIndex,
+            @Nullable String defaultRouting,
+            @Nullable FetchSourceContext defaultFetchSourceContext,
+            @Nullable String defaultPipeline,
+            @Nullable Boolean defaultRequireAlias,
+            boolean allowExplicitIndex,
+            XContentType xContentType,
+            BiConsumer<IndexRequest, String> indexRequestConsumer,
+            Consumer<UpdateRequest> updateRequestConsumer,
+            Consumer<DeleteRequest> deleteRequestConsumer
+        ) {
+            this.defaultIndex = defaultIndex;
+            this.defaultRouting = defaultRouting;
+            this.defaultFetchSourceContext = defaultFetchSourceContext;
+            this.defaultPipeline = defaultPipeline;
+            this.defaultRequireAlias = defaultRequireAlias;
+            this.allowExplicitIndex = allowExplicitIndex;
+            this.xContentType = xContentType;
+            this.indexRequestConsumer = indexRequestConsumer;
+            this.updateRequestConsumer = updateRequestConsumer;
+            this.deleteRequestConsumer = deleteRequestConsumer;
+        }
+
+        /**
+         * Parses the complete items at the start of the given data, passing them to the consumers.
+         *
+         * @param lastData whether the data is all that is left of the bulk request, in which case it must not end with an incomplete
+         *                 line
+         * @return the number of bytes of the data that the parsed items took, which is all of it if {@code lastData} is set
+         */
+        public int parse(BytesReference data, boolean lastData) throws IOException {
+            XContent xContent = xContentType.xContent();
+            int from = 0;
+            byte marker = xContent.streamSeparator();
+
+            while (true) {
+                final int actionFrom = from;
+                int nextMarker = findNextMarker(marker, from, data, lastData);
+                if (nextMarker == -1) {
+                    break;
+                }
+                line++;
+
+                final ActionLine actionLine;
+                if (pendingActionLine != null) {
+                    // the action line that waited for its source has been parsed already, so that its deprecation warnings are only
+                    // emitted once
+                    assert actionFrom == 0 : "the action line that waits for its source must be passed again first";
+                    actionLine = pendingActionLine;
+                    pendingActionLine = null;
+                } else {
+                    actionLine = parseActionLine(xContent, data, from, nextMarker);
+                }
                 // move pointers
                 from = nextMarker + 1;
+                if (actionLine == null) {
+                    continue;
+                }
+
+                if ("delete".equals(actionLine.action())) {
+                    if (actionLine.dynamicTemplates().isEmpty() == false) {
+                        throw new IllegalArgumentException(
+                            "Delete request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
+                        );
+                    }
+                    deleteRequestConsumer.accept(
+                        new DeleteRequest(actionLine.index()).id(actionLine.id())
+                            .routing(actionLine.routing())
+                            .version(actionLine.version())
+                            .versionType(actionLine.versionType())
+                            .setIfSeqNo(actionLine.ifSeqNo())
+                            .setIfPrimaryTerm(actionLine.ifPrimaryTerm())
+                    );
+                } else {
+                    nextMarker = findNextMarker(marker, from, data, lastData);
+                    if (nextMarker == -1) {
+                        if (lastData == false) {
+                            // the source of the action hasn't arrived yet, so the caller passes the action line again together with it
+                            pendingActionLine = actionLine;
+                            from = actionFrom;
+                            line--;
+                        }
+                        break;
+                    }
+                    line++;
+
+                    // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
+                    // of index request.
+                    if ("index".equals(actionLine.action())) {
+                        if (actionLine.opType() == null) {
+                            indexRequestConsumer.accept(
+                                new IndexRequest(actionLine.index()).id(actionLine.id())
+                                    .routing(actionLine.routing())
+                                    .version(actionLine.version())
+                                    .versionType(actionLine.versionType())
+                                    .setPipeline(actionLine.pipeline())
+                                    .setIfSeqNo(actionLine.ifSeqNo())
+                                    .setIfPrimaryTerm(actionLine.ifPrimaryTerm())
+                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
+                                    .setDynamicTemplates(actionLine.dynamicTemplates())
+                                    .setRequireAlias(actionLine.requireAlias()),
+                                actionLine.type()
+                            );
+                        } else {
+                            indexRequestConsumer.accept(
+                                new IndexRequest(actionLine.index()).id(actionLine.id())
+                                    .routing(actionLine.routing())
+                                    .version(actionLine.version())
+                                    .versionType(actionLine.versionType())
+                                    .create("create".equals(actionLine.opType()))
+                                    .setPipeline(actionLine.pipeline())
+                                    .setIfSeqNo(actionLine.ifSeqNo())
+                                    .setIfPrimaryTerm(actionLine.ifPrimaryTerm())
+                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
+                                    .setRequireAlias(actionLine.requireAlias()),
+                                actionLine.type()
+                            );
+                        }
+                    } else if ("create".equals(actionLine.action())) {
+                        indexRequestConsumer.accept(
+                            new IndexRequest(actionLine.index()).id(actionLine.id())
+                                .routing(actionLine.routing())
+                                .version(actionLine.version())
+                                .versionType(actionLine.versionType())
+                                .create(true)
+                                .setPipeline(actionLine.pipeline())
+                                .setIfSeqNo(actionLine.ifSeqNo())
+                                .setIfPrimaryTerm(actionLine.ifPrimaryTerm())
+                                .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
+                                .setDynamicTemplates(actionLine.dynamicTemplates())
+                                .setRequireAlias(actionLine.requireAlias()),
+                            actionLine.type()
+                        );
+                    } else if ("update".equals(actionLine.action())) {
+                        if (actionLine.version() != Versions.MATCH_ANY || actionLine.versionType() != VersionType.INTERNAL) {
+                            throw new IllegalArgumentException(
+                                "Update requests do not support versioning. " + "Please use `if_seq_no` and `if_primary_term` instead"
+                            );
+                        }
+                        // TODO: support dynamic_templates in update requests
+                        if (actionLine.dynamicTemplates().isEmpty() == false) {
+                            throw new IllegalArgumentException(
+                                "Update request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
+                            );
+                        }
+                        UpdateRequest updateRequest = new UpdateRequest().index(actionLine.index())
+                            .id(actionLine.id())
+                            .routing(actionLine.routing())
+                            .retryOnConflict(actionLine.retryOnConflict())
+                            .setIfSeqNo(actionLine.ifSeqNo())
+                            .setIfPrimaryTerm(actionLine.ifPrimaryTerm())
+                            .setRequireAlias(actionLine.requireAlias())
+                            .routing(actionLine.routing());
+                        try (
+                            XContentParser sliceParser = createParser(
+                                xContent,
+                                sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType)
+                            )
+                        ) {
+                            updateRequest.fromXContent(sliceParser);
+                        }
+                        if (actionLine.fetchSourceContext() != null) {
+                            updateRequest.fetchSource(actionLine.fetchSourceContext());
+                        }
+                        IndexRequest upsertRequest = updateRequest.upsertRequest();
+                        if (upsertRequest != null) {
+                            upsertRequest.setPipeline(defaultPipeline);
+                        }
 
+                        updateRequestConsumer.accept(updateRequest);
+                    }
+                    // move pointers
+                    from = nextMarker + 1;
+                }
+            }
+            return from;
+        }
+
+        /**
+         * Parses the action and metadata line between the given offsets, or returns {@code null} if the line is empty.
+         */
+        private ActionLine parseActionLine(XContent xContent, BytesReference data, int from, int nextMarker) throws IOException {
+            try (XContentParser parser = createParser(xContent, data, from, nextMarker)) {
                 // Move to START_OBJECT
                 XContentParser.Token token = parser.nextToken();
                 if (token == null) {
-                    continue;
+                    return null;
                 }
                 if (token != XContentParser.Token.START_OBJECT) {
                     throw new IllegalArgumentException(
@@ -227,13 +461,20 @@ public final class BulkRequestParser {
                                 if (parser.getRestApiVersion().matches(RestApiVersion.equalTo(RestApiVersion.V_7))) {
                                     // for bigger bulks, deprecation throttling might not be enough
                                     if (deprecateOrErrorOnType && typesDeprecationLogged == false) {
-                                        deprecationLogger.compatibleCritical("bulk_with_types", RestBulkAction.TYPES_DEPRECATION_MESSAGE);
+                                        deprecationLogger.compatibleCritical(
+                                            "bulk_with_types",
+                                            RestBulkAction.TYPES_DEPRECATION_MESSAGE
+                                        );
                                         typesDeprecationLogged = true;
                                     }
                                 } else if (parser.getRestApiVersion().matches(RestApiVersion.onOrAfter(RestApiVersion.V_8))
                                     && deprecateOrErrorOnType) {
                                         throw new IllegalArgumentException(
-                                            "Action/metadata line [" + line + "] contains an unknown parameter [" + currentFieldName + "]"
+                                            "Action/metadata line ["
+                                                + line
+                                                + "] contains an unknown parameter ["
+                                                + currentFieldName
+                                                + "]"
                                         );
                                     }
                                 type = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
@@ -307,119 +548,48 @@ public final class BulkRequestParser {
                 }
                 checkBulkActionIsProperlyClosed(parser);
 
-                if ("delete".equals(action)) {
-                    if (dynamicTemplates.isEmpty() == false) {
-                        throw new IllegalArgumentException(
-                            "Delete request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
-                        );
-                    }
-                    deleteRequestConsumer.accept(
-                        new DeleteRequest(index).id(id)
-                            .routing(routing)
-                            .version(version)
-                            .versionType(versionType)
-                            .setIfSeqNo(ifSeqNo)
-                            .setIfPrimaryTerm(ifPrimaryTerm)
-                    );
-                } else {
-                    nextMarker = findNextMarker(marker, from, data);
-                    if (nextMarker == -1) {
-                        break;
-                    }
-                    line++;
-
-                    // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
-                    // of index request.
-                    if ("index".equals(action)) {
-                        if (opType == null) {
-                            indexRequestConsumer.accept(
-                                new IndexRequest(index).id(id)
-                                    .routing(routing)
-                                    .version(version)
-                                    .versionType(versionType)
-                                    .setPipeline(pipeline)
-                                    .setIfSeqNo(ifSeqNo)
-                                    .setIfPrimaryTerm(ifPrimaryTerm)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                    .setDynamicTemplates(dynamicTemplates)
-                                    .setRequireAlias(requireAlias),
-                                type
-                            );
-                        } else {
-                            indexRequestConsumer.accept(
-                                new IndexRequest(index).id(id)
-                                    .routing(routing)
-                                    .version(version)
-                                    .versionType(versionType)
-                                    .create("create".equals(opType))
-                                    .setPipeline(pipeline)
-                                    .setIfSeqNo(ifSeqNo)
-                                    .setIfPrimaryTerm(ifPrimaryTerm)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                    .setRequireAlias(requireAlias),
-                                type
-                            );
-                        }
-                    } else if ("create".equals(action)) {
-                        indexRequestConsumer.accept(
-                            new IndexRequest(index).id(id)
-                                .routing(routing)
-                                .version(version)
-                                .versionType(versionType)
-                                .create(true)
-                                .setPipeline(pipeline)
-                                .setIfSeqNo(ifSeqNo)
-                                .setIfPrimaryTerm(ifPrimaryTerm)
-                                .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                .setDynamicTemplates(dynamicTemplates)
-                                .setRequireAlias(requireAlias),
-                            type
-                        );
-                    } else if ("update".equals(action)) {
-                        if (version != Versions.MATCH_ANY || versionType != VersionType.INTERNAL) {
-                            throw new IllegalArgumentException(
-                                "Update requests do not support versioning. " + "Please use `if_seq_no` and `if_primary_term` instead"
-                            );
-                        }
-                        // TODO: support dynamic_templates in update requests
-                        if (dynamicTemplates.isEmpty() == false) {
-                            throw new IllegalArgumentException(
-                                "Update request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
-                            );
-                        }
-                        UpdateRequest updateRequest = new UpdateRequest().index(index)
-                            .id(id)
-                            .routing(routing)
-                            .retryOnConflict(retryOnConflict)
-                            .setIfSeqNo(ifSeqNo)
-                            .setIfPrimaryTerm(ifPrimaryTerm)
-                            .setRequireAlias(requireAlias)
-                            .routing(routing);
-                        try (
-                            XContentParser sliceParser = createParser(
-                                xContent,
-                                sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType)
-                            )
-                        ) {
-                            updateRequest.fromXContent(sliceParser);
-                        }
-                        if (fetchSourceContext != null) {
-                            updateRequest.fetchSource(fetchSourceContext);
-                        }
-                        IndexRequest upsertRequest = updateRequest.upsertRequest();
-                        if (upsertRequest != null) {
-                            upsertRequest.setPipeline(defaultPipeline);
-                        }
-
-                        updateRequestConsumer.accept(updateRequest);
-                    }
-                    // move pointers
-                    from = nextMarker + 1;
-                }
+                return new ActionLine(
+                    action,
+                    index,
+                    type,
+                    id,
+                    routing,
+                    fetchSourceContext,
+                    opType,
+                    version,
+                    versionType,
+                    ifSeqNo,
+                    ifPrimaryTerm,
+                    retryOnConflict,
+                    pipeline,
+                    requireAlias,
+                    dynamicTemplates
+                );
             }
         }
     }
 
+    /**
+     * The action and metadata of a bulk item, as parsed from its action line.
+     */
+    private record ActionLine(
+        String action,
+        String index,
+        String type,
+        String id,
+        String routing,
+        FetchSourceContext fetchSourceContext,
+        String opType,
+        long version,
+        VersionType versionType,
+        long ifSeqNo,
+        long ifPrimaryTerm,
+        int retryOnConflict,
+        String pipeline,
+        boolean requireAlias,
+        Map<String, String> dynamicTemplates
+    ) {}
+
     private void checkBulkActionIsProperlyClosed(XContentParser parser) throws IOException {
         XContentParser.Token token;
         try {
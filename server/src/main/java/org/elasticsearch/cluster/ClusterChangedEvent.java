@@ -39,6 +39,8 @@ public class ClusterChangedEvent {
 
     private final DiscoveryNodes.Delta nodesDelta;
 
+    private volatile Set<Index> indicesWithMetadataChanges;
+
     public ClusterChangedEvent(String source, ClusterState state, ClusterState previousState) {
         Objects.requireNonNull(source, "source must not be null");
         Objects.requireNonNull(state, "state must not be null");
@@ -136,6 +138,36 @@ public class ClusterChangedEvent {
         return state.metadata() != previousState.metadata();
     }
 
+    /**
+     * Returns the indices of the new cluster state whose {@link IndexMetadata} is not the same instance as in the previous cluster state,
+     * including the indices that were created. Applying a diff keeps the instances of the indices that the diff does not touch, so this
+     * is the set of indices that the diff changed. The set is computed when first needed and then shared by everything that handles this
+     * event, so that these only visit the indices that changed rather than every index in the cluster.
+     */
+    public Set<Index> indicesWithMetadataChanges() {
+        Set<Index> changed = indicesWithMetadataChanges;
+        if (changed == null) {
+            changed = computeIndicesWithMetadataChanges();
+            indicesWithMetadataChanges = changed;
+        }
+        return changed;
+    }
+
+    private Set<Index> computeIndicesWithMetadataChanges() {
+        final ImmutableOpenMap<String, IndexMetadata> indices = state.metadata().indices();
+        final ImmutableOpenMap<String, IndexMetadata> previousIndices = previousState.metadata().indices();
+        if (indices == previousIndices) {
+            return Collections.emptySet();
+        }
+        final Set<Index> changed = new HashSet<>();
+        for (IndexMetadata indexMetadata : indices.values()) {
+            if (previousIndices.get(indexMetadata.getIndex().getName()) != indexMetadata) {
+                changed.add(indexMetadata.getIndex());
+            }
+        }
+        return Collections.unmodifiableSet(changed);
+    }
+
     /**
      * Returns a set of custom meta data types when any custom metadata for the cluster has changed
      * between the previous cluster state and the new cluster state. custom meta data types are
@@ -15,6 +15,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.xcontent.ToXContentFragment;
@@ -35,9 +36,14 @@ import java.util.Optional;
 public class ClusterInfo implements ToXContentFragment, Writeable {
 
     public static final Version DATA_SET_SIZE_SIZE_VERSION = Version.V_7_13_0;
+    public static final Version FORECAST_DISK_USAGE_VERSION = Version.V_8_2_0;
 
     private final ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage;
     private final ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage;
+    @Nullable
+    private final ImmutableOpenMap<String, DiskUsage> forecastLeastAvailableSpaceUsage;
+    @Nullable
+    private final ImmutableOpenMap<String, DiskUsage> forecastMostAvailableSpaceUsage;
     final ImmutableOpenMap<String, Long> shardSizes;
     final ImmutableOpenMap<ShardId, Long> shardDataSetSizes;
     public static final ClusterInfo EMPTY = new ClusterInfo();
@@ -74,10 +80,48 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         ImmutableOpenMap<ShardRouting, String> routingToDataPath,
         ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace
     ) {
+        this(
+            leastAvailableSpaceUsage,
+            mostAvailableSpaceUsage,
+            null,
+            null,
+            shardSizes,
+            shardDataSetSizes,
+            routingToDataPath,
+            reservedSpace
+        );
+    }
+
+    /**
+     * Creates a new ClusterInfo instance that also carries the disk usages that the nodes are forecast to reach.
+     *
+     * @param leastAvailableSpaceUsage a node id to disk usage mapping for the path that has the least available space on the node.
+     * @param mostAvailableSpaceUsage  a node id to disk usage mapping for the path that has the most available space on the node.
+     * @param forecastLeastAvailableSpaceUsage the forecast of {@code leastAvailableSpaceUsage}, or {@code null} if there is no forecast
+     * @param forecastMostAvailableSpaceUsage  the forecast of {@code mostAvailableSpaceUsage}, or {@code null} if there is no forecast
+     * @param shardSizes a shardkey to size in bytes mapping per shard.
+     * @param shardDataSetSizes a shard id to data set size in bytes mapping per shard
+     * @param routingToDataPath the shard routing to datapath mapping
+     * @param reservedSpace reserved space per shard broken down by node and data path
+     * @see #shardIdentifierFromRouting
+     */
+    public ClusterInfo(
+        ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage,
+        ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage,
+        @Nullable ImmutableOpenMap<String, DiskUsage> forecastLeastAvailableSpaceUsage,
+        @Nullable ImmutableOpenMap<String, DiskUsage> forecastMostAvailableSpaceUsage,
+        ImmutableOpenMap<String, Long> shardSizes,
+        ImmutableOpenMap<ShardId, Long> shardDataSetSizes,
+        ImmutableOpenMap<ShardRouting, String> routingToDataPath,
+        ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace
+    ) {
+        assert (forecastLeastAvailableSpaceUsage == null) == (forecastMostAvailableSpaceUsage == null);
         this.leastAvailableSpaceUsage = leastAvailableSpaceUsage;
         this.shardSizes = shardSizes;
         this.shardDataSetSizes = shardDataSetSizes;
         this.mostAvailableSpaceUsage = mostAvailableSpaceUsage;
+        this.forecastLeastAvailableSpaceUsage = forecastLeastAvailableSpaceUsage;
+        this.forecastMostAvailableSpaceUsage = forecastMostAvailableSpaceUsage;
         this.routingToDataPath = routingToDataPath;
         this.reservedSpace = reservedSpace;
     }
@@ -99,11 +143,29 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         } else {
             reservedSpaceMap = Map.of();
         }
+        final Map<String, DiskUsage> forecastLeastMap;
+        final Map<String, DiskUsage> forecastMostMap;
+        if (in.getVersion().onOrAfter(FORECAST_DISK_USAGE_VERSION) && in.readBoolean()) {
+            forecastLeastMap = in.readMap(StreamInput::readString, DiskUsage::new);
+            forecastMostMap = in.readMap(StreamInput::readString, DiskUsage::new);
+        } else {
+            forecastLeastMap = null;
+            forecastMostMap = null;
+        }
 
         ImmutableOpenMap.Builder<String, DiskUsage> leastBuilder = ImmutableOpenMap.builder();
         this.leastAvailableSpaceUsage = leastBuilder.putAll(leastMap).build();
         ImmutableOpenMap.Builder<String, DiskUsage> mostBuilder = ImmutableOpenMap.builder();
         this.mostAvailableSpaceUsage = mostBuilder.putAll(mostMap).build();
+        if (forecastLeastMap == null) {
+            this.forecastLeastAvailableSpaceUsage = null;
+            this.forecastMostAvailableSpaceUsage = null;
+        } else {
+            ImmutableOpenMap.Builder<String, DiskUsage> forecastLeastBuilder = ImmutableOpenMap.builder();
+            this.forecastLeastAvailableSpaceUsage = forecastLeastBuilder.putAll(forecastLeastMap).build();
+            ImmutableOpenMap.Builder<String, DiskUsage> forecastMostBuilder = ImmutableOpenMap.builder();
+            this.forecastMostAvailableSpaceUsage = forecastMostBuilder.putAll(forecastMostMap).build();
+        }
         ImmutableOpenMap.Builder<String, Long> sizeBuilder = ImmutableOpenMap.builder();
         this.shardSizes = sizeBuilder.putAll(sizeMap).build();
         ImmutableOpenMap.Builder<ShardId, Long> dataSetSizeBuilder = ImmutableOpenMap.builder();
@@ -130,6 +192,13 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         if (out.getVersion().onOrAfter(StoreStats.RESERVED_BYTES_VERSION)) {
             out.writeMap(this.reservedSpace);
         }
+        if (out.getVersion().onOrAfter(FORECAST_DISK_USAGE_VERSION)) {
+            out.writeBoolean(this.forecastLeastAvailableSpaceUsage != null);
+            if (this.forecastLeastAvailableSpaceUsage != null) {
+                out.writeMap(this.forecastLeastAvailableSpaceUsage, StreamOutput::writeString, (o, v) -> v.writeTo(o));
+                out.writeMap(this.forecastMostAvailableSpaceUsage, StreamOutput::writeString, (o, v) -> v.writeTo(o));
+            }
+        }
     }
 
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
@@ -152,6 +221,24 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
                         }
                     }
                     builder.endObject(); // end "most_available"
+                    if (this.forecastLeastAvailableSpaceUsage != null) {
+                        builder.startObject("forecast_least_available");
+                        {
+                            DiskUsage forecastLeast = this.forecastLeastAvailableSpaceUsage.get(c.getKey());
+                            if (forecastLeast != null) {
+                                forecastLeast.toShortXContent(builder);
+                            }
+                        }
+                        builder.endObject(); // end "forecast_least_available"
+                        builder.startObject("forecast_most_available");
+                        {
+                            DiskUsage forecastMost = this.forecastMostAvailableSpaceUsage.get(c.getKey());
+                            if (forecastMost != null) {
+                                forecastMost.toShortXContent(builder);
+                            }
+                        }
+                        builder.endObject(); // end "forecast_most_available"
+                    }
                 }
                 builder.endObject(); // end $nodename
             }
@@ -210,6 +297,24 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         return this.mostAvailableSpaceUsage;
     }
 
+    /**
+     * Returns the disk usages of {@link #getNodeLeastAvailableDiskUsages()} as they are forecast to be after the shards on each path
+     * keep growing for a while, or the measured disk usages if there is no forecast. Only use these to decide where shards should be
+     * allocated, never to block writes.
+     */
+    public ImmutableOpenMap<String, DiskUsage> getForecastNodeLeastAvailableDiskUsages() {
+        return this.forecastLeastAvailableSpaceUsage == null ? getNodeLeastAvailableDiskUsages() : this.forecastLeastAvailableSpaceUsage;
+    }
+
+    /**
+     * Returns the disk usages of {@link #getNodeMostAvailableDiskUsages()} as they are forecast to be after the shards on each path
+     * keep growing for a while, or the measured disk usages if there is no forecast. Only use these to decide where shards should be
+     * allocated, never to block writes.
+     */
+    public ImmutableOpenMap<String, DiskUsage> getForecastNodeMostAvailableDiskUsages() {
+        return this.forecastMostAvailableSpaceUsage == null ? getNodeMostAvailableDiskUsages() : this.forecastMostAvailableSpaceUsage;
+    }
+
     /**
      * Returns the shard size for the given shard routing or <code>null</code> it that metric is not available.
      */
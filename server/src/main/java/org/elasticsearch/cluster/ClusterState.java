@@ -158,6 +158,9 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
     // built on demand
     private volatile RoutingNodes routingNodes;
 
+    // built on demand, the routing node that getRoutingNode last built, usually that of the local node
+    private volatile RoutingNode lastRoutingNode;
+
     public ClusterState(long version, String stateUUID, ClusterState state) {
         this(
             state.clusterName,
@@ -313,6 +316,28 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
         return routingNodes;
     }
 
+    /**
+     * Returns the routing node of the given node, or {@code null} if the node holds no shards and is not a data node. Unless the
+     * {@link #getRoutingNodes() routing nodes} of this state are built already, this only builds the routing node of the given node, from
+     * the per-node lookups of each index that are shared with earlier states, see {@link RoutingTable#routingNode}.
+     */
+    @Nullable
+    public RoutingNode getRoutingNode(String nodeId) {
+        final RoutingNodes routingNodes = this.routingNodes;
+        if (routingNodes != null) {
+            return routingNodes.node(nodeId);
+        }
+        final RoutingNode lastRoutingNode = this.lastRoutingNode;
+        if (lastRoutingNode != null && lastRoutingNode.nodeId().equals(nodeId)) {
+            return lastRoutingNode;
+        }
+        final RoutingNode routingNode = routingTable.routingNode(nodeId, nodes);
+        if (routingNode != null) {
+            this.lastRoutingNode = routingNode;
+        }
+        return routingNode;
+    }
+
     /**
      * Returns a fresh mutable copy of the routing nodes view.
      */
@@ -27,4 +27,15 @@ public interface ClusterStateApplier {
      * therefore be fast, so please consider forking work into the background rather than doing everything inline.
      */
     void applyClusterState(ClusterChangedEvent event);
+
+    /**
+     * Whether this applier may apply a cluster state concurrently with the other appliers of the same priority. Appliers of the same
+     * priority are otherwise called one after the other in the order in which they were added, so an applier may rely on the appliers
+     * added before it having applied the state already. An applier that returns {@code true} must neither depend on nor be depended on by
+     * any other applier of its priority, and must not rely on being called on the cluster applier thread itself. Appliers are only applied
+     * concurrently if {@code cluster.service.applier.concurrency} is greater than one.
+     */
+    default boolean canApplyConcurrently() {
+        return false;
+    }
 }
@@ -33,6 +33,7 @@ import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
@@ -58,7 +59,13 @@ import java.util.function.Consumer;
  * ClusterInfoUpdateJob if a node has been added.
  *
  * Every time the timer runs, gathers information about the disk usage and
- * shard sizes across the cluster.
+ * shard sizes across the cluster. It also tracks how fast the shards grow,
+ * and if the <code>cluster.info.disk_forecast_horizon</code> setting is
+ * positive then it also reports the disk usage that the nodes are forecast
+ * to reach at that horizon, so that allocation moves shards away from nodes
+ * that are filling up before they reach the watermarks. The forecast is
+ * reported alongside the measured disk usage, which remains the only input
+ * to the flood-stage block.
  */
 public class InternalClusterInfoService implements ClusterInfoService, ClusterStateListener {
 
@@ -77,10 +84,19 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         Property.Dynamic,
         Property.NodeScope
     );
+    public static final Setting<TimeValue> INTERNAL_CLUSTER_INFO_DISK_FORECAST_HORIZON_SETTING = Setting.timeSetting(
+        "cluster.info.disk_forecast_horizon",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        TimeValue.timeValueHours(1),
+        Property.Dynamic,
+        Property.NodeScope
+    );
 
     private volatile boolean enabled;
     private volatile TimeValue updateFrequency;
     private volatile TimeValue fetchTimeout;
+    private volatile TimeValue diskForecastHorizon;
 
     private volatile ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsages;
     private volatile ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsages;
@@ -89,6 +105,7 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
     private final ThreadPool threadPool;
     private final Client client;
     private final List<Consumer<ClusterInfo>> listeners = new CopyOnWriteArrayList<>();
+    private final ShardGrowthTracker shardGrowthTracker = new ShardGrowthTracker();
 
     private final Object mutex = new Object();
     private final List<ActionListener<ClusterInfo>> nextRefreshListeners = new ArrayList<>();
@@ -103,10 +120,12 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         this.client = client;
         this.updateFrequency = INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING.get(settings);
         this.fetchTimeout = INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING.get(settings);
+        this.diskForecastHorizon = INTERNAL_CLUSTER_INFO_DISK_FORECAST_HORIZON_SETTING.get(settings);
         this.enabled = DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED_SETTING.get(settings);
         ClusterSettings clusterSettings = clusterService.getClusterSettings();
         clusterSettings.addSettingsUpdateConsumer(INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING, this::setFetchTimeout);
         clusterSettings.addSettingsUpdateConsumer(INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING, this::setUpdateFrequency);
+        clusterSettings.addSettingsUpdateConsumer(INTERNAL_CLUSTER_INFO_DISK_FORECAST_HORIZON_SETTING, this::setDiskForecastHorizon);
         clusterSettings.addSettingsUpdateConsumer(
             DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED_SETTING,
             this::setEnabled
@@ -125,6 +144,10 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         this.updateFrequency = updateFrequency;
     }
 
+    private void setDiskForecastHorizon(TimeValue diskForecastHorizon) {
+        this.diskForecastHorizon = diskForecastHorizon;
+    }
+
     @Override
     public void clusterChanged(ClusterChangedEvent event) {
         final Runnable newRefresh;
@@ -271,7 +294,8 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
                         shardSizeByIdentifierBuilder.build(),
                         shardDataSetSizeBuilder.build(),
                         dataPathByShardRoutingBuilder.build(),
-                        rsrvdSpace.build()
+                        rsrvdSpace.build(),
+                        shardGrowthTracker.update(stats, threadPool.relativeTimeInMillis())
                     );
                 }
 
@@ -386,9 +410,21 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
     @Override
     public ClusterInfo getClusterInfo() {
         final IndicesStatsSummary indicesStatsSummary = this.indicesStatsSummary; // single volatile read
+        final TimeValue diskForecastHorizon = this.diskForecastHorizon;
+        final ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsages = this.leastAvailableSpaceUsages;
+        final ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsages = this.mostAvailableSpaceUsages;
+        ImmutableOpenMap<String, DiskUsage> forecastLeastAvailableSpaceUsages = null;
+        ImmutableOpenMap<String, DiskUsage> forecastMostAvailableSpaceUsages = null;
+        if (diskForecastHorizon.millis() > 0 && indicesStatsSummary.bytesPerSecondByPath.isEmpty() == false) {
+            final Map<ClusterInfo.NodeAndPath, Double> bytesPerSecondByPath = indicesStatsSummary.bytesPerSecondByPath;
+            forecastLeastAvailableSpaceUsages = forecastDiskUsages(leastAvailableSpaceUsages, bytesPerSecondByPath, diskForecastHorizon);
+            forecastMostAvailableSpaceUsages = forecastDiskUsages(mostAvailableSpaceUsages, bytesPerSecondByPath, diskForecastHorizon);
+        }
         return new ClusterInfo(
             leastAvailableSpaceUsages,
             mostAvailableSpaceUsages,
+            forecastLeastAvailableSpaceUsages,
+            forecastMostAvailableSpaceUsages,
             indicesStatsSummary.shardSizes,
             indicesStatsSummary.shardDataSetSizes,
             indicesStatsSummary.shardRoutingToDataPath,
@@ -451,6 +487,34 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         }
     }
 
+    /**
+     * Returns the disk usages that the given growth rates lead to after the given horizon. Growth only ever reduces the free space, down
+     * to zero.
+     */
+    static ImmutableOpenMap<String, DiskUsage> forecastDiskUsages(
+        ImmutableOpenMap<String, DiskUsage> diskUsages,
+        Map<ClusterInfo.NodeAndPath, Double> bytesPerSecondByPath,
+        TimeValue horizon
+    ) {
+        final ImmutableOpenMap.Builder<String, DiskUsage> forecastDiskUsages = ImmutableOpenMap.builder(diskUsages.size());
+        for (Map.Entry<String, DiskUsage> entry : diskUsages.entrySet()) {
+            final DiskUsage diskUsage = entry.getValue();
+            final Double bytesPerSecond = bytesPerSecondByPath.get(new ClusterInfo.NodeAndPath(diskUsage.getNodeId(), diskUsage.getPath()));
+            if (bytesPerSecond == null || bytesPerSecond <= 0 || diskUsage.getFreeBytes() <= 0) {
+                forecastDiskUsages.put(entry.getKey(), diskUsage);
+                continue;
+            }
+            final double growthBytes = bytesPerSecond * horizon.millis() / 1000.0;
+            final long freeBytes = (long) Math.max(0.0, diskUsage.getFreeBytes() - growthBytes);
+            logger.trace("forecasting growth of [{}] bytes in [{}] for {}", (long) growthBytes, horizon, diskUsage);
+            forecastDiskUsages.put(
+                entry.getKey(),
+                new DiskUsage(diskUsage.getNodeId(), diskUsage.getNodeName(), diskUsage.getPath(), diskUsage.getTotalBytes(), freeBytes)
+            );
+        }
+        return forecastDiskUsages.build();
+    }
+
     static void fillDiskUsagePerNode(
         List<NodeStats> nodeStatsArray,
         ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvailableUsages,
@@ -542,15 +606,77 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         ImmutableOpenMap<String, Long> shardSizes,
         ImmutableOpenMap<ShardId, Long> shardDataSetSizes,
         ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath,
-        ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace
+        ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace,
+        Map<ClusterInfo.NodeAndPath, Double> bytesPerSecondByPath
     ) {
         static final IndicesStatsSummary EMPTY = new IndicesStatsSummary(
             ImmutableOpenMap.of(),
             ImmutableOpenMap.of(),
             ImmutableOpenMap.of(),
-            ImmutableOpenMap.of()
+            ImmutableOpenMap.of(),
+            Map.of()
         );
 
     }
 
+    /**
+     * Tracks how fast the started shard copies grow on disk from the change in their store size between refreshes. Copies are tracked by
+     * allocation ID, so a copy that is relocated starts afresh on its new node. Recovering copies are not tracked, since they grow by
+     * copying existing data rather than by indexing. The rates are smoothed across refreshes, and merges that shrink a copy count
+     * against its growth so that a copy which grows and then merges down is not forecast to keep growing. A copy that is shrinking
+     * overall counts as not growing rather than as freeing space.
+     */
+    static final class ShardGrowthTracker {
+
+        // the weight of the latest observation in the smoothed growth rate of a copy
+        private static final double ALPHA = 0.5;
+
+        private record Sample(long timeMillis, long sizeInBytes, double bytesPerSecond) {}
+
+        private Map<String, Sample> samplesByAllocationId = Map.of();
+
+        /**
+         * Records the store sizes of the started copies in the given stats, forgetting those that are no longer there, and returns the
+         * total growth rate in bytes per second of the copies on each data path whose growth rate is known.
+         */
+        synchronized Map<ClusterInfo.NodeAndPath, Double> update(ShardStats[] stats, long nowMillis) {
+            final Map<String, Sample> newSamples = Maps.newMapWithExpectedSize(stats.length);
+            final Map<ClusterInfo.NodeAndPath, Double> bytesPerSecondByPath = new HashMap<>();
+            for (ShardStats shardStats : stats) {
+                final ShardRouting shardRouting = shardStats.getShardRouting();
+                final StoreStats storeStats = shardStats.getStats().getStore();
+                if (storeStats == null || shardRouting.started() == false) {
+                    continue;
+                }
+                final String allocationId = shardRouting.allocationId().getId();
+                final Sample previous = samplesByAllocationId.get(allocationId);
+                final Sample sample;
+                if (previous == null) {
+                    sample = new Sample(nowMillis, storeStats.sizeInBytes(), Double.NaN);
+                } else if (nowMillis <= previous.timeMillis) {
+                    sample = previous;
+                } else {
+                    final long grownBytes = storeStats.sizeInBytes() - previous.sizeInBytes;
+                    final double bytesPerSecond = grownBytes * 1000.0 / (nowMillis - previous.timeMillis);
+                    sample = new Sample(
+                        nowMillis,
+                        storeStats.sizeInBytes(),
+                        Double.isNaN(previous.bytesPerSecond)
+                            ? bytesPerSecond
+                            : ALPHA * bytesPerSecond + (1 - ALPHA) * previous.bytesPerSecond
+                    );
+                }
+                if (newSamples.putIfAbsent(allocationId, sample) == null && Double.isNaN(sample.bytesPerSecond) == false) {
+                    bytesPerSecondByPath.merge(
+                        new ClusterInfo.NodeAndPath(shardRouting.currentNodeId(), shardStats.getDataPath()),
+                        Math.max(0.0, sample.bytesPerSecond),
+                        Double::sum
+                    );
+                }
+            }
+            samplesByAllocationId = newSamples;
+            return Map.copyOf(bytesPerSecondByPath);
+        }
+    }
+
 }
@@ -8,10 +8,12 @@
 
 package org.elasticsearch.cluster.coordination;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentObject;
 import org.elasticsearch.xcontent.XContentBuilder;
 
@@ -19,29 +21,40 @@ import java.io.IOException;
 
 public class ClusterStateSerializationStats implements Writeable, ToXContentObject {
 
-    public static final ClusterStateSerializationStats EMPTY = new ClusterStateSerializationStats(0L, 0L, 0L, 0L, 0L, 0L);
+    public static final ClusterStateSerializationStats EMPTY = new ClusterStateSerializationStats(0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+
+    private static final Version PHASE_TIMINGS_VERSION = Version.V_8_2_0;
 
     private final long fullStateCount;
     private final long totalUncompressedFullStateBytes;
     private final long totalCompressedFullStateBytes;
+    private final long totalFullStateSerializationTimeMillis;
     private final long diffCount;
     private final long totalUncompressedDiffBytes;
     private final long totalCompressedDiffBytes;
+    private final long totalDiffComputationTimeMillis;
+    private final long totalDiffSerializationTimeMillis;
 
     public ClusterStateSerializationStats(
         long fullStateCount,
         long totalUncompressedFullStateBytes,
         long totalCompressedFullStateBytes,
+        long totalFullStateSerializationTimeMillis,
         long diffCount,
         long totalUncompressedDiffBytes,
-        long totalCompressedDiffBytes
+        long totalCompressedDiffBytes,
+        long totalDiffComputationTimeMillis,
+        long totalDiffSerializationTimeMillis
     ) {
         this.fullStateCount = fullStateCount;
         this.totalUncompressedFullStateBytes = totalUncompressedFullStateBytes;
         this.totalCompressedFullStateBytes = totalCompressedFullStateBytes;
+        this.totalFullStateSerializationTimeMillis = totalFullStateSerializationTimeMillis;
         this.diffCount = diffCount;
         this.totalUncompressedDiffBytes = totalUncompressedDiffBytes;
         this.totalCompressedDiffBytes = totalCompressedDiffBytes;
+        this.totalDiffComputationTimeMillis = totalDiffComputationTimeMillis;
+        this.totalDiffSerializationTimeMillis = totalDiffSerializationTimeMillis;
     }
 
     public ClusterStateSerializationStats(StreamInput in) throws IOException {
@@ -51,6 +64,15 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         this.diffCount = in.readVLong();
         this.totalUncompressedDiffBytes = in.readVLong();
         this.totalCompressedDiffBytes = in.readVLong();
+        if (in.getVersion().onOrAfter(PHASE_TIMINGS_VERSION)) {
+            this.totalFullStateSerializationTimeMillis = in.readVLong();
+            this.totalDiffComputationTimeMillis = in.readVLong();
+            this.totalDiffSerializationTimeMillis = in.readVLong();
+        } else {
+            this.totalFullStateSerializationTimeMillis = 0L;
+            this.totalDiffComputationTimeMillis = 0L;
+            this.totalDiffSerializationTimeMillis = 0L;
+        }
     }
 
     public long getFullStateCount() {
@@ -65,6 +87,10 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         return totalCompressedFullStateBytes;
     }
 
+    public long getTotalFullStateSerializationTimeMillis() {
+        return totalFullStateSerializationTimeMillis;
+    }
+
     public long getDiffCount() {
         return diffCount;
     }
@@ -77,6 +103,14 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         return totalCompressedDiffBytes;
     }
 
+    public long getTotalDiffComputationTimeMillis() {
+        return totalDiffComputationTimeMillis;
+    }
+
+    public long getTotalDiffSerializationTimeMillis() {
+        return totalDiffSerializationTimeMillis;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
@@ -84,11 +118,26 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         builder.field("count", fullStateCount);
         builder.humanReadableField("uncompressed_size_in_bytes", "uncompressed_size", new ByteSizeValue(totalUncompressedFullStateBytes));
         builder.humanReadableField("compressed_size_in_bytes", "compressed_size", new ByteSizeValue(totalCompressedFullStateBytes));
+        builder.humanReadableField(
+            "serialization_time_in_millis",
+            "serialization_time",
+            TimeValue.timeValueMillis(totalFullStateSerializationTimeMillis)
+        );
         builder.endObject();
         builder.startObject("diffs");
         builder.field("count", diffCount);
         builder.humanReadableField("uncompressed_size_in_bytes", "uncompressed_size", new ByteSizeValue(totalUncompressedDiffBytes));
         builder.humanReadableField("compressed_size_in_bytes", "compressed_size", new ByteSizeValue(totalCompressedDiffBytes));
+        builder.humanReadableField(
+            "computation_time_in_millis",
+            "computation_time",
+            TimeValue.timeValueMillis(totalDiffComputationTimeMillis)
+        );
+        builder.humanReadableField(
+            "serialization_time_in_millis",
+            "serialization_time",
+            TimeValue.timeValueMillis(totalDiffSerializationTimeMillis)
+        );
         builder.endObject();
         builder.endObject();
         return builder;
@@ -102,6 +151,11 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         out.writeVLong(diffCount);
         out.writeVLong(totalUncompressedDiffBytes);
         out.writeVLong(totalCompressedDiffBytes);
+        if (out.getVersion().onOrAfter(PHASE_TIMINGS_VERSION)) {
+            out.writeVLong(totalFullStateSerializationTimeMillis);
+            out.writeVLong(totalDiffComputationTimeMillis);
+            out.writeVLong(totalDiffSerializationTimeMillis);
+        }
     }
 
 }
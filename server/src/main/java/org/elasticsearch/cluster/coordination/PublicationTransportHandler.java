@@ -33,6 +33,8 @@ import org.elasticsearch.common.io.stream.RecyclerBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.util.LazyInitializable;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
 import org.elasticsearch.core.AbstractRefCounted;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.internal.io.IOUtils;
@@ -47,10 +49,12 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class PublicationTransportHandler {
 
@@ -222,6 +226,7 @@ public class PublicationTransportHandler {
 
     private ReleasableBytesReference serializeFullClusterState(ClusterState clusterState, DiscoveryNode node) {
         final Version nodeVersion = node.getVersion();
+        final long startNanos = System.nanoTime();
         final RecyclerBytesStreamOutput bytesStream = transportService.newNetworkBytesStream();
         boolean success = false;
         try {
@@ -239,7 +244,7 @@ public class PublicationTransportHandler {
                 throw new ElasticsearchException("failed to serialize cluster state for publishing to node {}", e, node);
             }
             final ReleasableBytesReference result = new ReleasableBytesReference(bytesStream.bytes(), bytesStream);
-            serializationStatsTracker.serializedFullState(uncompressedBytes, result.length());
+            serializationStatsTracker.serializedFullState(uncompressedBytes, result.length(), System.nanoTime() - startNanos);
             logger.trace(
                 "serialized full cluster state version [{}] for node version [{}] with size [{}]",
                 clusterState.version(),
@@ -257,6 +262,7 @@ public class PublicationTransportHandler {
 
     private ReleasableBytesReference serializeDiffClusterState(long clusterStateVersion, Diff<ClusterState> diff, DiscoveryNode node) {
         final Version nodeVersion = node.getVersion();
+        final long startNanos = System.nanoTime();
         final RecyclerBytesStreamOutput bytesStream = transportService.newNetworkBytesStream();
         boolean success = false;
         try {
@@ -274,7 +280,7 @@ public class PublicationTransportHandler {
                 throw new ElasticsearchException("failed to serialize cluster state diff for publishing to node {}", e, node);
             }
             final ReleasableBytesReference result = new ReleasableBytesReference(bytesStream.bytes(), bytesStream);
-            serializationStatsTracker.serializedDiff(uncompressedBytes, result.length());
+            serializationStatsTracker.serializedDiff(uncompressedBytes, result.length(), System.nanoTime() - startNanos);
             logger.trace(
                 "serialized cluster state diff for version [{}] for node version [{}] with size [{}]",
                 clusterStateVersion,
@@ -296,6 +302,10 @@ public class PublicationTransportHandler {
      * {@code PublicationContext} implements this sharing. It's ref-counted: the initial reference is released by the coordinator when
      * a state (or diff) has been sent to every node, every transmitted diff also holds a reference in case it needs to retry with a full
      * state.
+     * <p>
+     * Only the first serialization happens before the publication starts. The others, which are needed when nodes of several versions
+     * or nodes that are new to the cluster take part in the publication, happen in the background, and the publication sends each
+     * serialization to its nodes as soon as it is ready rather than waiting for all of them.
      */
     public class PublicationContext extends AbstractRefCounted {
 
@@ -304,9 +314,10 @@ public class PublicationTransportHandler {
         private final ClusterState previousState;
         private final boolean sendFullVersion;
 
-        // All the values of these maps have one ref for the context (while it's open) and one for each in-flight message.
-        private final Map<Version, ReleasableBytesReference> serializedStates = new ConcurrentHashMap<>();
-        private final Map<Version, ReleasableBytesReference> serializedDiffs = new HashMap<>();
+        // All the values of these maps have one ref for the context (while it's open) and one for each in-flight message. A value is
+        // complete unless its serialization is still running in the background, which holds a ref to the context until it completes.
+        private final Map<Version, ListenableFuture<ReleasableBytesReference>> serializedStates = new ConcurrentHashMap<>();
+        private final Map<Version, ListenableFuture<ReleasableBytesReference>> serializedDiffs = new HashMap<>();
 
         PublicationContext(ClusterStatePublicationEvent clusterStatePublicationEvent) {
             discoveryNodes = clusterStatePublicationEvent.getNewState().nodes();
@@ -317,21 +328,67 @@ public class PublicationTransportHandler {
 
         void buildDiffAndSerializeStates() {
             assert refCount() > 0;
-            final LazyInitializable<Diff<ClusterState>, RuntimeException> diffSupplier = new LazyInitializable<>(
-                () -> newState.diff(previousState)
-            );
+            final LazyInitializable<Diff<ClusterState>, RuntimeException> diffSupplier = new LazyInitializable<>(() -> {
+                final long startNanos = System.nanoTime();
+                final Diff<ClusterState> diff = newState.diff(previousState);
+                serializationStatsTracker.computedDiff(System.nanoTime() - startNanos);
+                return diff;
+            });
+            boolean first = true;
             for (DiscoveryNode node : discoveryNodes) {
+                final Map<Version, ListenableFuture<ReleasableBytesReference>> serializations;
+                final Supplier<ReleasableBytesReference> serializer;
                 if (sendFullVersion || previousState.nodes().nodeExists(node) == false) {
-                    serializedStates.computeIfAbsent(node.getVersion(), v -> serializeFullClusterState(newState, node));
+                    serializations = serializedStates;
+                    serializer = () -> serializeFullClusterState(newState, node);
                 } else {
-                    serializedDiffs.computeIfAbsent(
-                        node.getVersion(),
-                        v -> serializeDiffClusterState(newState.version(), diffSupplier.getOrCompute(), node)
-                    );
+                    serializations = serializedDiffs;
+                    serializer = () -> serializeDiffClusterState(newState.version(), diffSupplier.getOrCompute(), node);
                 }
+                if (serializations.containsKey(node.getVersion())) {
+                    continue;
+                }
+                final ListenableFuture<ReleasableBytesReference> serialization = new ListenableFuture<>();
+                if (first) {
+                    // the other serializations would most likely fail in the same way, so failing here fails the publication early
+                    serialization.onResponse(serializer.get());
+                    first = false;
+                } else {
+                    serializeInBackground(serialization, serializer);
+                }
+                serializations.put(node.getVersion(), serialization);
             }
         }
 
+        private void serializeInBackground(
+            ListenableFuture<ReleasableBytesReference> serialization,
+            Supplier<ReleasableBytesReference> serializer
+        ) {
+            incRef();
+            transportService.getThreadPool().generic().execute(new AbstractRunnable() {
+                @Override
+                protected void doRun() {
+                    serialization.onResponse(serializer.get());
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    logger.warn(new ParameterizedMessage("failed to serialize cluster state version [{}]", newState.version()), e);
+                    serialization.onFailure(e);
+                }
+
+                @Override
+                public void onAfter() {
+                    decRef();
+                }
+
+                @Override
+                public String toString() {
+                    return "serialize cluster state version [" + newState.version() + "] for publication";
+                }
+            });
+        }
+
         public void sendPublishRequest(
             DiscoveryNode destination,
             PublishRequest publishRequest,
@@ -389,13 +446,14 @@ public class PublicationTransportHandler {
 
         private void sendFullClusterState(DiscoveryNode destination, ActionListener<PublishWithJoinResponse> listener) {
             assert refCount() > 0;
-            ReleasableBytesReference bytes = serializedStates.get(destination.getVersion());
-            if (bytes == null) {
+            ListenableFuture<ReleasableBytesReference> serialization = serializedStates.get(destination.getVersion());
+            if (serialization == null) {
                 try {
-                    bytes = serializedStates.computeIfAbsent(
-                        destination.getVersion(),
-                        v -> serializeFullClusterState(newState, destination)
-                    );
+                    serialization = serializedStates.computeIfAbsent(destination.getVersion(), v -> {
+                        final ListenableFuture<ReleasableBytesReference> future = new ListenableFuture<>();
+                        future.onResponse(serializeFullClusterState(newState, destination));
+                        return future;
+                    });
                 } catch (Exception e) {
                     logger.warn(
                         () -> new ParameterizedMessage("failed to serialize cluster state before publishing it to node {}", destination),
@@ -405,12 +463,12 @@ public class PublicationTransportHandler {
                     return;
                 }
             }
-            sendClusterState(destination, bytes, listener);
+            sendClusterState(destination, serialization, listener);
         }
 
         private void sendClusterStateDiff(DiscoveryNode destination, ActionListener<PublishWithJoinResponse> listener) {
-            final ReleasableBytesReference bytes = serializedDiffs.get(destination.getVersion());
-            assert bytes != null
+            final ListenableFuture<ReleasableBytesReference> serialization = serializedDiffs.get(destination.getVersion());
+            assert serialization != null
                 : "failed to find serialized diff for node " + destination + " of version [" + destination.getVersion() + "]";
 
             // acquire a ref to the context just in case we need to try again with the full cluster state
@@ -419,7 +477,7 @@ public class PublicationTransportHandler {
                 listener.onFailure(new IllegalStateException("publication context released before transmission"));
                 return;
             }
-            sendClusterState(destination, bytes, ActionListener.runAfter(listener.delegateResponse((delegate, e) -> {
+            sendClusterState(destination, serialization, ActionListener.runAfter(listener.delegateResponse((delegate, e) -> {
                 if (e instanceof final TransportException transportException) {
                     if (transportException.unwrapCause() instanceof IncompatibleClusterStateVersionException) {
                         logger.debug(
@@ -439,6 +497,16 @@ public class PublicationTransportHandler {
             }), this::decRef));
         }
 
+        private void sendClusterState(
+            DiscoveryNode destination,
+            ListenableFuture<ReleasableBytesReference> serialization,
+            ActionListener<PublishWithJoinResponse> listener
+        ) {
+            assert refCount() > 0;
+            // completes straight away unless the serialization is still running in the background, which then sends the state once done
+            serialization.addListener(listener.delegateFailure((l, bytes) -> sendClusterState(destination, bytes, l)));
+        }
+
         private void sendClusterState(
             DiscoveryNode destination,
             ReleasableBytesReference bytes,
@@ -471,8 +539,13 @@ public class PublicationTransportHandler {
 
         @Override
         protected void closeInternal() {
-            serializedDiffs.values().forEach(Releasables::closeExpectNoException);
-            serializedStates.values().forEach(Releasables::closeExpectNoException);
+            serializedDiffs.values().forEach(PublicationContext::releaseSerialization);
+            serializedStates.values().forEach(PublicationContext::releaseSerialization);
+        }
+
+        private static void releaseSerialization(ListenableFuture<ReleasableBytesReference> serialization) {
+            assert serialization.isDone() : "serialization still running while releasing the publication context";
+            serialization.addListener(ActionListener.wrap(Releasables::closeExpectNoException, e -> {}));
         }
     }
 
@@ -481,21 +554,30 @@ public class PublicationTransportHandler {
         private long fullStateCount;
         private long totalUncompressedFullStateBytes;
         private long totalCompressedFullStateBytes;
+        private long totalFullStateSerializationTimeNanos;
 
         private long diffCount;
         private long totalUncompressedDiffBytes;
         private long totalCompressedDiffBytes;
+        private long totalDiffComputationTimeNanos;
+        private long totalDiffSerializationTimeNanos;
 
-        public synchronized void serializedFullState(long uncompressedBytes, int compressedBytes) {
+        public synchronized void serializedFullState(long uncompressedBytes, int compressedBytes, long serializationTimeNanos) {
             fullStateCount += 1;
             totalUncompressedFullStateBytes += uncompressedBytes;
             totalCompressedFullStateBytes += compressedBytes;
+            totalFullStateSerializationTimeNanos += serializationTimeNanos;
+        }
+
+        public synchronized void computedDiff(long computationTimeNanos) {
+            totalDiffComputationTimeNanos += computationTimeNanos;
         }
 
-        public synchronized void serializedDiff(long uncompressedBytes, int compressedBytes) {
+        public synchronized void serializedDiff(long uncompressedBytes, int compressedBytes, long serializationTimeNanos) {
             diffCount += 1;
             totalUncompressedDiffBytes += uncompressedBytes;
             totalCompressedDiffBytes += compressedBytes;
+            totalDiffSerializationTimeNanos += serializationTimeNanos;
         }
 
         public synchronized ClusterStateSerializationStats getSerializationStats() {
@@ -503,9 +585,12 @@ public class PublicationTransportHandler {
                 fullStateCount,
                 totalUncompressedFullStateBytes,
                 totalCompressedFullStateBytes,
+                TimeUnit.NANOSECONDS.toMillis(totalFullStateSerializationTimeNanos),
                 diffCount,
                 totalUncompressedDiffBytes,
-                totalCompressedDiffBytes
+                totalCompressedDiffBytes,
+                TimeUnit.NANOSECONDS.toMillis(totalDiffComputationTimeNanos),
+                TimeUnit.NANOSECONDS.toMillis(totalDiffSerializationTimeNanos)
             );
         }
     }
@@ -15,6 +15,7 @@ import org.elasticsearch.action.support.ActiveShardCount;
 import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.Diffable;
 import org.elasticsearch.cluster.DiffableUtils;
+import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.block.ClusterBlock;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.node.DiscoveryNodeFilters;
@@ -477,6 +478,7 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
     static final String KEY_SETTINGS = "settings";
     static final String KEY_STATE = "state";
     static final String KEY_MAPPINGS = "mappings";
+    static final String KEY_MAPPINGS_HASH = "mappings_hash";
     static final String KEY_ALIASES = "aliases";
     static final String KEY_ROLLOVER_INFOS = "rollover_info";
     static final String KEY_SYSTEM = "system";
@@ -485,6 +487,12 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
 
     public static final String INDEX_STATE_FILE_PREFIX = "state-";
 
+    /**
+     * Parameter to write the mapping of the index as its hash only, for readers that store the mappings separately and pass them to
+     * {@link #fromXContent(XContentParser, Map)}. Only applies outside the API context.
+     */
+    public static final String DEDUPLICATED_MAPPINGS_PARAM = "deduplicated_mappings";
+
     static final Version SYSTEM_INDEX_FLAG_ADDED = Version.V_7_10_0;
 
     private final int routingNumShards;
@@ -1005,11 +1013,29 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
     }
 
     public static Diff<IndexMetadata> readDiffFrom(StreamInput in) throws IOException {
-        return new IndexMetadataDiff(in);
+        return new IndexMetadataDiff(in, null);
+    }
+
+    /**
+     * @param mappingLookup lookup function that translates mapping metadata hashes into concrete instances when the diff is applied, like
+     *                      the one of {@link #readFrom(StreamInput, Function)}. If specified we assume that the stream contains the hash
+     *                      of the mapping rather than a diff of it.
+     */
+    static Diff<IndexMetadata> readDiffFrom(StreamInput in, Function<String, MappingMetadata> mappingLookup) throws IOException {
+        return new IndexMetadataDiff(in, mappingLookup);
     }
 
     public static IndexMetadata fromXContent(XContentParser parser) throws IOException {
-        return Builder.fromXContent(parser);
+        return Builder.fromXContent(parser, null);
+    }
+
+    /**
+     * Parses index metadata whose mapping may have been written as a hash with {@link #DEDUPLICATED_MAPPINGS_PARAM}.
+     *
+     * @param mappingsByHash the mappings to resolve hashes against, keyed by their {@link MappingMetadata#getSha256() hash}
+     */
+    public static IndexMetadata fromXContent(XContentParser parser, Map<String, MappingMetadata> mappingsByHash) throws IOException {
+        return Builder.fromXContent(parser, mappingsByHash);
     }
 
     @Override
@@ -1018,7 +1044,7 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         return builder;
     }
 
-    private static class IndexMetadataDiff implements Diff<IndexMetadata> {
+    static class IndexMetadataDiff implements Diff<IndexMetadata> {
 
         private final String index;
         private final int routingNumShards;
@@ -1029,7 +1055,18 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         private final long[] primaryTerms;
         private final State state;
         private final Settings settings;
+        // null if the diff was read with the mapping as a hash
+        @Nullable
         private final Diff<ImmutableOpenMap<String, MappingMetadata>> mappings;
+        private final boolean mappingChanged;
+        // the mapping after the change on the sending side, only used to write its hash
+        @Nullable
+        private final MappingMetadata mapping;
+        // the hash of the mapping after the change and how to resolve it, if the diff was read with the mapping as a hash
+        @Nullable
+        private final String mappingHash;
+        @Nullable
+        private final Function<String, MappingMetadata> mappingLookup;
         private final Diff<ImmutableOpenMap<String, AliasMetadata>> aliases;
         private final Diff<ImmutableOpenMap<String, DiffableStringMap>> customData;
         private final Diff<ImmutableOpenIntMap<Set<String>>> inSyncAllocationIds;
@@ -1057,6 +1094,10 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
                     : ImmutableOpenMap.<String, MappingMetadata>builder(1).fPut(MapperService.SINGLE_MAPPING_NAME, after.mapping).build(),
                 DiffableUtils.getStringKeySerializer()
             );
+            mappingChanged = Objects.equals(before.mapping, after.mapping) == false;
+            mapping = after.mapping;
+            mappingHash = null;
+            mappingLookup = null;
             aliases = DiffableUtils.diff(before.aliases, after.aliases, DiffableUtils.getStringKeySerializer());
             customData = DiffableUtils.diff(before.customData, after.customData, DiffableUtils.getStringKeySerializer());
             inSyncAllocationIds = DiffableUtils.diff(
@@ -1079,7 +1120,7 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         private static final DiffableUtils.DiffableValueReader<String, RolloverInfo> ROLLOVER_INFO_DIFF_VALUE_READER =
             new DiffableUtils.DiffableValueReader<>(RolloverInfo::new, RolloverInfo::readDiffFrom);
 
-        IndexMetadataDiff(StreamInput in) throws IOException {
+        IndexMetadataDiff(StreamInput in, @Nullable Function<String, MappingMetadata> mappingLookup) throws IOException {
             index = in.readString();
             routingNumShards = in.readInt();
             version = in.readLong();
@@ -1093,7 +1134,17 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
             state = State.fromId(in.readByte());
             settings = Settings.readSettingsFromStream(in);
             primaryTerms = in.readVLongArray();
-            mappings = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), MAPPING_DIFF_VALUE_READER);
+            mapping = null;
+            this.mappingLookup = mappingLookup;
+            if (mappingLookup == null) {
+                mappings = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), MAPPING_DIFF_VALUE_READER);
+                mappingChanged = false;
+                mappingHash = null;
+            } else {
+                mappings = null;
+                mappingChanged = in.readBoolean();
+                mappingHash = mappingChanged ? in.readOptionalString() : null;
+            }
             aliases = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), ALIAS_METADATA_DIFF_VALUE_READER);
             customData = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), CUSTOM_DIFF_VALUE_READER);
             inSyncAllocationIds = DiffableUtils.readImmutableOpenIntMapDiff(
@@ -1116,6 +1167,14 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
+            writeTo(out, false);
+        }
+
+        /**
+         * @param mappingAsHash whether to serialize the change to the mapping in full or just the hash of the new mapping
+         */
+        void writeTo(StreamOutput out, boolean mappingAsHash) throws IOException {
+            assert mappings != null : "cannot write a diff that was read with the mapping as a hash";
             out.writeString(index);
             out.writeInt(routingNumShards);
             out.writeLong(version);
@@ -1127,7 +1186,14 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
             out.writeByte(state.id);
             Settings.writeSettingsToStream(settings, out);
             out.writeVLongArray(primaryTerms);
-            mappings.writeTo(out);
+            if (mappingAsHash) {
+                out.writeBoolean(mappingChanged);
+                if (mappingChanged) {
+                    out.writeOptionalString(mapping == null ? null : mapping.getSha256());
+                }
+            } else {
+                mappings.writeTo(out);
+            }
             aliases.writeTo(out);
             customData.writeTo(out);
             inSyncAllocationIds.writeTo(out);
@@ -1149,9 +1215,22 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
             builder.state(state);
             builder.settings(settings);
             builder.primaryTerms(primaryTerms);
-            builder.mapping = mappings.apply(
-                ImmutableOpenMap.<String, MappingMetadata>builder(1).fPut(MapperService.SINGLE_MAPPING_NAME, part.mapping).build()
-            ).get(MapperService.SINGLE_MAPPING_NAME);
+            if (mappings != null) {
+                builder.mapping = mappings.apply(
+                    ImmutableOpenMap.<String, MappingMetadata>builder(1).fPut(MapperService.SINGLE_MAPPING_NAME, part.mapping).build()
+                ).get(MapperService.SINGLE_MAPPING_NAME);
+            } else if (mappingChanged == false) {
+                builder.mapping = part.mapping;
+            } else if (mappingHash == null) {
+                builder.mapping = null;
+            } else {
+                builder.mapping = mappingLookup.apply(mappingHash);
+                if (builder.mapping == null) {
+                    throw new IncompatibleClusterStateVersionException(
+                        "failed to find mapping [" + mappingHash + "] for [" + index + "] when applying diff"
+                    );
+                }
+            }
             builder.aliases.putAll(aliases.apply(part.aliases));
             builder.customMetadata.putAll(customData.apply(part.customData));
             builder.inSyncAllocationIds.putAll(inSyncAllocationIds.apply(part.inSyncAllocationIds));
@@ -1751,7 +1830,12 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
             }
             builder.endObject();
 
-            if (context != Metadata.XContentContext.API) {
+            if (context != Metadata.XContentContext.API && params.paramAsBoolean(DEDUPLICATED_MAPPINGS_PARAM, false)) {
+                MappingMetadata mmd = indexMetadata.mapping();
+                if (mmd != null) {
+                    builder.field(KEY_MAPPINGS_HASH, mmd.getSha256());
+                }
+            } else if (context != Metadata.XContentContext.API) {
                 builder.startArray(KEY_MAPPINGS);
                 MappingMetadata mmd = indexMetadata.mapping();
                 if (mmd != null) {
@@ -1832,6 +1916,11 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         }
 
         public static IndexMetadata fromXContent(XContentParser parser) throws IOException {
+            return fromXContent(parser, null);
+        }
+
+        public static IndexMetadata fromXContent(XContentParser parser, @Nullable Map<String, MappingMetadata> mappingsByHash)
+            throws IOException {
             if (parser.currentToken() == null) { // fresh parser? move to the first token
                 parser.nextToken();
             }
@@ -1952,6 +2041,13 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
                         builder.setRoutingNumShards(parser.intValue());
                     } else if (KEY_SYSTEM.equals(currentFieldName)) {
                         builder.system(parser.booleanValue());
+                    } else if (KEY_MAPPINGS_HASH.equals(currentFieldName)) {
+                        final String mappingHash = parser.text();
+                        final MappingMetadata mappingMetadata = mappingsByHash == null ? null : mappingsByHash.get(mappingHash);
+                        if (mappingMetadata == null) {
+                            throw new IllegalArgumentException("mapping with hash [" + mappingHash + "] not found");
+                        }
+                        builder.putMapping(mappingMetadata);
                     } else {
                         throw new IllegalArgumentException("Unexpected field [" + currentFieldName + "]");
                     }
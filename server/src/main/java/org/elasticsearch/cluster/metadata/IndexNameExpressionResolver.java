@@ -1306,6 +1306,16 @@ public class IndexNameExpressionResolver {
         }
 
         public static Map<String, IndexAbstraction> matches(Context context, Metadata metadata, String expression) {
+            // the matches only depend on the metadata and on these options, the context's other checks apply when they are expanded
+            final Metadata.WildcardMatchesKey key = new Metadata.WildcardMatchesKey(
+                expression,
+                context.getOptions().ignoreAliases(),
+                context.includeDataStreams()
+            );
+            return metadata.wildcardMatches(key, k -> computeMatches(context, metadata, expression));
+        }
+
+        private static Map<String, IndexAbstraction> computeMatches(Context context, Metadata metadata, String expression) {
             if (Regex.isMatchAllPattern(expression)) {
                 return filterIndicesLookup(context, metadata.getIndicesLookup(), null, context.getOptions());
             } else if (expression.indexOf("*") == expression.length() - 1) {
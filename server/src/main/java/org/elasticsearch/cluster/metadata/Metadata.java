@@ -19,6 +19,7 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.Diffable;
 import org.elasticsearch.cluster.DiffableUtils;
+import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.NamedDiffable;
 import org.elasticsearch.cluster.NamedDiffableValueSerializer;
 import org.elasticsearch.cluster.block.ClusterBlock;
@@ -70,6 +71,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -218,6 +220,8 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
 
     private SortedMap<String, IndexAbstraction> indicesLookup;
     private final Map<String, MappingMetadata> mappingsByHash;
+    // the matches of the wildcard expressions that were resolved against this metadata, created on first use
+    private volatile Map<WildcardMatchesKey, Map<String, IndexAbstraction>> wildcardMatchesCache;
 
     private final Version oldestIndexVersion;
 
@@ -383,6 +387,45 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         return indicesLookup;
     }
 
+    /**
+     * The most wildcard expressions whose matches are cached per metadata, which bounds the cache for clients that send ever changing
+     * expressions; the expressions beyond this are resolved on every request.
+     */
+    static final int MAX_CACHED_WILDCARD_MATCHES = 64;
+
+    /**
+     * Identifies the matches of a wildcard expression, which also depend on whether aliases and data streams may match.
+     */
+    record WildcardMatchesKey(String expression, boolean ignoreAliases, boolean includeDataStreams) {}
+
+    /**
+     * Returns the abstractions that match the given wildcard expression, computing them with the given function the first time they are
+     * needed. The metadata is immutable so the matches stay valid for as long as it is, and a search over thousands of indices only
+     * scans the {@link #getIndicesLookup() indices lookup} once per cluster state update rather than once per request.
+     */
+    Map<String, IndexAbstraction> wildcardMatches(
+        WildcardMatchesKey key,
+        Function<WildcardMatchesKey, Map<String, IndexAbstraction>> matchesFunction
+    ) {
+        Map<WildcardMatchesKey, Map<String, IndexAbstraction>> cache = wildcardMatchesCache;
+        if (cache == null) {
+            // concurrent callers may each create a cache, which only costs recomputing the matches of the ones that get lost
+            cache = new ConcurrentHashMap<>();
+            wildcardMatchesCache = cache;
+        }
+        Map<String, IndexAbstraction> matches = cache.get(key);
+        if (matches == null) {
+            matches = Collections.unmodifiableMap(matchesFunction.apply(key));
+            if (cache.size() < MAX_CACHED_WILDCARD_MATCHES) {
+                final Map<String, IndexAbstraction> existing = cache.putIfAbsent(key, matches);
+                if (existing != null) {
+                    matches = existing;
+                }
+            }
+        }
+        return matches;
+    }
+
     /**
      * Finds the specific index aliases that point to the requested concrete indices directly
      * or that match with the indices via wildcards.
@@ -965,6 +1008,11 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         private final Diff<ImmutableOpenMap<String, IndexMetadata>> indices;
         private final Diff<ImmutableOpenMap<String, IndexTemplateMetadata>> templates;
         private final Diff<ImmutableOpenMap<String, Custom>> customs;
+        // the mappings that indices refer to by hash in this diff and that the metadata that it applies to does not have yet
+        private final Map<String, MappingMetadata> newMappingsByHash;
+        // null unless the diff was read with the mappings of its indices as hashes
+        @Nullable
+        private final IndexMetadataWithMappingHashSerializer indexMetadataSerializer;
 
         MetadataDiff(Metadata before, Metadata after) {
             clusterUUID = after.clusterUUID;
@@ -974,9 +1022,25 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             transientSettings = after.transientSettings;
             persistentSettings = after.persistentSettings;
             hashesOfConsistentSettings = after.hashesOfConsistentSettings.diff(before.hashesOfConsistentSettings);
-            indices = DiffableUtils.diff(before.indices, after.indices, DiffableUtils.getStringKeySerializer());
+            indices = DiffableUtils.diff(
+                before.indices,
+                after.indices,
+                DiffableUtils.getStringKeySerializer(),
+                IndexMetadataWithMappingHashSerializer.WRITE_ONLY_INSTANCE
+            );
             templates = DiffableUtils.diff(before.templates, after.templates, DiffableUtils.getStringKeySerializer());
             customs = DiffableUtils.diff(before.customs, after.customs, DiffableUtils.getStringKeySerializer(), CUSTOM_VALUE_SERIALIZER);
+            if (before.mappingsByHash == after.mappingsByHash) {
+                newMappingsByHash = Map.of();
+            } else {
+                newMappingsByHash = new HashMap<>();
+                for (Map.Entry<String, MappingMetadata> entry : after.mappingsByHash.entrySet()) {
+                    if (before.mappingsByHash.containsKey(entry.getKey()) == false) {
+                        newMappingsByHash.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            indexMetadataSerializer = null;
         }
 
         private static final DiffableUtils.DiffableValueReader<String, IndexMetadata> INDEX_METADATA_DIFF_VALUE_READER =
@@ -996,7 +1060,24 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             } else {
                 hashesOfConsistentSettings = DiffableStringMap.DiffableStringMapDiff.EMPTY;
             }
-            indices = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), INDEX_METADATA_DIFF_VALUE_READER);
+            if (in.getVersion().onOrAfter(MAPPINGS_AS_HASH_IN_DIFFS_VERSION)) {
+                final int mappings = in.readVInt();
+                newMappingsByHash = new HashMap<>(mappings);
+                for (int i = 0; i < mappings; i++) {
+                    final MappingMetadata mappingMetadata = new MappingMetadata(in);
+                    newMappingsByHash.put(mappingMetadata.getSha256(), mappingMetadata);
+                }
+                indexMetadataSerializer = new IndexMetadataWithMappingHashSerializer(newMappingsByHash);
+                indices = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), indexMetadataSerializer);
+            } else {
+                newMappingsByHash = Map.of();
+                indexMetadataSerializer = null;
+                indices = DiffableUtils.readImmutableOpenMapDiff(
+                    in,
+                    DiffableUtils.getStringKeySerializer(),
+                    INDEX_METADATA_DIFF_VALUE_READER
+                );
+            }
             templates = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), TEMPLATES_DIFF_VALUE_READER);
             customs = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), CUSTOM_VALUE_SERIALIZER);
         }
@@ -1012,11 +1093,38 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             if (out.getVersion().onOrAfter(Version.V_7_3_0)) {
                 hashesOfConsistentSettings.writeTo(out);
             }
+            if (out.getVersion().onOrAfter(MAPPINGS_AS_HASH_IN_DIFFS_VERSION)) {
+                // each new mapping goes first and only once, the indices then refer to it by hash like they do to the mappings that the
+                // receiving node has already
+                out.writeCollection(newMappingsByHash.values());
+            }
             indices.writeTo(out);
             templates.writeTo(out);
             customs.writeTo(out);
         }
 
+        private ImmutableOpenMap<String, IndexMetadata> applyIndices(Metadata part) {
+            if (indexMetadataSerializer == null) {
+                return indices.apply(part.indices);
+            }
+            indexMetadataSerializer.previousMappingsByHash = part.mappingsByHash;
+            final ImmutableOpenMap<String, IndexMetadata> appliedIndices = indices.apply(part.indices);
+            if (indexMetadataSerializer.unresolvedMappingHashes.isEmpty()) {
+                return appliedIndices;
+            }
+            final ImmutableOpenMap.Builder<String, IndexMetadata> builder = ImmutableOpenMap.builder(appliedIndices);
+            for (Map.Entry<String, String> entry : indexMetadataSerializer.unresolvedMappingHashes.entrySet()) {
+                final MappingMetadata mappingMetadata = indexMetadataSerializer.resolveMapping(entry.getValue());
+                if (mappingMetadata == null) {
+                    throw new IncompatibleClusterStateVersionException(
+                        "failed to find mapping [" + entry.getValue() + "] for [" + entry.getKey() + "] when applying diff"
+                    );
+                }
+                builder.put(entry.getKey(), appliedIndices.get(entry.getKey()).withMappingMetadata(mappingMetadata));
+            }
+            return builder.build();
+        }
+
         @Override
         public Metadata apply(Metadata part) {
             // create builder from existing mappings hashes so we don't change existing index metadata instances when deduplicating
@@ -1029,7 +1137,7 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             builder.transientSettings(transientSettings);
             builder.persistentSettings(persistentSettings);
             builder.hashesOfConsistentSettings(hashesOfConsistentSettings.apply(part.hashesOfConsistentSettings));
-            builder.indices(indices.apply(part.indices));
+            builder.indices(applyIndices(part));
             builder.templates(templates.apply(part.templates));
             builder.customs(customs.apply(part.customs));
             return builder.build();
@@ -1038,6 +1146,64 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
 
     public static final Version MAPPINGS_AS_HASH_VERSION = Version.V_8_1_0;
 
+    public static final Version MAPPINGS_AS_HASH_IN_DIFFS_VERSION = Version.V_8_2_0;
+
+    /**
+     * Serializes the {@link IndexMetadata} of a {@link MetadataDiff} with their mappings as hashes, like {@link Metadata#writeTo} does for
+     * complete metadata, so that publishing many indices that share a mapping only sends the mapping once, and only if the receiving node
+     * does not have it already. A hash is resolved against the mappings that the diff carries and then against the mappings of the
+     * metadata that the diff applies to, which are only known when the diff is applied.
+     */
+    private static final class IndexMetadataWithMappingHashSerializer extends DiffableUtils.DiffableValueSerializer<String, IndexMetadata> {
+
+        static final IndexMetadataWithMappingHashSerializer WRITE_ONLY_INSTANCE = new IndexMetadataWithMappingHashSerializer(Map.of());
+
+        private final Map<String, MappingMetadata> newMappingsByHash;
+        // the hashes of the mappings of new indices that were not in the diff, by index name
+        private final Map<String, String> unresolvedMappingHashes = new HashMap<>();
+        private Map<String, MappingMetadata> previousMappingsByHash = Map.of();
+
+        IndexMetadataWithMappingHashSerializer(Map<String, MappingMetadata> newMappingsByHash) {
+            this.newMappingsByHash = newMappingsByHash;
+        }
+
+        @Override
+        public void write(IndexMetadata value, StreamOutput out) throws IOException {
+            value.writeTo(out, out.getVersion().onOrAfter(MAPPINGS_AS_HASH_IN_DIFFS_VERSION));
+        }
+
+        @Override
+        public void writeDiff(Diff<IndexMetadata> value, StreamOutput out) throws IOException {
+            ((IndexMetadata.IndexMetadataDiff) value).writeTo(out, out.getVersion().onOrAfter(MAPPINGS_AS_HASH_IN_DIFFS_VERSION));
+        }
+
+        @Override
+        public IndexMetadata read(StreamInput in, String key) throws IOException {
+            assert this != WRITE_ONLY_INSTANCE;
+            return IndexMetadata.readFrom(in, mappingHash -> {
+                final MappingMetadata mappingMetadata = newMappingsByHash.get(mappingHash);
+                if (mappingMetadata == null) {
+                    // the receiving node has this mapping already, it is put in place when the diff is applied
+                    unresolvedMappingHashes.put(key, mappingHash);
+                    return MappingMetadata.EMPTY_MAPPINGS;
+                }
+                return mappingMetadata;
+            });
+        }
+
+        @Override
+        public Diff<IndexMetadata> readDiff(StreamInput in, String key) throws IOException {
+            assert this != WRITE_ONLY_INSTANCE;
+            return IndexMetadata.readDiffFrom(in, this::resolveMapping);
+        }
+
+        @Nullable
+        private MappingMetadata resolveMapping(String mappingHash) {
+            final MappingMetadata mappingMetadata = newMappingsByHash.get(mappingHash);
+            return mappingMetadata == null ? previousMappingsByHash.get(mappingHash) : mappingMetadata;
+        }
+    }
+
     public static Metadata readFrom(StreamInput in) throws IOException {
         Builder builder = new Builder();
         builder.version = in.readLong();
@@ -30,12 +30,14 @@ import org.elasticsearch.index.shard.ShardId;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * The {@link IndexRoutingTable} represents routing information for a single
@@ -68,6 +70,9 @@ public class IndexRoutingTable implements SimpleDiffable<IndexRoutingTable>, Ite
 
     private final List<ShardRouting> allActiveShards;
 
+    // built on demand, see assignedShardsOnNode
+    private volatile Map<String, List<ShardRouting>> shardsByNode;
+
     IndexRoutingTable(Index index, ImmutableOpenIntMap<IndexShardRoutingTable> shards) {
         this.index = index;
         this.shuffler = new RotationShardShuffler(Randomness.get().nextInt());
@@ -205,6 +210,34 @@ public class IndexRoutingTable implements SimpleDiffable<IndexRoutingTable>, Ite
         return nodes.size();
     }
 
+    /**
+     * Returns the copies of the shards of this index that are assigned to the given node, including the targets of relocations to the
+     * node, in the order in which {@link RoutingNodes} lists them. The lookup is built on first use and kept with this instance, which
+     * later cluster states share for as long as the routing of this index does not change, so the returned list is unmodifiable.
+     */
+    public List<ShardRouting> assignedShardsOnNode(String nodeId) {
+        Map<String, List<ShardRouting>> shardsByNode = this.shardsByNode;
+        if (shardsByNode == null) {
+            final Map<String, List<ShardRouting>> builder = new HashMap<>();
+            for (IndexShardRoutingTable indexShard : this) {
+                for (ShardRouting shardRouting : indexShard) {
+                    if (shardRouting.assignedToNode()) {
+                        builder.computeIfAbsent(shardRouting.currentNodeId(), k -> new ArrayList<>()).add(shardRouting);
+                        if (shardRouting.relocating()) {
+                            builder.computeIfAbsent(shardRouting.relocatingNodeId(), k -> new ArrayList<>())
+                                .add(shardRouting.getTargetRelocatingShard());
+                        }
+                    }
+                }
+            }
+            shardsByNode = builder.entrySet()
+                .stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> List.copyOf(e.getValue())));
+            this.shardsByNode = shardsByNode;
+        }
+        return shardsByNode.getOrDefault(nodeId, List.of());
+    }
+
     public ImmutableOpenIntMap<IndexShardRoutingTable> shards() {
         return shards;
     }
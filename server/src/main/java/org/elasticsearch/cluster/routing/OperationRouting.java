@@ -22,8 +22,10 @@ import org.elasticsearch.node.ResponseCollectorService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -92,8 +94,9 @@ public class OperationRouting {
         @Nullable ResponseCollectorService collectorService,
         @Nullable Map<String, Long> nodeCounts
     ) {
-        final Set<IndexShardRoutingTable> shards = computeTargetedShards(clusterState, concreteIndices, routing);
-        final Set<ShardIterator> set = new HashSet<>(shards.size());
+        final Collection<IndexShardRoutingTable> shards = computeTargetedShards(clusterState, concreteIndices, routing);
+        // the shards are distinct so their iterators are too, there is no need to deduplicate them again
+        final List<ShardIterator> iterators = new ArrayList<>(shards.size());
         for (IndexShardRoutingTable shard : shards) {
             ShardIterator iterator = preferenceActiveShardIterator(
                 shard,
@@ -104,10 +107,10 @@ public class OperationRouting {
                 nodeCounts
             );
             if (iterator != null) {
-                set.add(iterator);
+                iterators.add(iterator);
             }
         }
-        return GroupShardsIterator.sortAndCreate(new ArrayList<>(set));
+        return GroupShardsIterator.sortAndCreate(iterators);
     }
 
     public static ShardIterator getShards(ClusterState clusterState, ShardId shardId) {
@@ -117,14 +120,15 @@ public class OperationRouting {
 
     private static final Map<String, Set<String>> EMPTY_ROUTING = Collections.emptyMap();
 
-    private Set<IndexShardRoutingTable> computeTargetedShards(
+    private Collection<IndexShardRoutingTable> computeTargetedShards(
         ClusterState clusterState,
         String[] concreteIndices,
         @Nullable Map<String, Set<String>> routing
     ) {
         routing = routing == null ? EMPTY_ROUTING : routing; // just use an empty map
-        final Set<IndexShardRoutingTable> set = new HashSet<>();
-        // we use set here and not list since we might get duplicates
+        // we use set here and not list since we might get duplicates. A duplicate is the very same shard routing table of this cluster
+        // state, so comparing identities suffices and spares hashing the routings of every shard copy of thousands of indices
+        final Set<IndexShardRoutingTable> set = Collections.newSetFromMap(new IdentityHashMap<>());
         for (String index : concreteIndices) {
             final IndexRoutingTable indexRoutingTable = indexRoutingTable(clusterState, index);
             final IndexMetadata indexMetadata = indexMetadata(clusterState, index);
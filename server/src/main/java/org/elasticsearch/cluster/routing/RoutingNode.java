@@ -24,7 +24,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -312,7 +311,13 @@ public class RoutingNode implements Iterable<ShardRouting> {
         if (shardRoutings == null) {
             return 0;
         } else {
-            return Math.toIntExact(shardRoutings.stream().filter(Predicate.not(ShardRouting::relocating)).count());
+            int count = 0;
+            for (ShardRouting shardRouting : shardRoutings) {
+                if (shardRouting.relocating() == false) {
+                    count++;
+                }
+            }
+            return count;
         }
     }
 
@@ -13,6 +13,7 @@ import org.elasticsearch.cluster.Diffable;
 import org.elasticsearch.cluster.DiffableUtils;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.RecoverySource.SnapshotRecoverySource;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -29,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -108,6 +110,27 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
         return indexRouting != null && indexRouting.getIndex().equals(index) ? indexRouting : null;
     }
 
+    /**
+     * Returns the {@link RoutingNode} of the given node, built from the shards that {@link IndexRoutingTable#assignedShardsOnNode} finds
+     * on it rather than from the {@link RoutingNodes} of the whole cluster. Like {@link RoutingNodes#node} it returns {@code null} for a
+     * node that holds no shards and is not a data node.
+     */
+    @Nullable
+    public RoutingNode routingNode(String nodeId, DiscoveryNodes discoveryNodes) {
+        final LinkedHashMap<ShardId, ShardRouting> shards = new LinkedHashMap<>(); // LinkedHashMap to preserve order
+        for (IndexRoutingTable indexRoutingTable : indicesRouting.values()) {
+            for (ShardRouting shardRouting : indexRoutingTable.assignedShardsOnNode(nodeId)) {
+                if (shards.put(shardRouting.shardId(), shardRouting) != null) {
+                    throw new IllegalArgumentException("Cannot have two different shards with same shard id on same node");
+                }
+            }
+        }
+        if (shards.isEmpty() && discoveryNodes.getDataNodes().containsKey(nodeId) == false) {
+            return null;
+        }
+        return new RoutingNode(nodeId, discoveryNodes.get(nodeId), shards);
+    }
+
     public ImmutableOpenMap<String, IndexRoutingTable> indicesRouting() {
         return indicesRouting;
     }
@@ -408,6 +431,19 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
         }
 
         public Builder updateNodes(long version, RoutingNodes routingNodes) {
+            return updateNodes(version, routingNodes, null);
+        }
+
+        /**
+         * Like {@link #updateNodes(long, RoutingNodes)} but keeps the index routing tables of the given previous routing table for the
+         * indices whose routing did not change, so that cluster states share them, and the lookups cached on them, from one version to
+         * the next. Nodes that receive the routing table as a diff share the unchanged index routing tables in the same way.
+         */
+        public Builder updateNodes(RoutingTable previous, RoutingNodes routingNodes) {
+            return updateNodes(previous.version(), routingNodes, previous);
+        }
+
+        private Builder updateNodes(long version, RoutingNodes routingNodes, @Nullable RoutingTable previous) {
             // this is being called without pre initializing the routing table, so we must copy over the version as well
             this.version = version;
 
@@ -428,7 +464,9 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
             }
 
             for (IndexRoutingTable.Builder indexBuilder : indexRoutingTableBuilders.values()) {
-                add(indexBuilder);
+                final IndexRoutingTable indexRoutingTable = indexBuilder.build();
+                final IndexRoutingTable previousIndexRoutingTable = previous == null ? null : previous.index(indexRoutingTable.getIndex());
+                add(indexRoutingTable.equals(previousIndexRoutingTable) ? previousIndexRoutingTable : indexRoutingTable);
             }
             return this;
         }
@@ -146,7 +146,7 @@ public class AllocationService {
     private ClusterState buildResultAndLogHealthChange(ClusterState oldState, RoutingAllocation allocation, String reason) {
         final RoutingTable oldRoutingTable = oldState.routingTable();
         final RoutingNodes newRoutingNodes = allocation.routingNodes();
-        final RoutingTable newRoutingTable = new RoutingTable.Builder().updateNodes(oldRoutingTable.version(), newRoutingNodes).build();
+        final RoutingTable newRoutingTable = new RoutingTable.Builder().updateNodes(oldRoutingTable, newRoutingNodes).build();
         final Metadata newMetadata = allocation.updateMetadataWithRoutingChanges(newRoutingTable);
         assert newRoutingTable.validate(newMetadata); // validates the routing table is coherent with the cluster state metadata
 
@@ -522,6 +522,13 @@ public class AllocationService {
 
         allocateExistingUnassignedShards(allocation);  // try to allocate existing shard copies first
         shardsAllocator.allocate(allocation);
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                "allocation decision cache had [{}] hits and [{}] misses",
+                allocation.decisionCache().hits(),
+                allocation.decisionCache().misses()
+            );
+        }
         assert RoutingNodes.assertShardStats(allocation.routingNodes());
     }
 
@@ -129,6 +129,7 @@ public class DiskThresholdMonitor {
         }
 
         final ImmutableOpenMap<String, DiskUsage> usages = info.getNodeLeastAvailableDiskUsages();
+        final ImmutableOpenMap<String, DiskUsage> forecastUsages = info.getForecastNodeLeastAvailableDiskUsages();
         if (usages == null) {
             logger.trace("skipping monitor as no disk usage information is available");
             lastNodes = Collections.emptySet();
@@ -220,13 +221,16 @@ public class DiskThresholdMonitor {
                 }
             }
 
-            final long reservedSpace = info.getReservedSpace(usage.getNodeId(), usage.getPath()).getTotal();
+            // the flood stage above only ever looks at the measured usage, but relocating shards away takes time so we start doing so
+            // when the usage is forecast to exceed the high watermark
+            final DiskUsage forecastUsage = forecastUsages == null ? usage : forecastUsages.getOrDefault(node, usage);
+            final long reservedSpace = info.getReservedSpace(forecastUsage.getNodeId(), forecastUsage.getPath()).getTotal();
             final DiskUsage usageWithReservedSpace = new DiskUsage(
-                usage.getNodeId(),
-                usage.getNodeName(),
-                usage.getPath(),
-                usage.getTotalBytes(),
-                Math.max(0L, usage.getFreeBytes() - reservedSpace)
+                forecastUsage.getNodeId(),
+                forecastUsage.getNodeName(),
+                forecastUsage.getPath(),
+                forecastUsage.getTotalBytes(),
+                Math.max(0L, forecastUsage.getFreeBytes() - reservedSpace)
             );
 
             if (usageWithReservedSpace.getFreeBytes() < diskThresholdSettings.getFreeBytesThresholdHigh().getBytes()
@@ -238,7 +242,7 @@ public class DiskThresholdMonitor {
                 if (lastRunTimeMillis.get() <= currentTimeMillis - diskThresholdSettings.getRerouteInterval().millis()) {
                     reroute = true;
                     explanation = "high disk watermark exceeded on one or more nodes";
-                    usagesOverHighThreshold.add(usage);
+                    usagesOverHighThreshold.add(forecastUsage);
                     // will log about this node when the reroute completes
                 } else {
                     logger.debug(
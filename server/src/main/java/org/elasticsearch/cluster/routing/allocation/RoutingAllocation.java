@@ -20,6 +20,7 @@ import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.cluster.routing.allocation.decider.DecisionCache;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.shard.ShardId;
@@ -71,6 +72,8 @@ public class RoutingAllocation {
         restoreInProgressUpdater
     );
 
+    private final DecisionCache decisionCache = new DecisionCache();
+
     private final Map<String, SingleNodeShutdownMetadata> nodeReplacementTargets;
 
     public RoutingAllocation(
@@ -288,6 +291,20 @@ public class RoutingAllocation {
         return nodesChangedObserver.isChanged();
     }
 
+    /**
+     * Returns the decisions that the allocation deciders made during this allocation and that hold for every shard of an index
+     */
+    public DecisionCache decisionCache() {
+        return decisionCache;
+    }
+
+    /**
+     * Returns the names of the indices whose shards were changed in the routing nodes
+     */
+    public Set<String> indicesWithRoutingChanges() {
+        return nodesChangedObserver.getChangedIndices();
+    }
+
     /**
      * Create a routing decision, including the reason if the debug flag is
      * turned on
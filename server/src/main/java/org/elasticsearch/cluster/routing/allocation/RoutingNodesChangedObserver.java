@@ -13,11 +13,16 @@ import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
- * Records if changes were made to {@link RoutingNodes} during an allocation round.
+ * Records if changes were made to {@link RoutingNodes} during an allocation round, and to the shards of which indices.
  */
 public class RoutingNodesChangedObserver implements RoutingChangesObserver {
     private boolean changed;
+    private final Set<String> changedIndices = new HashSet<>();
 
     /**
      * Returns whether changes were made
@@ -26,56 +31,63 @@ public class RoutingNodesChangedObserver implements RoutingChangesObserver {
         return changed;
     }
 
+    /**
+     * Returns the names of the indices whose shards changed
+     */
+    public Set<String> getChangedIndices() {
+        return Collections.unmodifiableSet(changedIndices);
+    }
+
     @Override
     public void shardInitialized(ShardRouting unassignedShard, ShardRouting initializedShard) {
         assert unassignedShard.unassigned() : "expected unassigned shard " + unassignedShard;
         assert initializedShard.initializing() : "expected initializing shard " + initializedShard;
-        setChanged();
+        setChanged(unassignedShard);
     }
 
     @Override
     public void shardStarted(ShardRouting initializingShard, ShardRouting startedShard) {
         assert initializingShard.initializing() : "expected initializing shard " + initializingShard;
         assert startedShard.started() : "expected started shard " + startedShard;
-        setChanged();
+        setChanged(initializingShard);
     }
 
     @Override
     public void relocationStarted(ShardRouting startedShard, ShardRouting targetRelocatingShard) {
         assert startedShard.started() : "expected started shard " + startedShard;
         assert targetRelocatingShard.isRelocationTarget() : "expected relocation target shard " + targetRelocatingShard;
-        setChanged();
+        setChanged(startedShard);
     }
 
     @Override
     public void unassignedInfoUpdated(ShardRouting unassignedShard, UnassignedInfo newUnassignedInfo) {
         assert unassignedShard.unassigned() : "expected unassigned shard " + unassignedShard;
-        setChanged();
+        setChanged(unassignedShard);
     }
 
     @Override
     public void shardFailed(ShardRouting failedShard, UnassignedInfo unassignedInfo) {
         assert failedShard.assignedToNode() : "expected assigned shard " + failedShard;
-        setChanged();
+        setChanged(failedShard);
     }
 
     @Override
     public void relocationCompleted(ShardRouting removedRelocationSource) {
         assert removedRelocationSource.relocating() : "expected relocating shard " + removedRelocationSource;
-        setChanged();
+        setChanged(removedRelocationSource);
     }
 
     @Override
     public void relocationSourceRemoved(ShardRouting removedReplicaRelocationSource) {
         assert removedReplicaRelocationSource.primary() == false && removedReplicaRelocationSource.isRelocationTarget()
             : "expected replica relocation target shard " + removedReplicaRelocationSource;
-        setChanged();
+        setChanged(removedReplicaRelocationSource);
     }
 
     @Override
     public void replicaPromoted(ShardRouting replicaShard) {
         assert replicaShard.started() && replicaShard.primary() == false : "expected started replica shard " + replicaShard;
-        setChanged();
+        setChanged(replicaShard);
     }
 
     @Override
@@ -89,13 +101,14 @@ public class RoutingNodesChangedObserver implements RoutingChangesObserver {
                 + " new: "
                 + reinitializedReplica
                 + ")";
-        setChanged();
+        setChanged(oldReplica);
     }
 
     /**
-     * Marks the allocation as changed.
+     * Marks the allocation and the index of the given shard as changed.
      */
-    private void setChanged() {
+    private void setChanged(ShardRouting shard) {
         changed = true;
+        changedIndices.add(shard.getIndexName());
     }
 }
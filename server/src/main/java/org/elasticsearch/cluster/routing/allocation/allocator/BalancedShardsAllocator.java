@@ -36,10 +36,12 @@ import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.gateway.PriorityComparator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -67,6 +69,10 @@ import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
  * <p>
  * These parameters are combined in a {@link WeightFunction} that allows calculation of node weights which
  * are used to re-balance shards based on global as well as per-index factors.
+ * <p>
+ * By default every reroute balances every index. If <code>cluster.routing.allocation.balance.incremental.max_indices</code> is set,
+ * the allocator remembers which indices were balanced across reroutes and each reroute only balances the indices whose shards changed
+ * since, and then as many of the other indices in turn as the setting allows, see {@link IncrementalBalanceState}.
  */
 public class BalancedShardsAllocator implements ShardsAllocator {
 
@@ -94,8 +100,25 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         Property.NodeScope
     );
 
+    public static final Setting<Integer> INCREMENTAL_MAX_INDICES_SETTING = Setting.intSetting(
+        "cluster.routing.allocation.balance.incremental.max_indices",
+        -1,
+        -1,
+        value -> {
+            if (value == 0) {
+                throw new IllegalArgumentException(
+                    "setting [cluster.routing.allocation.balance.incremental.max_indices] must be -1 or at least 1 but was [0]"
+                );
+            }
+        },
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     private volatile WeightFunction weightFunction;
     private volatile float threshold;
+    private volatile int incrementalMaxIndices;
+    private final IncrementalBalanceState incrementalBalanceState = new IncrementalBalanceState();
 
     public BalancedShardsAllocator(Settings settings) {
         this(settings, new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
@@ -105,8 +128,10 @@ public class BalancedShardsAllocator implements ShardsAllocator {
     public BalancedShardsAllocator(Settings settings, ClusterSettings clusterSettings) {
         setWeightFunction(INDEX_BALANCE_FACTOR_SETTING.get(settings), SHARD_BALANCE_FACTOR_SETTING.get(settings));
         setThreshold(THRESHOLD_SETTING.get(settings));
+        setIncrementalMaxIndices(INCREMENTAL_MAX_INDICES_SETTING.get(settings));
         clusterSettings.addSettingsUpdateConsumer(INDEX_BALANCE_FACTOR_SETTING, SHARD_BALANCE_FACTOR_SETTING, this::setWeightFunction);
         clusterSettings.addSettingsUpdateConsumer(THRESHOLD_SETTING, this::setThreshold);
+        clusterSettings.addSettingsUpdateConsumer(INCREMENTAL_MAX_INDICES_SETTING, this::setIncrementalMaxIndices);
     }
 
     private void setWeightFunction(float indexBalance, float shardBalanceFactor) {
@@ -117,16 +142,30 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         this.threshold = threshold;
     }
 
+    private void setIncrementalMaxIndices(int incrementalMaxIndices) {
+        this.incrementalMaxIndices = incrementalMaxIndices;
+        if (incrementalMaxIndices == -1) {
+            incrementalBalanceState.clear();
+        }
+    }
+
     @Override
     public void allocate(RoutingAllocation allocation) {
         if (allocation.routingNodes().size() == 0) {
             failAllocationOfNewPrimaries(allocation);
             return;
         }
-        final Balancer balancer = new Balancer(logger, allocation, weightFunction, threshold);
+        final int maxIndices = incrementalMaxIndices;
+        final Balancer balancer = maxIndices > 0
+            ? new Balancer(logger, allocation, weightFunction, threshold, incrementalBalanceState, maxIndices)
+            : new Balancer(logger, allocation, weightFunction, threshold);
         balancer.allocateUnassigned();
         balancer.moveShards();
         balancer.balance();
+        if (maxIndices > 0) {
+            // the indices that changed after the balancer looked at them, or while it skipped balancing, need looking at again
+            incrementalBalanceState.markChanged(allocation.indicesWithRoutingChanges());
+        }
     }
 
     @Override
@@ -258,12 +297,32 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final Metadata metadata;
         private final float avgShardsPerNode;
         private final NodeSorter sorter;
+        @Nullable
+        private final IncrementalBalanceState incrementalBalanceState;
+        private final int maxIndices;
 
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
+            this(logger, allocation, weight, threshold, null, -1);
+        }
+
+        /**
+         * @param incrementalBalanceState the balance of the previous reroutes to update, or {@code null} to balance every index
+         * @param maxIndices              how many indices to balance at most if balancing incrementally
+         */
+        Balancer(
+            Logger logger,
+            RoutingAllocation allocation,
+            WeightFunction weight,
+            float threshold,
+            @Nullable IncrementalBalanceState incrementalBalanceState,
+            int maxIndices
+        ) {
             this.logger = logger;
             this.allocation = allocation;
             this.weight = weight;
             this.threshold = threshold;
+            this.incrementalBalanceState = incrementalBalanceState;
+            this.maxIndices = maxIndices;
             this.routingNodes = allocation.routingNodes();
             this.metadata = allocation.metadata();
             avgShardsPerNode = ((float) metadata.getTotalNumberOfShards()) / routingNodes.size();
@@ -488,7 +547,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final AllocationDeciders deciders = allocation.deciders();
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
-            for (String index : buildWeightOrderedIndices()) {
+            for (String index : indicesToBalance()) {
                 IndexMetadata indexMetadata = metadata.index(index);
 
                 // find nodes that have a shard of this index or where shards of this index are allowed to be allocated to,
@@ -506,12 +565,16 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 }
 
                 if (relevantNodes < 2) {
+                    markBalanced(index);
                     continue;
                 }
 
                 sorter.reset(index, 0, relevantNodes);
                 int lowIdx = 0;
                 int highIdx = relevantNodes - 1;
+                boolean relocated = false;
+                // only an index that ends up within the threshold is balanced, not one whose relocations the deciders throttled or denied
+                boolean withinThreshold = false;
                 while (true) {
                     final ModelNode minNode = modelNodes[lowIdx];
                     final ModelNode maxNode = modelNodes[highIdx];
@@ -545,6 +608,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                                     delta
                                 );
                             }
+                            withinThreshold = true;
                             break;
                         }
                         if (logger.isTraceEnabled()) {
@@ -572,6 +636,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                                 minNode.getNodeId()
                             );
                         } else if (tryRelocateShard(minNode, maxNode, index)) {
+                            relocated = true;
                             /*
                              * TODO we could be a bit smarter here, we don't need to fully sort necessarily
                              * we could just find the place to insert linearly but the win might be minor
@@ -602,6 +667,56 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                         break;
                     }
                 }
+                if (withinThreshold && relocated == false) {
+                    markBalanced(index);
+                }
+            }
+        }
+
+        /**
+         * Returns the indices to balance in the order to balance them in: every index in the order of {@link #buildWeightOrderedIndices},
+         * or if balancing incrementally, the indices that changed since they were last balanced followed by some of the others, at most
+         * {@code maxIndices} of them altogether.
+         */
+        private String[] indicesToBalance() {
+            final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
+            if (incrementalBalanceState == null) {
+                return buildWeightOrderedIndices(indices);
+            }
+            incrementalBalanceState.startRound(nodes.keySet(), weight, threshold);
+            incrementalBalanceState.markChanged(allocation.indicesWithRoutingChanges());
+            incrementalBalanceState.retainIndices(allocation.routingTable().indicesRouting().keySet());
+            final List<String> changed = new ArrayList<>();
+            for (String index : indices) {
+                if (incrementalBalanceState.isBalanced(index, metadata.index(index)) == false) {
+                    changed.add(index);
+                }
+            }
+
+            final String[] toBalance;
+            if (changed.size() >= maxIndices) {
+                // the most unbalanced of the changed indices go first, the others remain changed for the next reroutes
+                toBalance = Arrays.copyOf(buildWeightOrderedIndices(changed.toArray(String[]::new)), maxIndices);
+            } else {
+                final String[] unchanged = incrementalBalanceState.nextBalancedIndices(indices, maxIndices - changed.size());
+                final String[] orderedChanged = buildWeightOrderedIndices(changed.toArray(String[]::new));
+                toBalance = Arrays.copyOf(orderedChanged, orderedChanged.length + unchanged.length);
+                System.arraycopy(buildWeightOrderedIndices(unchanged), 0, toBalance, orderedChanged.length, unchanged.length);
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug(
+                    "balancing [{}] of [{}] indices of which [{}] changed since they were last balanced",
+                    toBalance.length,
+                    indices.length,
+                    changed.size()
+                );
+            }
+            return toBalance;
+        }
+
+        private void markBalanced(String index) {
+            if (incrementalBalanceState != null) {
+                incrementalBalanceState.markBalanced(index, metadata.index(index));
             }
         }
 
@@ -618,8 +733,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
          * average. To re-balance we need to move shards back eventually likely
          * to the nodes we relocated them from.
          */
-        private String[] buildWeightOrderedIndices() {
-            final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
+        private String[] buildWeightOrderedIndices(String[] indices) {
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
                 sorter.reset(indices[i]);
@@ -1093,6 +1207,78 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
     }
 
+    /**
+     * The indices that the {@link Balancer} found balanced in the previous reroutes, for balancing incrementally. An index stays
+     * balanced until one of its shards changes, which the {@link RoutingAllocation#indicesWithRoutingChanges() routing changes} of the
+     * allocations record, or until its {@link IndexMetadata} changes, which covers the changes to its routing that are made outside of
+     * an allocation like creating, closing or restoring it. The cluster state that a node applies as a master for the first time has
+     * new instances of the metadata of every index, so nothing that another master changed is mistaken for balanced.
+     * <p>
+     * The weight of a node for an index depends on the shards of every other index on the node too, so balancing the shards of one
+     * index may unbalance another one. The balancer therefore also looks at some of the balanced indices in turn on every reroute.
+     * Everything is considered changed if the nodes or the balance settings change.
+     */
+    static final class IncrementalBalanceState {
+
+        // the metadata of each index when the balancer last found it balanced
+        private final Map<String, IndexMetadata> balancedIndices = new HashMap<>();
+        private Set<String> nodeIds = Set.of();
+        private WeightFunction weightFunction;
+        private float threshold;
+        // where to continue looking at the balanced indices in turn
+        private int nextBalancedIndex;
+
+        synchronized void startRound(Set<String> nodeIds, WeightFunction weightFunction, float threshold) {
+            if (weightFunction != this.weightFunction || threshold != this.threshold || nodeIds.equals(this.nodeIds) == false) {
+                balancedIndices.clear();
+                this.nodeIds = Set.copyOf(nodeIds);
+                this.weightFunction = weightFunction;
+                this.threshold = threshold;
+            }
+        }
+
+        synchronized boolean isBalanced(String index, IndexMetadata indexMetadata) {
+            return balancedIndices.get(index) == indexMetadata;
+        }
+
+        synchronized void markBalanced(String index, IndexMetadata indexMetadata) {
+            balancedIndices.put(index, indexMetadata);
+        }
+
+        synchronized void markChanged(Set<String> indices) {
+            for (String index : indices) {
+                balancedIndices.remove(index);
+            }
+        }
+
+        synchronized void retainIndices(Set<String> indices) {
+            balancedIndices.keySet().retainAll(indices);
+        }
+
+        /**
+         * Returns the given number of balanced indices at most, continuing where the previous call left off.
+         */
+        synchronized String[] nextBalancedIndices(String[] indices, int count) {
+            final List<String> next = new ArrayList<>(Math.min(count, balancedIndices.size()));
+            int i = 0;
+            for (; i < indices.length && next.size() < count; i++) {
+                final String index = indices[(nextBalancedIndex + i) % indices.length];
+                if (balancedIndices.containsKey(index)) {
+                    next.add(index);
+                }
+            }
+            nextBalancedIndex = indices.length == 0 ? 0 : (nextBalancedIndex + i) % indices.length;
+            return next.toArray(String[]::new);
+        }
+
+        synchronized void clear() {
+            balancedIndices.clear();
+            nodeIds = Set.of();
+            weightFunction = null;
+            nextBalancedIndex = 0;
+        }
+    }
+
     static class ModelNode implements Iterable<ModelIndex> {
         private final Map<String, ModelIndex> indices = new HashMap<>();
         private int numShards = 0;
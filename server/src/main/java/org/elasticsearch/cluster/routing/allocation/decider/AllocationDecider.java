@@ -46,6 +46,16 @@ public abstract class AllocationDecider {
         return Decision.ALWAYS;
     }
 
+    /**
+     * Returns whether the decisions of {@link #canAllocate(ShardRouting, RoutingNode, RoutingAllocation)} and
+     * {@link #canRemain(ShardRouting, RoutingNode, RoutingAllocation)} about the given shard only depend on the index of the shard and on
+     * the node, and not on anything that changes while allocating, like where the other copies of the shard are. {@link AllocationDeciders}
+     * makes each of these decisions once per index and node during a {@link RoutingAllocation} then. The default is {@code false}.
+     */
+    public boolean isShardIndependent(ShardRouting shardRouting) {
+        return false;
+    }
+
     /**
      * Returns a {@link Decision} whether the given shard routing can be allocated at all at this state of the
      * {@link RoutingAllocation}. The default is {@link Decision#ALWAYS}.
@@ -57,8 +57,9 @@ public class AllocationDeciders extends AllocationDecider {
             return Decision.NO;
         }
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canAllocate(shardRouting, node, allocation);
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            Decision decision = decideShardOnNode(i, false, shardRouting, node, allocation);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (logger.isTraceEnabled()) {
@@ -91,8 +92,9 @@ public class AllocationDeciders extends AllocationDecider {
             return Decision.NO;
         }
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canRemain(shardRouting, node, allocation);
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            Decision decision = decideShardOnNode(i, true, shardRouting, node, allocation);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (logger.isTraceEnabled()) {
@@ -264,6 +266,36 @@ public class AllocationDeciders extends AllocationDecider {
         return ret;
     }
 
+    /**
+     * Asks the decider with the given index whether the shard can be allocated to or remain on the node, or returns the answer it gave
+     * for another shard of the same index during this allocation if it is {@link AllocationDecider#isShardIndependent shard independent}.
+     * Decisions aren't cached while debugging, since their explanations then differ from the ones made otherwise.
+     */
+    private Decision decideShardOnNode(
+        int decider,
+        boolean remain,
+        ShardRouting shardRouting,
+        RoutingNode node,
+        RoutingAllocation allocation
+    ) {
+        final AllocationDecider allocationDecider = allocations[decider];
+        if (allocation.debugDecision() || allocationDecider.isShardIndependent(shardRouting) == false) {
+            return remain
+                ? allocationDecider.canRemain(shardRouting, node, allocation)
+                : allocationDecider.canAllocate(shardRouting, node, allocation);
+        }
+        final DecisionCache decisionCache = allocation.decisionCache();
+        final int slot = remain ? decider * 2 + 1 : decider * 2;
+        Decision decision = decisionCache.get(shardRouting, node, slot);
+        if (decision == null) {
+            decision = remain
+                ? allocationDecider.canRemain(shardRouting, node, allocation)
+                : allocationDecider.canAllocate(shardRouting, node, allocation);
+            decisionCache.put(shardRouting, node, slot, allocations.length * 2, decision);
+        }
+        return decision;
+    }
+
     private static void addDecision(Decision.Multi ret, Decision decision, RoutingAllocation allocation) {
         // We never add ALWAYS decisions and only add YES decisions when requested by debug mode (since Multi default is YES).
         if (decision != Decision.ALWAYS
@@ -0,0 +1,70 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.decider;
+
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.Index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The decisions that {@link AllocationDeciders} made during a {@link RoutingAllocation} about the shards of an index and a node with
+ * the deciders that are {@link AllocationDecider#isShardIndependent shard independent}, so that it makes each of them once rather than
+ * for every shard of the index. Not thread-safe, like the {@link RoutingAllocation} it belongs to.
+ */
+public final class DecisionCache {
+
+    private final Map<Index, Map<String, Decision[]>> decisions = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    /**
+     * Returns the cached decision of the decider with the given slot about the index of the given shard and the given node, or
+     * {@code null} if it wasn't made yet.
+     */
+    @Nullable
+    Decision get(ShardRouting shardRouting, RoutingNode node, int slot) {
+        final Map<String, Decision[]> indexDecisions = decisions.get(shardRouting.index());
+        final Decision[] nodeDecisions = indexDecisions == null ? null : indexDecisions.get(node.nodeId());
+        final Decision decision = nodeDecisions == null ? null : nodeDecisions[slot];
+        if (decision == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return decision;
+    }
+
+    /**
+     * Caches the decision of the decider with the given slot, out of the given number of slots, about the index of the given shard and
+     * the given node.
+     */
+    void put(ShardRouting shardRouting, RoutingNode node, int slot, int slots, Decision decision) {
+        decisions.computeIfAbsent(shardRouting.index(), index -> new HashMap<>())
+            .computeIfAbsent(node.nodeId(), nodeId -> new Decision[slots])[slot] = decision;
+    }
+
+    /**
+     * Returns how many decisions were answered from the cache.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns how many decisions of shard independent deciders had to be made because they weren't cached yet.
+     */
+    public long misses() {
+        return misses;
+    }
+}
@@ -88,6 +88,12 @@ public class FilterAllocationDecider extends AllocationDecider {
         clusterSettings.addAffixMapUpdateConsumer(CLUSTER_ROUTING_INCLUDE_GROUP_SETTING, this::setClusterIncludeFilters, (a, b) -> {});
     }
 
+    @Override
+    public boolean isShardIndependent(ShardRouting shardRouting) {
+        // the initial recovery filters only apply to the unassigned shards of shrunken indices
+        return shardRouting.unassigned() == false || shardRouting.recoverySource().getType() != RecoverySource.Type.LOCAL_SHARDS;
+    }
+
     @Override
     public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
         if (shardRouting.unassigned()) {
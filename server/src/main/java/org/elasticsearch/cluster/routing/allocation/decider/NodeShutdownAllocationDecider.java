@@ -67,6 +67,12 @@ public class NodeShutdownAllocationDecider extends AllocationDecider {
         return this.canAllocate(shardRouting, node, allocation);
     }
 
+    @Override
+    public boolean isShardIndependent(ShardRouting shardRouting) {
+        // only whether and how the node is shutting down matters
+        return true;
+    }
+
     /**
      * Prevents indices from being auto-expanded to nodes which are in the process of shutting down, regardless of whether they're shutting
      * down for restart or removal.
@@ -85,6 +85,13 @@ public final class ClusterApplierRecordingService {
             recordings.add(new Tuple<>(currentAction, timeSpentMS));
         }
 
+        /**
+         * Records an action that took place on another thread, such as an applier that applied the cluster state concurrently.
+         */
+        void record(String action, long timeSpentMS) {
+            recordings.add(new Tuple<>(action, timeSpentMS));
+        }
+
         List<Tuple<String, Long>> getRecordings() {
             return recordings;
         }
@@ -11,6 +11,7 @@ package org.elasticsearch.cluster.service;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterState;
@@ -27,6 +28,7 @@ import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.util.concurrent.PrioritizedEsThreadPoolExecutor;
@@ -34,16 +36,21 @@ import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.core.Tuple;
 import org.elasticsearch.indices.store.IndicesStore;
 import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -63,7 +70,22 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         Setting.Property.NodeScope
     );
 
+    /**
+     * The number of threads that apply a cluster state, including the cluster applier thread itself. Appliers that
+     * {@link ClusterStateApplier#canApplyConcurrently() can apply concurrently} run on the other threads while the applier thread calls
+     * the rest of the appliers of the same priority.
+     */
+    public static final Setting<Integer> CLUSTER_SERVICE_APPLIER_CONCURRENCY_SETTING = Setting.intSetting(
+        "cluster.service.applier.concurrency",
+        1,
+        1,
+        32,
+        Setting.Property.NodeScope
+    );
+
     public static final String CLUSTER_UPDATE_THREAD_NAME = "clusterApplierService#updateTask";
+    // contains the name of the applier thread, since the appliers that run on these threads are still applying a cluster state
+    static final String CONCURRENT_APPLIER_THREAD_NAME = CLUSTER_UPDATE_THREAD_NAME + "#concurrent";
 
     private final ClusterSettings clusterSettings;
     private final ThreadPool threadPool;
@@ -72,6 +94,11 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private volatile PrioritizedEsThreadPoolExecutor threadPoolExecutor;
 
+    private final int applierConcurrency;
+
+    @Nullable // if the appliers are all called on the applier thread
+    private volatile ExecutorService concurrentApplierExecutor;
+
     /**
      * Those 3 state listeners are changing infrequently - CopyOnWriteArrayList is just fine
      */
@@ -96,6 +123,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         this.state = new AtomicReference<>();
         this.nodeName = nodeName;
         this.recordingService = new ClusterApplierRecordingService();
+        this.applierConcurrency = CLUSTER_SERVICE_APPLIER_CONCURRENCY_SETTING.get(settings);
 
         this.slowTaskLoggingThreshold = CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING.get(settings);
         this.clusterSettings.addSettingsUpdateConsumer(
@@ -127,6 +155,18 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         Objects.requireNonNull(nodeConnectionsService, "please set the node connection service before starting");
         Objects.requireNonNull(state.get(), "please set initial state before starting");
         threadPoolExecutor = createThreadPoolExecutor();
+        if (applierConcurrency > 1) {
+            concurrentApplierExecutor = EsExecutors.newScaling(
+                nodeName + "/" + CONCURRENT_APPLIER_THREAD_NAME,
+                0,
+                applierConcurrency - 1,
+                60,
+                TimeUnit.SECONDS,
+                true,
+                daemonThreadFactory(nodeName, CONCURRENT_APPLIER_THREAD_NAME),
+                threadPool.getThreadContext()
+            );
+        }
     }
 
     protected PrioritizedEsThreadPoolExecutor createThreadPoolExecutor() {
@@ -166,6 +206,9 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
             }
         }
         ThreadPool.terminate(threadPoolExecutor, 10, TimeUnit.SECONDS);
+        if (concurrentApplierExecutor != null) {
+            ThreadPool.terminate(concurrentApplierExecutor, 10, TimeUnit.SECONDS);
+        }
     }
 
     @Override
@@ -372,7 +415,8 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
                 if (className.equals(ClusterStateObserver.class.getName())) {
                     // people may start an observer from an applier
                     return true;
-                } else if (className.equals(ClusterApplierService.class.getName()) && methodName.equals("callClusterStateAppliers")) {
+                } else if (className.equals(ClusterApplierService.class.getName())
+                    && (methodName.equals("callClusterStateAppliers") || methodName.equals("callConcurrentClusterStateApplier"))) {
                     throw new AssertionError("should not be called by a cluster state applier: the applied state is not yet available");
                 }
             }
@@ -532,17 +576,98 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         callClusterStateAppliers(clusterChangedEvent, stopWatch, lowPriorityStateAppliers);
     }
 
-    private static void callClusterStateAppliers(
+    private void callClusterStateAppliers(
         ClusterChangedEvent clusterChangedEvent,
         Recorder stopWatch,
         Collection<ClusterStateApplier> clusterStateAppliers
     ) {
+        final ExecutorService executor = concurrentApplierExecutor;
+        final List<ClusterStateApplier> sequentialAppliers = new ArrayList<>();
+        final List<ClusterStateApplier> concurrentAppliers = new ArrayList<>();
         for (ClusterStateApplier applier : clusterStateAppliers) {
-            logger.trace("calling [{}] with change to version [{}]", applier, clusterChangedEvent.state().version());
-            final String name = applier.toString();
-            try (Releasable ignored = stopWatch.record(name)) {
-                applier.applyClusterState(clusterChangedEvent);
+            if (executor != null && applier.canApplyConcurrently()) {
+                concurrentAppliers.add(applier);
+            } else {
+                sequentialAppliers.add(applier);
+            }
+        }
+
+        final CountDownLatch countDownLatch = new CountDownLatch(concurrentAppliers.size());
+        final Queue<Tuple<String, Long>> recordings = ConcurrentCollections.newQueue();
+        final Queue<Throwable> failures = ConcurrentCollections.newQueue();
+        for (ClusterStateApplier applier : concurrentAppliers) {
+            final Runnable runnable = () -> {
+                try {
+                    final long startTimeMillis = threadPool.rawRelativeTimeInMillis();
+                    callConcurrentClusterStateApplier(clusterChangedEvent, applier);
+                    recordings.add(new Tuple<>(applier.toString(), threadPool.rawRelativeTimeInMillis() - startTimeMillis));
+                } catch (Throwable t) {
+                    failures.add(t);
+                } finally {
+                    countDownLatch.countDown();
+                }
+            };
+            try {
+                executor.execute(runnable);
+            } catch (EsRejectedExecutionException e) {
+                // shutting down, so apply the state here instead
+                runnable.run();
+            }
+        }
+
+        try {
+            for (ClusterStateApplier applier : sequentialAppliers) {
+                logger.trace("calling [{}] with change to version [{}]", applier, clusterChangedEvent.state().version());
+                final String name = applier.toString();
+                try (Releasable ignored = stopWatch.record(name)) {
+                    applier.applyClusterState(clusterChangedEvent);
+                }
+            }
+        } catch (Exception e) {
+            awaitConcurrentAppliers(countDownLatch, recordings, stopWatch);
+            failures.forEach(e::addSuppressed);
+            throw e;
+        }
+
+        awaitConcurrentAppliers(countDownLatch, recordings, stopWatch);
+        final Throwable failure = failures.poll();
+        if (failure != null) {
+            failures.forEach(failure::addSuppressed);
+            if (failure instanceof Error error) {
+                throw error;
             }
+            throw ExceptionsHelper.convertToRuntime((Exception) failure);
+        }
+    }
+
+    private static void callConcurrentClusterStateApplier(ClusterChangedEvent clusterChangedEvent, ClusterStateApplier applier) {
+        logger.trace("calling [{}] concurrently with change to version [{}]", applier, clusterChangedEvent.state().version());
+        applier.applyClusterState(clusterChangedEvent);
+    }
+
+    /**
+     * Waits for the appliers that apply the cluster state concurrently, which must all be done before the state becomes visible, and
+     * records the time each of them took.
+     */
+    private static void awaitConcurrentAppliers(CountDownLatch countDownLatch, Queue<Tuple<String, Long>> recordings, Recorder stopWatch) {
+        if (countDownLatch.getCount() > 0) {
+            boolean interrupted = false;
+            try (Releasable ignored = stopWatch.record("waiting for concurrent appliers")) {
+                while (true) {
+                    try {
+                        countDownLatch.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Tuple<String, Long> recording : recordings) {
+            stopWatch.record(recording.v1(), recording.v2());
         }
     }
 
@@ -27,6 +27,7 @@ import org.elasticsearch.cluster.coordination.FailedToCommitClusterStateExceptio
 import org.elasticsearch.cluster.metadata.ProcessClusterEventTimeoutException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -75,6 +76,20 @@ public class MasterService extends AbstractLifecycleComponent {
         Setting.Property.NodeScope
     );
 
+    /**
+     * The longest that a batch of tasks may be deferred to collect more tasks for it when the master is under load. The actual delay
+     * adapts to the recent cost of computing and publishing cluster states, since a batch is only worth deferring if the publications
+     * that it saves take longer than the delay.
+     */
+    public static final Setting<TimeValue> MASTER_SERVICE_BATCHING_WINDOW_SETTING = Setting.timeSetting(
+        "cluster.service.master_service_batching_window",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        TimeValue.timeValueSeconds(1),
+        Setting.Property.Dynamic,
+        Setting.Property.NodeScope
+    );
+
     static final String MASTER_UPDATE_THREAD_NAME = "masterService#updateTask";
 
     ClusterStatePublisher clusterStatePublisher;
@@ -84,6 +99,7 @@ public class MasterService extends AbstractLifecycleComponent {
     private java.util.function.Supplier<ClusterState> clusterStateSupplier;
 
     private volatile TimeValue slowTaskLoggingThreshold;
+    private volatile TimeValue batchingWindow;
     private final TimeValue starvationLoggingThreshold;
 
     protected final ThreadPool threadPool;
@@ -93,12 +109,19 @@ public class MasterService extends AbstractLifecycleComponent {
 
     private final ClusterStateUpdateStatsTracker clusterStateUpdateStatsTracker = new ClusterStateUpdateStatsTracker();
 
+    // the recent time it took to compute and publish a new cluster state, and when the last batch of tasks completed
+    private final ExponentiallyWeightedMovingAverage publicationCostMillis = new ExponentiallyWeightedMovingAverage(0.3, 0.0);
+    private volatile long lastBatchCompletedMillis = -1L;
+
     public MasterService(Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool) {
         this.nodeName = Objects.requireNonNull(Node.NODE_NAME_SETTING.get(settings));
 
         this.slowTaskLoggingThreshold = MASTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING.get(settings);
         clusterSettings.addSettingsUpdateConsumer(MASTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING, this::setSlowTaskLoggingThreshold);
 
+        this.batchingWindow = MASTER_SERVICE_BATCHING_WINDOW_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(MASTER_SERVICE_BATCHING_WINDOW_SETTING, this::setBatchingWindow);
+
         this.starvationLoggingThreshold = MASTER_SERVICE_STARVATION_LOGGING_THRESHOLD_SETTING.get(settings);
 
         this.threadPool = threadPool;
@@ -108,6 +131,10 @@ public class MasterService extends AbstractLifecycleComponent {
         this.slowTaskLoggingThreshold = slowTaskLoggingThreshold;
     }
 
+    private void setBatchingWindow(TimeValue batchingWindow) {
+        this.batchingWindow = batchingWindow;
+    }
+
     public synchronized void setClusterStatePublisher(ClusterStatePublisher publisher) {
         clusterStatePublisher = publisher;
     }
@@ -161,9 +188,31 @@ public class MasterService extends AbstractLifecycleComponent {
 
         @Override
         protected void run(Object batchingKey, List<? extends BatchedTask> tasks, String tasksSummary) {
-            runTasks(
-                new TaskInputs((ClusterStateTaskExecutor<ClusterStateTaskListener>) batchingKey, (List<UpdateTask>) tasks, tasksSummary)
-            );
+            try {
+                runTasks(
+                    new TaskInputs((ClusterStateTaskExecutor<ClusterStateTaskListener>) batchingKey, (List<UpdateTask>) tasks, tasksSummary)
+                );
+            } finally {
+                lastBatchCompletedMillis = threadPool.rawRelativeTimeInMillis();
+            }
+        }
+
+        @Override
+        protected TimeValue getBatchingDelay(Object batchingKey, int taskCount) {
+            final long maxDelayMillis = batchingWindow.millis();
+            if (maxDelayMillis == 0L) {
+                return TimeValue.ZERO;
+            }
+            // waiting for a fraction of the cost of a publication still leaves the master mostly busy with publishing
+            final long delayMillis = Math.min(maxDelayMillis, (long) (publicationCostMillis.getAverage() / 4));
+            if (delayMillis <= 0L) {
+                return TimeValue.ZERO;
+            }
+            // more tasks are likely to follow if others are queued already, or if this batch comes right after the previous one
+            final long lastBatchCompletedMillis = MasterService.this.lastBatchCompletedMillis;
+            final boolean underLoad = threadPoolExecutor.getNumberOfPendingTasks() > 1
+                || (lastBatchCompletedMillis >= 0L && threadPool.rawRelativeTimeInMillis() - lastBatchCompletedMillis < delayMillis);
+            return underLoad ? TimeValue.timeValueMillis(delayMillis) : TimeValue.ZERO;
         }
 
         class UpdateTask extends BatchedTask {
@@ -318,6 +367,7 @@ public class MasterService extends AbstractLifecycleComponent {
             } catch (Exception e) {
                 handleException(summary, publicationStartTime, newClusterState, e);
             }
+            publicationCostMillis.addValue(computationTime.millis() + getTimeSince(publicationStartTime).millis());
         }
     }
 
@@ -595,7 +645,8 @@ public class MasterService extends AbstractLifecycleComponent {
                 pending.priority,
                 new Text(task.source()),
                 task.getAgeInMillis(),
-                pending.executing
+                pending.executing,
+                taskBatcher.getBatchSize(task, pending.executing)
             );
         }).collect(Collectors.toList());
     }
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.cluster.service;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -24,6 +25,7 @@ public class PendingClusterTask implements Writeable {
     private Text source;
     private long timeInQueue;
     private boolean executing;
+    private int batchSize;
 
     public PendingClusterTask(StreamInput in) throws IOException {
         insertOrder = in.readVLong();
@@ -31,16 +33,23 @@ public class PendingClusterTask implements Writeable {
         source = in.readText();
         timeInQueue = in.readLong();
         executing = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+            batchSize = in.readVInt();
+        } else {
+            batchSize = 1;
+        }
     }
 
-    public PendingClusterTask(long insertOrder, Priority priority, Text source, long timeInQueue, boolean executing) {
+    public PendingClusterTask(long insertOrder, Priority priority, Text source, long timeInQueue, boolean executing, int batchSize) {
         assert timeInQueue >= 0 : "got a negative timeInQueue [" + timeInQueue + "]";
         assert insertOrder >= 0 : "got a negative insertOrder [" + insertOrder + "]";
+        assert batchSize >= 0 : "got a negative batchSize [" + batchSize + "]";
         this.insertOrder = insertOrder;
         this.priority = priority;
         this.source = source;
         this.timeInQueue = timeInQueue;
         this.executing = executing;
+        this.batchSize = batchSize;
     }
 
     public long getInsertOrder() {
@@ -67,6 +76,13 @@ public class PendingClusterTask implements Writeable {
         return executing;
     }
 
+    /**
+     * The number of tasks that this task runs in a batch with, including itself.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(insertOrder);
@@ -74,5 +90,8 @@ public class PendingClusterTask implements Writeable {
         out.writeText(source);
         out.writeLong(timeInQueue);
         out.writeBoolean(executing);
+        if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+            out.writeVInt(batchSize);
+        }
     }
 }
@@ -9,8 +9,10 @@
 package org.elasticsearch.cluster.service;
 
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.util.concurrent.PrioritizedEsThreadPoolExecutor;
 import org.elasticsearch.core.Nullable;
@@ -25,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -32,6 +35,7 @@ import java.util.stream.Collectors;
 /**
  * Batching support for {@link PrioritizedEsThreadPoolExecutor}
  * Tasks that share the same batching key are batched (see {@link BatchedTask#batchingKey})
+ * A batch may be deferred for a short while to collect more tasks for it (see {@link #getBatchingDelay})
  */
 public abstract class TaskBatcher {
 
@@ -39,6 +43,10 @@ public abstract class TaskBatcher {
     private final PrioritizedEsThreadPoolExecutor threadExecutor;
     // package visible for tests
     final Map<Object, Set<BatchedTask>> tasksPerBatchingKey = new ConcurrentHashMap<>();
+    // the batching keys whose batch is deferred and the priority that the deferred run has, the tasks with these keys are left to the
+    // deferred run of the batch unless they have a higher priority than it
+    private final Map<Object, Priority> deferredBatchingKeys = ConcurrentCollections.newConcurrentMap();
+    private volatile int runningBatchSize;
 
     public TaskBatcher(Logger logger, PrioritizedEsThreadPoolExecutor threadExecutor) {
         this.logger = logger;
@@ -130,30 +138,136 @@ public abstract class TaskBatcher {
         // if this task is already processed, it shouldn't execute other tasks with same batching key that arrived later,
         // to give other tasks with different batching key a chance to execute.
         if (updateTask.processed.get() == false) {
-            final List<BatchedTask> toExecute = new ArrayList<>();
-            final Map<String, List<BatchedTask>> processTasksBySource = new HashMap<>();
-            final Set<BatchedTask> pending = tasksPerBatchingKey.remove(updateTask.batchingKey);
+            final Priority deferredPriority = deferredBatchingKeys.get(updateTask.batchingKey);
+            if (deferredPriority != null) {
+                if (deferredPriority.after(updateTask.priority()) == false) {
+                    logger.trace("leaving {} to the deferred batch", updateTask);
+                    return;
+                }
+                // a task must neither wait for a deferred batch of a lower priority nor run at that priority, so it runs the batch now
+                logger.trace("running the deferred batch for {} which has a higher priority", updateTask);
+                runBatch(updateTask);
+                return;
+            }
+            final Set<BatchedTask> pending = tasksPerBatchingKey.get(updateTask.batchingKey);
             if (pending != null) {
-                // pending is a java.util.Collections.SynchronizedSet so we can safely iterate holding its mutex
-                synchronized (pending) {
-                    for (BatchedTask task : pending) {
-                        if (task.processed.getAndSet(true) == false) {
-                            logger.trace("will process {}", task);
-                            toExecute.add(task);
-                            processTasksBySource.computeIfAbsent(task.source, s -> new ArrayList<>()).add(task);
-                        } else {
-                            logger.trace("skipping {}, already processed", task);
-                        }
+                final TimeValue delay = getBatchingDelay(updateTask.batchingKey, pending.size());
+                if (delay.nanos() > 0 && deferBatch(updateTask, delay)) {
+                    return;
+                }
+            }
+            runBatch(updateTask);
+        }
+    }
+
+    private boolean deferBatch(BatchedTask updateTask, TimeValue delay) {
+        deferredBatchingKeys.put(updateTask.batchingKey, updateTask.priority());
+        try {
+            threadExecutor.executeWithDelay(new DeferredBatch(updateTask), delay);
+        } catch (RejectedExecutionException e) {
+            logger.debug(() -> new ParameterizedMessage("failed to defer {}, running it now", updateTask), e);
+            deferredBatchingKeys.remove(updateTask.batchingKey);
+            return false;
+        }
+        logger.trace("deferred {} by [{}] to collect more tasks for its batch", updateTask, delay);
+        return true;
+    }
+
+    private void runBatch(BatchedTask updateTask) {
+        final List<BatchedTask> toExecute = new ArrayList<>();
+        final Map<String, List<BatchedTask>> processTasksBySource = new HashMap<>();
+        final Set<BatchedTask> pending = tasksPerBatchingKey.remove(updateTask.batchingKey);
+        if (pending != null) {
+            // pending is a java.util.Collections.SynchronizedSet so we can safely iterate holding its mutex
+            synchronized (pending) {
+                for (BatchedTask task : pending) {
+                    if (task.processed.getAndSet(true) == false) {
+                        logger.trace("will process {}", task);
+                        toExecute.add(task);
+                        processTasksBySource.computeIfAbsent(task.source, s -> new ArrayList<>()).add(task);
+                    } else {
+                        logger.trace("skipping {}, already processed", task);
                     }
                 }
             }
+        }
 
-            if (toExecute.isEmpty() == false) {
+        if (toExecute.isEmpty() == false) {
+            runningBatchSize = toExecute.size();
+            try {
                 run(updateTask.batchingKey, toExecute, buildTasksDescription(updateTask, toExecute, processTasksBySource));
+            } finally {
+                runningBatchSize = 0;
             }
         }
     }
 
+    /**
+     * How long to defer the batch of tasks with the given batching key in order to collect more tasks for it, or {@link TimeValue#ZERO}
+     * to run it straight away. A batch is deferred at most once. Defaults to never deferring.
+     *
+     * @param taskCount the number of tasks that the batch has so far
+     */
+    protected TimeValue getBatchingDelay(Object batchingKey, int taskCount) {
+        return TimeValue.ZERO;
+    }
+
+    /**
+     * Returns the number of tasks that the given task runs in a batch with, including itself: the size of the running batch if the task
+     * is executing, or else the number of tasks that are queued with the same batching key. This is at least 1 even for a task that
+     * has nothing left to run because its batch ran already.
+     */
+    int getBatchSize(SourcePrioritizedRunnable task, boolean executing) {
+        if (executing) {
+            return Math.max(1, runningBatchSize);
+        }
+        final BatchedTask batchedTask;
+        if (task instanceof BatchedTask t) {
+            batchedTask = t;
+        } else if (task instanceof DeferredBatch deferredBatch) {
+            batchedTask = deferredBatch.updateTask;
+        } else {
+            return 1;
+        }
+        final Set<BatchedTask> pending = tasksPerBatchingKey.get(batchedTask.batchingKey);
+        return pending == null ? 1 : pending.size();
+    }
+
+    /**
+     * Runs the batch of a task once its delay has elapsed, whether or not the task itself has been processed in the meantime since the
+     * runs of the other tasks of the batch have been left to it.
+     */
+    private class DeferredBatch extends SourcePrioritizedRunnable {
+
+        private final BatchedTask updateTask;
+
+        DeferredBatch(BatchedTask updateTask) {
+            super(updateTask.priority(), updateTask.source);
+            this.updateTask = updateTask;
+        }
+
+        @Override
+        public void run() {
+            deferredBatchingKeys.remove(updateTask.batchingKey);
+            runBatch(updateTask);
+        }
+
+        @Override
+        public long getCreationDateInNanos() {
+            return updateTask.getCreationDateInNanos();
+        }
+
+        @Override
+        public long getAgeInMillis() {
+            return updateTask.getAgeInMillis();
+        }
+
+        @Override
+        public String toString() {
+            return "deferred batch of " + updateTask;
+        }
+    }
+
     private static final int MAX_TASK_DESCRIPTION_CHARS = 8 * 1024;
 
     private String buildTasksDescription(
@@ -12,10 +12,13 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.BytesRefIterator;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.io.stream.StreamInput;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.stream.IntStream;
 
@@ -191,6 +194,26 @@ public final class CompositeBytesReference extends AbstractBytesReference {
         return builder.toBytesRef();
     }
 
+    @Override
+    public StreamInput streamInput() throws IOException {
+        return new CompositeBytesReferenceStreamInput(slices(), null);
+    }
+
+    /**
+     * Returns the non-empty slices of this reference in order, without copying their bytes.
+     */
+    BytesRef[] slices() throws IOException {
+        final List<BytesRef> slices = new ArrayList<>(references.length);
+        final BytesRefIterator iterator = iterator();
+        BytesRef slice;
+        while ((slice = iterator.next()) != null) {
+            if (slice.length > 0) {
+                slices.add(slice);
+            }
+        }
+        return slices.toArray(new BytesRef[0]);
+    }
+
     @Override
     public BytesRefIterator iterator() {
         return new BytesRefIterator() {
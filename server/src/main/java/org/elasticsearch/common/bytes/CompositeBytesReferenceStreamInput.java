@@ -0,0 +1,328 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Numbers;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.core.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A {@link StreamInput} over the slices of a {@link CompositeBytesReference}, such as the network buffers that the transport layer
+ * aggregates into a single message. Unlike {@link BytesReferenceStreamInput} it resolves all slices up front, so moving to the next
+ * slice is an array access rather than a call through the nested iterators of the composite, and seeking for {@link #skip} and
+ * {@link #reset} is a binary search rather than a walk from the start. Reads that straddle two slices are assembled in place
+ * instead of falling back to the generic byte by byte implementations of {@link StreamInput}. Nothing is copied until the caller
+ * reads into its own buffer.
+ */
+final class CompositeBytesReferenceStreamInput extends StreamInput {
+
+    private final BytesRef[] slices;
+    private final int[] sliceOffsets; // the offset on the stream at which each slice starts
+    private final int length;
+    @Nullable
+    private final ReleasableBytesReference releasable;
+
+    private int sliceIndex;
+    private byte[] buffer; // the bytes of the current slice
+    private int pos; // the position of the next byte to read in buffer
+    private int limit; // the end of the current slice in buffer
+
+    private int mark = 0;
+
+    /**
+     * @param slices the non-empty slices of the stream, in order
+     * @param releasable the reference that the slices belong to if {@link #readReleasableBytesReference()} should return slices of it
+     *                   instead of copies
+     */
+    CompositeBytesReferenceStreamInput(BytesRef[] slices, @Nullable ReleasableBytesReference releasable) {
+        assert slices.length > 0;
+        assert Arrays.stream(slices).allMatch(slice -> slice.length > 0);
+        this.slices = slices;
+        this.sliceOffsets = new int[slices.length];
+        int offset = 0;
+        for (int i = 0; i < slices.length; i++) {
+            sliceOffsets[i] = offset;
+            offset += slices[i].length;
+        }
+        this.length = offset;
+        assert releasable == null || releasable.length() == length;
+        this.releasable = releasable;
+        setSlice(0);
+    }
+
+    private void setSlice(int index) {
+        final BytesRef slice = slices[index];
+        sliceIndex = index;
+        buffer = slice.bytes;
+        pos = slice.offset;
+        limit = slice.offset + slice.length;
+    }
+
+    private int offset() {
+        return sliceOffsets[sliceIndex] + pos - slices[sliceIndex].offset;
+    }
+
+    private void nextSlice() throws EOFException {
+        if (sliceIndex + 1 == slices.length) {
+            throw new EOFException();
+        }
+        setSlice(sliceIndex + 1);
+    }
+
+    /**
+     * Moves the stream to the given offset, which may be the end of the stream.
+     */
+    private void seek(int offset) {
+        assert offset >= 0 && offset <= length : offset + " vs " + length;
+        final int i = Arrays.binarySearch(sliceOffsets, offset);
+        if (i >= 0) {
+            setSlice(i);
+        } else {
+            // the offset is within the slice before the insertion point, or at the very end of the last slice
+            setSlice(-(i + 1) - 1);
+            pos += offset - sliceOffsets[sliceIndex];
+        }
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        if (pos == limit) {
+            nextSlice();
+        }
+        return buffer[pos++];
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        if (limit - pos >= 2) {
+            pos += 2;
+            return Numbers.bytesToShort(buffer, pos - 2);
+        }
+        return (short) (((readByte() & 0xFF) << 8) | (readByte() & 0xFF));
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        if (limit - pos >= 4) {
+            pos += 4;
+            return Numbers.bytesToInt(buffer, pos - 4);
+        }
+        return ((readByte() & 0xFF) << 24) | ((readByte() & 0xFF) << 16) | ((readByte() & 0xFF) << 8) | (readByte() & 0xFF);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        if (limit - pos >= 8) {
+            pos += 8;
+            return Numbers.bytesToLong(buffer, pos - 8);
+        }
+        return (((long) readInt()) << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public int readVInt() throws IOException {
+        if (limit - pos < 5) {
+            return readVIntAcrossSlices();
+        }
+        final byte[] buf = buffer;
+        byte b = buf[pos++];
+        if (b >= 0) {
+            return b;
+        }
+        int i = b & 0x7F;
+        b = buf[pos++];
+        i |= (b & 0x7F) << 7;
+        if (b >= 0) {
+            return i;
+        }
+        b = buf[pos++];
+        i |= (b & 0x7F) << 14;
+        if (b >= 0) {
+            return i;
+        }
+        b = buf[pos++];
+        i |= (b & 0x7F) << 21;
+        if (b >= 0) {
+            return i;
+        }
+        b = buf[pos++];
+        i |= (b & 0x0F) << 28;
+        if ((b & 0xF0) != 0) {
+            throwOnBrokenVInt(b, i);
+        }
+        return i;
+    }
+
+    private int readVIntAcrossSlices() throws IOException {
+        int i = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            final byte b = readByte();
+            i |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return i;
+            }
+        }
+        final byte b = readByte();
+        i |= (b & 0x0F) << 28;
+        if ((b & 0xF0) != 0) {
+            throwOnBrokenVInt(b, i);
+        }
+        return i;
+    }
+
+    @Override
+    public long readVLong() throws IOException {
+        if (limit - pos < 10) {
+            return readVLongAcrossSlices();
+        }
+        final byte[] buf = buffer;
+        long i = 0;
+        for (int shift = 0; shift < 63; shift += 7) {
+            final byte b = buf[pos++];
+            i |= (b & 0x7FL) << shift;
+            if (b >= 0) {
+                return i;
+            }
+        }
+        final byte b = buf[pos++];
+        if (b != 0 && b != 1) {
+            throwOnBrokenVLong(b, i);
+        }
+        return i | ((long) b) << 63;
+    }
+
+    private long readVLongAcrossSlices() throws IOException {
+        long i = 0;
+        for (int shift = 0; shift < 63; shift += 7) {
+            final byte b = readByte();
+            i |= (b & 0x7FL) << shift;
+            if (b >= 0) {
+                return i;
+            }
+        }
+        final byte b = readByte();
+        if (b != 0 && b != 1) {
+            throwOnBrokenVLong(b, i);
+        }
+        return i | ((long) b) << 63;
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+        final int position = offset();
+        if (position + len > length) {
+            throw new IndexOutOfBoundsException(
+                "Cannot read " + len + " bytes from stream with length " + length + " at offset " + position
+            );
+        }
+        copyTo(b, offset, len);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (offset() >= length) {
+            return -1;
+        }
+        return Byte.toUnsignedInt(readByte());
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int len) throws IOException {
+        final int available = available();
+        if (available == 0) {
+            return -1;
+        }
+        final int toCopy = Math.min(len, available);
+        copyTo(b, offset, toCopy);
+        return toCopy;
+    }
+
+    private void copyTo(byte[] b, int offset, int len) throws EOFException {
+        int remaining = len;
+        int destOffset = offset;
+        while (remaining > 0) {
+            if (pos == limit) {
+                nextSlice();
+            }
+            final int toCopy = Math.min(remaining, limit - pos);
+            System.arraycopy(buffer, pos, b, destOffset, toCopy);
+            pos += toCopy;
+            destOffset += toCopy;
+            remaining -= toCopy;
+        }
+    }
+
+    @Override
+    public ReleasableBytesReference readReleasableBytesReference() throws IOException {
+        if (releasable == null) {
+            return super.readReleasableBytesReference();
+        }
+        final int len = readArraySize();
+        // instead of reading the bytes from a stream we just create a slice of the underlying bytes
+        final ReleasableBytesReference result = releasable.retainedSlice(offset(), len);
+        // move the stream manually since creating the slice didn't move it
+        skip(len);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        // do nothing
+    }
+
+    @Override
+    public int available() {
+        return length - offset();
+    }
+
+    @Override
+    protected void ensureCanReadBytes(int bytesToRead) throws EOFException {
+        final int bytesAvailable = available();
+        if (bytesAvailable < bytesToRead) {
+            throw new EOFException("tried to read: " + bytesToRead + " bytes but only " + bytesAvailable + " remaining");
+        }
+    }
+
+    @Override
+    public long skip(long n) {
+        if (n <= 0L) {
+            return 0L;
+        }
+        final int position = offset();
+        // definitely >= 0 and <= Integer.MAX_VALUE so casting is ok
+        final int numBytesSkipped = (int) Math.min(n, length - position);
+        if (limit - pos >= numBytesSkipped) {
+            pos += numBytesSkipped;
+        } else {
+            seek(position + numBytesSkipped);
+        }
+        return numBytesSkipped;
+    }
+
+    @Override
+    public void reset() {
+        seek(mark);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+        // We ignore readLimit since the data is all in-memory and therefore we can reset the mark no matter how far we advance.
+        this.mark = offset();
+    }
+}
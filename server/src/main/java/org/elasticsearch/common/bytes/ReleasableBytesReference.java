@@ -129,6 +129,10 @@ public final class ReleasableBytesReference implements RefCounted, Releasable, B
     @Override
     public StreamInput streamInput() throws IOException {
         assert hasReferences();
+        if (delegate instanceof CompositeBytesReference composite) {
+            // aggregated transport messages are composites of many network buffers
+            return new CompositeBytesReferenceStreamInput(composite.slices(), this);
+        }
         return new BytesReferenceStreamInput(this) {
             @Override
             public ReleasableBytesReference readReleasableBytesReference() throws IOException {
@@ -0,0 +1,213 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.elasticsearch.index.codec.DocValuesSkipIndex;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * A range query on sorted numeric doc values that uses the {@link DocValuesSkipIndex} of a segment, when it has one, to skip the
+ * blocks of documents whose values are all outside of the range and to match the blocks whose values are all inside of the range
+ * without checking their values. Segments without a skip index are scanned like
+ * {@link org.apache.lucene.document.SortedNumericDocValuesField#newSlowRangeQuery}.
+ */
+public final class SkipIndexRangeQuery extends Query {
+    private final String field;
+    private final long lowerValue;
+    private final long upperValue;
+
+    /**
+     * @param field the field to query
+     * @param lowerValue the lower bound, inclusive
+     * @param upperValue the upper bound, inclusive
+     */
+    public SkipIndexRangeQuery(String field, long lowerValue, long upperValue) {
+        this.field = Objects.requireNonNull(field);
+        this.lowerValue = lowerValue;
+        this.upperValue = upperValue;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public long getLowerValue() {
+        return lowerValue;
+    }
+
+    public long getUpperValue() {
+        return upperValue;
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        if (lowerValue > upperValue) {
+            return new MatchNoDocsQuery("empty range");
+        }
+        if (lowerValue == Long.MIN_VALUE && upperValue == Long.MAX_VALUE) {
+            return new DocValuesFieldExistsQuery(field);
+        }
+        return super.rewrite(reader);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        return new ConstantScoreWeight(this, boost) {
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                return DocValues.isCacheable(ctx, field);
+            }
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                SortedNumericDocValues values = context.reader().getSortedNumericDocValues(field);
+                if (values == null) {
+                    return null;
+                }
+                DocValuesSkipIndex skipIndex = DocValuesSkipIndex.of(values);
+                DocIdSetIterator approximation;
+                if (skipIndex == null) {
+                    approximation = values;
+                } else {
+                    if (skipIndex.intersects(lowerValue, upperValue) == false) {
+                        return null;
+                    }
+                    approximation = new SkippingIterator(values, skipIndex, context.reader().maxDoc());
+                }
+                TwoPhaseIterator twoPhase = new TwoPhaseIterator(approximation) {
+                    @Override
+                    public boolean matches() throws IOException {
+                        if (skipIndex != null && skipIndex.within(DocValuesSkipIndex.block(values.docID()), lowerValue, upperValue)) {
+                            return true;
+                        }
+                        for (int i = 0, count = values.docValueCount(); i < count; ++i) {
+                            final long value = values.nextValue();
+                            if (value < lowerValue) {
+                                continue;
+                            }
+                            // values are sorted, so the first value that is >= lowerValue is our best candidate
+                            return value <= upperValue;
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public float matchCost() {
+                        return 2; // 2 comparisons
+                    }
+                };
+                return new ConstantScoreScorer(this, score(), scoreMode, twoPhase);
+            }
+        };
+    }
+
+    /**
+     * Iterates the documents that have values, jumping over the blocks whose values can't be in the range.
+     */
+    private class SkippingIterator extends DocIdSetIterator {
+        private final SortedNumericDocValues values;
+        private final DocValuesSkipIndex skipIndex;
+        private final int maxDoc;
+        private int doc = -1;
+
+        SkippingIterator(SortedNumericDocValues values, DocValuesSkipIndex skipIndex, int maxDoc) {
+            this.values = values;
+            this.skipIndex = skipIndex;
+            this.maxDoc = maxDoc;
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            while (target < maxDoc) {
+                int block = DocValuesSkipIndex.block(target);
+                if (skipIndex.intersects(block, lowerValue, upperValue) == false) {
+                    target = nextBlockStart(block);
+                    continue;
+                }
+                int next = values.advance(target);
+                if (next == NO_MORE_DOCS) {
+                    return doc = NO_MORE_DOCS;
+                }
+                int nextBlock = DocValuesSkipIndex.block(next);
+                if (skipIndex.intersects(nextBlock, lowerValue, upperValue)) {
+                    return doc = next;
+                }
+                target = nextBlockStart(nextBlock);
+            }
+            return doc = NO_MORE_DOCS;
+        }
+
+        private int nextBlockStart(int block) {
+            return (int) Math.min((long) (block + 1) * DocValuesSkipIndex.BLOCK_SIZE, maxDoc);
+        }
+
+        @Override
+        public long cost() {
+            return values.cost();
+        }
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String field) {
+        StringBuilder b = new StringBuilder();
+        if (this.field.equals(field) == false) {
+            b.append(this.field).append(":");
+        }
+        return b.append("[").append(lowerValue).append(" TO ").append(upperValue).append("]").toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        SkipIndexRangeQuery that = (SkipIndexRangeQuery) obj;
+        return field.equals(that.field) && lowerValue == that.lowerValue && upperValue == that.upperValue;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, lowerValue, upperValue);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.lucene.uid;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+
+/**
+ * Counts how the per segment bloom filters on {@code _id} answered the version lookups of a shard. A hit lets the lookup through
+ * to the terms dictionary of the segment, a miss rules the segment out without seeking it. False positives are the hits for which
+ * the segment didn't contain the id after all. Segments without a bloom filter aren't counted.
+ */
+public final class IdBloomFilterCounters {
+    private final CounterMetric hits = new CounterMetric();
+    private final CounterMetric misses = new CounterMetric();
+    private final CounterMetric falsePositives = new CounterMetric();
+
+    void onHit(boolean found) {
+        hits.inc();
+        if (found == false) {
+            falsePositives.inc();
+        }
+    }
+
+    void onMiss() {
+        misses.inc();
+    }
+
+    public long getHitCount() {
+        return hits.count();
+    }
+
+    public long getMissCount() {
+        return misses.count();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositives.count();
+    }
+}
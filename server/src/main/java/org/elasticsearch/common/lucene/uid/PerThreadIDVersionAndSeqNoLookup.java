@@ -20,6 +20,9 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndSeqNo;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndVersion;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.codec.ES82BloomFilterPostingsFormat;
+import org.elasticsearch.index.codec.ES82BloomFilterPostingsFormat.BloomFilteredTerms;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.VersionFieldMapper;
 
@@ -46,6 +49,9 @@ final class PerThreadIDVersionAndSeqNoLookup {
     final String uidField;
     private final TermsEnum termsEnum;
 
+    /** bloom filter on the uid field, if the segment was written with one */
+    private final BloomFilteredTerms bloomFilter;
+
     /** Reused for iteration (when the term exists) */
     private PostingsEnum docsEnum;
 
@@ -75,8 +81,11 @@ final class PerThreadIDVersionAndSeqNoLookup {
                 );
             }
             termsEnum = null;
+            bloomFilter = null;
         } else {
-            termsEnum = terms.iterator();
+            bloomFilter = ES82BloomFilterPostingsFormat.unwrap(terms);
+            // we check the bloom filter ourselves so that we can count how it answered
+            termsEnum = bloomFilter == null ? terms.iterator() : bloomFilter.getDelegate().iterator();
         }
         if (reader.getNumericDocValues(VersionFieldMapper.NAME) == null) {
             throw new IllegalArgumentException("reader misses the [" + VersionFieldMapper.NAME + "] field; _uid terms [" + terms + "]");
@@ -96,10 +105,15 @@ final class PerThreadIDVersionAndSeqNoLookup {
      * using the same cache key. Otherwise we'd have to disable caching
      * entirely for these readers.
      */
-    public DocIdAndVersion lookupVersion(BytesRef id, boolean loadSeqNo, LeafReaderContext context) throws IOException {
+    public DocIdAndVersion lookupVersion(
+        BytesRef id,
+        boolean loadSeqNo,
+        LeafReaderContext context,
+        @Nullable IdBloomFilterCounters bloomFilterCounters
+    ) throws IOException {
         assert readerKey == null || context.reader().getCoreCacheHelper().getKey().equals(readerKey)
             : "context's reader is not the same as the reader class was initialized on.";
-        int docID = getDocID(id, context);
+        int docID = getDocID(id, context, bloomFilterCounters);
 
         if (docID != DocIdSetIterator.NO_MORE_DOCS) {
             final long seqNo;
@@ -122,9 +136,26 @@ final class PerThreadIDVersionAndSeqNoLookup {
      * returns the internal lucene doc id for the given id bytes.
      * {@link DocIdSetIterator#NO_MORE_DOCS} is returned if not found
      * */
-    private int getDocID(BytesRef id, LeafReaderContext context) throws IOException {
+    private int getDocID(BytesRef id, LeafReaderContext context, @Nullable IdBloomFilterCounters bloomFilterCounters) throws IOException {
         // termsEnum can possibly be null here if this leaf contains only no-ops.
-        if (termsEnum != null && termsEnum.seekExact(id)) {
+        if (termsEnum == null) {
+            return DocIdSetIterator.NO_MORE_DOCS;
+        }
+        final boolean found;
+        if (bloomFilter == null) {
+            found = termsEnum.seekExact(id);
+        } else if (bloomFilter.mayContainTerm(id)) {
+            found = termsEnum.seekExact(id);
+            if (bloomFilterCounters != null) {
+                bloomFilterCounters.onHit(found);
+            }
+        } else {
+            found = false;
+            if (bloomFilterCounters != null) {
+                bloomFilterCounters.onMiss();
+            }
+        }
+        if (found) {
             final Bits liveDocs = context.reader().getLiveDocs();
             int docID = DocIdSetIterator.NO_MORE_DOCS;
             // there may be more than one matching docID, in the case of nested docs, so we want the last one:
@@ -151,10 +182,11 @@ final class PerThreadIDVersionAndSeqNoLookup {
     }
 
     /** Return null if id is not found. */
-    DocIdAndSeqNo lookupSeqNo(BytesRef id, LeafReaderContext context) throws IOException {
+    DocIdAndSeqNo lookupSeqNo(BytesRef id, LeafReaderContext context, @Nullable IdBloomFilterCounters bloomFilterCounters)
+        throws IOException {
         assert readerKey == null || context.reader().getCoreCacheHelper().getKey().equals(readerKey)
             : "context's reader is not the same as the reader class was initialized on.";
-        final int docID = getDocID(id, context);
+        final int docID = getDocID(id, context, bloomFilterCounters);
         if (docID != DocIdSetIterator.NO_MORE_DOCS) {
             final long seqNo = readNumericDocValues(context.reader(), SeqNoFieldMapper.NAME, docID);
             return new DocIdAndSeqNo(docID, seqNo, context);
@@ -14,6 +14,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.util.CloseableThreadLocal;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
 
 import java.io.IOException;
 import java.util.List;
@@ -118,6 +119,19 @@ public final class VersionsAndSeqNoResolver {
      * </ul>
      */
     public static DocIdAndVersion loadDocIdAndVersion(IndexReader reader, Term term, boolean loadSeqNo) throws IOException {
+        return loadDocIdAndVersion(reader, term, loadSeqNo, null);
+    }
+
+    /**
+     * Like {@link #loadDocIdAndVersion(IndexReader, Term, boolean)} but also counts how the bloom filters on the uid field, if
+     * any, answered the lookup.
+     */
+    public static DocIdAndVersion loadDocIdAndVersion(
+        IndexReader reader,
+        Term term,
+        boolean loadSeqNo,
+        @Nullable IdBloomFilterCounters bloomFilterCounters
+    ) throws IOException {
         PerThreadIDVersionAndSeqNoLookup[] lookups = getLookupState(reader, term.field());
         List<LeafReaderContext> leaves = reader.leaves();
         // iterate backwards to optimize for the frequently updated documents
@@ -125,7 +139,7 @@ public final class VersionsAndSeqNoResolver {
         for (int i = leaves.size() - 1; i >= 0; i--) {
             final LeafReaderContext leaf = leaves.get(i);
             PerThreadIDVersionAndSeqNoLookup lookup = lookups[leaf.ord];
-            DocIdAndVersion result = lookup.lookupVersion(term.bytes(), loadSeqNo, leaf);
+            DocIdAndVersion result = lookup.lookupVersion(term.bytes(), loadSeqNo, leaf, bloomFilterCounters);
             if (result != null) {
                 return result;
             }
@@ -138,7 +152,7 @@ public final class VersionsAndSeqNoResolver {
         for (int i = leaves.size() - 1; i >= 0; i--) {
             final LeafReaderContext leaf = leaves.get(i);
             PerThreadIDVersionAndSeqNoLookup lookup = new PerThreadIDVersionAndSeqNoLookup(leaf.reader(), term.field(), false);
-            DocIdAndVersion result = lookup.lookupVersion(term.bytes(), loadSeqNo, leaf);
+            DocIdAndVersion result = lookup.lookupVersion(term.bytes(), loadSeqNo, leaf, null);
             if (result != null) {
                 return result;
             }
@@ -151,6 +165,15 @@ public final class VersionsAndSeqNoResolver {
      * The result is either null or the live and latest version of the given uid.
      */
     public static DocIdAndSeqNo loadDocIdAndSeqNo(IndexReader reader, Term term) throws IOException {
+        return loadDocIdAndSeqNo(reader, term, null);
+    }
+
+    /**
+     * Like {@link #loadDocIdAndSeqNo(IndexReader, Term)} but also counts how the bloom filters on the uid field, if any, answered
+     * the lookup.
+     */
+    public static DocIdAndSeqNo loadDocIdAndSeqNo(IndexReader reader, Term term, @Nullable IdBloomFilterCounters bloomFilterCounters)
+        throws IOException {
         final PerThreadIDVersionAndSeqNoLookup[] lookups = getLookupState(reader, term.field());
         final List<LeafReaderContext> leaves = reader.leaves();
         // iterate backwards to optimize for the frequently updated documents
@@ -158,7 +181,7 @@ public final class VersionsAndSeqNoResolver {
         for (int i = leaves.size() - 1; i >= 0; i--) {
             final LeafReaderContext leaf = leaves.get(i);
             final PerThreadIDVersionAndSeqNoLookup lookup = lookups[leaf.ord];
-            final DocIdAndSeqNo result = lookup.lookupSeqNo(term.bytes(), leaf);
+            final DocIdAndSeqNo result = lookup.lookupSeqNo(term.bytes(), leaf, bloomFilterCounters);
             if (result != null) {
                 return result;
             }
@@ -72,6 +72,8 @@ import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.IndicesRequestCache;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.MergeDiskBandwidthController;
+import org.elasticsearch.indices.NodeRefreshScheduler;
 import org.elasticsearch.indices.ShardLimitValidator;
 import org.elasticsearch.indices.analysis.HunspellService;
 import org.elasticsearch.indices.breaker.BreakerSettings;
@@ -184,6 +186,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
         BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING,
         BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING,
         BalancedShardsAllocator.THRESHOLD_SETTING,
+        BalancedShardsAllocator.INCREMENTAL_MAX_INDICES_SETTING,
         BreakerSettings.CIRCUIT_BREAKER_LIMIT_SETTING,
         BreakerSettings.CIRCUIT_BREAKER_OVERHEAD_SETTING,
         BreakerSettings.CIRCUIT_BREAKER_TYPE,
@@ -242,6 +245,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
         SameShardAllocationDecider.CLUSTER_ROUTING_ALLOCATION_SAME_HOST_SETTING,
         InternalClusterInfoService.INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING,
         InternalClusterInfoService.INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING,
+        InternalClusterInfoService.INTERNAL_CLUSTER_INFO_DISK_FORECAST_HORIZON_SETTING,
         InternalSnapshotsInfoService.INTERNAL_SNAPSHOT_INFO_MAX_CONCURRENT_FETCHES_SETTING,
         DestructiveOperations.REQUIRES_NAME_SETTING,
         NoMasterBlockService.NO_MASTER_BLOCK_SETTING,
@@ -270,6 +274,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
         HttpTransportSettings.SETTING_CORS_ALLOW_HEADERS,
         HttpTransportSettings.SETTING_HTTP_DETAILED_ERRORS_ENABLED,
         HttpTransportSettings.SETTING_HTTP_MAX_CONTENT_LENGTH,
+        HttpTransportSettings.SETTING_HTTP_STREAMING_BULK_ENABLED,
+        HttpTransportSettings.SETTING_HTTP_STREAMING_BULK_BATCH_SIZE,
         HttpTransportSettings.SETTING_HTTP_MAX_CHUNK_SIZE,
         HttpTransportSettings.SETTING_HTTP_MAX_HEADER_SIZE,
         HttpTransportSettings.SETTING_HTTP_MAX_WARNING_HEADER_COUNT,
@@ -300,8 +306,10 @@ public final class ClusterSettings extends AbstractScopedSettings {
         HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_OVERHEAD_SETTING,
         IndexModule.NODE_STORE_ALLOW_MMAP,
         ClusterApplierService.CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING,
+        ClusterApplierService.CLUSTER_SERVICE_APPLIER_CONCURRENCY_SETTING,
         ClusterService.USER_DEFINED_METADATA,
         MasterService.MASTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING,
+        MasterService.MASTER_SERVICE_BATCHING_WINDOW_SETTING,
         MasterService.MASTER_SERVICE_STARVATION_LOGGING_THRESHOLD_SETTING,
         SearchService.DEFAULT_SEARCH_TIMEOUT_SETTING,
         SearchService.DEFAULT_ALLOW_PARTIAL_SEARCH_RESULTS,
@@ -339,6 +347,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
         TransportSettings.PUBLISH_PORT_PROFILE,
         TransportSettings.TRANSPORT_COMPRESS,
         TransportSettings.TRANSPORT_COMPRESSION_SCHEME,
+        TransportSettings.TRANSPORT_COMPRESSION_DICTIONARY_ACTIONS,
+        TransportSettings.TRANSPORT_COMPRESSION_DICTIONARY_SIZE,
         TransportSettings.PING_SCHEDULE,
         TransportSettings.CONNECT_TIMEOUT,
         TransportSettings.DEFAULT_FEATURES_SETTING,
@@ -363,6 +373,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
         TransportSettings.CONNECTIONS_PER_NODE_REG,
         TransportSettings.CONNECTIONS_PER_NODE_STATE,
         TransportSettings.CONNECTIONS_PER_NODE_PING,
+        TransportSettings.OUTBOUND_MAX_IN_FLIGHT_BYTES,
+        TransportSettings.OUTBOUND_RESPONSE_CHUNK_SIZE,
         TransportSettings.TRACE_LOG_EXCLUDE_SETTING,
         TransportSettings.TRACE_LOG_INCLUDE_SETTING,
         TransportSettings.SLOW_OPERATION_THRESHOLD_SETTING,
@@ -420,6 +432,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
         SearchService.CCS_VERSION_CHECK_SETTING,
         MultiBucketConsumerService.MAX_BUCKET_SETTING,
         SearchService.LOW_LEVEL_CANCELLATION_SETTING,
+        SearchService.COALESCE_IDENTICAL_QUERIES_SETTING,
         SearchService.MAX_OPEN_SCROLL_CONTEXT,
         SearchService.ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER,
         SearchService.MAX_ASYNC_SEARCH_RESPONSE_SIZE_SETTING,
@@ -464,6 +477,13 @@ public final class ClusterSettings extends AbstractScopedSettings {
         IndexingMemoryController.MAX_INDEX_BUFFER_SIZE_SETTING,
         IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING,
         IndexingMemoryController.SHARD_MEMORY_INTERVAL_TIME_SETTING,
+        MergeDiskBandwidthController.ENABLED_SETTING,
+        MergeDiskBandwidthController.MAX_BYTES_PER_SEC_SETTING,
+        MergeDiskBandwidthController.MIN_BYTES_PER_SEC_SETTING,
+        MergeDiskBandwidthController.INTERVAL_SETTING,
+        NodeRefreshScheduler.ENABLED_SETTING,
+        NodeRefreshScheduler.INTERVAL_SETTING,
+        NodeRefreshScheduler.MAX_CONCURRENT_REFRESHES_SETTING,
         ResourceWatcherService.ENABLED,
         ResourceWatcherService.RELOAD_INTERVAL_HIGH,
         ResourceWatcherService.RELOAD_INTERVAL_MEDIUM,
@@ -473,6 +493,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
         ThreadPool.ESTIMATED_TIME_INTERVAL_SETTING,
         ThreadPool.LATE_TIME_INTERVAL_WARN_THRESHOLD_SETTING,
         ThreadPool.SLOW_SCHEDULER_TASK_WARN_THRESHOLD_SETTING,
+        ThreadPool.VIRTUAL_THREAD_POOLS_SETTING,
         FastVectorHighlighter.SETTING_TV_HIGHLIGHT_MULTI_VALUE,
         Node.BREAKER_TYPE_KEY,
         OperationRouting.USE_ADAPTIVE_REPLICA_SELECTION_SETTING,
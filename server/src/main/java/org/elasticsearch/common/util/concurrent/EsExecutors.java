@@ -12,9 +12,12 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.node.Node;
 
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.AbstractExecutorService;
@@ -102,6 +105,20 @@ public class EsExecutors {
         return executor;
     }
 
+    /**
+     * Creates an executor that runs each task on a new thread from the given factory, usually {@link #virtualThreadFactory}, and
+     * queues the tasks that exceed {@code maxConcurrency}.
+     */
+    public static EsVirtualThreadExecutor newVirtual(
+        String name,
+        int maxConcurrency,
+        boolean rejectAfterShutdown,
+        ThreadFactory threadFactory,
+        ThreadContext contextHolder
+    ) {
+        return new EsVirtualThreadExecutor(name, maxConcurrency, rejectAfterShutdown, threadFactory, contextHolder);
+    }
+
     public static EsThreadPoolExecutor newFixed(
         String name,
         int size,
@@ -277,6 +294,48 @@ public class EsExecutors {
 
     }
 
+    /**
+     * Returns a factory of virtual threads that are named like the threads of {@link #daemonThreadFactory(String)}, or {@code null} if
+     * the JVM doesn't support virtual threads. They are only final as of Java 21, so they are looked up reflectively.
+     */
+    @Nullable
+    public static ThreadFactory virtualThreadFactory(String namePrefix) {
+        final ThreadFactory factory;
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            // before Java 19, or a preview feature that isn't enabled
+            return null;
+        }
+        return new EsVirtualThreadFactory(factory, namePrefix);
+    }
+
+    static class EsVirtualThreadFactory implements ThreadFactory {
+
+        final ThreadFactory delegate;
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        final String namePrefix;
+
+        EsVirtualThreadFactory(ThreadFactory delegate, String namePrefix) {
+            this.delegate = delegate;
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            // virtual threads have no permissions under a security manager, so run the task with the permissions of this code base,
+            // which still limits the code further up the stack to its own permissions like on a platform thread
+            final Thread t = delegate.newThread(() -> AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+                r.run();
+                return null;
+            }));
+            t.setName(namePrefix + "[T#" + threadNumber.getAndIncrement() + "]");
+            return t;
+        }
+
+    }
+
     /**
      * Cannot instantiate.
      */
@@ -0,0 +1,269 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.core.SuppressForbidden;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An executor that runs each task on a thread of its own, which is meant to be a virtual thread, and limits how many tasks run at
+ * once. Tasks beyond the limit wait in an unbounded queue, like they do in a scaling executor, but nothing keeps idle threads around
+ * between tasks, so blocking tasks don't tie up platform threads and their stacks while they wait for I/O or remote calls.
+ */
+public final class EsVirtualThreadExecutor extends AbstractExecutorService {
+
+    /**
+     * Name used in error reporting.
+     */
+    private final String name;
+    private final int maxConcurrency;
+    private final boolean rejectAfterShutdown;
+    private final ThreadFactory threadFactory;
+    private final ThreadContext contextHolder;
+
+    private final Queue<Runnable> queue = ConcurrentCollections.newQueue();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger largest = new AtomicInteger();
+    private final Set<Thread> threads = ConcurrentCollections.newConcurrentSet();
+    private final CounterMetric completed = new CounterMetric();
+    private final CounterMetric rejected = new CounterMetric();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private final Object terminationMutex = new Object();
+    private volatile boolean shutdown;
+
+    @SuppressForbidden(reason = "properly rethrowing errors, see EsExecutors.rethrowErrors")
+    EsVirtualThreadExecutor(
+        String name,
+        int maxConcurrency,
+        boolean rejectAfterShutdown,
+        ThreadFactory threadFactory,
+        ThreadContext contextHolder
+    ) {
+        super();
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("max concurrency must be at least 1 but was [" + maxConcurrency + "]");
+        }
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.rejectAfterShutdown = rejectAfterShutdown;
+        this.threadFactory = threadFactory;
+        this.contextHolder = contextHolder;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        command = contextHolder.preserveContext(command);
+        if (shutdown && rejectAfterShutdown) {
+            rejected.inc();
+            final EsRejectedExecutionException e = new EsRejectedExecutionException(
+                "rejected execution of " + command + " on " + this + " (shutdown)",
+                true
+            );
+            if (command instanceof AbstractRunnable abstractRunnable) {
+                // If we are an abstract runnable we can handle the rejection
+                // directly and don't need to rethrow it.
+                try {
+                    abstractRunnable.onRejection(e);
+                } finally {
+                    abstractRunnable.onAfter();
+                }
+                return;
+            }
+            throw e;
+        }
+        // like a scaling executor that doesn't reject after shutdown, tasks that arrive once the executor terminated stay queued
+        queueSize.incrementAndGet();
+        queue.add(command);
+        startTasks();
+    }
+
+    /**
+     * Starts queued tasks until either the queue is empty or the maximum number of tasks are running. Called whenever a task is
+     * queued or completes, so a task is never left in the queue while there is capacity for it.
+     */
+    private void startTasks() {
+        while (queue.isEmpty() == false) {
+            final int current = running.get();
+            if (current >= maxConcurrency) {
+                return;
+            }
+            if (running.compareAndSet(current, current + 1) == false) {
+                continue;
+            }
+            if (shutdown && isTerminatedAfterStarting()) {
+                running.decrementAndGet();
+                return;
+            }
+            final Runnable task = queue.poll();
+            if (task == null) {
+                // another thread took the task, give the capacity back and check again
+                running.decrementAndGet();
+                continue;
+            }
+            queueSize.decrementAndGet();
+            largest.accumulateAndGet(current + 1, Math::max);
+            try {
+                threadFactory.newThread(() -> run(task)).start();
+            } catch (RuntimeException | Error e) {
+                running.decrementAndGet();
+                queueSize.incrementAndGet();
+                queue.add(task);
+                throw e;
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        final Thread thread = Thread.currentThread();
+        threads.add(thread);
+        try {
+            task.run();
+            EsExecutors.rethrowErrors(contextHolder.unwrap(task));
+        } finally {
+            threads.remove(thread);
+            completed.inc();
+            assert assertDefaultContext(task);
+            running.decrementAndGet();
+            startTasks();
+            tryTerminate();
+        }
+    }
+
+    private boolean assertDefaultContext(Runnable r) {
+        assert contextHolder.isDefaultContext()
+            : "the thread context is not the default context and the thread ["
+                + Thread.currentThread().getName()
+                + "] is finishing after executing ["
+                + r
+                + "]";
+        return true;
+    }
+
+    /**
+     * Checks whether the executor terminated before the task that the caller is about to start counted as running, in which case
+     * the task must stay queued. Termination and this check are mutually exclusive, so either termination sees the running task or
+     * the task sees the termination.
+     */
+    private boolean isTerminatedAfterStarting() {
+        synchronized (terminationMutex) {
+            return terminated.getCount() == 0;
+        }
+    }
+
+    private void tryTerminate() {
+        if (shutdown) {
+            synchronized (terminationMutex) {
+                if (queueSize.get() == 0 && running.get() == 0) {
+                    terminated.countDown();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        tryTerminate();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        final List<Runnable> pending = new ArrayList<>();
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            queueSize.decrementAndGet();
+            pending.add(contextHolder.unwrap(task));
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        tryTerminate();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /**
+     * @return the maximum number of tasks that run at once
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return the number of tasks that are running, each on a thread of its own
+     */
+    public int getActiveCount() {
+        return running.get();
+    }
+
+    /**
+     * @return the number of tasks that wait for one of the running tasks to complete
+     */
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    /**
+     * @return the largest number of tasks that ran at once
+     */
+    public int getLargestActiveCount() {
+        return largest.get();
+    }
+
+    public long getCompletedTaskCount() {
+        return completed.count();
+    }
+
+    public long getRejectedTaskCount() {
+        return rejected.count();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()
+            + "[name = "
+            + name
+            + ", max concurrency = "
+            + maxConcurrency
+            + ", active tasks = "
+            + running.get()
+            + ", queued tasks = "
+            + queueSize.get()
+            + ", completed tasks = "
+            + completed.count()
+            + (shutdown ? ", shutdown" : "")
+            + "]";
+    }
+}
@@ -142,6 +142,15 @@ public class PrioritizedEsThreadPoolExecutor extends EsThreadPoolExecutor {
         }
     }
 
+    /**
+     * Executes the given command once the given delay has elapsed. The command keeps the thread context of the caller, and its place in
+     * the queue among the commands of the same priority is that of a command executed now.
+     */
+    public void executeWithDelay(Runnable command, TimeValue delay) {
+        final Runnable wrapped = wrapRunnable(command);
+        timer.schedule(() -> execute(wrapped), delay.nanos(), TimeUnit.NANOSECONDS);
+    }
+
     @Override
     protected Runnable wrapRunnable(Runnable command) {
         if (command instanceof PrioritizedRunnable) {
@@ -42,10 +42,12 @@ import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.MappingMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.logging.Loggers;
@@ -56,6 +58,7 @@ import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
+import org.elasticsearch.common.xcontent.XContentParserUtils;
 import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.core.CheckedFunction;
 import org.elasticsearch.core.Nullable;
@@ -95,14 +98,18 @@ import java.util.function.Supplier;
 /**
  * Stores cluster metadata in a bare Lucene index (per data path) split across a number of documents. This is used by master-eligible nodes
  * to record the last-accepted cluster state during publication. The metadata is written incrementally where possible, leaving alone any
- * documents that have not changed. The index has the following fields:
+ * documents that have not changed. Mappings are stored once per distinct mapping rather than in the metadata of each index that uses them,
+ * so that the frequent small updates to index metadata (e.g. in-sync allocation IDs or primary terms) do not rewrite its mapping too. This
+ * only reduces the number of bytes written: every write still ends with a Lucene commit, and its fsync, on each data path. The index has
+ * the following fields:
  *
- * +------------------------------+-----------------------------+----------------------------------------------+--------+-------------+
- * | "type" (string field)        | "index_uuid" (string field) | "data" (stored binary field in SMILE format) | "page" | "last_page" |
- * +------------------------------+-----------------------------+----------------------------------------------+--------+-------------+
- * | GLOBAL_TYPE_NAME == "global" | (omitted)                   | Global metadata                              | large docs are       |
- * | INDEX_TYPE_NAME  == "index"  | Index UUID                  | Index metadata                               | split into pages     |
- * +------------------------------+-----------------------------+----------------------------------------------+--------+-------------+
+ * +--------------------------------+-----------------------------------+--------------------------------------+--------+-------------+
+ * | "type" (string field)          | ID (string field)                 | "data" (stored binary field, SMILE)  | "page" | "last_page" |
+ * +--------------------------------+-----------------------------------+--------------------------------------+--------+-------------+
+ * | GLOBAL_TYPE_NAME  == "global"  | (omitted)                         | Global metadata                      | large docs are       |
+ * | INDEX_TYPE_NAME   == "index"   | "index_uuid": Index UUID          | Index metadata, mapping as its hash  | split into pages     |
+ * | MAPPING_TYPE_NAME == "mapping" | "mapping_hash": SHA-256 of source | Compressed mapping source            |                      |
+ * +--------------------------------+-----------------------------------+--------------------------------------+--------+-------------+
  *
  * Additionally each commit has the following user data:
  *
@@ -127,8 +134,11 @@ public class PersistedClusterStateService {
     public static final String TYPE_FIELD_NAME = "type";
     public static final String GLOBAL_TYPE_NAME = "global";
     public static final String INDEX_TYPE_NAME = "index";
+    public static final String MAPPING_TYPE_NAME = "mapping";
     private static final String DATA_FIELD_NAME = "data";
     private static final String INDEX_UUID_FIELD_NAME = "index_uuid";
+    private static final String MAPPING_HASH_FIELD_NAME = "mapping_hash";
+    private static final String MAPPING_CONTENT_FIELD_NAME = "content";
     public static final String PAGE_FIELD_NAME = "page";
     public static final String LAST_PAGE_FIELD_NAME = "last_page";
     public static final int IS_LAST_PAGE = 1;
@@ -490,11 +500,22 @@ public class PersistedClusterStateService {
             throw new CorruptStateException("no global metadata found in [" + dataPath + "]");
         }
 
-        logger.trace("got global metadata, now reading index metadata");
+        logger.trace("got global metadata, now reading mappings");
+
+        final Map<String, MappingMetadata> mappingsByHash = new HashMap<>();
+        consumeFromType(searcher, MAPPING_TYPE_NAME, bytes -> {
+            final MappingMetadata mappingMetadata = readXContent(bytes, PersistedClusterStateService::readMapping);
+            logger.trace("found mapping with hash [{}]", mappingMetadata.getSha256());
+            if (mappingsByHash.put(mappingMetadata.getSha256(), mappingMetadata) != null) {
+                throw new CorruptStateException("duplicate mapping with hash [" + mappingMetadata.getSha256() + "] in [" + dataPath + "]");
+            }
+        });
+
+        logger.trace("got [{}] mappings, now reading index metadata", mappingsByHash.size());
 
         final Set<String> indexUUIDs = new HashSet<>();
         consumeFromType(searcher, INDEX_TYPE_NAME, bytes -> {
-            final IndexMetadata indexMetadata = readXContent(bytes, IndexMetadata::fromXContent);
+            final IndexMetadata indexMetadata = readXContent(bytes, parser -> IndexMetadata.fromXContent(parser, mappingsByHash));
             logger.trace("found index metadata for {}", indexMetadata.getIndex());
             if (indexUUIDs.add(indexMetadata.getIndexUUID()) == false) {
                 throw new CorruptStateException("duplicate metadata found for " + indexMetadata.getIndex() + " in [" + dataPath + "]");
@@ -527,6 +548,15 @@ public class PersistedClusterStateService {
         }
     }
 
+    private static MappingMetadata readMapping(XContentParser parser) throws IOException {
+        XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
+        XContentParserUtils.ensureFieldName(parser, parser.nextToken(), MAPPING_CONTENT_FIELD_NAME);
+        XContentParserUtils.ensureExpectedToken(XContentParser.Token.VALUE_EMBEDDED_OBJECT, parser.nextToken(), parser);
+        final MappingMetadata mappingMetadata = new MappingMetadata(new CompressedXContent(parser.binaryValue()));
+        XContentParserUtils.ensureExpectedToken(XContentParser.Token.END_OBJECT, parser.nextToken(), parser);
+        return mappingMetadata;
+    }
+
     private static void consumeFromType(
         IndexSearcher indexSearcher,
         String type,
@@ -575,12 +605,11 @@ public class PersistedClusterStateService {
                         // startup, on the main thread and before most other services have started, and we will need space to serialize the
                         // whole cluster state in memory later on.
 
-                        final String key;
-                        if (type.equals(GLOBAL_TYPE_NAME)) {
-                            key = GLOBAL_TYPE_NAME;
-                        } else {
-                            key = document.getField(INDEX_UUID_FIELD_NAME).stringValue();
-                        }
+                        final String key = switch (type) {
+                            case GLOBAL_TYPE_NAME -> GLOBAL_TYPE_NAME;
+                            case MAPPING_TYPE_NAME -> document.getField(MAPPING_HASH_FIELD_NAME).stringValue();
+                            default -> document.getField(INDEX_UUID_FIELD_NAME).stringValue();
+                        };
 
                         final PaginatedDocumentReader reader = documentReaders.computeIfAbsent(key, k -> new PaginatedDocumentReader());
                         final BytesReference bytesReference = reader.addPage(key, documentData, pageIndex, isLastPage);
@@ -612,9 +641,10 @@ public class PersistedClusterStateService {
     private static final ToXContent.Params FORMAT_PARAMS;
 
     static {
-        Map<String, String> params = Maps.newMapWithExpectedSize(2);
+        Map<String, String> params = Maps.newMapWithExpectedSize(3);
         params.put("binary", "true");
         params.put(Metadata.CONTEXT_MODE_PARAM, Metadata.CONTEXT_MODE_GATEWAY);
+        params.put(IndexMetadata.DEDUPLICATED_MAPPINGS_PARAM, "true");
         FORMAT_PARAMS = new ToXContent.MapParams(params);
     }
 
@@ -671,6 +701,11 @@ public class PersistedClusterStateService {
             indexWriter.deleteDocuments(new Term(INDEX_UUID_FIELD_NAME, indexUUID));
         }
 
+        void deleteMapping(String mappingHash) throws IOException {
+            this.logger.trace("removing mapping with hash [{}]", mappingHash);
+            indexWriter.deleteDocuments(new Term(MAPPING_HASH_FIELD_NAME, mappingHash));
+        }
+
         void flush() throws IOException {
             this.logger.trace("flushing");
             this.indexWriter.flush();
@@ -844,6 +879,24 @@ public class PersistedClusterStateService {
                 addGlobalMetadataDocuments(metadata);
             }
 
+            // mappings are only ever added or removed since a mapping's content determines its hash; add them before the index metadata
+            // that refers to them
+            final Map<String, MappingMetadata> previousMappingsByHash = previouslyWrittenMetadata.getMappingsByHash();
+            if (previousMappingsByHash != metadata.getMappingsByHash()) {
+                for (Map.Entry<String, MappingMetadata> entry : metadata.getMappingsByHash().entrySet()) {
+                    if (previousMappingsByHash.containsKey(entry.getKey()) == false) {
+                        addMappingDocuments(entry.getKey(), entry.getValue());
+                    }
+                }
+                for (String mappingHash : previousMappingsByHash.keySet()) {
+                    if (metadata.getMappingsByHash().containsKey(mappingHash) == false) {
+                        for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                            metadataIndexWriter.deleteMapping(mappingHash);
+                        }
+                    }
+                }
+            }
+
             final Map<String, Long> indexMetadataVersionByUUID = Maps.newMapWithExpectedSize(previouslyWrittenMetadata.indices().size());
             for (IndexMetadata indexMetadata : previouslyWrittenMetadata.indices().values()) {
                 final Long previousValue = indexMetadataVersionByUUID.putIfAbsent(indexMetadata.getIndexUUID(), indexMetadata.getVersion());
@@ -918,6 +971,24 @@ public class PersistedClusterStateService {
             }));
         }
 
+        private void addMappingDocuments(String mappingHash, MappingMetadata mappingMetadata) throws IOException {
+            logger.trace("writing mapping with hash [{}]", mappingHash);
+            writePages(
+                (builder, params) -> builder.field(MAPPING_CONTENT_FIELD_NAME, mappingMetadata.source().compressed()),
+                (bytesRef, pageIndex, isLastPage) -> {
+                    final Document document = new Document();
+                    document.add(new StringField(TYPE_FIELD_NAME, MAPPING_TYPE_NAME, Field.Store.NO));
+                    document.add(new StringField(MAPPING_HASH_FIELD_NAME, mappingHash, Field.Store.YES));
+                    document.add(new StoredField(PAGE_FIELD_NAME, pageIndex));
+                    document.add(new StoredField(LAST_PAGE_FIELD_NAME, lastPageValue(isLastPage)));
+                    document.add(new StoredField(DATA_FIELD_NAME, bytesRef));
+                    for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                        metadataIndexWriter.indexWriter.addDocument(document);
+                    }
+                }
+            );
+        }
+
         private void addGlobalMetadataDocuments(Metadata metadata) throws IOException {
             logger.trace("updating global metadata doc");
             writePages(metadata, (bytesRef, pageIndex, isLastPage) -> {
@@ -960,6 +1031,10 @@ public class PersistedClusterStateService {
         private WriterStats addMetadata(Metadata metadata) throws IOException {
             addGlobalMetadataDocuments(metadata);
 
+            for (Map.Entry<String, MappingMetadata> entry : metadata.getMappingsByHash().entrySet()) {
+                addMappingDocuments(entry.getKey(), entry.getValue());
+            }
+
             for (IndexMetadata indexMetadata : metadata.indices().values()) {
                 addIndexMetadataDocuments(indexMetadata);
             }
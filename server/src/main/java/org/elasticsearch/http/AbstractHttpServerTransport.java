@@ -56,16 +56,20 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
 
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_BIND_HOST;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_MAX_CONTENT_LENGTH;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_PORT;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_PUBLISH_HOST;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_PUBLISH_PORT;
+import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_STREAMING_BULK_ENABLED;
 
 public abstract class AbstractHttpServerTransport extends AbstractLifecycleComponent implements HttpServerTransport {
     private static final Logger logger = LogManager.getLogger(AbstractHttpServerTransport.class);
     private static final ActionListener<Void> NO_OP = ActionListener.wrap(() -> {});
+    // the paths of RestBulkAction, without the ones with a type that only the compatible API has
+    private static final Pattern STREAMED_BULK_PATH = Pattern.compile("/([^/]+/)?_bulk/?");
 
     protected final Settings settings;
     public final HttpHandlingSettings handlingSettings;
@@ -78,6 +82,7 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
 
     protected final PortsRange port;
     protected final ByteSizeValue maxContentLength;
+    private final boolean streamingBulkEnabled;
     private final String[] bindHosts;
     private final String[] publishHosts;
 
@@ -125,6 +130,7 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
         this.port = SETTING_HTTP_PORT.get(settings);
 
         this.maxContentLength = SETTING_HTTP_MAX_CONTENT_LENGTH.get(settings);
+        this.streamingBulkEnabled = SETTING_HTTP_STREAMING_BULK_ENABLED.get(settings);
         this.tracer = new HttpTracer(settings, clusterSettings);
         clusterSettings.addSettingsUpdateConsumer(
             TransportSettings.SLOW_OPERATION_THRESHOLD_SETTING,
@@ -134,6 +140,20 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
         httpClientStatsTracker = new HttpClientStatsTracker(settings, clusterSettings, threadPool);
     }
 
+    /**
+     * Whether the body of the request with the given method and uri should be passed on in chunks as they arrive rather than aggregated
+     * in memory before the request is dispatched, see {@link HttpBodyStream}. Only requests to the bulk API without a type are
+     * streamed, if {@link HttpTransportSettings#SETTING_HTTP_STREAMING_BULK_ENABLED} is set, and the maximum content length doesn't
+     * apply to them since the bulk handler reads them no faster than it can index them.
+     */
+    protected boolean shouldStreamBody(RestRequest.Method method, String uri) {
+        if (streamingBulkEnabled == false || (method != RestRequest.Method.POST && method != RestRequest.Method.PUT)) {
+            return false;
+        }
+        final int queryStart = uri.indexOf('?');
+        return STREAMED_BULK_PATH.matcher(queryStart == -1 ? uri : uri.substring(0, queryStart)).matches();
+    }
+
     @Override
     public BoundTransportAddress boundAddress() {
         return this.boundAddress;
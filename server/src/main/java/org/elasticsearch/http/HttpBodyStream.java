@@ -0,0 +1,49 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http;
+
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+
+/**
+ * The body of an HTTP request that the HTTP layer passes on in chunks as they arrive, rather than aggregating it in memory before
+ * dispatching the request. The HTTP layer reads the body only as fast as the handler asks for its chunks, so a handler that waits for
+ * the chunks it already got to be processed before asking for more pushes back on the client.
+ */
+public interface HttpBodyStream {
+
+    /**
+     * Sets the handler that receives the chunks of the body. Must be called before the first call to {@link #next()}.
+     */
+    void setHandler(ChunkHandler handler);
+
+    /**
+     * Asks for the next chunk of the body, which the handler receives once it has arrived, on a network thread. May be called from any
+     * thread, but only once for each chunk.
+     */
+    void next();
+
+    /**
+     * Receives the chunks of a streamed body.
+     */
+    interface ChunkHandler {
+
+        /**
+         * Receives the next chunk of the body, which the handler must release once it is done with it.
+         *
+         * @param isLast whether the chunk is the last one of the body, after which the handler must not ask for more
+         */
+        void onNext(ReleasableBytesReference chunk, boolean isLast);
+
+        /**
+         * Called if the connection closes before the handler has received the last chunk of the body, so that it can free whatever it
+         * holds on to. The handler receives no chunks after this, nor after the request has been released because the response was sent.
+         */
+        void close();
+    }
+}
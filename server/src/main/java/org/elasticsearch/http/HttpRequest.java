@@ -43,6 +43,15 @@ public interface HttpRequest {
 
     BytesReference content();
 
+    /**
+     * The stream of the body of this request if the HTTP layer passes it on in chunks rather than aggregating it, in which case
+     * {@link #content()} is empty.
+     */
+    @Nullable
+    default HttpBodyStream bodyStream() {
+        return null;
+    }
+
     /**
      * Get all of the headers and values associated with the headers. Modifications of this map are not supported.
      */
@@ -99,6 +99,18 @@ public final class HttpTransportSettings {
         new ByteSizeValue(Integer.MAX_VALUE, ByteSizeUnit.BYTES),
         Property.NodeScope
     );
+    public static final Setting<Boolean> SETTING_HTTP_STREAMING_BULK_ENABLED = Setting.boolSetting(
+        "http.streaming_bulk.enabled",
+        false,
+        Property.NodeScope
+    );
+    public static final Setting<ByteSizeValue> SETTING_HTTP_STREAMING_BULK_BATCH_SIZE = Setting.byteSizeSetting(
+        "http.streaming_bulk.batch_size",
+        new ByteSizeValue(5, ByteSizeUnit.MB),
+        new ByteSizeValue(1, ByteSizeUnit.KB),
+        new ByteSizeValue(Integer.MAX_VALUE, ByteSizeUnit.BYTES),
+        Property.NodeScope
+    );
     public static final Setting<ByteSizeValue> SETTING_HTTP_MAX_CHUNK_SIZE = Setting.byteSizeSetting(
         "http.max_chunk_size",
         new ByteSizeValue(8, ByteSizeUnit.KB),
@@ -66,6 +66,7 @@ import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.NodeRefreshScheduler;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -1032,6 +1033,13 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             super(indexService, indexService.getIndexSettings().getRefreshInterval());
         }
 
+        @Override
+        protected boolean mustReschedule() {
+            // the node refreshes the shards of all indices itself when it schedules refreshes
+            return NodeRefreshScheduler.ENABLED_SETTING.get(indexService.getIndexSettings().getNodeSettings()) == false
+                && super.mustReschedule();
+        }
+
         @Override
         protected void runInternal() {
             indexService.maybeRefreshEngine(false);
@@ -376,6 +376,28 @@ public final class IndexSettings {
         Property.IndexScope
     );
 
+    /**
+     * Adds a bloom filter on the {@code _id} field of every segment so that version lookups for an explicit id can skip the
+     * segments that can't contain it without seeking their terms dictionary. Mostly useful for update heavy indices with many
+     * segments, at the price of some heap per segment.
+     */
+    public static final Setting<Boolean> BLOOM_FILTER_ID_FIELD_ENABLED_SETTING = Setting.boolSetting(
+        "index.bloom_filter_for_id_field.enabled",
+        false,
+        Property.IndexScope
+    );
+
+    /**
+     * The target false positive probability of the bloom filter on the {@code _id} field. Lower values use more heap per segment.
+     */
+    public static final Setting<Double> BLOOM_FILTER_ID_FIELD_FPP_SETTING = Setting.doubleSetting(
+        "index.bloom_filter_for_id_field.fpp",
+        0.01,
+        0.0001,
+        0.5,
+        Property.IndexScope
+    );
+
     /**
      * The maximum number of refresh listeners allows on this shard.
      */
@@ -581,6 +603,8 @@ public final class IndexSettings {
     private final IndexScopedSettings scopedSettings;
     private long gcDeletesInMillis = DEFAULT_GC_DELETES.millis();
     private final boolean softDeleteEnabled;
+    private final boolean bloomFilterIdFieldEnabled;
+    private final double bloomFilterIdFieldFpp;
     private volatile long softDeleteRetentionOperations;
 
     private volatile long retentionLeaseMillis;
@@ -721,6 +745,8 @@ public final class IndexSettings {
         assert softDeleteEnabled || version.before(Version.V_8_0_0) : "soft deletes must be enabled in version " + version;
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
+        bloomFilterIdFieldEnabled = scopedSettings.get(BLOOM_FILTER_ID_FIELD_ENABLED_SETTING);
+        bloomFilterIdFieldFpp = scopedSettings.get(BLOOM_FILTER_ID_FIELD_FPP_SETTING);
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
         maxResultWindow = scopedSettings.get(MAX_RESULT_WINDOW_SETTING);
         maxInnerResultWindow = scopedSettings.get(MAX_INNER_RESULT_WINDOW_SETTING);
@@ -1266,6 +1292,20 @@ public final class IndexSettings {
         return softDeleteEnabled;
     }
 
+    /**
+     * Returns <code>true</code> if the {@code _id} field of new segments gets a bloom filter.
+     */
+    public boolean isBloomFilterIdFieldEnabled() {
+        return bloomFilterIdFieldEnabled;
+    }
+
+    /**
+     * Returns the target false positive probability of the bloom filter on the {@code _id} field.
+     */
+    public double getBloomFilterIdFieldFpp() {
+        return bloomFilterIdFieldFpp;
+    }
+
     private void setSoftDeleteRetentionOperations(long ops) {
         this.softDeleteRetentionOperations = ops;
     }
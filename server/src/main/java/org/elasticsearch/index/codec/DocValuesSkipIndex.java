@@ -0,0 +1,100 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.elasticsearch.core.Nullable;
+
+/**
+ * The minimum and maximum value of a sorted numeric doc values field for every block of {@link #BLOCK_SIZE} consecutive doc ids
+ * of a segment. Queries on fields that only have doc values use it to skip over blocks whose values can't match rather than
+ * checking the values of every document. Written by {@link ES82SkipIndexDocValuesFormat}.
+ */
+public final class DocValuesSkipIndex {
+    static final int BLOCK_SHIFT = 12;
+    /** The number of doc ids that are summarized by a single block. */
+    public static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private final long[] minValues;
+    private final long[] maxValues;
+    private final long minValue;
+    private final long maxValue;
+
+    DocValuesSkipIndex(long[] minValues, long[] maxValues) {
+        assert minValues.length == maxValues.length;
+        this.minValues = minValues;
+        this.maxValues = maxValues;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < minValues.length; i++) {
+            min = Math.min(min, minValues[i]);
+            max = Math.max(max, maxValues[i]);
+        }
+        this.minValue = min;
+        this.maxValue = max;
+    }
+
+    /**
+     * Returns the skip index of the provided doc values or {@code null} if they were not written with one, for instance because
+     * the segment was written before the field was configured to have one or because the reader wraps its doc values.
+     */
+    @Nullable
+    public static DocValuesSkipIndex of(SortedNumericDocValues values) {
+        if (values instanceof ES82SkipIndexDocValuesFormat.SkipIndexed skipIndexed) {
+            return skipIndexed.skipIndex();
+        }
+        if (DocValues.unwrapSingleton(values)instanceof ES82SkipIndexDocValuesFormat.SkipIndexed skipIndexed) {
+            return skipIndexed.skipIndex();
+        }
+        return null;
+    }
+
+    /**
+     * The block that contains a doc id.
+     */
+    public static int block(int docId) {
+        return docId >>> BLOCK_SHIFT;
+    }
+
+    /**
+     * The number of blocks in the segment.
+     */
+    public int numBlocks() {
+        return minValues.length;
+    }
+
+    /**
+     * Could any document in the block have a value in the range {@code [lowerValue, upperValue]}? Blocks without values never
+     * intersect.
+     */
+    public boolean intersects(int block, long lowerValue, long upperValue) {
+        if (block >= minValues.length) {
+            return true;
+        }
+        return minValues[block] <= upperValue && maxValues[block] >= lowerValue;
+    }
+
+    /**
+     * Are all the values of all the documents in the block in the range {@code [lowerValue, upperValue]}?
+     */
+    public boolean within(int block, long lowerValue, long upperValue) {
+        if (block >= minValues.length) {
+            return false;
+        }
+        return minValues[block] >= lowerValue && maxValues[block] <= upperValue;
+    }
+
+    /**
+     * Could any document in the segment have a value in the range {@code [lowerValue, upperValue]}?
+     */
+    public boolean intersects(long lowerValue, long upperValue) {
+        return minValue <= upperValue && maxValue >= lowerValue;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.FieldsConsumer;
+import org.apache.lucene.codecs.FieldsProducer;
+import org.apache.lucene.codecs.NormsProducer;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.index.ChecksumIndexInput;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A {@link PostingsFormat} that writes postings with a delegate format and adds a bloom filter over the terms of every field.
+ * Seeking a term that the bloom filter rules out returns {@code false} without touching the terms dictionary of the delegate.
+ * {@link PerFieldMapperCodec} uses it for the {@code _id} field when {@code index.bloom_filter_for_id_field.enabled} is set, so
+ * that version lookups for an explicit id can skip the segments that don't contain it.
+ */
+public final class ES82BloomFilterPostingsFormat extends PostingsFormat {
+    static final String NAME = "ES82BloomFilter";
+    static final String CODEC_NAME = "ES82BloomFilterPostings";
+    static final String EXTENSION = "bfi";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    private static final int END_OF_FIELDS = -1;
+
+    private final PostingsFormat delegate;
+    private final double fpp;
+
+    /**
+     * Only used to read segments, the delegate format is read from the segment.
+     */
+    public ES82BloomFilterPostingsFormat() {
+        super(NAME);
+        this.delegate = null;
+        this.fpp = Double.NaN;
+    }
+
+    /**
+     * @param delegate the format that writes the postings
+     * @param fpp the target false positive probability of the bloom filters
+     */
+    public ES82BloomFilterPostingsFormat(PostingsFormat delegate, double fpp) {
+        super(NAME);
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("bloom filter false positive probability must be in (0, 1) but was [" + fpp + "]");
+        }
+        this.delegate = delegate;
+        this.fpp = fpp;
+    }
+
+    @Override
+    public FieldsConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        if (delegate == null) {
+            throw new UnsupportedOperationException("[" + NAME + "] can only write segments when it is created with a delegate");
+        }
+        FieldsConsumer consumer = delegate.fieldsConsumer(state);
+        IndexOutput out = null;
+        boolean success = false;
+        try {
+            String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, EXTENSION);
+            out = state.directory.createOutput(fileName, state.context);
+            FieldsConsumer bloomFilterConsumer = new BloomFilterFieldsConsumer(consumer, out, state, delegate.getName(), fpp);
+            success = true;
+            return bloomFilterConsumer;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(consumer, out);
+            }
+        }
+    }
+
+    @Override
+    public FieldsProducer fieldsProducer(SegmentReadState state) throws IOException {
+        String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, EXTENSION);
+        String delegateName = null;
+        Map<String, BloomFilter> filters = new HashMap<>();
+        try (ChecksumIndexInput in = state.directory.openChecksumInput(fileName, state.context)) {
+            Throwable priorE = null;
+            try {
+                CodecUtil.checkIndexHeader(in, CODEC_NAME, VERSION_START, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+                delegateName = in.readString();
+                for (int fieldNumber = in.readInt(); fieldNumber != END_OF_FIELDS; fieldNumber = in.readInt()) {
+                    FieldInfo fieldInfo = state.fieldInfos.fieldInfo(fieldNumber);
+                    if (fieldInfo == null) {
+                        throw new IllegalStateException("bloom filter for unknown field number [" + fieldNumber + "]");
+                    }
+                    filters.put(fieldInfo.name, BloomFilter.read(in));
+                }
+            } catch (Throwable exception) {
+                priorE = exception;
+            } finally {
+                CodecUtil.checkFooter(in, priorE);
+            }
+        }
+        FieldsProducer delegateProducer = PostingsFormat.forName(delegateName).fieldsProducer(state);
+        return new BloomFilterFieldsProducer(delegateProducer, filters, state.directory, fileName);
+    }
+
+    /**
+     * Returns the bloom filter of a {@link Terms} that was read by this format or {@code null} if it doesn't have one.
+     */
+    public static BloomFilteredTerms unwrap(Terms terms) {
+        return terms instanceof BloomFilteredTerms bloomFilteredTerms ? bloomFilteredTerms : null;
+    }
+
+    private static class BloomFilterFieldsConsumer extends FieldsConsumer {
+        private final FieldsConsumer delegate;
+        private final IndexOutput out;
+        private final SegmentWriteState state;
+        private final double fpp;
+
+        BloomFilterFieldsConsumer(FieldsConsumer delegate, IndexOutput out, SegmentWriteState state, String delegateName, double fpp)
+            throws IOException {
+            this.delegate = delegate;
+            this.out = out;
+            this.state = state;
+            this.fpp = fpp;
+            CodecUtil.writeIndexHeader(out, CODEC_NAME, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+            out.writeString(delegateName);
+        }
+
+        @Override
+        public void write(Fields fields, NormsProducer norms) throws IOException {
+            delegate.write(fields, norms);
+            for (String field : fields) {
+                Terms terms = fields.terms(field);
+                if (terms == null) {
+                    continue;
+                }
+                // there can't be more unique terms than documents for the fields this format is meant for
+                BloomFilter filter = BloomFilter.create(state.segmentInfo.maxDoc(), fpp);
+                TermsEnum termsEnum = terms.iterator();
+                for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+                    filter.add(term);
+                }
+                out.writeInt(state.fieldInfos.fieldInfo(field).number);
+                filter.write(out);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            boolean success = false;
+            try {
+                out.writeInt(END_OF_FIELDS);
+                CodecUtil.writeFooter(out);
+                success = true;
+            } finally {
+                if (success) {
+                    IOUtils.close(out, delegate);
+                } else {
+                    IOUtils.closeWhileHandlingException(out, delegate);
+                }
+            }
+        }
+    }
+
+    private static class BloomFilterFieldsProducer extends FieldsProducer {
+        private final FieldsProducer delegate;
+        private final Map<String, BloomFilter> filters;
+        private final Directory directory;
+        private final String bloomFilterFileName;
+
+        BloomFilterFieldsProducer(
+            FieldsProducer delegate,
+            Map<String, BloomFilter> filters,
+            Directory directory,
+            String bloomFilterFileName
+        ) {
+            this.delegate = delegate;
+            this.filters = filters;
+            this.directory = directory;
+            this.bloomFilterFileName = bloomFilterFileName;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return delegate.iterator();
+        }
+
+        @Override
+        public Terms terms(String field) throws IOException {
+            Terms terms = delegate.terms(field);
+            BloomFilter filter = filters.get(field);
+            if (terms == null || filter == null) {
+                return terms;
+            }
+            return new BloomFilteredTerms(terms, filter);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public void checkIntegrity() throws IOException {
+            delegate.checkIntegrity();
+            try (IndexInput in = directory.openInput(bloomFilterFileName, IOContext.READONCE)) {
+                CodecUtil.checksumEntireFile(in);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    /**
+     * {@link Terms} whose {@link TermsEnum#seekExact(BytesRef)} consults a bloom filter before seeking the terms dictionary.
+     */
+    public static final class BloomFilteredTerms extends FilterLeafReader.FilterTerms {
+        private final BloomFilter filter;
+
+        BloomFilteredTerms(Terms in, BloomFilter filter) {
+            super(in);
+            this.filter = filter;
+        }
+
+        /**
+         * Returns {@code false} if the term is certainly not in the segment and {@code true} if it may be.
+         */
+        public boolean mayContainTerm(BytesRef term) {
+            return filter.mayContain(term);
+        }
+
+        /**
+         * The terms without the bloom filter, for callers that check {@link #mayContainTerm} themselves.
+         */
+        public Terms getDelegate() {
+            return in;
+        }
+
+        @Override
+        public TermsEnum iterator() throws IOException {
+            return new FilterLeafReader.FilterTermsEnum(in.iterator()) {
+                @Override
+                public boolean seekExact(BytesRef text) throws IOException {
+                    if (filter.mayContain(text) == false) {
+                        return false;
+                    }
+                    return in.seekExact(text);
+                }
+            };
+        }
+    }
+
+    /**
+     * A bloom filter with {@code k} hash functions derived from the two halves of a 128 bit murmur3 hash.
+     */
+    static final class BloomFilter {
+        private static final long SEED = 0;
+
+        private final int numHashFunctions;
+        private final long numBits;
+        private final long[] bits;
+
+        private BloomFilter(int numHashFunctions, long[] bits) {
+            this.numHashFunctions = numHashFunctions;
+            this.numBits = (long) bits.length * Long.SIZE;
+            this.bits = bits;
+        }
+
+        /**
+         * Creates a bloom filter sized for {@code expectedItems} items with a false positive probability of {@code fpp}.
+         */
+        static BloomFilter create(int expectedItems, double fpp) {
+            int n = Math.max(1, expectedItems);
+            long numBits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            int numLongs = Math.toIntExact(Math.max(1, (numBits + Long.SIZE - 1) / Long.SIZE));
+            int numHashFunctions = (int) Math.max(1, Math.round((double) numLongs * Long.SIZE / n * Math.log(2)));
+            return new BloomFilter(numHashFunctions, new long[numLongs]);
+        }
+
+        void add(BytesRef term) {
+            MurmurHash3.Hash128 hash = MurmurHash3.hash128(term.bytes, term.offset, term.length, SEED, new MurmurHash3.Hash128());
+            for (int i = 0; i < numHashFunctions; i++) {
+                long bit = bit(hash, i);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        boolean mayContain(BytesRef term) {
+            MurmurHash3.Hash128 hash = MurmurHash3.hash128(term.bytes, term.offset, term.length, SEED, new MurmurHash3.Hash128());
+            for (int i = 0; i < numHashFunctions; i++) {
+                long bit = bit(hash, i);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long bit(MurmurHash3.Hash128 hash, int i) {
+            long combined = hash.h1 + i * hash.h2;
+            return (combined & Long.MAX_VALUE) % numBits;
+        }
+
+        int numHashFunctions() {
+            return numHashFunctions;
+        }
+
+        long numBits() {
+            return numBits;
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeVInt(numHashFunctions);
+            out.writeVInt(bits.length);
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+        }
+
+        static BloomFilter read(DataInput in) throws IOException {
+            int numHashFunctions = in.readVInt();
+            long[] bits = new long[in.readVInt()];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = in.readLong();
+            }
+            return new BloomFilter(numHashFunctions, bits);
+        }
+    }
+}
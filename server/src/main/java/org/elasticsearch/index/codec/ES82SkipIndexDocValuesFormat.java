@@ -0,0 +1,374 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.ChecksumIndexInput;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link DocValuesFormat} that writes doc values with {@link Lucene90DocValuesFormat} and adds a small sidecar file with a
+ * {@link DocValuesSkipIndex} for every sorted numeric field. {@link PerFieldMapperCodec} uses it for numeric and date fields that
+ * have doc values but no points index, so that range queries on them can skip whole blocks of documents.
+ */
+public final class ES82SkipIndexDocValuesFormat extends DocValuesFormat {
+    static final String NAME = "ES82SkipIndex";
+    static final String CODEC_NAME = "ES82SkipIndexDocValues";
+    static final String EXTENSION = "dsi";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    private static final int END_OF_FIELDS = -1;
+
+    private final DocValuesFormat delegate = new Lucene90DocValuesFormat();
+
+    public ES82SkipIndexDocValuesFormat() {
+        super(NAME);
+    }
+
+    @Override
+    public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        DocValuesConsumer consumer = delegate.fieldsConsumer(state);
+        IndexOutput out = null;
+        boolean success = false;
+        try {
+            String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, EXTENSION);
+            out = state.directory.createOutput(fileName, state.context);
+            DocValuesConsumer skipIndexConsumer = new SkipIndexConsumer(consumer, out, state);
+            success = true;
+            return skipIndexConsumer;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(consumer, out);
+            }
+        }
+    }
+
+    @Override
+    public DocValuesProducer fieldsProducer(SegmentReadState state) throws IOException {
+        DocValuesProducer producer = delegate.fieldsProducer(state);
+        boolean success = false;
+        try {
+            String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, EXTENSION);
+            DocValuesProducer skipIndexProducer = new SkipIndexProducer(producer, readSkipIndices(state), state.directory, fileName);
+            success = true;
+            return skipIndexProducer;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(producer);
+            }
+        }
+    }
+
+    private static Map<Integer, DocValuesSkipIndex> readSkipIndices(SegmentReadState state) throws IOException {
+        String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, EXTENSION);
+        Map<Integer, DocValuesSkipIndex> skipIndices = new HashMap<>();
+        try (ChecksumIndexInput in = state.directory.openChecksumInput(fileName, state.context)) {
+            Throwable priorE = null;
+            try {
+                CodecUtil.checkIndexHeader(
+                    in,
+                    CODEC_NAME,
+                    VERSION_START,
+                    VERSION_CURRENT,
+                    state.segmentInfo.getId(),
+                    state.segmentSuffix
+                );
+                for (int fieldNumber = in.readInt(); fieldNumber != END_OF_FIELDS; fieldNumber = in.readInt()) {
+                    int numBlocks = in.readVInt();
+                    long[] minValues = new long[numBlocks];
+                    long[] maxValues = new long[numBlocks];
+                    for (int block = 0; block < numBlocks; block++) {
+                        minValues[block] = in.readLong();
+                        maxValues[block] = in.readLong();
+                    }
+                    skipIndices.put(fieldNumber, new DocValuesSkipIndex(minValues, maxValues));
+                }
+            } catch (Throwable exception) {
+                priorE = exception;
+            } finally {
+                CodecUtil.checkFooter(in, priorE);
+            }
+        }
+        return skipIndices;
+    }
+
+    private static class SkipIndexConsumer extends DocValuesConsumer {
+        private final DocValuesConsumer delegate;
+        private final IndexOutput out;
+        private final int maxDoc;
+
+        SkipIndexConsumer(DocValuesConsumer delegate, IndexOutput out, SegmentWriteState state) throws IOException {
+            this.delegate = delegate;
+            this.out = out;
+            this.maxDoc = state.segmentInfo.maxDoc();
+            CodecUtil.writeIndexHeader(out, CODEC_NAME, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+        }
+
+        @Override
+        public void addNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+            delegate.addNumericField(field, valuesProducer);
+        }
+
+        @Override
+        public void addBinaryField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+            delegate.addBinaryField(field, valuesProducer);
+        }
+
+        @Override
+        public void addSortedField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+            delegate.addSortedField(field, valuesProducer);
+        }
+
+        @Override
+        public void addSortedSetField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+            delegate.addSortedSetField(field, valuesProducer);
+        }
+
+        @Override
+        public void addSortedNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+            delegate.addSortedNumericField(field, valuesProducer);
+
+            int numBlocks = DocValuesSkipIndex.block(maxDoc + DocValuesSkipIndex.BLOCK_SIZE - 1);
+            long[] minValues = new long[numBlocks];
+            long[] maxValues = new long[numBlocks];
+            Arrays.fill(minValues, Long.MAX_VALUE);
+            Arrays.fill(maxValues, Long.MIN_VALUE);
+            SortedNumericDocValues values = valuesProducer.getSortedNumeric(field);
+            for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                int block = DocValuesSkipIndex.block(doc);
+                // values are sorted so the first is the smallest and the last the largest
+                int count = values.docValueCount();
+                long min = values.nextValue();
+                long max = min;
+                for (int i = 1; i < count; i++) {
+                    max = values.nextValue();
+                }
+                minValues[block] = Math.min(minValues[block], min);
+                maxValues[block] = Math.max(maxValues[block], max);
+            }
+
+            out.writeInt(field.number);
+            out.writeVInt(numBlocks);
+            for (int block = 0; block < numBlocks; block++) {
+                out.writeLong(minValues[block]);
+                out.writeLong(maxValues[block]);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            boolean success = false;
+            try {
+                out.writeInt(END_OF_FIELDS);
+                CodecUtil.writeFooter(out);
+                success = true;
+            } finally {
+                if (success) {
+                    IOUtils.close(out, delegate);
+                } else {
+                    IOUtils.closeWhileHandlingException(out, delegate);
+                }
+            }
+        }
+    }
+
+    private static class SkipIndexProducer extends DocValuesProducer {
+        private final DocValuesProducer delegate;
+        private final Map<Integer, DocValuesSkipIndex> skipIndices;
+        private final Directory directory;
+        private final String skipIndexFileName;
+
+        SkipIndexProducer(
+            DocValuesProducer delegate,
+            Map<Integer, DocValuesSkipIndex> skipIndices,
+            Directory directory,
+            String skipIndexFileName
+        ) {
+            this.delegate = delegate;
+            this.skipIndices = skipIndices;
+            this.directory = directory;
+            this.skipIndexFileName = skipIndexFileName;
+        }
+
+        @Override
+        public NumericDocValues getNumeric(FieldInfo field) throws IOException {
+            return delegate.getNumeric(field);
+        }
+
+        @Override
+        public BinaryDocValues getBinary(FieldInfo field) throws IOException {
+            return delegate.getBinary(field);
+        }
+
+        @Override
+        public SortedDocValues getSorted(FieldInfo field) throws IOException {
+            return delegate.getSorted(field);
+        }
+
+        @Override
+        public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
+            SortedNumericDocValues values = delegate.getSortedNumeric(field);
+            DocValuesSkipIndex skipIndex = skipIndices.get(field.number);
+            if (skipIndex == null) {
+                return values;
+            }
+            // keep single valued fields unwrappable so that sorting and aggregations keep using their single valued fast paths
+            NumericDocValues singleton = DocValues.unwrapSingleton(values);
+            if (singleton != null) {
+                return DocValues.singleton(new SkipIndexedNumericDocValues(singleton, skipIndex));
+            }
+            return new SkipIndexedSortedNumericDocValues(values, skipIndex);
+        }
+
+        @Override
+        public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
+            return delegate.getSortedSet(field);
+        }
+
+        @Override
+        public void checkIntegrity() throws IOException {
+            delegate.checkIntegrity();
+            try (IndexInput in = directory.openInput(skipIndexFileName, IOContext.READONCE)) {
+                CodecUtil.checksumEntireFile(in);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Doc values that expose the {@link DocValuesSkipIndex} of their field.
+     */
+    interface SkipIndexed {
+        DocValuesSkipIndex skipIndex();
+    }
+
+    static final class SkipIndexedSortedNumericDocValues extends SortedNumericDocValues implements SkipIndexed {
+        private final SortedNumericDocValues in;
+        private final DocValuesSkipIndex skipIndex;
+
+        SkipIndexedSortedNumericDocValues(SortedNumericDocValues in, DocValuesSkipIndex skipIndex) {
+            this.in = in;
+            this.skipIndex = skipIndex;
+        }
+
+        @Override
+        public DocValuesSkipIndex skipIndex() {
+            return skipIndex;
+        }
+
+        @Override
+        public long nextValue() throws IOException {
+            return in.nextValue();
+        }
+
+        @Override
+        public int docValueCount() {
+            return in.docValueCount();
+        }
+
+        @Override
+        public boolean advanceExact(int target) throws IOException {
+            return in.advanceExact(target);
+        }
+
+        @Override
+        public int docID() {
+            return in.docID();
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return in.nextDoc();
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            return in.advance(target);
+        }
+
+        @Override
+        public long cost() {
+            return in.cost();
+        }
+    }
+
+    static final class SkipIndexedNumericDocValues extends NumericDocValues implements SkipIndexed {
+        private final NumericDocValues in;
+        private final DocValuesSkipIndex skipIndex;
+
+        SkipIndexedNumericDocValues(NumericDocValues in, DocValuesSkipIndex skipIndex) {
+            this.in = in;
+            this.skipIndex = skipIndex;
+        }
+
+        @Override
+        public DocValuesSkipIndex skipIndex() {
+            return skipIndex;
+        }
+
+        @Override
+        public long longValue() throws IOException {
+            return in.longValue();
+        }
+
+        @Override
+        public boolean advanceExact(int target) throws IOException {
+            return in.advanceExact(target);
+        }
+
+        @Override
+        public int docID() {
+            return in.docID();
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return in.nextDoc();
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            return in.advance(target);
+        }
+
+        @Override
+        public long cost() {
+            return in.cost();
+        }
+    }
+}
@@ -15,6 +15,8 @@ import org.apache.lucene.codecs.PostingsFormat;
 import org.apache.lucene.codecs.lucene90.Lucene90Codec;
 import org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
 
 /**
@@ -23,12 +25,16 @@ import org.elasticsearch.index.mapper.MapperService;
  * {@link MapperService} to lookup a {@link PostingsFormat} and {@link KnnVectorsFormat} per field. This
  * allows users to change the low level postings format and vectors format for individual fields
  * per index in real time via the mapping API. If no specific postings format or vector format is
- * configured for a specific field the default postings or vector format is used.
+ * configured for a specific field the default postings or vector format is used. Numeric fields that
+ * only have doc values get a {@link DocValuesSkipIndex} to speed up range queries. The {@code _id} field
+ * gets a bloom filter when {@link IndexSettings#BLOOM_FILTER_ID_FIELD_ENABLED_SETTING} is set.
  */
 public class PerFieldMapperCodec extends Lucene90Codec {
     private final MapperService mapperService;
 
     private final DocValuesFormat docValuesFormat = new Lucene90DocValuesFormat();
+    private final DocValuesFormat skipIndexDocValuesFormat = new ES82SkipIndexDocValuesFormat();
+    private final PostingsFormat idPostingsFormat;
 
     static {
         assert Codec.forName(Lucene.LATEST_CODEC).getClass().isAssignableFrom(PerFieldMapperCodec.class)
@@ -38,10 +44,22 @@ public class PerFieldMapperCodec extends Lucene90Codec {
     public PerFieldMapperCodec(Mode compressionMode, MapperService mapperService) {
         super(compressionMode);
         this.mapperService = mapperService;
+        IndexSettings indexSettings = mapperService.getIndexSettings();
+        if (indexSettings.isBloomFilterIdFieldEnabled()) {
+            idPostingsFormat = new ES82BloomFilterPostingsFormat(
+                super.getPostingsFormatForField(IdFieldMapper.NAME),
+                indexSettings.getBloomFilterIdFieldFpp()
+            );
+        } else {
+            idPostingsFormat = null;
+        }
     }
 
     @Override
     public PostingsFormat getPostingsFormatForField(String field) {
+        if (idPostingsFormat != null && IdFieldMapper.NAME.equals(field)) {
+            return idPostingsFormat;
+        }
         PostingsFormat format = mapperService.mappingLookup().getPostingsFormat(field);
         if (format == null) {
             return super.getPostingsFormatForField(field);
@@ -60,6 +78,9 @@ public class PerFieldMapperCodec extends Lucene90Codec {
 
     @Override
     public DocValuesFormat getDocValuesFormatForField(String field) {
+        if (mapperService.mappingLookup().hasDocValuesSkipIndex(field)) {
+            return skipIndexDocValuesFormat;
+        }
         return docValuesFormat;
     }
 }
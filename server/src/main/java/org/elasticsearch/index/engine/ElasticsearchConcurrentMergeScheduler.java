@@ -12,6 +12,12 @@ import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.ConcurrentMergeScheduler;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.MergeScheduler;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RateLimitedIndexOutput;
+import org.apache.lucene.store.RateLimiter;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
@@ -54,6 +60,12 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
     private final Set<OnGoingMerge> readOnlyOnGoingMerges = Collections.unmodifiableSet(onGoingMerges);
     private final MergeSchedulerConfig config;
 
+    /**
+     * Node-level rate limit applied on top of Lucene's own auto IO throttle, see
+     * {@link org.elasticsearch.indices.MergeDiskBandwidthController}. Unlimited unless the node sets a budget for this shard.
+     */
+    private final RateLimiter.SimpleRateLimiter nodeRateLimiter = new RateLimiter.SimpleRateLimiter(Double.POSITIVE_INFINITY);
+
     ElasticsearchConcurrentMergeScheduler(ShardId shardId, IndexSettings indexSettings) {
         this.config = indexSettings.getMergeSchedulerConfig();
         this.shardId = shardId;
@@ -66,6 +78,12 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
         return readOnlyOnGoingMerges;
     }
 
+    /**
+     * Merges smaller than this are not subject to the node-level rate limit. This mirrors the size under which Lucene does not count
+     * merges as "big" merges when deciding which merges to pause.
+     */
+    static final long SMALL_MERGE_SIZE_BYTES = ByteSizeValue.ofMb(50).getBytes();
+
     /** We're currently only interested in messages with this prefix. */
     private static final String MERGE_THREAD_MESSAGE_PREFIX = "merge thread";
 
@@ -167,6 +185,36 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
      */
     protected void afterMerge(OnGoingMerge merge) {}
 
+    @Override
+    public Directory wrapForMerge(MergePolicy.OneMerge merge, Directory in) {
+        final Directory wrapped = super.wrapForMerge(merge, in);
+        if (merge.estimatedMergeBytes < SMALL_MERGE_SIZE_BYTES) {
+            // small merges are never held back by the node-level budget so that they can keep the segment count low
+            return wrapped;
+        }
+        return new FilterDirectory(wrapped) {
+            @Override
+            public IndexOutput createOutput(String name, IOContext context) throws IOException {
+                ensureOpen();
+                return new RateLimitedIndexOutput(nodeRateLimiter, in.createOutput(name, context));
+            }
+        };
+    }
+
+    /**
+     * Sets the node-level rate limit in MB/sec that applies to large merges of this shard, or {@link Double#POSITIVE_INFINITY} to
+     * disable it.
+     */
+    void setNodeMergeRateLimit(double mbPerSec) {
+        if (nodeRateLimiter.getMBPerSec() != mbPerSec) {
+            nodeRateLimiter.setMBPerSec(mbPerSec);
+        }
+    }
+
+    double getNodeMergeRateLimit() {
+        return nodeRateLimiter.getMBPerSec();
+    }
+
     @Override
     public MergeScheduler clone() {
         // Lucene IW makes a clone internally but since we hold on to this instance
@@ -201,7 +249,7 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
             currentMergesSizeInBytes.count(),
             totalMergeStoppedTime.count(),
             totalMergeThrottledTime.count(),
-            config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY
+            Math.min(config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY, getNodeMergeRateLimit())
         );
         return mergeStats;
     }
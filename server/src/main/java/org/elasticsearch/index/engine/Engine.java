@@ -33,6 +33,7 @@ import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.lucene.uid.IdBloomFilterCounters;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndVersion;
@@ -126,6 +127,9 @@ public abstract class Engine implements Closeable {
      */
     protected volatile long lastWriteNanos = System.nanoTime();
 
+    /** counts how the bloom filters on {@code _id} answered the version lookups of this engine */
+    protected final IdBloomFilterCounters idBloomFilterCounters = new IdBloomFilterCounters();
+
     protected Engine(EngineConfig engineConfig) {
         Objects.requireNonNull(engineConfig.getStore(), "Store must be provided to the engine");
 
@@ -147,6 +151,19 @@ public abstract class Engine implements Closeable {
         return new MergeStats();
     }
 
+    /**
+     * Sets the node-level IO rate limit in MB/sec for large merges of this engine, or {@link Double#POSITIVE_INFINITY} to lift it.
+     * Engines that do not merge ignore this.
+     */
+    public void setMergeIoRateLimit(double mbPerSec) {}
+
+    /**
+     * Returns how the bloom filters on {@code _id} answered the version lookups of this engine.
+     */
+    public final IdBloomFilterCounters getIdBloomFilterCounters() {
+        return idBloomFilterCounters;
+    }
+
     /** returns the history uuid for the engine */
     public abstract String getHistoryUUID();
 
@@ -549,7 +566,12 @@ public abstract class Engine implements Closeable {
             if (uncachedLookup) {
                 docIdAndVersion = VersionsAndSeqNoResolver.loadDocIdAndVersionUncached(searcher.getIndexReader(), get.uid(), true);
             } else {
-                docIdAndVersion = VersionsAndSeqNoResolver.loadDocIdAndVersion(searcher.getIndexReader(), get.uid(), true);
+                docIdAndVersion = VersionsAndSeqNoResolver.loadDocIdAndVersion(
+                    searcher.getIndexReader(),
+                    get.uid(),
+                    true,
+                    idBloomFilterCounters
+                );
             }
         } catch (Exception e) {
             Releasables.closeWhileHandlingException(searcher);
@@ -24,6 +24,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.codec.CodecService;
+import org.elasticsearch.index.mapper.SourceLoader;
 import org.elasticsearch.index.seqno.RetentionLeases;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.Store;
@@ -73,6 +74,7 @@ public final class EngineConfig {
     private final LongSupplier globalCheckpointSupplier;
     private final Supplier<RetentionLeases> retentionLeasesSupplier;
     private final Comparator<LeafReader> leafSorter;
+    private final Supplier<SourceLoader> sourceLoaderSupplier;
 
     /**
      * A supplier of the outstanding retention leases. This is used during merged operations to determine which operations that have been
@@ -136,7 +138,8 @@ public final class EngineConfig {
         Supplier<RetentionLeases> retentionLeasesSupplier,
         LongSupplier primaryTermSupplier,
         IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
-        Comparator<LeafReader> leafSorter
+        Comparator<LeafReader> leafSorter,
+        Supplier<SourceLoader> sourceLoaderSupplier
     ) {
         this.shardId = shardId;
         this.indexSettings = indexSettings;
@@ -176,6 +179,7 @@ public final class EngineConfig {
         this.primaryTermSupplier = primaryTermSupplier;
         this.snapshotCommitSupplier = snapshotCommitSupplier;
         this.leafSorter = leafSorter;
+        this.sourceLoaderSupplier = sourceLoaderSupplier == null ? () -> SourceLoader.FROM_STORED_SOURCE : sourceLoaderSupplier;
     }
 
     /**
@@ -374,4 +378,12 @@ public final class EngineConfig {
     public Comparator<LeafReader> getLeafSorter() {
         return leafSorter;
     }
+
+    /**
+     * Returns a supplier of the {@link SourceLoader} for the current mapping, used to rebuild synthetic {@code _source} for
+     * operations whose recovery source has been pruned.
+     */
+    public Supplier<SourceLoader> getSourceLoaderSupplier() {
+        return sourceLoaderSupplier;
+    }
 }
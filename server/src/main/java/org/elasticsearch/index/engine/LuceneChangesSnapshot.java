@@ -32,6 +32,7 @@ import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.SourceLoader;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.transport.Transports;
 
@@ -65,6 +66,10 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
     private int storedFieldsReaderOrd = -1;
     private StoredFieldsReader storedFieldsReader = null;
 
+    private final SourceLoader sourceLoader;
+    private int sourceLoaderLeafOrd = -1;
+    private SourceLoader.Leaf sourceLoaderLeaf = null;
+
     private final Thread creationThread; // for assertion
 
     /**
@@ -77,6 +82,7 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
      * @param requiredFullRange if true, the snapshot will strictly check for the existence of operations between fromSeqNo and toSeqNo
      * @param singleConsumer    true if the snapshot is accessed by a single thread that creates the snapshot
      * @param accessStats       true if the stats of the snapshot can be accessed via {@link #totalOperations()}
+     * @param sourceLoader      loads the source of operations whose recovery source is no longer retained
      */
     LuceneChangesSnapshot(
         Engine.Searcher engineSearcher,
@@ -85,7 +91,8 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
         long toSeqNo,
         boolean requiredFullRange,
         boolean singleConsumer,
-        boolean accessStats
+        boolean accessStats,
+        SourceLoader sourceLoader
     ) throws IOException {
         if (fromSeqNo < 0 || toSeqNo < 0 || fromSeqNo > toSeqNo) {
             throw new IllegalArgumentException("Invalid range; from_seqno [" + fromSeqNo + "], to_seqno [" + toSeqNo + "]");
@@ -110,6 +117,7 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
         this.indexSearcher = newIndexSearcher(engineSearcher);
         this.indexSearcher.setQueryCache(null);
         this.accessStats = accessStats;
+        this.sourceLoader = sourceLoader;
         this.parallelArray = new ParallelArray(this.searchBatchSize);
         final TopDocs topDocs = searchOperations(null, accessStats);
         this.totalHits = Math.toIntExact(topDocs.totalHits.value);
@@ -299,6 +307,21 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
         return collector.topDocs();
     }
 
+    /**
+     * Loads the source of an operation, rebuilding it from doc values if the mapping uses synthetic {@code _source} and the recovery
+     * source has already been pruned.
+     */
+    private BytesReference loadSource(LeafReaderContext leaf, int segmentDocID, FieldsVisitor fields) throws IOException {
+        if (fields.source() != null) {
+            return fields.source();
+        }
+        if (sourceLoaderLeafOrd != leaf.ord) {
+            sourceLoaderLeaf = sourceLoader.leaf(leaf.reader());
+            sourceLoaderLeafOrd = leaf.ord;
+        }
+        return sourceLoaderLeaf.source(fields, segmentDocID);
+    }
+
     private Translog.Operation readDocAsOp(int docIndex) throws IOException {
         final LeafReaderContext leaf = parallelArray.leafReaderContexts[docIndex];
         final int segmentDocID = scoreDocs[docIndex].doc - leaf.docBase;
@@ -348,7 +371,7 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
                 op = new Translog.Delete(id, seqNo, primaryTerm, version);
                 assert assertDocSoftDeleted(leaf.reader(), segmentDocID) : "Delete op but soft_deletes field is not set [" + op + "]";
             } else {
-                final BytesReference source = fields.source();
+                final BytesReference source = loadSource(leaf, segmentDocID, fields);
                 if (source == null) {
                     // TODO: Callers should ask for the range that source should be retained. Thus we should always
                     // check for the existence source once we make peer-recovery to send ops after the local checkpoint.
@@ -368,7 +391,7 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
                     seqNo,
                     primaryTerm,
                     version,
-                    source.toBytesRef().bytes,
+                    BytesReference.toBytes(source),
                     fields.routing(),
                     autoGeneratedIdTimestamp
                 );
@@ -227,7 +227,13 @@ public final class ShardGetService extends AbstractIndexShardComponent {
             } catch (IOException e) {
                 throw new ElasticsearchException("Failed to get id [" + id + "]", e);
             }
-            source = fieldVisitor.source();
+            if (fetchSourceContext.fetchSource()) {
+                try {
+                    source = mappingLookup.sourceLoader().leaf(docIdAndVersion.reader).source(fieldVisitor, docIdAndVersion.docId);
+                } catch (IOException e) {
+                    throw new ElasticsearchException("Failed to get id [" + id + "]", e);
+                }
+            }
 
             // put stored fields into result objects
             if (fieldVisitor.fields().isEmpty() == false) {
@@ -266,6 +266,15 @@ public abstract class FieldMapper extends Mapper implements Cloneable {
      */
     protected abstract void parseCreateField(DocumentParserContext context) throws IOException;
 
+    /**
+     * Build a loader that reconstructs this field's values from doc values, used when the mapping enables synthetic {@code _source}.
+     *
+     * @throws IllegalArgumentException if this field can't be loaded synthetically
+     */
+    public SourceLoader.SyntheticFieldLoader syntheticFieldLoader() {
+        throw new IllegalArgumentException("field [" + name() + "] of type [" + typeName() + "] doesn't support synthetic source");
+    }
+
     /**
      * @return whether this field mapper uses a script to generate its values
      */
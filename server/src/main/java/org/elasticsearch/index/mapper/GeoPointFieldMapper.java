@@ -11,6 +11,7 @@ import org.apache.lucene.document.LatLonDocValuesField;
 import org.apache.lucene.document.LatLonPoint;
 import org.apache.lucene.document.ShapeField;
 import org.apache.lucene.document.StoredField;
+import org.apache.lucene.geo.GeoEncodingUtils;
 import org.apache.lucene.geo.LatLonGeometry;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.IndexOrDocValuesQuery;
@@ -201,6 +202,33 @@ public class GeoPointFieldMapper extends AbstractPointGeometryFieldMapper<GeoPoi
         return new Builder(simpleName(), builder.scriptCompiler, builder.ignoreMalformed.getDefaultValue().value()).init(this);
     }
 
+    @Override
+    public SourceLoader.SyntheticFieldLoader syntheticFieldLoader() {
+        if (hasScript()) {
+            return super.syntheticFieldLoader();
+        }
+        if (fieldType().hasDocValues() == false) {
+            throw new IllegalArgumentException(
+                "field [" + name() + "] of type [" + typeName() + "] doesn't support synthetic source because it doesn't have doc values"
+            );
+        }
+        if (ignoreMalformed()) {
+            throw new IllegalArgumentException(
+                "field [" + name() + "] of type [" + typeName() + "] doesn't support synthetic source because it ignores malformed points"
+            );
+        }
+        return new SortedNumericDocValuesSyntheticFieldLoader(name()) {
+            @Override
+            protected void writeValue(XContentBuilder b, long value) throws IOException {
+                // doc values are quantized, so the values may differ slightly from the ones that were sent
+                b.startObject();
+                b.field("lat", GeoEncodingUtils.decodeLatitude((int) (value >>> 32)));
+                b.field("lon", GeoEncodingUtils.decodeLongitude((int) (value & 0xFFFFFFFFL)));
+                b.endObject();
+            }
+        };
+    }
+
     @Override
     protected void index(DocumentParserContext context, GeoPoint geometry) throws IOException {
         if (fieldType().isIndexed()) {
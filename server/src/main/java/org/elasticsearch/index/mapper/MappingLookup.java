@@ -57,6 +57,8 @@ public final class MappingLookup {
     private final Mapping mapping;
     private final Set<String> shadowedFields;
     private final Set<String> completionFields = new HashSet<>();
+    private final Set<String> docValuesSkipIndexFields = new HashSet<>();
+    private final SourceLoader sourceLoader;
 
     /**
      * Creates a new {@link MappingLookup} instance by parsing the provided mapping and extracting its field definitions.
@@ -158,6 +160,12 @@ public final class MappingLookup {
             if (mapper instanceof CompletionFieldMapper) {
                 completionFields.add(mapper.name());
             }
+            if (mapper instanceof NumberFieldMapper || mapper instanceof DateFieldMapper) {
+                // fields without a points index can only be queried through their doc values, index min/max values to speed that up
+                if (mapper.fieldType().isIndexed() == false && mapper.fieldType().hasDocValues()) {
+                    docValuesSkipIndexFields.add(mapper.name());
+                }
+            }
         }
 
         for (FieldAliasMapper aliasMapper : aliasMappers) {
@@ -185,6 +193,9 @@ public final class MappingLookup {
             .flatMap(RuntimeField::asMappedFieldTypes)
             .map(MappedFieldType::name)
             .forEach(this::validateDoesNotShadow);
+
+        // build the loader up front so that mappings that can't be loaded synthetically are rejected when they are created
+        this.sourceLoader = isSourceSynthetic() ? new SourceLoader.Synthetic(mapping) : SourceLoader.FROM_STORED_SOURCE;
     }
 
     /**
@@ -239,6 +250,13 @@ public final class MappingLookup {
         return completionFields.contains(field) ? CompletionFieldMapper.postingsFormat() : null;
     }
 
+    /**
+     * Should the doc values of a particular field be written with a {@link org.elasticsearch.index.codec.DocValuesSkipIndex}?
+     */
+    public boolean hasDocValuesSkipIndex(String field) {
+        return docValuesSkipIndexFields.contains(field);
+    }
+
     /**
      * Returns the knn vectors format for a particular field
      * @param field the field to retrieve a knn vectors format for
@@ -403,6 +421,21 @@ public final class MappingLookup {
         return sfm != null && sfm.enabled();
     }
 
+    /**
+     * Is the {@code _source} rebuilt from doc values rather than stored?
+     */
+    public boolean isSourceSynthetic() {
+        SourceFieldMapper sfm = mapping.getMetadataMapperByClass(SourceFieldMapper.class);
+        return sfm != null && sfm.isSynthetic();
+    }
+
+    /**
+     * Returns the {@link SourceLoader} that loads {@code _source} for documents indexed with this mapping.
+     */
+    public SourceLoader sourceLoader() {
+        return sourceLoader;
+    }
+
     /**
      * Returns if this mapping contains a data-stream's timestamp meta-field and this field is enabled.
      * Only indices that are a part of a data-stream have this meta-field enabled.
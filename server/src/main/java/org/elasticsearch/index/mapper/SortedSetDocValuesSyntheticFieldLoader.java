@@ -0,0 +1,68 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Load {@code _source} fields from {@link SortedSetDocValues}. Values come back sorted and de-duplicated.
+ */
+public abstract class SortedSetDocValuesSyntheticFieldLoader implements SourceLoader.SyntheticFieldLoader {
+    private final String name;
+
+    protected SortedSetDocValuesSyntheticFieldLoader(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Write a single value as it was encoded in the doc values.
+     */
+    protected abstract void writeValue(XContentBuilder b, BytesRef value) throws IOException;
+
+    @Override
+    public Leaf leaf(LeafReader reader) throws IOException {
+        SortedSetDocValues dv = DocValues.getSortedSet(reader, name);
+        return new Leaf() {
+            private long firstOrd;
+            private long secondOrd;
+
+            @Override
+            public boolean advanceToDoc(int docId) throws IOException {
+                if (dv.advanceExact(docId) == false) {
+                    return false;
+                }
+                firstOrd = dv.nextOrd();
+                secondOrd = dv.nextOrd();
+                return true;
+            }
+
+            @Override
+            public void write(XContentBuilder b, String fieldName) throws IOException {
+                if (secondOrd == SortedSetDocValues.NO_MORE_ORDS) {
+                    b.field(fieldName);
+                    writeValue(b, dv.lookupOrd(firstOrd));
+                    return;
+                }
+                b.startArray(fieldName);
+                writeValue(b, dv.lookupOrd(firstOrd));
+                writeValue(b, dv.lookupOrd(secondOrd));
+                for (long ord = dv.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = dv.nextOrd()) {
+                    writeValue(b, dv.lookupOrd(ord));
+                }
+                b.endArray();
+            }
+        };
+    }
+}
@@ -35,11 +35,17 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     public static final String CONTENT_TYPE = "_source";
     private final XContentFieldFilter filter;
 
-    private static final SourceFieldMapper DEFAULT = new SourceFieldMapper(Defaults.ENABLED, Strings.EMPTY_ARRAY, Strings.EMPTY_ARRAY);
+    private static final SourceFieldMapper DEFAULT = new SourceFieldMapper(
+        Defaults.ENABLED,
+        Defaults.SYNTHETIC,
+        Strings.EMPTY_ARRAY,
+        Strings.EMPTY_ARRAY
+    );
 
     public static class Defaults {
         public static final String NAME = SourceFieldMapper.NAME;
         public static final boolean ENABLED = true;
+        public static final boolean SYNTHETIC = false;
 
         public static final FieldType FIELD_TYPE = new FieldType();
 
@@ -60,6 +66,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         private final Parameter<Boolean> enabled = Parameter.boolParam("enabled", false, m -> toType(m).enabled, Defaults.ENABLED)
             // this field mapper may be enabled but once enabled, may not be disabled
             .setMergeValidator((previous, current, conflicts) -> (previous == current) || (previous && current == false));
+        private final Parameter<Boolean> synthetic = Parameter.boolParam("synthetic", false, m -> toType(m).synthetic, Defaults.SYNTHETIC);
         private final Parameter<List<String>> includes = Parameter.stringArrayParam(
             "includes",
             false,
@@ -79,16 +86,28 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
         @Override
         protected List<Parameter<?>> getParameters() {
-            return List.of(enabled, includes, excludes);
+            return List.of(enabled, synthetic, includes, excludes);
         }
 
         @Override
         public SourceFieldMapper build() {
-            if (enabled.getValue() == Defaults.ENABLED && includes.getValue().isEmpty() && excludes.getValue().isEmpty()) {
+            if (synthetic.getValue()) {
+                if (enabled.getValue() == false) {
+                    throw new MapperParsingException("[_source] can't be both disabled and synthetic");
+                }
+                if (includes.getValue().isEmpty() == false || excludes.getValue().isEmpty() == false) {
+                    throw new MapperParsingException("[_source] synthetic doesn't support [includes] or [excludes]");
+                }
+            }
+            if (enabled.getValue() == Defaults.ENABLED
+                && synthetic.getValue() == Defaults.SYNTHETIC
+                && includes.getValue().isEmpty()
+                && excludes.getValue().isEmpty()) {
                 return DEFAULT;
             }
             return new SourceFieldMapper(
                 enabled.getValue(),
+                synthetic.getValue(),
                 includes.getValue().toArray(String[]::new),
                 excludes.getValue().toArray(String[]::new)
             );
@@ -125,22 +144,25 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     }
 
     private final boolean enabled;
+    /** indicates whether the source is rebuilt from doc values rather than loaded from the stored {@code _source} field */
+    private final boolean synthetic;
     /** indicates whether the source will always exist and be complete, for use by features like the update API */
     private final boolean complete;
 
     private final String[] includes;
     private final String[] excludes;
 
-    private SourceFieldMapper(boolean enabled, String[] includes, String[] excludes) {
+    private SourceFieldMapper(boolean enabled, boolean synthetic, String[] includes, String[] excludes) {
         super(new SourceFieldType(enabled));
         this.enabled = enabled;
+        this.synthetic = synthetic;
         this.includes = includes;
         this.excludes = excludes;
         final boolean filtered = CollectionUtils.isEmpty(includes) == false || CollectionUtils.isEmpty(excludes) == false;
         this.filter = enabled && filtered
             ? XContentFieldFilter.newFieldFilter(includes, excludes)
             : (sourceBytes, contentType) -> sourceBytes;
-        this.complete = enabled && CollectionUtils.isEmpty(includes) && CollectionUtils.isEmpty(excludes);
+        this.complete = enabled && synthetic == false && CollectionUtils.isEmpty(includes) && CollectionUtils.isEmpty(excludes);
     }
 
     public boolean enabled() {
@@ -151,6 +173,13 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         return complete;
     }
 
+    /**
+     * Is the {@code _source} rebuilt from doc values rather than stored?
+     */
+    public boolean isSynthetic() {
+        return synthetic;
+    }
+
     @Override
     public void preParse(DocumentParserContext context) throws IOException {
         BytesReference originalSource = context.sourceToParse().source();
@@ -172,7 +201,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
     @Nullable
     public BytesReference applyFilters(@Nullable BytesReference originalSource, @Nullable XContentType contentType) throws IOException {
-        if (enabled && originalSource != null) {
+        if (enabled && synthetic == false && originalSource != null) {
             // Percolate and tv APIs may not set the source and that is ok, because these APIs will not index any data
             return filter.apply(originalSource, contentType);
         } else {
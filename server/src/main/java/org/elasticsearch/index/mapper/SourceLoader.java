@@ -0,0 +1,204 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.LeafReader;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.json.JsonXContent;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Loads the {@code _source} of documents, either from the stored {@code _source} field or by reconstructing it from doc values
+ * when the mapping enables synthetic {@code _source}.
+ */
+public interface SourceLoader {
+    /**
+     * Does this {@link SourceLoader} reorder field values?
+     */
+    boolean reordersFieldValues();
+
+    /**
+     * Build the loader for some segment.
+     */
+    Leaf leaf(LeafReader reader) throws IOException;
+
+    /**
+     * Loads {@code _source} from some segment.
+     */
+    interface Leaf {
+        /**
+         * Load the {@code _source} for a document.
+         * @param fieldsVisitor the stored fields visitor that has already visited the document, used to read stored {@code _source}
+         * @param docId the doc to load
+         */
+        BytesReference source(FieldsVisitor fieldsVisitor, int docId) throws IOException;
+    }
+
+    /**
+     * Load {@code _source} from a stored field.
+     */
+    SourceLoader FROM_STORED_SOURCE = new SourceLoader() {
+        @Override
+        public boolean reordersFieldValues() {
+            return false;
+        }
+
+        @Override
+        public Leaf leaf(LeafReader reader) {
+            return (fieldsVisitor, docId) -> fieldsVisitor.source();
+        }
+    };
+
+    /**
+     * Load {@code _source} from doc values.
+     */
+    class Synthetic implements SourceLoader {
+        private final ObjectFieldLoader root;
+
+        Synthetic(Mapping mapping) {
+            this.root = objectLoader(mapping.getRoot());
+        }
+
+        private static ObjectFieldLoader objectLoader(ObjectMapper objectMapper) {
+            if (objectMapper.isNested()) {
+                throw new IllegalArgumentException("field [" + objectMapper.name() + "] of type [nested] doesn't support synthetic source");
+            }
+            Map<String, SyntheticFieldLoader> children = new TreeMap<>();
+            for (Mapper mapper : objectMapper) {
+                if (mapper instanceof ObjectMapper child) {
+                    children.put(child.simpleName(), objectLoader(child));
+                } else if (mapper instanceof FieldMapper fieldMapper) {
+                    // multi-fields are not part of the _source so we don't descend into the field mapper
+                    children.put(fieldMapper.simpleName(), fieldMapper.syntheticFieldLoader());
+                }
+                // field aliases don't have values of their own
+            }
+            return new ObjectFieldLoader(children);
+        }
+
+        @Override
+        public boolean reordersFieldValues() {
+            return true;
+        }
+
+        @Override
+        public Leaf leaf(LeafReader reader) throws IOException {
+            return new Leaf() {
+                private ObjectFieldLoader.ObjectLeaf leaf = root.leaf(reader);
+                private int lastDocId = -1;
+
+                @Override
+                public BytesReference source(FieldsVisitor fieldsVisitor, int docId) throws IOException {
+                    if (docId < lastDocId) {
+                        // doc values can only move forwards, start over for documents that are loaded out of order
+                        leaf = root.leaf(reader);
+                    }
+                    lastDocId = docId;
+                    leaf.advanceToDoc(docId);
+                    try (XContentBuilder b = new XContentBuilder(JsonXContent.jsonXContent, new BytesStreamOutput())) {
+                        b.startObject();
+                        leaf.writeFields(b);
+                        b.endObject();
+                        return BytesReference.bytes(b);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Loads an object from the synthetic {@code _source} of all of its sub-fields, in name order.
+     */
+    final class ObjectFieldLoader implements SyntheticFieldLoader {
+        private final String[] names;
+        private final SyntheticFieldLoader[] loaders;
+
+        private ObjectFieldLoader(Map<String, SyntheticFieldLoader> children) {
+            this.names = children.keySet().toArray(String[]::new);
+            this.loaders = children.values().toArray(SyntheticFieldLoader[]::new);
+        }
+
+        @Override
+        public ObjectLeaf leaf(LeafReader reader) throws IOException {
+            SyntheticFieldLoader.Leaf[] leaves = new SyntheticFieldLoader.Leaf[loaders.length];
+            for (int i = 0; i < loaders.length; i++) {
+                leaves[i] = loaders[i].leaf(reader);
+            }
+            return new ObjectLeaf(leaves);
+        }
+
+        final class ObjectLeaf implements SyntheticFieldLoader.Leaf {
+            private final SyntheticFieldLoader.Leaf[] leaves;
+            private final boolean[] hasValue;
+
+            private ObjectLeaf(SyntheticFieldLoader.Leaf[] leaves) {
+                this.leaves = leaves;
+                this.hasValue = new boolean[leaves.length];
+            }
+
+            @Override
+            public boolean advanceToDoc(int docId) throws IOException {
+                boolean any = false;
+                for (int i = 0; i < leaves.length; i++) {
+                    hasValue[i] = leaves[i].advanceToDoc(docId);
+                    any |= hasValue[i];
+                }
+                return any;
+            }
+
+            @Override
+            public void write(XContentBuilder b, String name) throws IOException {
+                b.startObject(name);
+                writeFields(b);
+                b.endObject();
+            }
+
+            void writeFields(XContentBuilder b) throws IOException {
+                for (int i = 0; i < leaves.length; i++) {
+                    if (hasValue[i]) {
+                        leaves[i].write(b, names[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the values of a single field from doc values for synthetic {@code _source}.
+     */
+    interface SyntheticFieldLoader {
+        /**
+         * Build a loader for this field in some segment.
+         */
+        Leaf leaf(LeafReader reader) throws IOException;
+
+        /**
+         * Loads values for a field in a particular segment.
+         */
+        interface Leaf {
+            /**
+             * Position the loader at a document.
+             * @return {@code true} if the document has values for this field
+             */
+            boolean advanceToDoc(int docId) throws IOException;
+
+            /**
+             * Write the values of the current document under the provided name. Only called if {@link #advanceToDoc} returned
+             * {@code true}.
+             */
+            void write(XContentBuilder b, String name) throws IOException;
+        }
+    }
+}
@@ -51,6 +51,7 @@ import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.lucene.uid.IdBloomFilterCounters;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
@@ -108,6 +109,7 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceLoader;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.merge.MergeStats;
@@ -1261,14 +1263,17 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         Engine engine = getEngineOrNull();
         final boolean throttled;
         final long throttleTimeInMillis;
+        final IdBloomFilterCounters idBloomFilterCounters;
         if (engine == null) {
             throttled = false;
             throttleTimeInMillis = 0;
+            idBloomFilterCounters = null;
         } else {
             throttled = engine.isThrottled();
             throttleTimeInMillis = engine.getIndexThrottleTimeInMillis();
+            idBloomFilterCounters = engine.getIdBloomFilterCounters();
         }
-        return internalIndexingStats.stats(throttled, throttleTimeInMillis);
+        return internalIndexingStats.stats(throttled, throttleTimeInMillis, idBloomFilterCounters);
     }
 
     public SearchStats searchStats(String... groups) {
@@ -2384,6 +2389,17 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         }
     }
 
+    /**
+     * Sets the IO rate limit in MB/sec that large merges of this shard may use, as allotted by the node-wide merge budget.
+     */
+    public void setMergeIoRateLimit(double mbPerSec) {
+        try {
+            getEngine().setMergeIoRateLimit(mbPerSec);
+        } catch (AlreadyClosedException ex) {
+            // ignore
+        }
+    }
+
     private void handleRefreshException(Exception e) {
         if (e instanceof AlreadyClosedException) {
             // ignore
@@ -3247,7 +3263,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             replicationTracker::getRetentionLeases,
             this::getOperationPrimaryTerm,
             snapshotCommitSupplier,
-            isTimeseriesIndex ? TIMESERIES_LEAF_READERS_SORTER : null
+            isTimeseriesIndex ? TIMESERIES_LEAF_READERS_SORTER : null,
+            () -> mapperService == null ? SourceLoader.FROM_STORED_SOURCE : mapperService.mappingLookup().sourceLoader()
         );
     }
 
@@ -3782,6 +3799,24 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return false;
     }
 
+    /**
+     * Returns <code>true</code> if {@link #scheduledRefresh()} would refresh this shard right now, i.e. it has writes or refresh
+     * listeners waiting for a refresh and it isn't skipping refreshes because it is search idle.
+     */
+    public boolean scheduledRefreshNeeded() {
+        verifyNotClosed();
+        if (isReadAllowed() == false) {
+            return false;
+        }
+        if (refreshListeners.refreshNeeded()) {
+            return true;
+        }
+        if (getEngine().refreshNeeded() == false) {
+            return false;
+        }
+        return isSearchIdle() == false || indexSettings.isExplicitRefresh() || active.get() == false;
+    }
+
     /**
      * Returns true if this shards is search idle
      */
@@ -36,6 +36,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
         private long noopUpdateCount;
         private long throttleTimeInMillis;
         private boolean isThrottled;
+        private long idBloomFilterHitCount;
+        private long idBloomFilterMissCount;
+        private long idBloomFilterFalsePositiveCount;
 
         Stats() {}
 
@@ -50,6 +53,11 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             noopUpdateCount = in.readVLong();
             isThrottled = in.readBoolean();
             throttleTimeInMillis = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+                idBloomFilterHitCount = in.readVLong();
+                idBloomFilterMissCount = in.readVLong();
+                idBloomFilterFalsePositiveCount = in.readVLong();
+            }
         }
 
         public Stats(
@@ -62,7 +70,10 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             long deleteCurrent,
             long noopUpdateCount,
             boolean isThrottled,
-            long throttleTimeInMillis
+            long throttleTimeInMillis,
+            long idBloomFilterHitCount,
+            long idBloomFilterMissCount,
+            long idBloomFilterFalsePositiveCount
         ) {
             this.indexCount = indexCount;
             this.indexTimeInMillis = indexTimeInMillis;
@@ -74,6 +85,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             this.noopUpdateCount = noopUpdateCount;
             this.isThrottled = isThrottled;
             this.throttleTimeInMillis = throttleTimeInMillis;
+            this.idBloomFilterHitCount = idBloomFilterHitCount;
+            this.idBloomFilterMissCount = idBloomFilterMissCount;
+            this.idBloomFilterFalsePositiveCount = idBloomFilterFalsePositiveCount;
         }
 
         public void add(Stats stats) {
@@ -91,6 +105,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             if (isThrottled != stats.isThrottled) {
                 isThrottled = true; // When combining if one is throttled set result to throttled.
             }
+            idBloomFilterHitCount += stats.idBloomFilterHitCount;
+            idBloomFilterMissCount += stats.idBloomFilterMissCount;
+            idBloomFilterFalsePositiveCount += stats.idBloomFilterFalsePositiveCount;
         }
 
         /**
@@ -160,6 +177,28 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             return noopUpdateCount;
         }
 
+        /**
+         * Returns the number of times the bloom filter on {@code _id} let a version lookup through to the terms dictionary
+         * of a segment.
+         */
+        public long getIdBloomFilterHitCount() {
+            return idBloomFilterHitCount;
+        }
+
+        /**
+         * Returns the number of times the bloom filter on {@code _id} ruled a segment out of a version lookup.
+         */
+        public long getIdBloomFilterMissCount() {
+            return idBloomFilterMissCount;
+        }
+
+        /**
+         * Returns the number of bloom filter hits for which the segment didn't contain the id after all.
+         */
+        public long getIdBloomFilterFalsePositiveCount() {
+            return idBloomFilterFalsePositiveCount;
+        }
+
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             out.writeVLong(indexCount);
@@ -172,7 +211,11 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             out.writeVLong(noopUpdateCount);
             out.writeBoolean(isThrottled);
             out.writeLong(throttleTimeInMillis);
-
+            if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+                out.writeVLong(idBloomFilterHitCount);
+                out.writeVLong(idBloomFilterMissCount);
+                out.writeVLong(idBloomFilterFalsePositiveCount);
+            }
         }
 
         @Override
@@ -190,6 +233,10 @@ public class IndexingStats implements Writeable, ToXContentFragment {
 
             builder.field(Fields.IS_THROTTLED, isThrottled);
             builder.humanReadableField(Fields.THROTTLED_TIME_IN_MILLIS, Fields.THROTTLED_TIME, getThrottleTime());
+
+            builder.field(Fields.ID_BLOOM_FILTER_HIT_TOTAL, idBloomFilterHitCount);
+            builder.field(Fields.ID_BLOOM_FILTER_MISS_TOTAL, idBloomFilterMissCount);
+            builder.field(Fields.ID_BLOOM_FILTER_FALSE_POSITIVE_TOTAL, idBloomFilterFalsePositiveCount);
             return builder;
         }
     }
@@ -264,6 +311,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
         static final String IS_THROTTLED = "is_throttled";
         static final String THROTTLED_TIME_IN_MILLIS = "throttle_time_in_millis";
         static final String THROTTLED_TIME = "throttle_time";
+        static final String ID_BLOOM_FILTER_HIT_TOTAL = "id_bloom_filter_hit_total";
+        static final String ID_BLOOM_FILTER_MISS_TOTAL = "id_bloom_filter_miss_total";
+        static final String ID_BLOOM_FILTER_FALSE_POSITIVE_TOTAL = "id_bloom_filter_false_positive_total";
     }
 
     @Override
@@ -8,8 +8,10 @@
 
 package org.elasticsearch.index.shard;
 
+import org.elasticsearch.common.lucene.uid.IdBloomFilterCounters;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.engine.Engine;
 
 import java.util.concurrent.TimeUnit;
@@ -27,8 +29,8 @@ final class InternalIndexingStats implements IndexingOperationListener {
      * is returned for them. If they are set, then only types provided will be returned, or
      * {@code _all} for all types.
      */
-    IndexingStats stats(boolean isThrottled, long currentThrottleInMillis) {
-        IndexingStats.Stats total = totalStats.stats(isThrottled, currentThrottleInMillis);
+    IndexingStats stats(boolean isThrottled, long currentThrottleInMillis, @Nullable IdBloomFilterCounters idBloomFilterCounters) {
+        IndexingStats.Stats total = totalStats.stats(isThrottled, currentThrottleInMillis, idBloomFilterCounters);
         return new IndexingStats(total);
     }
 
@@ -112,7 +114,11 @@ final class InternalIndexingStats implements IndexingOperationListener {
         private final CounterMetric deleteCurrent = new CounterMetric();
         private final CounterMetric noopUpdates = new CounterMetric();
 
-        IndexingStats.Stats stats(boolean isThrottled, long currentThrottleMillis) {
+        IndexingStats.Stats stats(
+            boolean isThrottled,
+            long currentThrottleMillis,
+            @Nullable IdBloomFilterCounters idBloomFilterCounters
+        ) {
             return new IndexingStats.Stats(
                 indexMetric.count(),
                 TimeUnit.NANOSECONDS.toMillis(indexMetric.sum()),
@@ -123,7 +129,10 @@ final class InternalIndexingStats implements IndexingOperationListener {
                 deleteCurrent.count(),
                 noopUpdates.count(),
                 isThrottled,
-                TimeUnit.MILLISECONDS.toMillis(currentThrottleMillis)
+                TimeUnit.MILLISECONDS.toMillis(currentThrottleMillis),
+                idBloomFilterCounters == null ? 0 : idBloomFilterCounters.getHitCount(),
+                idBloomFilterCounters == null ? 0 : idBloomFilterCounters.getMissCount(),
+                idBloomFilterCounters == null ? 0 : idBloomFilterCounters.getFalsePositiveCount()
             );
         }
     }
@@ -224,6 +224,8 @@ public class IndicesService extends AbstractLifecycleComponent
     private final NamedWriteableRegistry namedWriteableRegistry;
     private final Map<String, IndexStorePlugin.SnapshotCommitSupplier> snapshotCommitSuppliers;
     private final IndexingMemoryController indexingMemoryController;
+    private final MergeDiskBandwidthController mergeDiskBandwidthController;
+    private final NodeRefreshScheduler nodeRefreshScheduler;
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
@@ -301,6 +303,13 @@ public class IndicesService extends AbstractLifecycleComponent
             // ensure we pull an iter with new shards - flatten makes a copy
             () -> Iterables.flatten(this).iterator()
         );
+        mergeDiskBandwidthController = new MergeDiskBandwidthController(
+            settings,
+            threadPool,
+            nodeEnv,
+            () -> Iterables.flatten(this).iterator()
+        );
+        nodeRefreshScheduler = new NodeRefreshScheduler(settings, threadPool, () -> Iterables.flatten(this).iterator());
         this.indexScopedSettings = indexScopedSettings;
         this.circuitBreakerService = circuitBreakerService;
         this.bigArrays = bigArrays;
@@ -347,6 +356,8 @@ public class IndicesService extends AbstractLifecycleComponent
                 IOUtils.close(
                     analysisRegistry,
                     indexingMemoryController,
+                    mergeDiskBandwidthController,
+                    nodeRefreshScheduler,
                     indicesFieldDataCache,
                     cacheCleaner,
                     indicesRequestCache,
@@ -1442,6 +1453,34 @@ public class IndicesService extends AbstractLifecycleComponent
      * Can the shard request be cached at all?
      */
     public boolean canCache(ShardSearchRequest request, SearchContext context) {
+        if (canShareResult(request, context) == false) {
+            return false;
+        }
+
+        IndexSettings settings = context.indexShard().indexSettings();
+        // if not explicitly set in the request, use the index setting, if not, use the request
+        if (request.requestCache() == null) {
+            if (settings.getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING) == false) {
+                return false;
+            } else if (context.size() != 0) {
+                // If no request cache query parameter and shard request cache
+                // is enabled in settings don't cache for requests with size > 0
+                return false;
+            }
+        } else if (request.requestCache() == false) {
+            return false;
+        }
+        // We use the cacheKey of the index reader as a part of a key of the IndicesRequestCache.
+        assert context.searcher().getIndexReader().getReaderCacheHelper() != null;
+        return true;
+
+    }
+
+    /**
+     * Is the result of the shard request the same as that of any other shard request with the same {@link #requestCacheKey} that
+     * runs against the same reader, regardless of whether the request cache is enabled for it?
+     */
+    public boolean canShareResult(ShardSearchRequest request, SearchContext context) {
         // Queries that create a scroll context cannot use the cache.
         // They modify the search context during their execution so using the cache
         // may invalidate the scroll for the next query.
@@ -1462,29 +1501,17 @@ public class IndicesService extends AbstractLifecycleComponent
             return false;
         }
 
-        IndexSettings settings = context.indexShard().indexSettings();
-        // if not explicitly set in the request, use the index setting, if not, use the request
-        if (request.requestCache() == null) {
-            if (settings.getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING) == false) {
-                return false;
-            } else if (context.size() != 0) {
-                // If no request cache query parameter and shard request cache
-                // is enabled in settings don't cache for requests with size > 0
-                return false;
-            }
-        } else if (request.requestCache() == false) {
-            return false;
-        }
-        // We use the cacheKey of the index reader as a part of a key of the IndicesRequestCache.
-        assert context.searcher().getIndexReader().getReaderCacheHelper() != null;
-
         // if now in millis is used (or in the future, a more generic "isDeterministic" flag
         // then we can't cache based on "now" key within the search request, as it is not deterministic
-        if (context.getSearchExecutionContext().isCacheable() == false) {
-            return false;
-        }
-        return true;
+        return context.getSearchExecutionContext().isCacheable();
+    }
 
+    /**
+     * The key of the shard request in the request cache, which the results of other requests with the same key can stand in for if
+     * they {@link #canShareResult can share them}.
+     */
+    public BytesReference requestCacheKey(ShardSearchRequest request) throws IOException {
+        return request.cacheKey(requestCacheKeyDifferentiator);
     }
 
     /**
@@ -1498,7 +1525,7 @@ public class IndicesService extends AbstractLifecycleComponent
         final DirectoryReader directoryReader = context.searcher().getDirectoryReader();
 
         boolean[] loadedFromCache = new boolean[] { true };
-        BytesReference cacheKey = request.cacheKey(requestCacheKeyDifferentiator);
+        BytesReference cacheKey = requestCacheKey(request);
         BytesReference bytesReference = cacheShardLevelResult(
             context.indexShard(),
             context.getSearchExecutionContext().mappingCacheKey(),
@@ -1513,10 +1540,7 @@ public class IndicesService extends AbstractLifecycleComponent
 
         if (loadedFromCache[0]) {
             // restore the cached query result into the context
-            final QuerySearchResult result = context.queryResult();
-            StreamInput in = new NamedWriteableAwareStreamInput(bytesReference.streamInput(), namedWriteableRegistry);
-            result.readFromWithId(context.id(), in);
-            result.setSearchShardTarget(context.shardTarget());
+            restoreQueryResult(context, bytesReference);
         } else if (context.queryResult().searchTimedOut()) {
             // we have to invalidate the cache entry if we cached a query result form a request that timed out.
             // we can't really throw exceptions in the loading part to signal a timed out search to the outside world since if there are
@@ -1541,6 +1565,16 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Reads a query result that another shard request with the same {@link #requestCacheKey} produced into the context.
+     */
+    public void restoreQueryResult(SearchContext context, BytesReference serializedResult) throws IOException {
+        final QuerySearchResult result = context.queryResult();
+        StreamInput in = new NamedWriteableAwareStreamInput(serializedResult.streamInput(), namedWriteableRegistry);
+        result.readFromWithId(context.id(), in);
+        result.setSearchShardTarget(context.shardTarget());
+    }
+
     public ByteSizeValue getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
@@ -0,0 +1,214 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.monitor.fs.FsInfo;
+import org.elasticsearch.monitor.fs.FsProbe;
+import org.elasticsearch.threadpool.Scheduler.Cancellable;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.threadpool.ThreadPool.Names;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares a node-wide merge write budget across all shards, driven by the write throughput that is measured on each data path. Lucene's
+ * auto IO throttle only reacts to the merge backlog of a single shard, so during indexing spikes merges on many shards can saturate
+ * a disk that is also serving refreshes and searches. This controller periodically samples the disk stats of every data path,
+ * shrinks the merge budget of a path when its write throughput exceeds {@code indices.merge.disk_bandwidth.max_bytes_per_sec} and
+ * grows it again when there is headroom. The budget of a path is split evenly across the shards on that path that are currently
+ * merging. Small merges are never held back by this budget so that the segment count stays low.
+ */
+public class MergeDiskBandwidthController implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(MergeDiskBandwidthController.class);
+
+    /** Whether the node-wide merge budget is enabled (default: false). Only takes effect on Linux where disk stats are available. */
+    public static final Setting<Boolean> ENABLED_SETTING = Setting.boolSetting(
+        "indices.merge.disk_bandwidth.enabled",
+        false,
+        Property.NodeScope
+    );
+
+    /** The write throughput that a single data path should sustain, including merges, refreshes and the translog (default: 200mb). */
+    public static final Setting<ByteSizeValue> MAX_BYTES_PER_SEC_SETTING = Setting.byteSizeSetting(
+        "indices.merge.disk_bandwidth.max_bytes_per_sec",
+        new ByteSizeValue(200, ByteSizeUnit.MB),
+        new ByteSizeValue(1, ByteSizeUnit.MB),
+        new ByteSizeValue(Long.MAX_VALUE, ByteSizeUnit.BYTES),
+        Property.NodeScope
+    );
+
+    /** The budget below which merges on a data path are never throttled, so that they cannot starve (default: 5mb). */
+    public static final Setting<ByteSizeValue> MIN_BYTES_PER_SEC_SETTING = Setting.byteSizeSetting(
+        "indices.merge.disk_bandwidth.min_bytes_per_sec",
+        new ByteSizeValue(5, ByteSizeUnit.MB),
+        new ByteSizeValue(1, ByteSizeUnit.MB),
+        new ByteSizeValue(Long.MAX_VALUE, ByteSizeUnit.BYTES),
+        Property.NodeScope
+    );
+
+    /** How frequently we sample disk throughput and redistribute the merge budget (default: 1 second). */
+    public static final Setting<TimeValue> INTERVAL_SETTING = Setting.positiveTimeSetting(
+        "indices.merge.disk_bandwidth.interval",
+        TimeValue.timeValueSeconds(1),
+        Property.NodeScope
+    );
+
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    private final Iterable<IndexShard> indexShards;
+    private final NodeEnvironment nodeEnv;
+    private final FsProbe fsProbe;
+    private final double maxMBPerSec;
+    private final double minMBPerSec;
+    private final TimeValue interval;
+
+    /** The current merge budget per data path root, only accessed from the scheduled task. */
+    private final Map<Path, Double> budgets = new HashMap<>();
+    private FsInfo previous;
+
+    private final Cancellable scheduler;
+
+    MergeDiskBandwidthController(Settings settings, ThreadPool threadPool, NodeEnvironment nodeEnv, Iterable<IndexShard> indexShards) {
+        this.indexShards = indexShards;
+        this.nodeEnv = nodeEnv;
+        this.fsProbe = new FsProbe(nodeEnv);
+        this.maxMBPerSec = MAX_BYTES_PER_SEC_SETTING.get(settings).getMbFrac();
+        this.minMBPerSec = Math.min(MIN_BYTES_PER_SEC_SETTING.get(settings).getMbFrac(), maxMBPerSec);
+        this.interval = INTERVAL_SETTING.get(settings);
+        if (ENABLED_SETTING.get(settings)) {
+            logger.debug(
+                "using merge disk bandwidth budget with {} [{}], {} [{}], {} [{}]",
+                MAX_BYTES_PER_SEC_SETTING.getKey(),
+                MAX_BYTES_PER_SEC_SETTING.get(settings),
+                MIN_BYTES_PER_SEC_SETTING.getKey(),
+                MIN_BYTES_PER_SEC_SETTING.get(settings),
+                INTERVAL_SETTING.getKey(),
+                interval
+            );
+            this.scheduler = scheduleTask(threadPool);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    protected Cancellable scheduleTask(ThreadPool threadPool) {
+        // reading /proc/diskstats is cheap, but don't block the scheduler thread on it
+        return threadPool.scheduleWithFixedDelay(this::run, interval, Names.MANAGEMENT);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.cancel();
+        }
+    }
+
+    synchronized void run() {
+        final Map<Path, Double> writeRates;
+        try {
+            writeRates = sampleWriteMBPerSec();
+        } catch (IOException e) {
+            logger.debug("failed to sample disk write throughput, leaving merge budgets unchanged", e);
+            return;
+        }
+
+        final Map<Path, List<IndexShard>> shardsByPath = new HashMap<>();
+        final Map<Path, Integer> mergingShardsByPath = new HashMap<>();
+        for (IndexShard shard : indexShards) {
+            if (shard.state() != IndexShardState.STARTED && shard.state() != IndexShardState.POST_RECOVERY) {
+                continue;
+            }
+            final Path root = shard.shardPath().getRootDataPath();
+            shardsByPath.computeIfAbsent(root, k -> new ArrayList<>()).add(shard);
+            if (shard.mergeStats().getCurrent() > 0) {
+                mergingShardsByPath.merge(root, 1, Integer::sum);
+            }
+        }
+
+        for (Map.Entry<Path, List<IndexShard>> entry : shardsByPath.entrySet()) {
+            final Path root = entry.getKey();
+            final Double writeRate = writeRates.get(root);
+            final double perShardLimit;
+            if (writeRate == null) {
+                // no disk stats for this path (e.g. a custom data path or the first sample), don't throttle
+                perShardLimit = Double.POSITIVE_INFINITY;
+            } else {
+                final double budget = nextBudget(budgets.getOrDefault(root, maxMBPerSec), writeRate, minMBPerSec, maxMBPerSec);
+                budgets.put(root, budget);
+                perShardLimit = budget / Math.max(1, mergingShardsByPath.getOrDefault(root, 0));
+            }
+            for (IndexShard shard : entry.getValue()) {
+                setMergeIoRateLimit(shard, perShardLimit);
+            }
+        }
+        budgets.keySet().retainAll(writeRates.keySet());
+    }
+
+    /** Asks this shard to limit large merges to the given rate */
+    protected void setMergeIoRateLimit(IndexShard shard, double mbPerSec) {
+        shard.setMergeIoRateLimit(mbPerSec);
+    }
+
+    /**
+     * Returns the write throughput in MB/sec observed on every data path root since the previous sample. Paths whose device stats
+     * are not known are omitted.
+     */
+    protected Map<Path, Double> sampleWriteMBPerSec() throws IOException {
+        final FsInfo current = fsProbe.stats(previous);
+        final FsInfo last = previous;
+        previous = current;
+        final Map<Path, Double> rates = new HashMap<>();
+        if (last == null || current.getIoStats() == null || current.getTimestamp() <= last.getTimestamp()) {
+            return rates;
+        }
+        final double elapsedSeconds = (current.getTimestamp() - last.getTimestamp()) / 1000.0;
+        for (NodeEnvironment.NodePath nodePath : nodeEnv.nodePaths()) {
+            for (FsInfo.DeviceStats deviceStats : current.getIoStats().getDevicesStats()) {
+                if (deviceStats.getMajorDeviceNumber() == nodePath.majorDeviceNumber
+                    && deviceStats.getMinorDeviceNumber() == nodePath.minorDeviceNumber
+                    && deviceStats.writeKilobytes() != -1) {
+                    rates.put(nodePath.path, deviceStats.writeKilobytes() * 1024 / BYTES_PER_MB / elapsedSeconds);
+                }
+            }
+        }
+        return rates;
+    }
+
+    /**
+     * Computes the next merge budget of a data path. When the measured write throughput exceeds the target the budget is scaled down
+     * proportionally, otherwise it grows by half of the remaining headroom. The result is bounded by {@code [min, max]}.
+     */
+    static double nextBudget(double currentBudget, double writeMBPerSec, double minMBPerSec, double maxMBPerSec) {
+        final double next;
+        if (writeMBPerSec > maxMBPerSec) {
+            next = currentBudget * maxMBPerSec / writeMBPerSec;
+        } else {
+            next = currentBudget + (maxMBPerSec - writeMBPerSec) / 2;
+        }
+        return Math.max(minMBPerSec, Math.min(maxMBPerSec, next));
+    }
+}
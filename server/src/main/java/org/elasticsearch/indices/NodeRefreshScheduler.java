@@ -0,0 +1,212 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardClosedException;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.threadpool.Scheduler.Cancellable;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.threadpool.ThreadPool.Names;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Schedules the periodic refreshes of all the shards on this node instead of letting every index schedule its own. Each index
+ * refreshes its shards on a fixed period, so a node with many shards runs uncoordinated refreshes that cause IO bursts and create
+ * many tiny segments. This scheduler wakes up every {@code indices.refresh.scheduler.interval} and treats the
+ * {@code index.refresh_interval} of every shard as a deadline: shards whose deadline falls before the next wake up are refreshed
+ * together on the {@code refresh} pool, earliest deadline first and at most {@code indices.refresh.scheduler.max_concurrent_refreshes}
+ * at a time. Shards without pending writes or refresh listeners and search idle shards don't take a refresh slot, they only get
+ * the cheap bookkeeping of {@link IndexShard#scheduledRefresh()}.
+ */
+public class NodeRefreshScheduler implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(NodeRefreshScheduler.class);
+
+    /** Whether periodic refreshes are scheduled by this node rather than by each index (default: false). */
+    public static final Setting<Boolean> ENABLED_SETTING = Setting.boolSetting(
+        "indices.refresh.scheduler.enabled",
+        false,
+        Property.NodeScope
+    );
+
+    /** How frequently the scheduler looks for shards to refresh, which is also the granularity of the batches (default: 200ms). */
+    public static final Setting<TimeValue> INTERVAL_SETTING = Setting.positiveTimeSetting(
+        "indices.refresh.scheduler.interval",
+        TimeValue.timeValueMillis(200),
+        Property.NodeScope
+    );
+
+    /** The maximum number of scheduled refreshes that run at the same time (default: the size of the refresh pool). */
+    public static final Setting<Integer> MAX_CONCURRENT_REFRESHES_SETTING = new Setting<>(
+        "indices.refresh.scheduler.max_concurrent_refreshes",
+        s -> Integer.toString(Math.min(10, Math.max(1, (EsExecutors.allocatedProcessors(s) + 1) / 2))),
+        s -> Setting.parseInt(s, 1, "indices.refresh.scheduler.max_concurrent_refreshes"),
+        Property.NodeScope
+    );
+
+    private final Iterable<IndexShard> indexShards;
+    private final ThreadPool threadPool;
+    private final TimeValue interval;
+    private final int maxConcurrentRefreshes;
+
+    /** The time in millis by which each shard must be refreshed next, guarded by {@code this}. */
+    private final Map<IndexShard, Long> deadlines = new HashMap<>();
+    /** The shards that are currently refreshing, guarded by {@code this}. */
+    private final Set<IndexShard> refreshing = new HashSet<>();
+
+    private final Cancellable scheduler;
+
+    NodeRefreshScheduler(Settings settings, ThreadPool threadPool, Iterable<IndexShard> indexShards) {
+        this.indexShards = indexShards;
+        this.threadPool = threadPool;
+        this.interval = INTERVAL_SETTING.get(settings);
+        this.maxConcurrentRefreshes = MAX_CONCURRENT_REFRESHES_SETTING.get(settings);
+        if (ENABLED_SETTING.get(settings)) {
+            logger.debug(
+                "using node level refresh scheduling with {} [{}], {} [{}]",
+                INTERVAL_SETTING.getKey(),
+                interval,
+                MAX_CONCURRENT_REFRESHES_SETTING.getKey(),
+                maxConcurrentRefreshes
+            );
+            this.scheduler = scheduleTask(threadPool);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    protected Cancellable scheduleTask(ThreadPool threadPool) {
+        // the refreshes themselves are forked, this only decides which shards are due
+        return threadPool.scheduleWithFixedDelay(this::run, interval, Names.GENERIC);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.cancel();
+        }
+    }
+
+    protected long currentTimeMillis() {
+        return threadPool.relativeTimeInMillis();
+    }
+
+    synchronized void run() {
+        final long now = currentTimeMillis();
+        // anything that is due before the next run is refreshed now rather than late
+        final long horizon = now + interval.millis();
+        final Set<IndexShard> seen = new HashSet<>();
+        final List<IndexShard> due = new ArrayList<>();
+        for (IndexShard shard : indexShards) {
+            if (shard.state() != IndexShardState.STARTED && shard.state() != IndexShardState.POST_RECOVERY) {
+                continue;
+            }
+            seen.add(shard);
+            final long refreshInterval = shard.indexSettings().getRefreshInterval().millis();
+            if (refreshInterval <= 0) {
+                // periodic refreshes are disabled for this index
+                deadlines.remove(shard);
+                continue;
+            }
+            final Long deadline = deadlines.get(shard);
+            if (deadline == null) {
+                deadlines.put(shard, now + refreshInterval);
+                continue;
+            }
+            if (deadline > horizon || refreshing.contains(shard)) {
+                continue;
+            }
+            try {
+                if (shard.scheduledRefreshNeeded()) {
+                    due.add(shard);
+                } else {
+                    // nothing to make visible, or search idle: only prune deletes and remember the pending refresh
+                    shard.scheduledRefresh();
+                    deadlines.put(shard, now + refreshInterval);
+                }
+            } catch (IndexShardClosedException | AlreadyClosedException e) {
+                // fine - the shard was closed concurrently
+            }
+        }
+        deadlines.keySet().retainAll(seen);
+
+        due.sort(Comparator.comparingLong(deadlines::get));
+        int started = 0;
+        for (IndexShard shard : due) {
+            if (refreshing.size() >= maxConcurrentRefreshes) {
+                // the remaining shards are overdue by the next run and go first then
+                break;
+            }
+            refreshing.add(shard);
+            started++;
+            refreshAsync(shard);
+        }
+        if (logger.isTraceEnabled() && due.isEmpty() == false) {
+            logger.trace("refreshing [{}] of [{}] due shards, [{}] refreshes in flight", started, due.size(), refreshing.size());
+        }
+    }
+
+    /** Refreshes the shard on the refresh pool and calls {@link #onRefreshDone} once it is done */
+    protected void refreshAsync(IndexShard shard) {
+        threadPool.executor(Names.REFRESH).execute(new AbstractRunnable() {
+            @Override
+            protected void doRun() {
+                shard.scheduledRefresh();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (e instanceof IndexShardClosedException
+                    || e instanceof AlreadyClosedException
+                    || (e instanceof EsRejectedExecutionException rejected && rejected.isExecutorShutdown())) {
+                    logger.debug(new ParameterizedMessage("{} scheduled refresh skipped", shard.shardId()), e);
+                } else {
+                    logger.warn(new ParameterizedMessage("{} scheduled refresh failed", shard.shardId()), e);
+                }
+            }
+
+            @Override
+            public void onAfter() {
+                onRefreshDone(shard);
+            }
+        });
+    }
+
+    protected synchronized void onRefreshDone(IndexShard shard) {
+        refreshing.remove(shard);
+        if (deadlines.containsKey(shard)) {
+            // like the per index task, the next refresh is due one interval after this one finished
+            deadlines.put(shard, currentTimeMillis() + shard.indexSettings().getRefreshInterval().millis());
+        }
+    }
+
+    synchronized int refreshingCount() {
+        return refreshing.size();
+    }
+}
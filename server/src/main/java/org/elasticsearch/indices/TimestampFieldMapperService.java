@@ -87,6 +87,12 @@ public class TimestampFieldMapperService extends AbstractLifecycleComponent impl
     @Override
     protected void doClose() {}
 
+    @Override
+    public boolean canApplyConcurrently() {
+        // nothing else depends on the timestamp mappers when applying a cluster state
+        return true;
+    }
+
     @Override
     public void applyClusterState(ClusterChangedEvent event) {
         final Metadata metadata = event.state().metadata();
@@ -98,9 +104,9 @@ public class TimestampFieldMapperService extends AbstractLifecycleComponent impl
         // clear out mappers for indices that no longer exist or whose timestamp range is no longer known
         fieldTypesByIndex.keySet().removeIf(index -> hasUsefulTimestampField(metadata.index(index)) == false);
 
-        // capture mappers for indices that do exist
-        for (IndexMetadata indexMetadata : indices.values()) {
-            final Index index = indexMetadata.getIndex();
+        // capture mappers for indices that do exist; the others were captured when their metadata last changed
+        for (Index index : event.indicesWithMetadataChanges()) {
+            final IndexMetadata indexMetadata = metadata.index(index);
 
             if (hasUsefulTimestampField(indexMetadata) && fieldTypesByIndex.containsKey(index) == false) {
                 logger.trace("computing timestamp mapping for {}", index);
@@ -109,6 +109,9 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
     private final RetentionLeaseSyncer retentionLeaseSyncer;
     private final NodeClient client;
 
+    // the last cluster state that was applied completely, whose index metadata the allocated indices therefore hold
+    private ClusterState lastAppliedState;
+
     @Inject
     public IndicesClusterStateService(
         final Settings settings,
@@ -196,6 +199,8 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
 
         final ClusterState state = event.state();
+        final ClusterState previouslyAppliedState = lastAppliedState;
+        lastAppliedState = null;
 
         final DiscoveryNode currentMaster = state.nodes().getMasterNode();
         if (currentMaster != null && currentMaster.equals(event.previousState().nodes().getMasterNode()) == false) {
@@ -212,6 +217,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                 // also cleans shards
                 indicesService.removeIndex(indexService.index(), NO_LONGER_ASSIGNED, "cleaning index (disabled block persistence)");
             }
+            lastAppliedState = state;
             return;
         }
 
@@ -225,11 +231,14 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
         removeShards(state);   // removes any local shards that doesn't match what the master expects
 
-        updateIndices(event); // can also fail shards, but these are then guaranteed to be in failedShardsCache
+        // can also fail shards, but these are then guaranteed to be in failedShardsCache
+        updateIndices(event, event.previousState() == previouslyAppliedState);
 
         createIndices(state);
 
         createOrUpdateShards(state);
+
+        lastAppliedState = state;
     }
 
     /**
@@ -240,7 +249,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * @param state new cluster state
      */
     private void updateFailedShardsCache(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+        RoutingNode localRoutingNode = state.getRoutingNode(state.nodes().getLocalNodeId());
         if (localRoutingNode == null) {
             failedShardsCache.clear();
             return;
@@ -368,7 +377,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         assert localNodeId != null;
 
         final Set<Index> indicesWithShards = new HashSet<>();
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
+        RoutingNode localRoutingNode = state.getRoutingNode(localNodeId);
         if (localRoutingNode != null) { // null e.g. if we are not a data node
             for (ShardRouting shardRouting : localRoutingNode) {
                 indicesWithShards.add(shardRouting.index());
@@ -409,7 +418,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * @param state new cluster state
      */
     private void failMissingShards(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+        RoutingNode localRoutingNode = state.getRoutingNode(state.nodes().getLocalNodeId());
         if (localRoutingNode == null) {
             return;
         }
@@ -440,7 +449,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         assert localNodeId != null;
 
         // remove shards based on routing nodes (no deletion of data)
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
+        RoutingNode localRoutingNode = state.getRoutingNode(localNodeId);
         for (AllocatedIndex<? extends Shard> indexService : indicesService) {
             for (Shard shard : indexService) {
                 ShardRouting currentRoutingEntry = shard.routingEntry();
@@ -478,7 +487,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
     private void createIndices(final ClusterState state) {
         // we only create indices for shards that are allocated
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+        RoutingNode localRoutingNode = state.getRoutingNode(state.nodes().getLocalNodeId());
         if (localRoutingNode == null) {
             return;
         }
@@ -517,39 +526,59 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void updateIndices(ClusterChangedEvent event) {
+    /**
+     * Updates the metadata and mappings of the allocated indices whose metadata changed.
+     *
+     * @param event                cluster change event
+     * @param previousStateApplied whether the previous cluster state of the event was applied completely, in which case only the
+     *                             indices whose metadata changed since then need visiting rather than all allocated indices
+     */
+    private void updateIndices(ClusterChangedEvent event, boolean previousStateApplied) {
         if (event.metadataChanged() == false) {
             return;
         }
         final ClusterState state = event.state();
-        for (AllocatedIndex<? extends Shard> indexService : indicesService) {
-            final Index index = indexService.index();
-            final IndexMetadata currentIndexMetadata = indexService.getIndexSettings().getIndexMetadata();
-            final IndexMetadata newIndexMetadata = state.metadata().index(index);
-            assert newIndexMetadata != null : "index " + index + " should have been removed by deleteIndices";
-            if (ClusterChangedEvent.indexMetadataChanged(currentIndexMetadata, newIndexMetadata)) {
-                String reason = null;
-                try {
-                    reason = "metadata update failed";
-                    try {
-                        indexService.updateMetadata(currentIndexMetadata, newIndexMetadata);
-                    } catch (Exception e) {
-                        assert false : e;
-                        throw e;
-                    }
+        if (previousStateApplied) {
+            for (Index index : event.indicesWithMetadataChanges()) {
+                final AllocatedIndex<? extends Shard> indexService = indicesService.indexService(index);
+                if (indexService != null) {
+                    updateIndex(indexService, state);
+                }
+            }
+        } else {
+            for (AllocatedIndex<? extends Shard> indexService : indicesService) {
+                updateIndex(indexService, state);
+            }
+        }
+    }
 
-                    reason = "mapping update failed";
-                    indexService.updateMapping(currentIndexMetadata, newIndexMetadata);
+    private void updateIndex(AllocatedIndex<? extends Shard> indexService, ClusterState state) {
+        final Index index = indexService.index();
+        final IndexMetadata currentIndexMetadata = indexService.getIndexSettings().getIndexMetadata();
+        final IndexMetadata newIndexMetadata = state.metadata().index(index);
+        assert newIndexMetadata != null : "index " + index + " should have been removed by deleteIndices";
+        if (ClusterChangedEvent.indexMetadataChanged(currentIndexMetadata, newIndexMetadata)) {
+            String reason = null;
+            try {
+                reason = "metadata update failed";
+                try {
+                    indexService.updateMetadata(currentIndexMetadata, newIndexMetadata);
                 } catch (Exception e) {
-                    indicesService.removeIndex(indexService.index(), FAILURE, "removing index (" + reason + ")");
-
-                    // fail shards that would be created or updated by createOrUpdateShards
-                    RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
-                    if (localRoutingNode != null) {
-                        for (final ShardRouting shardRouting : localRoutingNode) {
-                            if (shardRouting.index().equals(index) && failedShardsCache.containsKey(shardRouting.shardId()) == false) {
-                                sendFailShard(shardRouting, "failed to update index (" + reason + ")", e, state);
-                            }
+                    assert false : e;
+                    throw e;
+                }
+
+                reason = "mapping update failed";
+                indexService.updateMapping(currentIndexMetadata, newIndexMetadata);
+            } catch (Exception e) {
+                indicesService.removeIndex(indexService.index(), FAILURE, "removing index (" + reason + ")");
+
+                // fail shards that would be created or updated by createOrUpdateShards
+                RoutingNode localRoutingNode = state.getRoutingNode(state.nodes().getLocalNodeId());
+                if (localRoutingNode != null) {
+                    for (final ShardRouting shardRouting : localRoutingNode) {
+                        if (shardRouting.index().equals(index) && failedShardsCache.containsKey(shardRouting.shardId()) == false) {
+                            sendFailShard(shardRouting, "failed to update index (" + reason + ")", e, state);
                         }
                     }
                 }
@@ -558,7 +587,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
     }
 
     private void createOrUpdateShards(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+        RoutingNode localRoutingNode = state.getRoutingNode(state.nodes().getLocalNodeId());
         if (localRoutingNode == null) {
             return;
         }
@@ -247,6 +247,11 @@ public abstract class BaseRestHandler implements RestHandler {
             return delegate.allowsUnsafeBuffers();
         }
 
+        @Override
+        public boolean allowsStreamedBody() {
+            return delegate.allowsStreamedBody();
+        }
+
         @Override
         public boolean mediaTypesValid(RestRequest request) {
             return delegate.mediaTypesValid(request);
@@ -339,7 +339,19 @@ public class RestController implements HttpServerTransport.Dispatcher {
     private void dispatchRequest(RestRequest request, RestChannel channel, RestHandler handler, ThreadContext threadContext)
         throws Exception {
         final int contentLength = request.contentLength();
-        if (contentLength > 0) {
+        final boolean streamedBody = request.bodyStream() != null;
+        if (streamedBody && handler.allowsStreamedBody() == false) {
+            // the HTTP layer only streams the bodies of requests to handlers that support it, see AbstractHttpServerTransport
+            channel.sendResponse(
+                BytesRestResponse.createSimpleErrorResponse(
+                    channel,
+                    BAD_REQUEST,
+                    "handler for [" + request.method() + " " + request.path() + "] does not support streamed request bodies"
+                )
+            );
+            return;
+        }
+        if (contentLength > 0 || streamedBody) {
             if (isContentTypeDisallowed(request) || handler.mediaTypesValid(request) == false) {
                 sendContentTypeErrorMessage(request.getAllHeaderValues("Content-Type"), channel);
                 return;
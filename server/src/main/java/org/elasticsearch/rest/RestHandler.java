@@ -46,6 +46,14 @@ public interface RestHandler {
         return false;
     }
 
+    /**
+     * Indicates if the RestHandler can handle requests whose body the HTTP layer passes on in chunks as they arrive, see
+     * {@link RestRequest#bodyStream()}, rather than aggregated in memory.
+     */
+    default boolean allowsStreamedBody() {
+        return false;
+    }
+
     /**
      * Indicates if the RestHandler supports working with pooled buffers. If the request handler will not escape the return
      * {@link RestRequest#content()} or any buffers extracted from it then there is no need to make a copies of any pooled buffers in the
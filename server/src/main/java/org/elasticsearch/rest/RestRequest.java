@@ -22,6 +22,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.RestApiVersion;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
+import org.elasticsearch.http.HttpBodyStream;
 import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.xcontent.ParsedMediaType;
@@ -283,6 +284,15 @@ public class RestRequest implements ToXContent.Params {
         return httpRequest.content();
     }
 
+    /**
+     * The stream of the body of the request if the HTTP layer passes it on in chunks as they arrive rather than aggregating it, in which
+     * case {@link #content()} is empty. Only handlers that {@link RestHandler#allowsStreamedBody() allow it} get such requests.
+     */
+    @Nullable
+    public HttpBodyStream bodyStream() {
+        return httpRequest.bodyStream();
+    }
+
     /**
      * @return content of the request body or throw an exception if the body or content type is missing
      */
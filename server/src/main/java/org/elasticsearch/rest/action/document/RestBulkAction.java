@@ -8,21 +8,40 @@
 
 package org.elasticsearch.rest.action.document;
 
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkRequestParser;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.bulk.BulkShardRequest;
 import org.elasticsearch.action.support.ActiveShardCount;
 import org.elasticsearch.client.internal.Requests;
 import org.elasticsearch.client.internal.node.NodeClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.rest.RestRequest.Method.POST;
 import static org.elasticsearch.rest.RestRequest.Method.PUT;
@@ -40,9 +59,13 @@ public class RestBulkAction extends BaseRestHandler {
     public static final String TYPES_DEPRECATION_MESSAGE = "[types removal]" + " Specifying types in bulk requests is deprecated.";
 
     private final boolean allowExplicitIndex;
+    private final long streamingBatchSize;
+    private final ByteSizeValue maxContentLength;
 
     public RestBulkAction(Settings settings) {
         this.allowExplicitIndex = MULTI_ALLOW_EXPLICIT_INDEX.get(settings);
+        this.streamingBatchSize = HttpTransportSettings.SETTING_HTTP_STREAMING_BULK_BATCH_SIZE.get(settings).getBytes();
+        this.maxContentLength = HttpTransportSettings.SETTING_HTTP_MAX_CONTENT_LENGTH.get(settings);
     }
 
     @Override
@@ -79,6 +102,33 @@ public class RestBulkAction extends BaseRestHandler {
         Boolean defaultRequireAlias = request.paramAsBoolean(DocWriteRequest.REQUIRE_ALIAS, null);
         bulkRequest.timeout(request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT));
         bulkRequest.setRefreshPolicy(request.param("refresh"));
+
+        final HttpBodyStream bodyStream = request.bodyStream();
+        if (bodyStream != null) {
+            final BulkRequestParser parser = new BulkRequestParser(true, request.getRestApiVersion());
+            final StreamingBulk streamingBulk = new StreamingBulk(
+                client,
+                bulkRequest,
+                bodyStream,
+                streamingBatchSize,
+                maxContentLength,
+                request.getXContentType()
+            );
+            final BulkRequestParser.IncrementalParser incrementalParser = parser.incrementalParser(
+                defaultIndex,
+                defaultRouting,
+                defaultFetchSourceContext,
+                defaultPipeline,
+                defaultRequireAlias,
+                allowExplicitIndex,
+                request.getXContentType(),
+                (indexRequest, type) -> streamingBulk.add(indexRequest),
+                streamingBulk::add,
+                streamingBulk::add
+            );
+            return channel -> streamingBulk.start(channel, incrementalParser);
+        }
+
         bulkRequest.add(
             request.requiredContent(),
             defaultIndex,
@@ -103,4 +153,241 @@ public class RestBulkAction extends BaseRestHandler {
     public boolean allowsUnsafeBuffers() {
         return true;
     }
+
+    @Override
+    public boolean allowsStreamedBody() {
+        return true;
+    }
+
+    /**
+     * Handles a bulk request whose body is streamed, see {@link RestRequest#bodyStream()}. It parses the body as it arrives and sends
+     * the items on in batches of about {@link HttpTransportSettings#SETTING_HTTP_STREAMING_BULK_BATCH_SIZE}, parsing the next batch
+     * while the previous one is in flight. Once the next batch is full it stops reading the body until the previous one completes, so
+     * the client sends the body no faster than the cluster indexes it, and no more than two batches of it are on the heap at a time
+     * rather than all of it. The items of all batches go into a single response, in the order of the body.
+     * <p>
+     * The body as a whole may be longer than {@link HttpTransportSettings#SETTING_HTTP_MAX_CONTENT_LENGTH}, but a single line of it may
+     * not, since it must be on the heap in one piece before it can be parsed.
+     * <p>
+     * If a batch fails as a whole, for instance because {@link org.elasticsearch.index.IndexingPressure} rejects it, or if the body is
+     * malformed, the response is the error, even though the batches before may have been indexed.
+     */
+    static final class StreamingBulk implements HttpBodyStream.ChunkHandler {
+
+        private final NodeClient client;
+        private final BulkRequest template;
+        private final HttpBodyStream bodyStream;
+        private final long batchSize;
+        private final ByteSizeValue maxUnparsedBytes;
+        private final byte marker;
+        private final long startNanos = System.nanoTime();
+
+        private RestStatusToXContentListener<BulkResponse> listener;
+        private BulkRequestParser.IncrementalParser parser;
+
+        // the fields below are guarded by this
+        // the pieces of the body that have arrived but that are not parsed yet since they don't end with a complete item
+        private final List<BytesReference> unparsed = new ArrayList<>();
+        private long unparsedLength;
+        private final List<BulkItemResponse> items = new ArrayList<>();
+        private long ingestTookInMillis = BulkResponse.NO_INGEST_TOOK;
+        private long bodyLength;
+        private BulkRequest currentBatch;
+        private boolean batchInFlight;
+        private boolean sentBatch;
+        private boolean chunkRequested;
+        private boolean receivedLast;
+        private boolean finished;
+
+        StreamingBulk(
+            NodeClient client,
+            BulkRequest template,
+            HttpBodyStream bodyStream,
+            long batchSize,
+            ByteSizeValue maxUnparsedBytes,
+            XContentType xContentType
+        ) {
+            this.client = client;
+            this.template = template;
+            this.bodyStream = bodyStream;
+            this.batchSize = batchSize;
+            this.maxUnparsedBytes = maxUnparsedBytes;
+            this.marker = xContentType.xContent().streamSeparator();
+            this.currentBatch = newBatch();
+        }
+
+        void start(RestChannel channel, BulkRequestParser.IncrementalParser incrementalParser) {
+            synchronized (this) {
+                this.listener = new RestStatusToXContentListener<>(channel);
+                this.parser = incrementalParser;
+            }
+            bodyStream.setHandler(this);
+            step();
+        }
+
+        /**
+         * Adds an item that the parser has just parsed to the current batch.
+         */
+        void add(DocWriteRequest<?> request) {
+            assert Thread.holdsLock(this);
+            currentBatch.add(request);
+        }
+
+        private BulkRequest newBatch() {
+            final BulkRequest batch = new BulkRequest();
+            batch.waitForActiveShards(template.waitForActiveShards());
+            batch.timeout(template.timeout());
+            batch.setRefreshPolicy(template.getRefreshPolicy());
+            return batch;
+        }
+
+        @Override
+        public void onNext(ReleasableBytesReference chunk, boolean isLast) {
+            // copied off the pooled network buffer, which goes back to the pool right away rather than once the batch is indexed
+            final BytesReference bytes;
+            try (chunk) {
+                bytes = new BytesArray(BytesReference.toBytes(chunk));
+            }
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                chunkRequested = false;
+                receivedLast = isLast;
+                bodyLength += bytes.length();
+                if (bytes.length() > 0) {
+                    unparsed.add(bytes);
+                    unparsedLength += bytes.length();
+                }
+                // items end with a marker, so there's nothing new to parse if the chunk has none
+                if (isLast || bytes.indexOf(marker, 0) != -1) {
+                    try {
+                        parse(isLast);
+                    } catch (Exception e) {
+                        fail(e);
+                        return;
+                    }
+                }
+                // what is left is the start of a line that we can only parse once its end arrives
+                if (unparsedLength > maxUnparsedBytes.getBytes()) {
+                    fail(
+                        new ElasticsearchStatusException(
+                            "bulk request line is longer than [{}]",
+                            RestStatus.REQUEST_ENTITY_TOO_LARGE,
+                            maxUnparsedBytes
+                        )
+                    );
+                    return;
+                }
+            }
+            step();
+        }
+
+        private void parse(boolean lastData) throws IOException {
+            assert Thread.holdsLock(this);
+            if (lastData && bodyLength == 0) {
+                throw new ElasticsearchParseException("request body is required");
+            }
+            int consumed = parser.parse(CompositeBytesReference.of(unparsed.toArray(new BytesReference[0])), lastData);
+            unparsedLength -= consumed;
+            // drop the parsed pieces, so that those that are left don't nest in composites when they are parsed again
+            final Iterator<BytesReference> iterator = unparsed.iterator();
+            while (consumed > 0) {
+                final BytesReference piece = iterator.next();
+                if (piece.length() <= consumed) {
+                    iterator.remove();
+                    consumed -= piece.length();
+                } else {
+                    unparsed.set(0, piece.slice(consumed, piece.length() - consumed));
+                    consumed = 0;
+                }
+            }
+        }
+
+        /**
+         * Sends the current batch if it is full, or the last one, and no other batch is in flight, asks for the next chunk of the body if
+         * the current batch isn't full yet, and sends the response once all batches are done.
+         */
+        private void step() {
+            BulkRequest batchToSend = null;
+            boolean askForChunk = false;
+            BulkResponse response = null;
+            synchronized (this) {
+                if (finished || listener == null) {
+                    return;
+                }
+                final boolean batchFull = currentBatch.estimatedSizeInBytes() >= batchSize;
+                if (batchInFlight == false) {
+                    // an empty bulk still goes through the bulk action, which rejects it
+                    if (batchFull || (receivedLast && (currentBatch.numberOfActions() > 0 || sentBatch == false))) {
+                        batchToSend = currentBatch;
+                        currentBatch = newBatch();
+                        batchInFlight = true;
+                        sentBatch = true;
+                    } else if (receivedLast) {
+                        finished = true;
+                        final long tookInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                        response = new BulkResponse(items.toArray(new BulkItemResponse[0]), tookInMillis, ingestTookInMillis);
+                    }
+                }
+                if (receivedLast == false && chunkRequested == false && currentBatch.estimatedSizeInBytes() < batchSize) {
+                    chunkRequested = true;
+                    askForChunk = true;
+                }
+            }
+            if (batchToSend != null) {
+                client.bulk(batchToSend, ActionListener.wrap(this::onBatchResponse, this::fail));
+            }
+            if (askForChunk) {
+                bodyStream.next();
+            }
+            if (response != null) {
+                listener.onResponse(response);
+            }
+        }
+
+        private void onBatchResponse(BulkResponse response) {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                // the items are numbered within their batch, but the response numbers them within the whole bulk
+                final int offset = items.size();
+                for (BulkItemResponse item : response.getItems()) {
+                    final int id = offset + item.getItemId();
+                    items.add(
+                        item.isFailed()
+                            ? BulkItemResponse.failure(id, item.getOpType(), item.getFailure())
+                            : BulkItemResponse.success(id, item.getOpType(), item.getResponse())
+                    );
+                }
+                if (response.getIngestTookInMillis() != BulkResponse.NO_INGEST_TOOK) {
+                    ingestTookInMillis = Math.max(ingestTookInMillis, 0L) + response.getIngestTookInMillis();
+                }
+                batchInFlight = false;
+            }
+            step();
+        }
+
+        private void fail(Exception e) {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                unparsed.clear();
+                unparsedLength = 0;
+            }
+            // sending the response releases the request, which drops the rest of the body
+            listener.onFailure(e);
+        }
+
+        @Override
+        public synchronized void close() {
+            // the connection is gone, so there is no one to send the response to, but the batch in flight still completes
+            finished = true;
+            unparsed.clear();
+            unparsedLength = 0;
+        }
+    }
 }
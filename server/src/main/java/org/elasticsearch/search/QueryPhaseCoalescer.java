@@ -0,0 +1,215 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRunnable;
+import org.elasticsearch.action.support.ContextPreservingActionListener;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.CheckedRunnable;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.tasks.CancellableTask;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lets identical shard-level query phases that run at the same time share a single execution. The first query phase for a {@link Key}
+ * executes, and those that arrive while it runs wait for it and then read a serialized copy of its result, much like the
+ * {@link org.elasticsearch.indices.IndicesRequestCache} makes concurrent loads of the same entry wait for a single one. Unlike the
+ * request cache nothing is kept once the execution completes, so this also helps requests that the request cache doesn't cache, like
+ * those that return hits, as long as their result only depends on the request and the reader. Waiting doesn't hold on to a thread:
+ * the waiters are notified through a listener once the execution completes.
+ */
+final class QueryPhaseCoalescer {
+
+    private static final Logger logger = LogManager.getLogger(QueryPhaseCoalescer.class);
+
+    /**
+     * Identifies the query phases that have the same result: the {@link org.elasticsearch.indices.IndicesRequestCache} key of the
+     * request, which includes what plugins add to it to tell apart the users that may see different documents, and the reader and
+     * the mappings that the request runs against.
+     */
+    record Key(Object readerCacheKey, MappingLookup.CacheKey mappingCacheKey, BytesReference requestKey) {}
+
+    private final ThreadContext threadContext;
+    private final Map<Key, Execution> executions = ConcurrentCollections.newConcurrentMap();
+    private final CounterMetric coalesced = new CounterMetric();
+
+    QueryPhaseCoalescer(ThreadContext threadContext) {
+        this.threadContext = threadContext;
+    }
+
+    /**
+     * Executes a query phase, unless an identical one is running already in which case this returns straight away and the listener
+     * is notified once that one completes.
+     *
+     * @param key         identifies the query phase
+     * @param execute     executes the query phase into the caller's search context
+     * @param shareResult whether the result that the caller executed may be shared, which it may not be if it is partial for instance
+     * @param serialize   writes the result of the query phase from the caller's search context, only if others wait for it
+     * @param task        the caller's task, which stops waiting if it gets cancelled
+     * @param executor    runs the rest of the caller's query phase once the query phase that it waited for completes
+     * @param listener    notified with {@code null} if the caller executed the query phase itself, or with the serialized result of the
+     *                    query phase it waited for
+     */
+    void execute(
+        Key key,
+        CheckedRunnable<Exception> execute,
+        BooleanSupplier shareResult,
+        CheckedConsumer<StreamOutput, IOException> serialize,
+        CancellableTask task,
+        Executor executor,
+        ActionListener<BytesReference> listener
+    ) {
+        final Execution execution = new Execution();
+        final Execution running = executions.putIfAbsent(key, execution);
+        if (running != null) {
+            if (running.join()) {
+                await(running, execute, task, executor, listener);
+            } else {
+                // the running query phase completed right before we could join it
+                ActionListener.completeWith(listener, () -> {
+                    execute.run();
+                    return null;
+                });
+            }
+            return;
+        }
+
+        ActionListener.completeWith(listener, () -> {
+            boolean success = false;
+            try {
+                execute.run();
+                success = true;
+            } finally {
+                executions.remove(key, execution);
+                execution.complete(success && shareResult.getAsBoolean() ? serialize : null);
+            }
+            return null;
+        });
+    }
+
+    private void await(
+        Execution running,
+        CheckedRunnable<Exception> execute,
+        CancellableTask task,
+        Executor executor,
+        ActionListener<BytesReference> listener
+    ) {
+        final ActionListener<BytesReference> waiter = ContextPreservingActionListener.wrapPreservingContext(listener, threadContext);
+        // the cancellation of the caller's task and the completion of the running query phase race to notify the waiter, and once the
+        // waiter is notified of its cancellation its search context is released, so only the first of them goes on
+        final AtomicBoolean notified = new AtomicBoolean();
+        task.addListener(() -> {
+            if (notified.compareAndSet(false, true)) {
+                running.leave();
+                task.notifyIfCancelled(waiter);
+            }
+        });
+        running.result.addListener(ContextPreservingActionListener.wrapPreservingContext(ActionListener.wrap(result -> {
+            if (notified.compareAndSet(false, true)) {
+                // the running query phase completed on the thread that executed it, which mustn't restore or execute this one too
+                executor.execute(ActionRunnable.wrap(waiter, l -> {
+                    if (result != null) {
+                        coalesced.inc();
+                        l.onResponse(result);
+                    } else {
+                        // the running query phase failed, which may be down to something specific to it like its cancellation, or
+                        // its result can't be shared
+                        execute.run();
+                        l.onResponse(null);
+                    }
+                }));
+            }
+        }, waiter::onFailure), threadContext));
+    }
+
+    /**
+     * The number of query phases that didn't execute because they could use the result of an identical one.
+     */
+    long coalescedCount() {
+        return coalesced.count();
+    }
+
+    /**
+     * The number of query phases that currently wait for an identical one to complete.
+     */
+    int waitingCount() {
+        int waiting = 0;
+        for (Execution execution : executions.values()) {
+            waiting += execution.waiters();
+        }
+        return waiting;
+    }
+
+    private static final class Execution {
+
+        // never completed exceptionally, a failed execution completes with null
+        private final ListenableFuture<BytesReference> result = new ListenableFuture<>();
+        // guarded by this
+        private int waiters;
+        private boolean completing;
+
+        synchronized int waiters() {
+            return waiters;
+        }
+
+        synchronized boolean join() {
+            if (completing) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        synchronized void leave() {
+            if (completing == false) {
+                waiters--;
+            }
+        }
+
+        /**
+         * Hands the result to the waiters, if there are any, or {@code null} if the execution failed.
+         */
+        void complete(@Nullable CheckedConsumer<StreamOutput, IOException> serialize) {
+            synchronized (this) {
+                completing = true;
+                if (waiters == 0) {
+                    // nobody joined and nobody can join anymore, so there is no need to serialize the result
+                    return;
+                }
+            }
+            BytesReference bytes = null;
+            if (serialize != null) {
+                // the same initial size as the request cache uses, since the results are typically as small as the cached ones
+                try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                    serialize.accept(out);
+                    bytes = out.bytes();
+                } catch (IOException e) {
+                    logger.debug("failed to serialize a query result for coalesced query phases", e);
+                }
+            }
+            result.onResponse(bytes);
+        }
+    }
+}
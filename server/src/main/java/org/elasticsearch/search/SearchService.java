@@ -30,8 +30,10 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
@@ -40,6 +42,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
@@ -187,6 +190,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.NodeScope
     );
 
+    /**
+     * Lets identical shard-level query phases that run on a node at the same time, like those of many users looking at the same
+     * dashboard, share a single execution. Query phases that the request cache caches are coalesced by the request cache already.
+     */
+    public static final Setting<Boolean> COALESCE_IDENTICAL_QUERIES_SETTING = Setting.boolSetting(
+        "search.coalesce_identical_queries",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final TimeValue NO_TIMEOUT = timeValueMillis(-1);
     public static final Setting<TimeValue> DEFAULT_SEARCH_TIMEOUT_SETTING = Setting.timeSetting(
         "search.default_search_timeout",
@@ -260,6 +274,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean enableRewriteAggsToFilterByFilter;
 
+    private volatile boolean coalesceIdenticalQueries;
+
+    private final QueryPhaseCoalescer queryPhaseCoalescer;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
@@ -297,6 +315,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             circuitBreakerService.getBreaker(CircuitBreaker.REQUEST)
         );
         this.executorSelector = executorSelector;
+        this.queryPhaseCoalescer = new QueryPhaseCoalescer(threadPool.getThreadContext());
 
         TimeValue keepAliveInterval = KEEPALIVE_INTERVAL_SETTING.get(settings);
         setKeepAlives(DEFAULT_KEEPALIVE_SETTING.get(settings), MAX_KEEPALIVE_SETTING.get(settings));
@@ -322,6 +341,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         enableRewriteAggsToFilterByFilter = ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER.get(settings);
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER, this::setEnableRewriteAggsToFilterByFilter);
+
+        coalesceIdenticalQueries = COALESCE_IDENTICAL_QUERIES_SETTING.get(settings);
+        clusterService.getClusterSettings()
+            .addSettingsUpdateConsumer(COALESCE_IDENTICAL_QUERIES_SETTING, this::setCoalesceIdenticalQueries);
     }
 
     private void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -364,6 +387,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.maxOpenScrollContext = maxOpenScrollContext;
     }
 
+    private void setCoalesceIdenticalQueries(boolean coalesceIdenticalQueries) {
+        this.coalesceIdenticalQueries = coalesceIdenticalQueries;
+    }
+
     private void setLowLevelCancellation(Boolean lowLevelCancellation) {
         this.lowLevelCancellation = lowLevelCancellation;
     }
@@ -431,7 +458,12 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         final IndexShard shard = getShard(request);
         rewriteAndFetchShardRequest(shard, request, listener.delegateFailure((l, rewritten) -> {
             // fork the execution in the search thread pool
-            ensureAfterSeqNoRefreshed(shard, request, () -> executeDfsPhase(request, task), l);
+            ensureAfterSeqNoRefreshed(
+                shard,
+                request,
+                dfsListener -> ActionListener.completeWith(dfsListener, () -> executeDfsPhase(request, task)),
+                l
+            );
         }));
     }
 
@@ -451,16 +483,60 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     }
 
     /**
-     * Try to load the query results from the cache or execute the query phase directly if the cache cannot be used.
+     * Try to load the query results from the cache or execute the query phase directly if the cache cannot be used. The listener is
+     * notified on another thread if the query phase waits for an identical one.
      */
-    private void loadOrExecuteQueryPhase(final ShardSearchRequest request, final SearchContext context) throws Exception {
-        final boolean canCache = indicesService.canCache(request, context);
-        context.getSearchExecutionContext().freezeContext();
-        if (canCache) {
-            indicesService.loadIntoContext(request, context, queryPhase);
-        } else {
-            queryPhase.execute(context);
+    private void loadOrExecuteQueryPhase(final ShardSearchRequest request, final SearchContext context, ActionListener<Void> listener) {
+        try {
+            final boolean canCache = indicesService.canCache(request, context);
+            context.getSearchExecutionContext().freezeContext();
+            if (canCache) {
+                indicesService.loadIntoContext(request, context, queryPhase);
+            } else if (coalesceIdenticalQueries && indicesService.canShareResult(request, context)) {
+                coalesceQueryPhase(request, context, listener);
+                return;
+            } else {
+                queryPhase.execute(context);
+            }
+        } catch (Exception e) {
+            listener.onFailure(e);
+            return;
         }
+        listener.onResponse(null);
+    }
+
+    /**
+     * Executes the query phase, or waits for an identical one that is running already and restores its result into the context.
+     */
+    private void coalesceQueryPhase(ShardSearchRequest request, SearchContext context, ActionListener<Void> listener) throws IOException {
+        final QueryPhaseCoalescer.Key key = new QueryPhaseCoalescer.Key(
+            ElasticsearchDirectoryReader.getESReaderCacheHelper(context.searcher().getDirectoryReader()).getKey(),
+            context.getSearchExecutionContext().mappingCacheKey(),
+            indicesService.requestCacheKey(request)
+        );
+        queryPhaseCoalescer.execute(
+            key,
+            () -> queryPhase.execute(context),
+            // a timed out query phase only has the hits that it found in time, the others should try to find all of them
+            () -> context.queryResult().searchTimedOut() == false,
+            out -> context.queryResult().writeToNoId(out),
+            context.getTask(),
+            getExecutor(context.indexShard()),
+            listener.map(shared -> {
+                if (shared != null) {
+                    indicesService.restoreQueryResult(context, shared);
+                }
+                return null;
+            })
+        );
+    }
+
+    long coalescedQueryPhaseCount() {
+        return queryPhaseCoalescer.coalescedCount();
+    }
+
+    int waitingQueryPhaseCount() {
+        return queryPhaseCoalescer.waitingCount();
     }
 
     public void executeQueryPhase(ShardSearchRequest request, SearchShardTask task, ActionListener<SearchPhaseResult> listener) {
@@ -484,14 +560,14 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     return;
                 }
             }
-            ensureAfterSeqNoRefreshed(shard, orig, () -> executeQueryPhase(orig, task), l);
+            ensureAfterSeqNoRefreshed(shard, orig, queryListener -> executeShardQueryPhase(orig, task, queryListener), l);
         }));
     }
 
     private <T> void ensureAfterSeqNoRefreshed(
         IndexShard shard,
         ShardSearchRequest request,
-        CheckedSupplier<T, Exception> executable,
+        CheckedConsumer<ActionListener<T>, Exception> executable,
         ActionListener<T> listener
     ) {
         final ActionRunnable<T> runnable = new ActionRunnable<>(listener) {
@@ -570,7 +646,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                                 if (localTimeoutTask != null) {
                                     localTimeoutTask.cancel();
                                 }
-                                runAsync(executor, executable, listener);
+                                executor.execute(ActionRunnable.wrap(listener, executable));
                             }
                         }
                     };
@@ -590,7 +666,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     }
                     shard.addRefreshListener(waitForCheckpoint, readyListener);
                 } else {
-                    runAsync(executor, executable, listener);
+                    executor.execute(ActionRunnable.wrap(listener, executable));
                 }
             }
         };
@@ -614,31 +690,11 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         executor.execute(ActionRunnable.supply(listener, executable::get));
     }
 
-    private SearchPhaseResult executeQueryPhase(ShardSearchRequest request, SearchShardTask task) throws Exception {
+    private void executeShardQueryPhase(ShardSearchRequest request, SearchShardTask task, ActionListener<SearchPhaseResult> listener) {
         final ReaderContext readerContext = createOrGetReaderContext(request);
-        try (
-            Releasable ignored = readerContext.markAsUsed(getKeepAlive(request));
-            SearchContext context = createContext(readerContext, request, task, true)
-        ) {
-            final long afterQueryTime;
-            try (SearchOperationListenerExecutor executor = new SearchOperationListenerExecutor(context)) {
-                loadOrExecuteQueryPhase(request, context);
-                if (context.queryResult().hasSearchContext() == false && readerContext.singleSession()) {
-                    freeReaderContext(readerContext.id());
-                }
-                afterQueryTime = executor.success();
-            }
-            if (request.numberOfShards() == 1) {
-                return executeFetchPhase(readerContext, context, afterQueryTime);
-            } else {
-                // Pass the rescoreDocIds to the queryResult to send them the coordinating node and receive them back in the fetch phase.
-                // We also pass the rescoreDocIds to the LegacyReaderContext in case the search state needs to stay in the data node.
-                final RescoreDocIds rescoreDocIds = context.rescoreDocIds();
-                context.queryResult().setRescoreDocIds(rescoreDocIds);
-                readerContext.setRescoreDocIds(rescoreDocIds);
-                return context.queryResult();
-            }
-        } catch (Exception e) {
+        // the query phase may complete on another thread if it waits for an identical one, so the resources are released by the listener
+        final List<Releasable> releasables = new ArrayList<>(2);
+        final ActionListener<SearchPhaseResult> queryListener = ActionListener.runBefore(listener.delegateResponse((l, e) -> {
             // execution exception can happen while loading the cache, strip it
             if (e instanceof ExecutionException) {
                 e = (e.getCause() == null || e.getCause() instanceof Exception)
@@ -647,7 +703,55 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             }
             logger.trace("Query phase failed", e);
             processFailure(readerContext, e);
-            throw e;
+            l.onFailure(e);
+        }), () -> Releasables.close(releasables));
+        final SearchContext context;
+        final SearchOperationListenerExecutor executor;
+        try {
+            releasables.add(readerContext.markAsUsed(getKeepAlive(request)));
+            context = createContext(readerContext, request, task, true);
+            releasables.add(0, context);
+            executor = new SearchOperationListenerExecutor(context);
+        } catch (Exception e) {
+            queryListener.onFailure(e);
+            return;
+        }
+        loadOrExecuteQueryPhase(request, context, new ActionListener<>() {
+            @Override
+            public void onResponse(Void ignored) {
+                ActionListener.completeWith(queryListener, () -> afterQueryPhase(request, readerContext, context, executor));
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                executor.close();
+                queryListener.onFailure(e);
+            }
+        });
+    }
+
+    private SearchPhaseResult afterQueryPhase(
+        ShardSearchRequest request,
+        ReaderContext readerContext,
+        SearchContext context,
+        SearchOperationListenerExecutor executor
+    ) {
+        final long afterQueryTime;
+        try (executor) {
+            if (context.queryResult().hasSearchContext() == false && readerContext.singleSession()) {
+                freeReaderContext(readerContext.id());
+            }
+            afterQueryTime = executor.success();
+        }
+        if (request.numberOfShards() == 1) {
+            return executeFetchPhase(readerContext, context, afterQueryTime);
+        } else {
+            // Pass the rescoreDocIds to the queryResult to send them the coordinating node and receive them back in the fetch phase.
+            // We also pass the rescoreDocIds to the LegacyReaderContext in case the search state needs to stay in the data node.
+            final RescoreDocIds rescoreDocIds = context.rescoreDocIds();
+            context.queryResult().setRescoreDocIds(rescoreDocIds);
+            readerContext.setRescoreDocIds(rescoreDocIds);
+            return context.queryResult();
         }
     }
 
@@ -14,15 +14,18 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.common.CheckedBiConsumer;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.document.DocumentField;
 import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.SourceLoader;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.search.LeafNestedDocuments;
 import org.elasticsearch.search.NestedDocuments;
@@ -116,10 +119,13 @@ public class FetchPhase {
 
         List<FetchSubPhaseProcessor> processors = getProcessors(context.shardTarget(), fetchContext, profiler);
         NestedDocuments nestedDocuments = context.getSearchExecutionContext().getNestedDocuments();
+        SourceLoader sourceLoader = context.getSearchExecutionContext().sourceLoader();
+        boolean sourceRequired = sourceRequired(context);
 
         int currentReaderIndex = -1;
         LeafReaderContext currentReaderContext = null;
         LeafNestedDocuments leafNestedDocuments = null;
+        SourceLoader.Leaf leafSourceLoader = null;
         CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader = null;
         boolean hasSequentialDocs = hasSequentialDocs(docs);
         for (int index = 0; index < context.docIdsToLoadSize(); index++) {
@@ -149,6 +155,7 @@ public class FetchPhase {
                             processor.setNextReader(currentReaderContext);
                         }
                         leafNestedDocuments = nestedDocuments.getLeafNestedDocuments(currentReaderContext);
+                        leafSourceLoader = sourceRequired ? sourceLoader.leaf(currentReaderContext.reader()) : null;
                     } finally {
                         profiler.stopNextReader();
                     }
@@ -158,6 +165,7 @@ public class FetchPhase {
                     context,
                     profiler,
                     leafNestedDocuments,
+                    leafSourceLoader,
                     fieldsVisitor,
                     docId,
                     storedToRequestedFields,
@@ -259,6 +267,7 @@ public class FetchPhase {
         SearchContext context,
         Profiler profiler,
         LeafNestedDocuments nestedDocuments,
+        SourceLoader.Leaf leafSourceLoader,
         FieldsVisitor fieldsVisitor,
         int docId,
         Map<String, Set<String>> storedToRequestedFields,
@@ -269,6 +278,7 @@ public class FetchPhase {
             return prepareNonNestedHitContext(
                 context,
                 profiler,
+                leafSourceLoader,
                 fieldsVisitor,
                 docId,
                 storedToRequestedFields,
@@ -298,6 +308,7 @@ public class FetchPhase {
     private HitContext prepareNonNestedHitContext(
         SearchContext context,
         Profiler profiler,
+        @Nullable SourceLoader.Leaf leafSourceLoader,
         FieldsVisitor fieldsVisitor,
         int docId,
         Map<String, Set<String>> storedToRequestedFields,
@@ -321,14 +332,16 @@ public class FetchPhase {
             }
 
             HitContext hitContext = new HitContext(hit, subReaderContext, subDocId);
-            if (fieldsVisitor.source() != null) {
+            // the leaf loader is only built when the source is required, it either returns the stored source or rebuilds it
+            BytesReference source = leafSourceLoader == null ? null : leafSourceLoader.source(fieldsVisitor, subDocId);
+            if (source != null) {
                 // Store the loaded source on the hit context so that fetch subphases can access it.
                 // Also make it available to scripts by storing it on the shared SearchLookup instance.
-                hitContext.sourceLookup().setSource(fieldsVisitor.source());
+                hitContext.sourceLookup().setSource(source);
 
                 SourceLookup scriptSourceLookup = context.getSearchExecutionContext().lookup().source();
                 scriptSourceLookup.setSegmentAndDocument(subReaderContext, subDocId);
-                scriptSourceLookup.setSource(fieldsVisitor.source());
+                scriptSourceLookup.setSource(source);
             }
             return hitContext;
         }
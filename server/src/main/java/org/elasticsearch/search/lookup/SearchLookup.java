@@ -11,6 +11,7 @@ package org.elasticsearch.search.lookup;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.SourceLoader;
 
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -50,10 +51,21 @@ public class SearchLookup {
     public SearchLookup(
         Function<String, MappedFieldType> fieldTypeLookup,
         BiFunction<MappedFieldType, Supplier<SearchLookup>, IndexFieldData<?>> fieldDataLookup
+    ) {
+        this(fieldTypeLookup, fieldDataLookup, SourceLoader.FROM_STORED_SOURCE);
+    }
+
+    /**
+     * Create the top level field lookup for a search request that loads {@code _source} with the provided {@link SourceLoader}.
+     */
+    public SearchLookup(
+        Function<String, MappedFieldType> fieldTypeLookup,
+        BiFunction<MappedFieldType, Supplier<SearchLookup>, IndexFieldData<?>> fieldDataLookup,
+        SourceLoader sourceLoader
     ) {
         this.fieldTypeLookup = fieldTypeLookup;
         this.fieldChain = Collections.emptySet();
-        this.sourceLookup = new SourceLookup();
+        this.sourceLookup = new SourceLookup(sourceLoader);
         this.fieldDataLookup = fieldDataLookup;
     }
 
@@ -20,6 +20,7 @@ import org.elasticsearch.core.MemoizedSupplier;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.SourceLoader;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.xcontent.XContentType;
 
@@ -34,8 +35,11 @@ import static java.util.Collections.emptyMap;
 
 public class SourceLookup implements Map<String, Object> {
 
+    private final SourceLoader sourceLoader;
+
     private LeafReader reader;
     private CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader;
+    private SourceLoader.Leaf leafSourceLoader;
 
     private int docId = -1;
 
@@ -43,6 +47,14 @@ public class SourceLookup implements Map<String, Object> {
     private Map<String, Object> source;
     private XContentType sourceContentType;
 
+    public SourceLookup() {
+        this(SourceLoader.FROM_STORED_SOURCE);
+    }
+
+    public SourceLookup(SourceLoader sourceLoader) {
+        this.sourceLoader = sourceLoader;
+    }
+
     public XContentType sourceContentType() {
         return sourceContentType;
     }
@@ -72,9 +84,7 @@ public class SourceLookup implements Map<String, Object> {
             return source;
         }
         try {
-            FieldsVisitor sourceFieldVisitor = new FieldsVisitor(true);
-            fieldReader.accept(docId, sourceFieldVisitor);
-            BytesReference source = sourceFieldVisitor.source();
+            BytesReference source = loadSourceBytes();
             if (source == null) {
                 this.source = emptyMap();
                 this.sourceContentType = null;
@@ -89,6 +99,15 @@ public class SourceLookup implements Map<String, Object> {
         return this.source;
     }
 
+    private BytesReference loadSourceBytes() throws IOException {
+        FieldsVisitor sourceFieldVisitor = new FieldsVisitor(true);
+        fieldReader.accept(docId, sourceFieldVisitor);
+        if (leafSourceLoader == null) {
+            leafSourceLoader = sourceLoader.leaf(reader);
+        }
+        return leafSourceLoader.source(sourceFieldVisitor, docId);
+    }
+
     private static Tuple<XContentType, Map<String, Object>> sourceAsMapAndType(BytesReference source) throws ElasticsearchParseException {
         return XContentHelper.convertToMap(source, false);
     }
@@ -115,6 +134,7 @@ public class SourceLookup implements Map<String, Object> {
         // only reset reader and fieldReader when reader changes
         if (this.reader != context.reader()) {
             this.reader = context.reader();
+            this.leafSourceLoader = null;
 
             // All the docs to fetch are adjacent but Lucene stored fields are optimized
             // for random access and don't optimize for sequential access - except for merging.
@@ -185,9 +205,7 @@ public class SourceLookup implements Map<String, Object> {
             );
         }
         try {
-            FieldsVisitor sourceFieldVisitor = new FieldsVisitor(true);
-            fieldReader.accept(docId, sourceFieldVisitor);
-            BytesReference source = sourceFieldVisitor.source();
+            BytesReference source = loadSourceBytes();
             return XContentMapValues.extractRawValues(path, XContentHelper.convertToMap(source, false, null, Set.of(path), null).v2());
         } catch (Exception e) {
             throw new ElasticsearchParseException("failed to parse / load source", e);
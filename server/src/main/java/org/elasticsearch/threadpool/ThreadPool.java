@@ -11,6 +11,7 @@ package org.elasticsearch.threadpool;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -21,6 +22,7 @@ import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionHandler;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+import org.elasticsearch.common.util.concurrent.EsVirtualThreadExecutor;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
@@ -37,6 +39,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
@@ -84,7 +88,8 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
         DIRECT("direct"),
         FIXED("fixed"),
         FIXED_AUTO_QUEUE_SIZE("fixed_auto_queue_size"), // TODO: remove in 9.0
-        SCALING("scaling");
+        SCALING("scaling"),
+        VIRTUAL("virtual");
 
         private final String type;
 
@@ -173,6 +178,37 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
         Setting.Property.NodeScope
     );
 
+    /**
+     * The thread pools that may run their tasks on virtual threads instead of a scaling pool of platform threads, which are the pools
+     * whose tasks mostly wait for I/O or for other nodes.
+     */
+    static final Set<String> VIRTUAL_THREAD_POOL_CANDIDATES = Set.of(
+        Names.GENERIC,
+        Names.MANAGEMENT,
+        Names.SNAPSHOT_META,
+        Names.FETCH_SHARD_STARTED,
+        Names.FETCH_SHARD_STORE
+    );
+
+    public static final Setting<List<String>> VIRTUAL_THREAD_POOLS_SETTING = Setting.listSetting(
+        "thread_pool.virtual_threads.pools",
+        Collections.emptyList(),
+        Function.identity(),
+        pools -> {
+            for (String pool : pools) {
+                if (VIRTUAL_THREAD_POOL_CANDIDATES.contains(pool) == false) {
+                    throw new IllegalArgumentException(
+                        "thread pool ["
+                            + pool
+                            + "] cannot use virtual threads, it must be one of "
+                            + new TreeSet<>(VIRTUAL_THREAD_POOL_CANDIDATES)
+                    );
+                }
+            }
+        },
+        Setting.Property.NodeScope
+    );
+
     @SuppressWarnings({ "rawtypes", "unchecked" })
     public ThreadPool(final Settings settings, final ExecutorBuilder<?>... customBuilders) {
         assert Node.NODE_NAME_SETTING.exists(settings);
@@ -182,9 +218,10 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
         final int halfProcMaxAt5 = halfAllocatedProcessorsMaxFive(allocatedProcessors);
         final int halfProcMaxAt10 = halfAllocatedProcessorsMaxTen(allocatedProcessors);
         final int genericThreadPoolMax = boundedBy(4 * allocatedProcessors, 128, 512);
+        final Set<String> virtualThreadPools = Set.copyOf(VIRTUAL_THREAD_POOLS_SETTING.get(settings));
         builders.put(
             Names.GENERIC,
-            new ScalingExecutorBuilder(Names.GENERIC, 4, genericThreadPoolMax, TimeValue.timeValueSeconds(30), false)
+            blockingExecutorBuilder(virtualThreadPools, Names.GENERIC, 4, genericThreadPoolMax, TimeValue.timeValueSeconds(30))
         );
         builders.put(Names.WRITE, new FixedExecutorBuilder(settings, Names.WRITE, allocatedProcessors, 10000, false));
         builders.put(Names.GET, new FixedExecutorBuilder(settings, Names.GET, allocatedProcessors, 1000, false));
@@ -198,7 +235,13 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
         builders.put(Names.SEARCH_THROTTLED, new FixedExecutorBuilder(settings, Names.SEARCH_THROTTLED, 1, 100, true));
         builders.put(
             Names.MANAGEMENT,
-            new ScalingExecutorBuilder(Names.MANAGEMENT, 1, boundedBy(allocatedProcessors, 1, 5), TimeValue.timeValueMinutes(5), false)
+            blockingExecutorBuilder(
+                virtualThreadPools,
+                Names.MANAGEMENT,
+                1,
+                boundedBy(allocatedProcessors, 1, 5),
+                TimeValue.timeValueMinutes(5)
+            )
         );
         builders.put(Names.FLUSH, new ScalingExecutorBuilder(Names.FLUSH, 1, halfProcMaxAt5, TimeValue.timeValueMinutes(5), false));
         builders.put(Names.REFRESH, new ScalingExecutorBuilder(Names.REFRESH, 1, halfProcMaxAt10, TimeValue.timeValueMinutes(5), false));
@@ -206,22 +249,28 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
         builders.put(Names.SNAPSHOT, new ScalingExecutorBuilder(Names.SNAPSHOT, 1, halfProcMaxAt5, TimeValue.timeValueMinutes(5), false));
         builders.put(
             Names.SNAPSHOT_META,
-            new ScalingExecutorBuilder(
+            blockingExecutorBuilder(
+                virtualThreadPools,
                 Names.SNAPSHOT_META,
                 1,
                 Math.min(allocatedProcessors * 3, 50),
-                TimeValue.timeValueSeconds(30L),
-                false
+                TimeValue.timeValueSeconds(30L)
             )
         );
         builders.put(
             Names.FETCH_SHARD_STARTED,
-            new ScalingExecutorBuilder(Names.FETCH_SHARD_STARTED, 1, 2 * allocatedProcessors, TimeValue.timeValueMinutes(5), false)
+            blockingExecutorBuilder(
+                virtualThreadPools,
+                Names.FETCH_SHARD_STARTED,
+                1,
+                2 * allocatedProcessors,
+                TimeValue.timeValueMinutes(5)
+            )
         );
         builders.put(Names.FORCE_MERGE, new FixedExecutorBuilder(settings, Names.FORCE_MERGE, 1, -1, false));
         builders.put(
             Names.FETCH_SHARD_STORE,
-            new ScalingExecutorBuilder(Names.FETCH_SHARD_STORE, 1, 2 * allocatedProcessors, TimeValue.timeValueMinutes(5), false)
+            blockingExecutorBuilder(virtualThreadPools, Names.FETCH_SHARD_STORE, 1, 2 * allocatedProcessors, TimeValue.timeValueMinutes(5))
         );
         builders.put(Names.SYSTEM_READ, new FixedExecutorBuilder(settings, Names.SYSTEM_READ, halfProcMaxAt5, 2000, false));
         builders.put(Names.SYSTEM_WRITE, new FixedExecutorBuilder(settings, Names.SYSTEM_WRITE, halfProcMaxAt5, 1000, false));
@@ -274,6 +323,25 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
         this.cachedTimeThread.start();
     }
 
+    /**
+     * Builds one of the {@link #VIRTUAL_THREAD_POOL_CANDIDATES}, which is a scaling pool unless {@link #VIRTUAL_THREAD_POOLS_SETTING}
+     * lists it. A virtual pool runs at most as many tasks at once as the scaling pool has threads.
+     */
+    private static ExecutorBuilder<?> blockingExecutorBuilder(
+        Set<String> virtualThreadPools,
+        String name,
+        int core,
+        int max,
+        TimeValue keepAlive
+    ) {
+        assert VIRTUAL_THREAD_POOL_CANDIDATES.contains(name) : name;
+        if (virtualThreadPools.contains(name)) {
+            return new VirtualExecutorBuilder(name, max, false);
+        } else {
+            return new ScalingExecutorBuilder(name, core, max, keepAlive, false);
+        }
+    }
+
     /**
      * Returns a value of milliseconds that may be used for relative time calculations.
      *
@@ -356,6 +424,14 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
                 if (rejectedExecutionHandler instanceof EsRejectedExecutionHandler handler) {
                     rejected = handler.rejected();
                 }
+            } else if (holder.executor()instanceof EsVirtualThreadExecutor virtualThreadExecutor) {
+                // every running task has a thread of its own
+                threads = virtualThreadExecutor.getActiveCount();
+                queue = virtualThreadExecutor.getQueueSize();
+                active = virtualThreadExecutor.getActiveCount();
+                largest = virtualThreadExecutor.getLargestActiveCount();
+                completed = virtualThreadExecutor.getCompletedTaskCount();
+                rejected = virtualThreadExecutor.getRejectedTaskCount();
             }
             stats.add(new ThreadPoolStats.Stats(name, threads, queue, active, rejected, largest, completed));
         }
@@ -486,7 +562,7 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
         stopCachedTimeThread();
         scheduler.shutdown();
         for (ExecutorHolder executor : executors.values()) {
-            if (executor.executor() instanceof ThreadPoolExecutor) {
+            if (executor.executor() instanceof ThreadPoolExecutor || executor.executor() instanceof EsVirtualThreadExecutor) {
                 executor.executor().shutdown();
             }
         }
@@ -496,7 +572,7 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
         stopCachedTimeThread();
         scheduler.shutdownNow();
         for (ExecutorHolder executor : executors.values()) {
-            if (executor.executor() instanceof ThreadPoolExecutor) {
+            if (executor.executor() instanceof ThreadPoolExecutor || executor.executor() instanceof EsVirtualThreadExecutor) {
                 executor.executor().shutdownNow();
             }
         }
@@ -505,7 +581,7 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
     public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
         boolean result = scheduler.awaitTermination(timeout, unit);
         for (ExecutorHolder executor : executors.values()) {
-            if (executor.executor() instanceof ThreadPoolExecutor) {
+            if (executor.executor() instanceof ThreadPoolExecutor || executor.executor() instanceof EsVirtualThreadExecutor) {
                 result &= executor.executor().awaitTermination(timeout, unit);
             }
         }
@@ -725,7 +801,9 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
         public final Info info;
 
         ExecutorHolder(ExecutorService executor, Info info) {
-            assert executor instanceof EsThreadPoolExecutor || executor == EsExecutors.DIRECT_EXECUTOR_SERVICE;
+            assert executor instanceof EsThreadPoolExecutor
+                || executor instanceof EsVirtualThreadExecutor
+                || executor == EsExecutors.DIRECT_EXECUTOR_SERVICE;
             this.executor = executor;
             this.info = info;
         }
@@ -773,7 +851,12 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             out.writeString(name);
-            out.writeString(type.getType());
+            if (type == ThreadPoolType.VIRTUAL && out.getVersion().before(Version.V_8_2_0)) {
+                // older nodes don't know the type, and a virtual pool is closest to a scaling one without core threads
+                out.writeString(ThreadPoolType.SCALING.getType());
+            } else {
+                out.writeString(type.getType());
+            }
             out.writeInt(min);
             out.writeInt(max);
             out.writeOptionalTimeValue(keepAlive);
@@ -816,6 +899,9 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler {
                 builder.field("core", min);
                 assert max != -1;
                 builder.field("max", max);
+            } else if (type == ThreadPoolType.VIRTUAL) {
+                assert max != -1;
+                builder.field("max", max);
             } else {
                 assert max != -1;
                 builder.field("size", max);
@@ -0,0 +1,100 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.threadpool;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.node.Node;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A builder for executors that run each task on a virtual thread of its own, and limit how many tasks run at once. On JVMs without
+ * virtual threads the tasks run on platform threads instead, which are still only created while there are tasks to run.
+ */
+public final class VirtualExecutorBuilder extends ExecutorBuilder<VirtualExecutorBuilder.VirtualExecutorSettings> {
+
+    private static final Logger logger = LogManager.getLogger(VirtualExecutorBuilder.class);
+
+    private final Setting<Integer> maxSetting;
+    private final boolean rejectAfterShutdown;
+
+    /**
+     * Construct a virtual executor builder; the settings will have the
+     * key prefix "thread_pool." followed by the executor name.
+     *
+     * @param name                the name of the executor
+     * @param max                 the maximum number of tasks that run at once
+     * @param rejectAfterShutdown set to {@code true} if the executor should reject tasks after shutdown
+     */
+    public VirtualExecutorBuilder(final String name, final int max, final boolean rejectAfterShutdown) {
+        super(name);
+        this.maxSetting = Setting.intSetting(settingsKey("thread_pool." + name, "max"), max, 1, Setting.Property.NodeScope);
+        this.rejectAfterShutdown = rejectAfterShutdown;
+    }
+
+    @Override
+    public List<Setting<?>> getRegisteredSettings() {
+        return List.of(maxSetting);
+    }
+
+    @Override
+    VirtualExecutorSettings getSettings(Settings settings) {
+        final String nodeName = Node.NODE_NAME_SETTING.get(settings);
+        final int max = maxSetting.get(settings);
+        return new VirtualExecutorSettings(nodeName, max);
+    }
+
+    @Override
+    ThreadPool.ExecutorHolder build(final VirtualExecutorSettings settings, final ThreadContext threadContext) {
+        final int max = settings.max;
+        final ThreadPool.Info info = new ThreadPool.Info(name(), ThreadPool.ThreadPoolType.VIRTUAL, 0, max, null, null);
+        final String threadName = EsExecutors.threadName(settings.nodeName, name());
+        ThreadFactory threadFactory = EsExecutors.virtualThreadFactory(threadName);
+        if (threadFactory == null) {
+            logger.warn(
+                "virtual threads are not available in Java [{}], thread pool [{}] uses a platform thread per task instead",
+                Runtime.version(),
+                name()
+            );
+            threadFactory = EsExecutors.daemonThreadFactory(threadName);
+        }
+        final ExecutorService executor = EsExecutors.newVirtual(
+            settings.nodeName + "/" + name(),
+            max,
+            rejectAfterShutdown,
+            threadFactory,
+            threadContext
+        );
+        return new ThreadPool.ExecutorHolder(executor, info);
+    }
+
+    @Override
+    String formatInfo(ThreadPool.Info info) {
+        return String.format(Locale.ROOT, "name [%s], virtual, max [%d]", info.getName(), info.getMax());
+    }
+
+    static class VirtualExecutorSettings extends ExecutorBuilder.ExecutorSettings {
+
+        private final int max;
+
+        VirtualExecutorSettings(final String nodeName, final int max) {
+            super(nodeName);
+            this.max = max;
+        }
+    }
+
+}
@@ -15,6 +15,7 @@ import net.jpountz.lz4.LZ4FastDecompressor;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.core.Booleans;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.lz4.ESLZ4Compressor;
 import org.elasticsearch.lz4.ESLZ4Decompressor;
 
@@ -25,9 +26,11 @@ public class Compression {
 
     public enum Scheme {
         LZ4,
-        DEFLATE;
+        DEFLATE,
+        ZSTD;
 
         static final Version LZ4_VERSION = Version.V_7_14_0;
+        static final Version ZSTD_VERSION = Version.V_8_2_0;
         static final int HEADER_LENGTH = 4;
         private static final byte[] DEFLATE_HEADER = new byte[] { 'D', 'F', 'L', '\0' };
         private static final byte[] LZ4_HEADER = new byte[] { 'L', 'Z', '4', '\0' };
@@ -67,6 +70,16 @@ public class Compression {
             }
         }
 
+        public static boolean isZstd(BytesReference bytes) {
+            // the zstd frame magic number doubles as the header, the decompressor reads it as part of the frame
+            byte firstByte = bytes.get(0);
+            if (firstByte != ZstdFormat.MAGIC_BYTES[0]) {
+                return false;
+            } else {
+                return validateHeader(bytes, ZstdFormat.MAGIC_BYTES);
+            }
+        }
+
         private static boolean validateHeader(BytesReference bytes, byte[] header) {
             for (int i = 1; i < Compression.Scheme.HEADER_LENGTH; ++i) {
                 if (bytes.get(i) != header[i]) {
@@ -94,6 +107,14 @@ public class Compression {
             }
             return new ReuseBuffersLZ4BlockOutputStream(outputStream, LZ4_BLOCK_SIZE, lz4Compressor);
         }
+
+        /**
+         * @param dictionaryId the ID under which the receiving node knows the dictionary, ignored if there is no dictionary
+         */
+        static OutputStream zstdOutputStream(OutputStream outputStream, int dictionaryId, @Nullable ZstdDictionary dictionary)
+            throws IOException {
+            return new ZstdOutputStream(outputStream, dictionaryId, dictionary);
+        }
     }
 
     public enum Enabled {
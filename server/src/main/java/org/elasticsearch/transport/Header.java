@@ -73,6 +73,10 @@ public class Header {
         return TransportStatus.isCompress(status);
     }
 
+    boolean isChunked() {
+        return TransportStatus.isChunked(status);
+    }
+
     public String getActionName() {
         return actionName;
     }
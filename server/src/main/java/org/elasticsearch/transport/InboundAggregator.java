@@ -13,11 +13,14 @@ import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -34,6 +37,8 @@ public class InboundAggregator implements Releasable {
     private Exception aggregationException;
     private boolean canTripBreaker = true;
     private boolean isClosed = false;
+    // the content of the responses that arrive in chunks, by request id, until their last chunk arrives
+    private final Map<Long, PartialResponse> partialResponses = new HashMap<>();
 
     public InboundAggregator(
         Supplier<CircuitBreaker> circuitBreaker,
@@ -92,6 +97,10 @@ public class InboundAggregator implements Releasable {
         }
     }
 
+    /**
+     * @return the aggregated message, or {@code null} if the aggregated content is a chunk of a response that more chunks follow
+     */
+    @Nullable
     public InboundMessage finishAggregation() throws IOException {
         ensureOpen();
         final ReleasableBytesReference releasableContent;
@@ -105,8 +114,22 @@ public class InboundAggregator implements Releasable {
             releasableContent = new ReleasableBytesReference(content, () -> Releasables.close(references));
         }
 
+        final Header header;
+        final ReleasableBytesReference messageContent;
+        if (currentHeader.isResponse() && (currentHeader.isChunked() || partialResponses.containsKey(currentHeader.getRequestId()))) {
+            final PartialResponse partialResponse = aggregateChunk(releasableContent);
+            if (partialResponse == null) {
+                return null;
+            }
+            header = partialResponse.header;
+            messageContent = partialResponse.content();
+        } else {
+            header = currentHeader;
+            messageContent = releasableContent;
+        }
+
         final BreakerControl breakerControl = new BreakerControl(circuitBreaker);
-        final InboundMessage aggregated = new InboundMessage(currentHeader, releasableContent, breakerControl);
+        final InboundMessage aggregated = new InboundMessage(header, messageContent, breakerControl);
         boolean success = false;
         try {
             if (aggregated.getHeader().needsToReadVariableHeader()) {
@@ -135,6 +158,33 @@ public class InboundAggregator implements Releasable {
         }
     }
 
+    /**
+     * Adds the content of a chunk of a response to the content of its earlier chunks.
+     *
+     * @return the response with the content of all of its chunks if this was its last chunk, {@code null} if more chunks follow
+     */
+    @Nullable
+    private PartialResponse aggregateChunk(ReleasableBytesReference content) {
+        final Header chunkHeader = currentHeader;
+        if (chunkHeader.isHandshake() || chunkHeader.isError()) {
+            throw new IllegalStateException("handshakes and errors may not be sent in chunks but received " + chunkHeader);
+        }
+        PartialResponse partialResponse = partialResponses.get(chunkHeader.getRequestId());
+        if (partialResponse == null) {
+            // the first chunk carries the variable header of the response, the ones after it carry an empty one
+            partialResponse = new PartialResponse(chunkHeader);
+            partialResponses.put(chunkHeader.getRequestId(), partialResponse);
+        }
+        // the content belongs to the partial response from now on
+        partialResponse.chunks.add(content);
+        resetCurrentAggregation();
+        if (chunkHeader.isChunked()) {
+            return null;
+        }
+        partialResponses.remove(chunkHeader.getRequestId());
+        return partialResponse;
+    }
+
     public boolean isAggregating() {
         return currentHeader != null;
     }
@@ -160,6 +210,8 @@ public class InboundAggregator implements Releasable {
     private void closeCurrentAggregation() {
         releaseContent();
         resetCurrentAggregation();
+        Releasables.close(partialResponses.values());
+        partialResponses.clear();
     }
 
     private void releaseContent() {
@@ -223,6 +275,26 @@ public class InboundAggregator implements Releasable {
         }
     }
 
+    private static final class PartialResponse implements Releasable {
+
+        private final Header header;
+        private final ArrayList<ReleasableBytesReference> chunks = new ArrayList<>();
+
+        private PartialResponse(Header header) {
+            this.header = header;
+        }
+
+        private ReleasableBytesReference content() {
+            final ReleasableBytesReference[] references = chunks.toArray(new ReleasableBytesReference[0]);
+            return new ReleasableBytesReference(CompositeBytesReference.of(references), () -> Releasables.close(references));
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(chunks);
+        }
+    }
+
     private static class BreakerControl implements Releasable {
 
         private static final int CLOSED = -1;
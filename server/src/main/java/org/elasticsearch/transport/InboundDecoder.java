@@ -19,6 +19,7 @@ import org.elasticsearch.core.Releasables;
 
 import java.io.IOException;
 import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 public class InboundDecoder implements Releasable {
 
@@ -27,15 +28,35 @@ public class InboundDecoder implements Releasable {
 
     private final Version version;
     private final Recycler<BytesRef> recycler;
+    private final IntFunction<ZstdDictionary> compressionDictionaries;
+    private final StatsTracker statsTracker;
     private TransportDecompressor decompressor;
+    private long compressedBytes = 0;
+    private long decompressedBytes = 0;
+    private long decompressionNanos = 0;
     private int totalNetworkSize = -1;
     private int bytesConsumed = 0;
     private boolean isCompressed = false;
     private boolean isClosed = false;
 
     public InboundDecoder(Version version, Recycler<BytesRef> recycler) {
+        this(version, recycler, id -> null, new StatsTracker());
+    }
+
+    /**
+     * @param compressionDictionaries resolves the dictionary IDs of {@link Compression.Scheme#ZSTD} messages
+     * @param statsTracker            records the decompression of compressed messages
+     */
+    public InboundDecoder(
+        Version version,
+        Recycler<BytesRef> recycler,
+        IntFunction<ZstdDictionary> compressionDictionaries,
+        StatsTracker statsTracker
+    ) {
         this.version = version;
         this.recycler = recycler;
+        this.compressionDictionaries = compressionDictionaries;
+        this.statsTracker = statsTracker;
     }
 
     public int decode(ReleasableBytesReference reference, Consumer<Object> fragmentConsumer) throws IOException {
@@ -79,7 +100,11 @@ public class InboundDecoder implements Releasable {
         } else {
             if (isCompressed && decompressor == null) {
                 // Attempt to initialize decompressor
-                TransportDecompressor decompressor = TransportDecompressor.getDecompressor(recycler, reference);
+                TransportDecompressor decompressor = TransportDecompressor.getDecompressor(
+                    recycler,
+                    compressionDictionaries,
+                    reference
+                );
                 if (decompressor == null) {
                     return 0;
                 } else {
@@ -102,6 +127,7 @@ public class InboundDecoder implements Releasable {
                 bytesConsumed += bytesConsumedThisDecode;
                 ReleasableBytesReference decompressed;
                 while ((decompressed = decompressor.pollDecompressedPage(isDone())) != null) {
+                    decompressedBytes += decompressed.length();
                     fragmentConsumer.accept(decompressed);
                 }
             } else {
@@ -124,6 +150,9 @@ public class InboundDecoder implements Releasable {
     }
 
     private void finishMessage(Consumer<Object> fragmentConsumer) {
+        if (decompressor != null) {
+            statsTracker.markMessageDecompressed(decompressor.getScheme(), compressedBytes, decompressedBytes, decompressionNanos);
+        }
         cleanDecodeState();
         fragmentConsumer.accept(END_CONTENT);
     }
@@ -134,6 +163,9 @@ public class InboundDecoder implements Releasable {
         } finally {
             isCompressed = false;
             decompressor = null;
+            compressedBytes = 0;
+            decompressedBytes = 0;
+            decompressionNanos = 0;
             totalNetworkSize = -1;
             bytesConsumed = 0;
         }
@@ -141,7 +173,11 @@ public class InboundDecoder implements Releasable {
 
     private int decompress(ReleasableBytesReference content) throws IOException {
         try (content) {
-            return decompressor.decompress(content);
+            final long startNanos = System.nanoTime();
+            final int consumed = decompressor.decompress(content);
+            decompressionNanos += System.nanoTime() - startNanos;
+            compressedBytes += consumed;
+            return consumed;
         }
     }
 
@@ -22,6 +22,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
@@ -50,9 +51,33 @@ public class InboundPipeline implements Releasable {
         boolean ignoreDeserializationErrors
     ) {
         this(
+            version,
             statsTracker,
+            recycler,
+            id -> null,
             relativeTimeInMillis,
-            new InboundDecoder(version, recycler),
+            circuitBreaker,
+            registryFunction,
+            messageHandler,
+            ignoreDeserializationErrors
+        );
+    }
+
+    public InboundPipeline(
+        Version version,
+        StatsTracker statsTracker,
+        Recycler<BytesRef> recycler,
+        IntFunction<ZstdDictionary> compressionDictionaries,
+        LongSupplier relativeTimeInMillis,
+        Supplier<CircuitBreaker> circuitBreaker,
+        Function<String, RequestHandlerRegistry<TransportRequest>> registryFunction,
+        BiConsumer<TcpChannel, InboundMessage> messageHandler,
+        boolean ignoreDeserializationErrors
+    ) {
+        this(
+            statsTracker,
+            relativeTimeInMillis,
+            new InboundDecoder(version, recycler, compressionDictionaries, statsTracker),
             new InboundAggregator(circuitBreaker, registryFunction, ignoreDeserializationErrors),
             messageHandler
         );
@@ -145,8 +170,11 @@ public class InboundPipeline implements Releasable {
             } else if (fragment == InboundDecoder.END_CONTENT) {
                 assert aggregator.isAggregating();
                 try (InboundMessage aggregated = aggregator.finishAggregation()) {
-                    statsTracker.markMessageReceived();
-                    messageHandler.accept(channel, aggregated);
+                    // chunks of a response are handled together once its last chunk arrives
+                    if (aggregated != null) {
+                        statsTracker.markMessageReceived();
+                        messageHandler.accept(channel, aggregated);
+                    }
                 }
             } else {
                 assert aggregator.isAggregating();
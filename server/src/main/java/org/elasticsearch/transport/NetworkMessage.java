@@ -64,6 +64,10 @@ public abstract class NetworkMessage {
     }
 
     private static Compression.Scheme adjustedScheme(Version version, Compression.Scheme compressionScheme) {
+        if (compressionScheme == Compression.Scheme.ZSTD && version.before(Compression.Scheme.ZSTD_VERSION)) {
+            // fall back to the fastest scheme that the other node knows
+            compressionScheme = Compression.Scheme.LZ4;
+        }
         return compressionScheme == Compression.Scheme.LZ4 && version.before(Compression.Scheme.LZ4_VERSION) ? null : compressionScheme;
     }
 }
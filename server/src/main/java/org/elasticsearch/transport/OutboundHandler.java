@@ -17,23 +17,46 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.RecyclerBytesStreamOutput;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.common.recycler.Recycler;
 import org.elasticsearch.common.transport.NetworkExceptionHelper;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
 
 final class OutboundHandler {
 
     private static final Logger logger = LogManager.getLogger(OutboundHandler.class);
 
+    // messages of higher priority connection types first, in the order they were sent otherwise
+    private static final Comparator<PendingWrite> PENDING_WRITE_ORDER = Comparator.<PendingWrite>comparingInt(
+        write -> -write.type().ordinal()
+    ).thenComparingLong(PendingWrite::seqNo);
+
+    // the variable header of the frames after the first of a response that is sent in chunks: an empty thread context, whose request
+    // and response headers are written as their sizes of zero
+    private static final BytesReference EMPTY_RESPONSE_VARIABLE_HEADER = new BytesArray(new byte[] { 0, 0 });
+
     private final String nodeName;
     private final Version version;
     private final StatsTracker statsTracker;
@@ -41,8 +64,14 @@ final class OutboundHandler {
     private final Recycler<BytesRef> recycler;
     private final HandlingTimeTracker handlingTimeTracker;
     private final boolean rstOnClose;
+    private final long maxInFlightBytes;
+    private final Map<TcpChannel, ChannelQueue> channelQueues = ConcurrentCollections.newConcurrentMap();
+    // the type this node sends the requests of each action with, which is the type that their responses are queued with too
+    private final Map<String, TransportRequestOptions.Type> actionTypes = ConcurrentCollections.newConcurrentMap();
+    private final QueueStatsTracker[] queueStatsTrackers;
 
     private volatile long slowLogThresholdMs = Long.MAX_VALUE;
+    private volatile int responseChunkSize = -1;
 
     private volatile TransportMessageListener messageListener = TransportMessageListener.NOOP_LISTENER;
 
@@ -53,7 +82,8 @@ final class OutboundHandler {
         ThreadPool threadPool,
         Recycler<BytesRef> recycler,
         HandlingTimeTracker handlingTimeTracker,
-        boolean rstOnClose
+        boolean rstOnClose,
+        long maxInFlightBytes
     ) {
         this.nodeName = nodeName;
         this.version = version;
@@ -62,14 +92,28 @@ final class OutboundHandler {
         this.recycler = recycler;
         this.handlingTimeTracker = handlingTimeTracker;
         this.rstOnClose = rstOnClose;
+        assert maxInFlightBytes != 0 : "a channel must be able to have some bytes in flight";
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.queueStatsTrackers = new QueueStatsTracker[TransportRequestOptions.Type.values().length];
+        for (int i = 0; i < queueStatsTrackers.length; i++) {
+            queueStatsTrackers[i] = new QueueStatsTracker();
+        }
     }
 
     void setSlowLogThreshold(TimeValue slowLogThreshold) {
         this.slowLogThresholdMs = slowLogThreshold.getMillis();
     }
 
+    /**
+     * Sets the content size above which responses are sent as a sequence of frames with at most that much content each, or disables
+     * sending responses in chunks if it isn't positive.
+     */
+    void setResponseChunkSize(ByteSizeValue responseChunkSize) {
+        this.responseChunkSize = responseChunkSize.getBytes() > 0 ? Math.toIntExact(responseChunkSize.getBytes()) : -1;
+    }
+
     void sendBytes(TcpChannel channel, BytesReference bytes, ActionListener<Void> listener) {
-        internalSend(channel, bytes, null, listener);
+        internalSend(channel, bytes, null, TransportRequestOptions.Type.PING, listener);
     }
 
     /**
@@ -86,6 +130,25 @@ final class OutboundHandler {
         final Version channelVersion,
         final Compression.Scheme compressionScheme,
         final boolean isHandshake
+    ) throws IOException, TransportException {
+        sendRequest(node, channel, requestId, action, request, options, channelVersion, compressionScheme, null, isHandshake);
+    }
+
+    /**
+     * Sends the request to the given channel, compressing it with the given dictionary if it's compressed with
+     * {@link Compression.Scheme#ZSTD}.
+     */
+    void sendRequest(
+        final DiscoveryNode node,
+        final TcpChannel channel,
+        final long requestId,
+        final String action,
+        final TransportRequest request,
+        final TransportRequestOptions options,
+        final Version channelVersion,
+        final Compression.Scheme compressionScheme,
+        @Nullable final TransportCompressionDictionaries.NegotiatedDictionary compressionDictionary,
+        final boolean isHandshake
     ) throws IOException, TransportException {
         Version version = Version.min(this.version, channelVersion);
         OutboundMessage.Request message = new OutboundMessage.Request(
@@ -95,7 +158,8 @@ final class OutboundHandler {
             action,
             requestId,
             isHandshake,
-            compressionScheme
+            compressionScheme,
+            compressionDictionary
         );
         if (request.tryIncRef() == false) {
             assert false : "request [" + request + "] has been released already";
@@ -108,7 +172,16 @@ final class OutboundHandler {
                 request.decRef();
             }
         });
-        sendMessage(channel, message, listener);
+        final TransportRequestOptions.Type type;
+        if (isHandshake) {
+            type = TransportRequestOptions.Type.PING;
+        } else {
+            type = options.type();
+            if (actionTypes.get(action) != type) {
+                actionTypes.put(action, type);
+            }
+        }
+        sendMessage(channel, message, type, listener);
     }
 
     /**
@@ -142,7 +215,7 @@ final class OutboundHandler {
                 response.decRef();
             }
         });
-        sendMessage(channel, message, listener);
+        sendMessage(channel, message, isHandshake ? TransportRequestOptions.Type.PING : responseType(action), listener);
     }
 
     /**
@@ -159,81 +232,113 @@ final class OutboundHandler {
         RemoteTransportException tx = new RemoteTransportException(nodeName, channel.getLocalAddress(), action, error);
         OutboundMessage.Response message = new OutboundMessage.Response(threadPool.getThreadContext(), tx, version, requestId, false, null);
         ActionListener<Void> listener = ActionListener.wrap(() -> messageListener.onResponseSent(requestId, action, error));
-        sendMessage(channel, message, listener);
+        sendMessage(channel, message, responseType(action), listener);
+    }
+
+    private TransportRequestOptions.Type responseType(String action) {
+        return actionTypes.getOrDefault(action, TransportRequestOptions.Type.REG);
     }
 
-    private void sendMessage(TcpChannel channel, OutboundMessage networkMessage, ActionListener<Void> listener) throws IOException {
+    private void sendMessage(
+        TcpChannel channel,
+        OutboundMessage networkMessage,
+        TransportRequestOptions.Type type,
+        ActionListener<Void> listener
+    ) throws IOException {
         final RecyclerBytesStreamOutput byteStreamOutput = new RecyclerBytesStreamOutput(recycler);
         final ActionListener<Void> wrappedListener = ActionListener.runBefore(listener, byteStreamOutput::close);
+        final int chunkSize = responseChunkSize;
+        final OutboundMessage.Response chunkableResponse = chunkSize > 0
+            && networkMessage instanceof OutboundMessage.Response response
+            && canSendInChunks(response) ? response : null;
         final BytesReference message;
         try {
-            message = networkMessage.serialize(byteStreamOutput);
+            // a response that may be sent in chunks is compressed chunk by chunk, if it is compressed, so that every frame can be
+            // decompressed on its own
+            message = chunkableResponse == null
+                ? networkMessage.serialize(byteStreamOutput, statsTracker)
+                : chunkableResponse.serializeUncompressed(byteStreamOutput);
         } catch (Exception e) {
             logger.warn(() -> new ParameterizedMessage("failed to serialize outbound message [{}]", networkMessage), e);
             wrappedListener.onFailure(e);
             throw e;
         }
-        internalSend(channel, message, networkMessage, wrappedListener);
+        if (chunkableResponse != null && (message.length() > chunkSize || chunkableResponse.isCompress())) {
+            new ChunkedResponse(channel, message, chunkableResponse, type, wrappedListener, chunkSize).sendNextChunk();
+        } else {
+            internalSend(channel, message, networkMessage, type, wrappedListener);
+        }
+    }
+
+    private static boolean canSendInChunks(OutboundMessage.Response response) {
+        // handshakes and errors are small
+        return response.getVersion().onOrAfter(Version.V_8_2_0) && response.isHandshake() == false && response.isError() == false;
     }
 
     private void internalSend(
         TcpChannel channel,
         BytesReference reference,
         @Nullable OutboundMessage message,
+        TransportRequestOptions.Type type,
         ActionListener<Void> listener
     ) {
         final long startTime = threadPool.rawRelativeTimeInMillis();
         channel.getChannelStats().markAccessed(startTime);
         final long messageSize = reference.length();
         TransportLogger.logOutboundMessage(channel, reference);
-        // stash thread context so that channel event loop is not polluted by thread context
-        try (ThreadContext.StoredContext existing = threadPool.getThreadContext().stashContext()) {
-            channel.sendMessage(reference, new ActionListener<>() {
-                @Override
-                public void onResponse(Void v) {
-                    statsTracker.markBytesWritten(messageSize);
-                    listener.onResponse(v);
-                    maybeLogSlowMessage(true);
+        final ActionListener<Void> sendListener = new ActionListener<>() {
+            @Override
+            public void onResponse(Void v) {
+                statsTracker.markBytesWritten(messageSize);
+                listener.onResponse(v);
+                maybeLogSlowMessage(true);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                final Level closeConnectionExceptionLevel = NetworkExceptionHelper.getCloseConnectionExceptionLevel(e, rstOnClose);
+                if (closeConnectionExceptionLevel == Level.OFF) {
+                    logger.warn(new ParameterizedMessage("send message failed [channel: {}]", channel), e);
+                } else if (closeConnectionExceptionLevel == Level.INFO && logger.isDebugEnabled() == false) {
+                    logger.info("send message failed [channel: {}]: {}", channel, e.getMessage());
+                } else {
+                    logger.log(closeConnectionExceptionLevel, new ParameterizedMessage("send message failed [channel: {}]", channel), e);
                 }
+                listener.onFailure(e);
+                maybeLogSlowMessage(false);
+            }
 
-                @Override
-                public void onFailure(Exception e) {
-                    final Level closeConnectionExceptionLevel = NetworkExceptionHelper.getCloseConnectionExceptionLevel(e, rstOnClose);
-                    if (closeConnectionExceptionLevel == Level.OFF) {
-                        logger.warn(new ParameterizedMessage("send message failed [channel: {}]", channel), e);
-                    } else if (closeConnectionExceptionLevel == Level.INFO && logger.isDebugEnabled() == false) {
-                        logger.info("send message failed [channel: {}]: {}", channel, e.getMessage());
-                    } else {
-                        logger.log(
-                            closeConnectionExceptionLevel,
-                            new ParameterizedMessage("send message failed [channel: {}]", channel),
-                            e
+            private void maybeLogSlowMessage(boolean success) {
+                final long logThreshold = slowLogThresholdMs;
+                if (logThreshold > 0) {
+                    final long took = threadPool.rawRelativeTimeInMillis() - startTime;
+                    handlingTimeTracker.addHandlingTime(took);
+                    if (took > logThreshold) {
+                        logger.warn(
+                            "sending transport message [{}] of size [{}] on [{}] took [{}ms] which is above the warn "
+                                + "threshold of [{}ms] with success [{}]",
+                            message,
+                            messageSize,
+                            channel,
+                            took,
+                            logThreshold,
+                            success
                         );
                     }
-                    listener.onFailure(e);
-                    maybeLogSlowMessage(false);
                 }
+            }
+        };
+        if (maxInFlightBytes < 0) {
+            writeToChannel(channel, reference, sendListener);
+        } else {
+            channelQueue(channel).send(reference, type, sendListener);
+        }
+    }
 
-                private void maybeLogSlowMessage(boolean success) {
-                    final long logThreshold = slowLogThresholdMs;
-                    if (logThreshold > 0) {
-                        final long took = threadPool.rawRelativeTimeInMillis() - startTime;
-                        handlingTimeTracker.addHandlingTime(took);
-                        if (took > logThreshold) {
-                            logger.warn(
-                                "sending transport message [{}] of size [{}] on [{}] took [{}ms] which is above the warn "
-                                    + "threshold of [{}ms] with success [{}]",
-                                message,
-                                messageSize,
-                                channel,
-                                took,
-                                logThreshold,
-                                success
-                            );
-                        }
-                    }
-                }
-            });
+    private void writeToChannel(TcpChannel channel, BytesReference reference, ActionListener<Void> listener) {
+        // stash thread context so that channel event loop is not polluted by thread context
+        try (ThreadContext.StoredContext existing = threadPool.getThreadContext().stashContext()) {
+            channel.sendMessage(reference, listener);
         } catch (RuntimeException ex) {
             listener.onFailure(ex);
             CloseableChannel.closeChannel(channel);
@@ -241,6 +346,41 @@ final class OutboundHandler {
         }
     }
 
+    private ChannelQueue channelQueue(TcpChannel channel) {
+        ChannelQueue queue = channelQueues.get(channel);
+        if (queue == null) {
+            final ChannelQueue newQueue = new ChannelQueue(channel);
+            queue = channelQueues.putIfAbsent(channel, newQueue);
+            if (queue == null) {
+                queue = newQueue;
+                channel.addCloseListener(ActionListener.wrap(() -> {
+                    channelQueues.remove(channel, newQueue);
+                    newQueue.close();
+                }));
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Returns the statistics of the outbound queues of all channels by connection type.
+     */
+    List<TransportStats.OutboundQueueStats> getOutboundQueueStats() {
+        final List<TransportStats.OutboundQueueStats> stats = new ArrayList<>(queueStatsTrackers.length);
+        for (TransportRequestOptions.Type type : TransportRequestOptions.Type.values()) {
+            final QueueStatsTracker tracker = queueStatsTrackers[type.ordinal()];
+            stats.add(
+                new TransportStats.OutboundQueueStats(
+                    type.name().toLowerCase(Locale.ROOT),
+                    tracker.queueDepth.count(),
+                    tracker.queued.count(),
+                    tracker.headOfLineBlockingTimeMillis.count()
+                )
+            );
+        }
+        return stats;
+    }
+
     void setMessageListener(TransportMessageListener listener) {
         if (messageListener == TransportMessageListener.NOOP_LISTENER) {
             messageListener = listener;
@@ -253,4 +393,196 @@ final class OutboundHandler {
         return rstOnClose;
     }
 
+    /**
+     * Holds back the messages of a channel once it has {@code maxInFlightBytes} in flight and releases them by the priority of their
+     * connection type as the writes ahead of them complete. Messages aren't interleaved on the wire, so a message that is held back
+     * waits for the writes in flight at most rather than for every message that was sent on the channel before it. The chunks of a
+     * {@link ChunkedResponse} are separate writes, so other messages can go out in between them.
+     */
+    private final class ChannelQueue {
+        private final TcpChannel channel;
+        private final PriorityQueue<PendingWrite> queue = new PriorityQueue<>(PENDING_WRITE_ORDER);
+        private long inFlightBytes;
+        private long nextSeqNo;
+        private boolean closed;
+
+        ChannelQueue(TcpChannel channel) {
+            this.channel = channel;
+        }
+
+        void send(BytesReference reference, TransportRequestOptions.Type type, ActionListener<Void> listener) {
+            final long length = reference.length();
+            synchronized (this) {
+                if (closed == false && inFlightBytes >= maxInFlightBytes) {
+                    queue.add(new PendingWrite(reference, type, listener, nextSeqNo++, threadPool.rawRelativeTimeInMillis()));
+                    queueStatsTrackers[type.ordinal()].queueDepth.inc();
+                    return;
+                }
+                inFlightBytes += length;
+            }
+            writeToChannel(channel, reference, ActionListener.runBefore(listener, () -> onWriteCompleted(length)));
+        }
+
+        private void onWriteCompleted(long length) {
+            final List<PendingWrite> writes = new ArrayList<>();
+            synchronized (this) {
+                inFlightBytes -= length;
+                while (inFlightBytes < maxInFlightBytes && queue.isEmpty() == false) {
+                    final PendingWrite write = queue.poll();
+                    inFlightBytes += write.reference().length();
+                    writes.add(write);
+                }
+            }
+            final long now = threadPool.rawRelativeTimeInMillis();
+            for (PendingWrite write : writes) {
+                queueStatsTrackers[write.type().ordinal()].onDequeued(now - write.queuedAtMillis());
+                final long writeLength = write.reference().length();
+                try {
+                    writeToChannel(
+                        channel,
+                        write.reference(),
+                        ActionListener.runBefore(write.listener(), () -> onWriteCompleted(writeLength))
+                    );
+                } catch (RuntimeException e) {
+                    // the listener was notified and the channel is closed, which fails the remaining writes
+                }
+            }
+        }
+
+        void close() {
+            final List<PendingWrite> writes;
+            synchronized (this) {
+                closed = true;
+                writes = new ArrayList<>(queue);
+                queue.clear();
+            }
+            for (PendingWrite write : writes) {
+                queueStatsTrackers[write.type().ordinal()].queueDepth.dec();
+                write.listener().onFailure(new ClosedChannelException());
+            }
+        }
+    }
+
+    /**
+     * Sends a serialized response as a sequence of frames with the same request id, each with at most {@code chunkSize} bytes of the
+     * response's content, and all but the last with the {@link TransportStatus#isChunked chunked} status. The first frame carries the
+     * variable header of the response. If the response is compressed, the content of each frame is compressed on its own when the
+     * frame is sent. A frame is only written once the frame before it was written, so a response holds at most one frame's worth of
+     * the channel's writes and the messages that are sent while it's being written go out in between its frames.
+     * <p>
+     * This only changes the framing: the response is serialized in full before its first frame is sent, and the receiving node
+     * reassembles all of its frames before it deserializes it, so neither side needs less memory for a large response.
+     */
+    private final class ChunkedResponse {
+        private final TcpChannel channel;
+        private final BytesReference message;
+        private final OutboundMessage.Response response;
+        private final TransportRequestOptions.Type type;
+        private final ActionListener<Void> listener;
+        private final int chunkSize;
+        private final BytesReference variableHeader;
+        private final int contentStart;
+        private int offset;
+
+        ChunkedResponse(
+            TcpChannel channel,
+            BytesReference message,
+            OutboundMessage.Response response,
+            TransportRequestOptions.Type type,
+            ActionListener<Void> listener,
+            int chunkSize
+        ) {
+            this.channel = channel;
+            this.message = message;
+            this.response = response;
+            this.type = type;
+            this.listener = listener;
+            this.chunkSize = chunkSize;
+            final int headerSize = TcpHeader.headerSize(response.getVersion());
+            final int variableHeaderSize = message.getInt(TcpHeader.VARIABLE_HEADER_SIZE_POSITION);
+            this.variableHeader = message.slice(headerSize, variableHeaderSize);
+            this.contentStart = headerSize + variableHeaderSize;
+            this.offset = contentStart;
+        }
+
+        void sendNextChunk() {
+            final int length = Math.min(chunkSize, message.length() - offset);
+            final boolean last = offset + length == message.length();
+            final RecyclerBytesStreamOutput compressed = response.isCompress() ? new RecyclerBytesStreamOutput(recycler) : null;
+            final BytesReference frame;
+            try {
+                final BytesReference content;
+                if (compressed == null) {
+                    content = message.slice(offset, length);
+                } else {
+                    response.compressContent(message.slice(offset, length), compressed, statsTracker);
+                    content = compressed.bytes();
+                }
+                frame = frame(
+                    last ? response.status : TransportStatus.setChunked(response.status),
+                    offset == contentStart ? variableHeader : EMPTY_RESPONSE_VARIABLE_HEADER,
+                    content
+                );
+            } catch (IOException e) {
+                assert false : e;
+                Releasables.close(compressed);
+                listener.onFailure(e);
+                return;
+            }
+            offset += length;
+            final ActionListener<Void> frameListener = last ? listener : new ActionListener<>() {
+                @Override
+                public void onResponse(Void v) {
+                    try {
+                        sendNextChunk();
+                    } catch (RuntimeException e) {
+                        // the listener was notified and the channel is closed
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    listener.onFailure(e);
+                }
+            };
+            internalSend(
+                channel,
+                frame,
+                response,
+                type,
+                compressed == null ? frameListener : ActionListener.runBefore(frameListener, compressed::close)
+            );
+        }
+
+        private BytesReference frame(byte status, BytesReference frameVariableHeader, BytesReference content) throws IOException {
+            final Version version = response.getVersion();
+            final int variableHeaderSize = frameVariableHeader.length();
+            final BytesStreamOutput header = new BytesStreamOutput(TcpHeader.headerSize(version) + variableHeaderSize);
+            final int contentSize = variableHeaderSize + content.length();
+            TcpHeader.writeHeader(header, response.getRequestId(), status, version, contentSize, variableHeaderSize);
+            frameVariableHeader.writeTo(header);
+            return CompositeBytesReference.of(header.bytes(), content);
+        }
+    }
+
+    private record PendingWrite(
+        BytesReference reference,
+        TransportRequestOptions.Type type,
+        ActionListener<Void> listener,
+        long seqNo,
+        long queuedAtMillis
+    ) {}
+
+    private static final class QueueStatsTracker {
+        final CounterMetric queueDepth = new CounterMetric();
+        final CounterMetric queued = new CounterMetric();
+        final CounterMetric headOfLineBlockingTimeMillis = new CounterMetric();
+
+        void onDequeued(long waitedMillis) {
+            queueDepth.dec();
+            queued.inc();
+            headOfLineBlockingTimeMillis.inc(Math.max(0, waitedMillis));
+        }
+    }
+
 }
@@ -19,8 +19,11 @@ import org.elasticsearch.common.io.stream.RecyclerBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Nullable;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 abstract class OutboundMessage extends NetworkMessage {
 
@@ -39,6 +42,46 @@ abstract class OutboundMessage extends NetworkMessage {
     }
 
     BytesReference serialize(RecyclerBytesStreamOutput bytesStream) throws IOException {
+        return serialize(bytesStream, null);
+    }
+
+    /**
+     * @param statsTracker records how well and how fast the message compressed, if it is compressed
+     */
+    BytesReference serialize(RecyclerBytesStreamOutput bytesStream, @Nullable StatsTracker statsTracker) throws IOException {
+        return serialize(bytesStream, statsTracker, TransportStatus.isCompress(status));
+    }
+
+    /**
+     * Serializes the message with its content uncompressed even if the message is compressed, so that the content can be compressed
+     * in pieces with {@link #compressContent}. The header still carries the status of the message.
+     */
+    BytesReference serializeUncompressed(RecyclerBytesStreamOutput bytesStream) throws IOException {
+        return serialize(bytesStream, null, false);
+    }
+
+    /**
+     * Writes a piece of the content of a compressed message, compressed on its own with the compression scheme of the message.
+     *
+     * @param statsTracker records how well and how fast the piece compressed
+     */
+    void compressContent(BytesReference content, RecyclerBytesStreamOutput bytesStream, StatsTracker statsTracker) throws IOException {
+        assert TransportStatus.isCompress(status) : "message is not compressed";
+        final long compressionStartNanos = System.nanoTime();
+        final long compressionStartPosition = bytesStream.position();
+        try (OutputStream compressed = wrapCompressed(bytesStream)) {
+            content.writeTo(compressed);
+        }
+        statsTracker.markMessageCompressed(
+            compressionScheme,
+            content.length(),
+            bytesStream.position() - compressionStartPosition,
+            System.nanoTime() - compressionStartNanos
+        );
+    }
+
+    private BytesReference serialize(RecyclerBytesStreamOutput bytesStream, @Nullable StatsTracker statsTracker, boolean compress)
+        throws IOException {
         bytesStream.setVersion(version);
         bytesStream.skip(TcpHeader.headerSize(version));
 
@@ -52,8 +95,18 @@ abstract class OutboundMessage extends NetworkMessage {
             variableHeaderLength = Math.toIntExact(bytesStream.position() - preHeaderPosition);
         }
 
-        final boolean compress = TransportStatus.isCompress(status);
-        final StreamOutput stream = compress ? wrapCompressed(bytesStream) : bytesStream;
+        final long compressionStartNanos = compress ? System.nanoTime() : 0L;
+        final long compressionStartPosition = bytesStream.position();
+        final CountingOutputStream uncompressed;
+        final StreamOutput stream;
+        if (compress) {
+            final OutputStream compressed = wrapCompressed(bytesStream);
+            uncompressed = statsTracker == null ? null : new CountingOutputStream(compressed);
+            stream = new OutputStreamStreamOutput(uncompressed == null ? compressed : uncompressed);
+        } else {
+            uncompressed = null;
+            stream = bytesStream;
+        }
         final BytesReference zeroCopyBuffer;
         try {
             stream.setVersion(version);
@@ -77,6 +130,14 @@ abstract class OutboundMessage extends NetworkMessage {
                 stream.close();
             }
         }
+        if (uncompressed != null) {
+            statsTracker.markMessageCompressed(
+                compressionScheme,
+                uncompressed.count,
+                bytesStream.position() - compressionStartPosition,
+                System.nanoTime() - compressionStartNanos
+            );
+        }
         final BytesReference message = bytesStream.bytes();
         if (zeroCopyBuffer.length() == 0) {
             reference = message;
@@ -92,16 +153,58 @@ abstract class OutboundMessage extends NetworkMessage {
 
     // compressed stream wrapped bytes must be no-close wrapped since we need to close the compressed wrapper below to release
     // resources and write EOS marker bytes but must not yet release the bytes themselves
-    private StreamOutput wrapCompressed(RecyclerBytesStreamOutput bytesStream) throws IOException {
+    private OutputStream wrapCompressed(RecyclerBytesStreamOutput bytesStream) throws IOException {
         if (compressionScheme == Compression.Scheme.DEFLATE) {
-            return new OutputStreamStreamOutput(CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.noCloseStream(bytesStream)));
+            return CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.noCloseStream(bytesStream));
         } else if (compressionScheme == Compression.Scheme.LZ4) {
-            return new OutputStreamStreamOutput(Compression.Scheme.lz4OutputStream(Streams.noCloseStream(bytesStream)));
+            return Compression.Scheme.lz4OutputStream(Streams.noCloseStream(bytesStream));
+        } else if (compressionScheme == Compression.Scheme.ZSTD) {
+            final TransportCompressionDictionaries.NegotiatedDictionary dictionary = compressionDictionary();
+            return dictionary == null
+                ? Compression.Scheme.zstdOutputStream(Streams.noCloseStream(bytesStream), 0, null)
+                : Compression.Scheme.zstdOutputStream(Streams.noCloseStream(bytesStream), dictionary.id(), dictionary.dictionary());
         } else {
             throw new IllegalArgumentException("Invalid compression scheme: " + compressionScheme);
         }
     }
 
+    /**
+     * The dictionary to compress the message with if it's compressed with {@link Compression.Scheme#ZSTD}.
+     */
+    @Nullable
+    protected TransportCompressionDictionaries.NegotiatedDictionary compressionDictionary() {
+        return null;
+    }
+
+    /**
+     * Counts the bytes that go into the compressed stream, for the compression stats.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // no flush before closing, which would make some compressors end their current block early
+            out.close();
+        }
+    }
+
     protected void writeVariableHeader(StreamOutput stream) throws IOException {
         threadContext.writeTo(stream);
     }
@@ -109,6 +212,8 @@ abstract class OutboundMessage extends NetworkMessage {
     static class Request extends OutboundMessage {
 
         private final String action;
+        @Nullable
+        private final TransportCompressionDictionaries.NegotiatedDictionary compressionDictionary;
 
         Request(
             ThreadContext threadContext,
@@ -118,9 +223,28 @@ abstract class OutboundMessage extends NetworkMessage {
             long requestId,
             boolean isHandshake,
             Compression.Scheme compressionScheme
+        ) {
+            this(threadContext, message, version, action, requestId, isHandshake, compressionScheme, null);
+        }
+
+        Request(
+            ThreadContext threadContext,
+            Writeable message,
+            Version version,
+            String action,
+            long requestId,
+            boolean isHandshake,
+            Compression.Scheme compressionScheme,
+            @Nullable TransportCompressionDictionaries.NegotiatedDictionary compressionDictionary
         ) {
             super(threadContext, version, setStatus(isHandshake), requestId, adjustCompressionScheme(compressionScheme, message), message);
             this.action = action;
+            this.compressionDictionary = compressionDictionary;
+        }
+
+        @Override
+        protected TransportCompressionDictionaries.NegotiatedDictionary compressionDictionary() {
+            return compressionDictionary;
         }
 
         @Override
@@ -10,6 +10,12 @@ package org.elasticsearch.transport;
 
 import org.elasticsearch.common.metrics.MeanMetric;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
 
 public class StatsTracker {
@@ -17,6 +23,13 @@ public class StatsTracker {
     private final LongAdder bytesRead = new LongAdder();
     private final LongAdder messagesReceived = new LongAdder();
     private final MeanMetric writeBytesMetric = new MeanMetric();
+    private final Map<Compression.Scheme, CompressionCounters> compressionCounters = new EnumMap<>(Compression.Scheme.class);
+
+    public StatsTracker() {
+        for (Compression.Scheme scheme : Compression.Scheme.values()) {
+            compressionCounters.put(scheme, new CompressionCounters());
+        }
+    }
 
     public void markBytesRead(long bytesReceived) {
         bytesRead.add(bytesReceived);
@@ -30,6 +43,28 @@ public class StatsTracker {
         writeBytesMetric.inc(bytesWritten);
     }
 
+    /**
+     * Records the compression of an outbound message, where the time includes serializing the message into the compressor.
+     */
+    public void markMessageCompressed(Compression.Scheme scheme, long uncompressedBytes, long compressedBytes, long tookNanos) {
+        final CompressionCounters counters = compressionCounters.get(scheme);
+        counters.compressedMessages.increment();
+        counters.compressionInputBytes.add(uncompressedBytes);
+        counters.compressionOutputBytes.add(compressedBytes);
+        counters.compressionNanos.add(tookNanos);
+    }
+
+    /**
+     * Records the decompression of an inbound message.
+     */
+    public void markMessageDecompressed(Compression.Scheme scheme, long compressedBytes, long uncompressedBytes, long tookNanos) {
+        final CompressionCounters counters = compressionCounters.get(scheme);
+        counters.decompressedMessages.increment();
+        counters.decompressionInputBytes.add(compressedBytes);
+        counters.decompressionOutputBytes.add(uncompressedBytes);
+        counters.decompressionNanos.add(tookNanos);
+    }
+
     public long getBytesRead() {
         return bytesRead.sum();
     }
@@ -45,4 +80,42 @@ public class StatsTracker {
     public long getMessagesSent() {
         return writeBytesMetric.count();
     }
+
+    /**
+     * @return the compression stats of the schemes that compressed or decompressed any messages
+     */
+    public List<TransportStats.CompressionStats> getCompressionStats() {
+        final List<TransportStats.CompressionStats> stats = new ArrayList<>();
+        compressionCounters.forEach((scheme, counters) -> {
+            final long compressedMessages = counters.compressedMessages.sum();
+            final long decompressedMessages = counters.decompressedMessages.sum();
+            if (compressedMessages > 0 || decompressedMessages > 0) {
+                stats.add(
+                    new TransportStats.CompressionStats(
+                        scheme.name().toLowerCase(Locale.ROOT),
+                        compressedMessages,
+                        counters.compressionInputBytes.sum(),
+                        counters.compressionOutputBytes.sum(),
+                        TimeUnit.NANOSECONDS.toMillis(counters.compressionNanos.sum()),
+                        decompressedMessages,
+                        counters.decompressionInputBytes.sum(),
+                        counters.decompressionOutputBytes.sum(),
+                        TimeUnit.NANOSECONDS.toMillis(counters.decompressionNanos.sum())
+                    )
+                );
+            }
+        });
+        return stats;
+    }
+
+    private static final class CompressionCounters {
+        private final LongAdder compressedMessages = new LongAdder();
+        private final LongAdder compressionInputBytes = new LongAdder();
+        private final LongAdder compressionOutputBytes = new LongAdder();
+        private final LongAdder compressionNanos = new LongAdder();
+        private final LongAdder decompressedMessages = new LongAdder();
+        private final LongAdder decompressionInputBytes = new LongAdder();
+        private final LongAdder decompressionOutputBytes = new LongAdder();
+        private final LongAdder decompressionNanos = new LongAdder();
+    }
 }
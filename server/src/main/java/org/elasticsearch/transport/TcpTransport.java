@@ -127,6 +127,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
     private volatile BoundTransportAddress boundAddress;
 
+    private final TransportCompressionDictionaries compressionDictionaries;
     private final TransportHandshaker handshaker;
     private final TransportKeepAlive keepAlive;
     private final HandlingTimeTracker outboundHandlingTimeTracker = new HandlingTimeTracker();
@@ -164,11 +165,14 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             threadPool,
             recycler,
             outboundHandlingTimeTracker,
-            rstOnClose
+            rstOnClose,
+            TransportSettings.OUTBOUND_MAX_IN_FLIGHT_BYTES.get(settings).getBytes()
         );
+        this.outboundHandler.setResponseChunkSize(TransportSettings.OUTBOUND_RESPONSE_CHUNK_SIZE.get(settings));
 
         ignoreDeserializationErrors = IGNORE_DESERIALIZATION_ERRORS_SETTING.get(settings);
 
+        this.compressionDictionaries = new TransportCompressionDictionaries(settings, threadPool);
         this.handshaker = new TransportHandshaker(
             version,
             threadPool,
@@ -177,12 +181,13 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                 channel,
                 requestId,
                 TransportHandshaker.HANDSHAKE_ACTION_NAME,
-                new TransportHandshaker.HandshakeRequest(version),
+                new TransportHandshaker.HandshakeRequest(version, compressionDictionaries.offeredDictionaries()),
                 TransportRequestOptions.EMPTY,
                 v,
                 null,
                 true
             ),
+            compressionDictionaries,
             ignoreDeserializationErrors
         );
         this.keepAlive = new TransportKeepAlive(threadPool, this.outboundHandler::sendBytes);
@@ -207,6 +212,10 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         return statsTracker;
     }
 
+    public TransportCompressionDictionaries getCompressionDictionaries() {
+        return compressionDictionaries;
+    }
+
     public ThreadPool getThreadPool() {
         return threadPool;
     }
@@ -241,9 +250,21 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         private final Version version;
         private final Compression.Enabled compress;
         private final Compression.Scheme compressionScheme;
+        private final ConnectionProfile connectionProfile;
+        private volatile Map<String, TransportCompressionDictionaries.NegotiatedDictionary> compressionDictionaries;
+        // the number of trained dictionaries that the last handshake offered at least
+        private volatile int offeredDictionaryCount;
+        private final AtomicBoolean negotiatingDictionaries = new AtomicBoolean(false);
         private final AtomicBoolean isClosing = new AtomicBoolean(false);
 
-        NodeChannels(DiscoveryNode node, List<TcpChannel> channels, ConnectionProfile connectionProfile, Version handshakeVersion) {
+        NodeChannels(
+            DiscoveryNode node,
+            List<TcpChannel> channels,
+            ConnectionProfile connectionProfile,
+            Version handshakeVersion,
+            Map<String, TransportCompressionDictionaries.NegotiatedDictionary> compressionDictionaries,
+            int offeredDictionaryCount
+        ) {
             this.node = node;
             this.channels = Collections.unmodifiableList(channels);
             assert channels.size() == connectionProfile.getNumConnections()
@@ -256,6 +277,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             version = handshakeVersion;
             compress = connectionProfile.getCompressionEnabled();
             compressionScheme = connectionProfile.getCompressionScheme();
+            this.connectionProfile = connectionProfile;
+            this.compressionDictionaries = compressionDictionaries;
+            this.offeredDictionaryCount = offeredDictionaryCount;
         }
 
         @Override
@@ -310,7 +334,49 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             }
 
             final Compression.Scheme schemeToUse = getCompressionScheme(wrapped);
-            outboundHandler.sendRequest(node, channel, requestId, action, request, options, getVersion(), schemeToUse, false);
+            TransportCompressionDictionaries.NegotiatedDictionary dictionary = null;
+            if (schemeToUse == Compression.Scheme.ZSTD) {
+                dictionary = compressionDictionaries.get(action);
+                if (dictionary == null) {
+                    TcpTransport.this.compressionDictionaries.maybeSample(action, wrapped, getVersion());
+                    maybeNegotiateDictionaries();
+                }
+            }
+            outboundHandler.sendRequest(
+                node,
+                channel,
+                requestId,
+                action,
+                request,
+                options,
+                getVersion(),
+                schemeToUse,
+                dictionary,
+                false
+            );
+        }
+
+        /**
+         * Offers the dictionaries that were trained since the last handshake on this connection in another handshake, so that
+         * connections that were opened before the dictionaries were trained use them too. The other node assigns the same IDs to the
+         * dictionaries that it registered before, so the requests that are sent in the meantime can keep using those.
+         */
+        private void maybeNegotiateDictionaries() {
+            final int trainedDictionaryCount = TcpTransport.this.compressionDictionaries.trainedDictionaryCount();
+            if (trainedDictionaryCount <= offeredDictionaryCount || negotiatingDictionaries.compareAndSet(false, true) == false) {
+                return;
+            }
+            final TcpChannel handshakeChannel = channels.get(0);
+            executeHandshake(node, handshakeChannel, connectionProfile, ActionListener.wrap(responseVersion -> {
+                compressionDictionaries = TcpTransport.this.compressionDictionaries.takeNegotiatedDictionaries(handshakeChannel);
+                offeredDictionaryCount = trainedDictionaryCount;
+                negotiatingDictionaries.set(false);
+            }, e -> {
+                logger.debug(new ParameterizedMessage("failed to negotiate compression dictionaries with [{}]", node), e);
+                // not retried before more dictionaries are trained, the connection is most likely closing anyway
+                offeredDictionaryCount = trainedDictionaryCount;
+                negotiatingDictionaries.set(false);
+            }));
         }
 
         private Compression.Scheme getCompressionScheme(TransportRequest request) {
@@ -972,7 +1038,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             messagesSent,
             bytesWritten,
             networkService.getHandlingTimeTracker().getHistogram(),
-            outboundHandlingTimeTracker.getHistogram()
+            outboundHandlingTimeTracker.getHistogram(),
+            outboundHandler.getOutboundQueueStats(),
+            statsTracker.getCompressionStats()
         );
     }
 
@@ -1074,11 +1142,20 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             // Returns true if all connections have completed successfully
             if (countDown.countDown()) {
                 final TcpChannel handshakeChannel = channels.get(0);
+                // the handshake offers at least the dictionaries that are trained by now
+                final int offeredDictionaryCount = compressionDictionaries.trainedDictionaryCount();
                 try {
                     executeHandshake(node, handshakeChannel, connectionProfile, ActionListener.wrap(responseVersion -> {
                         final long connectionId = outboundConnectionCount.incrementAndGet();
                         logger.debug("opened transport connection [{}] to [{}] using channels [{}]", connectionId, node, channels);
-                        NodeChannels nodeChannels = new NodeChannels(node, channels, connectionProfile, responseVersion);
+                        NodeChannels nodeChannels = new NodeChannels(
+                            node,
+                            channels,
+                            connectionProfile,
+                            responseVersion,
+                            compressionDictionaries.takeNegotiatedDictionaries(handshakeChannel),
+                            offeredDictionaryCount
+                        );
                         long relativeMillisTime = threadPool.relativeTimeInMillis();
                         nodeChannels.channels.forEach(ch -> {
                             // Mark the channel init time
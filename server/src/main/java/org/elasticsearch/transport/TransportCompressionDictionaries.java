@@ -0,0 +1,277 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shared dictionaries for {@link Compression.Scheme#ZSTD}, which let even small requests reference the field names and values that all
+ * requests of the same action have in common.
+ *
+ * On the sending side the requests of the actions listed in {@link TransportSettings#TRANSPORT_COMPRESSION_DICTIONARY_ACTIONS} are
+ * sampled until there are enough of them to train a dictionary per action. Trained dictionaries are offered in the handshakes of all
+ * connections that open afterwards, and used for the requests of those connections that the receiving node accepted them for.
+ * Connections that were already open offer them in another handshake once they send a request that has no dictionary.
+ *
+ * On the receiving side the dictionaries that handshakes offer are registered under IDs that this node assigns, so that IDs never
+ * clash across the nodes that connect to it. Identical dictionaries share an ID, and a dictionary is dropped once all connections that
+ * offered it are closed.
+ */
+public final class TransportCompressionDictionaries {
+
+    private static final Logger logger = LogManager.getLogger(TransportCompressionDictionaries.class);
+
+    /** The number of requests to sample per action before training its dictionary. */
+    static final int SAMPLES_PER_ACTION = 128;
+    /** Only the start of large requests is sampled, which is where the headers and field names are. */
+    static final int MAX_SAMPLE_SIZE = 16 * 1024;
+    /** The format reserves smaller IDs for dictionaries that a central registrar assigns. */
+    private static final int FIRST_DICTIONARY_ID = 1 << 15;
+
+    private final Set<String> actions;
+    private final int dictionarySize;
+    private final ThreadPool threadPool;
+
+    private final ConcurrentMap<String, Sampler> samplers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ZstdDictionary> trainedDictionaries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TcpChannel, Map<String, NegotiatedDictionary>> negotiatedDictionaries = new ConcurrentHashMap<>();
+
+    private final Object registryMutex = new Object();
+    private final Map<ZstdDictionary, RegisteredDictionary> registeredByContent = new HashMap<>();
+    private final ConcurrentMap<Integer, RegisteredDictionary> registeredById = new ConcurrentHashMap<>();
+    private int nextDictionaryId = FIRST_DICTIONARY_ID - 1;
+
+    public TransportCompressionDictionaries(Settings settings, ThreadPool threadPool) {
+        this.actions = Set.copyOf(TransportSettings.TRANSPORT_COMPRESSION_DICTIONARY_ACTIONS.get(settings));
+        this.dictionarySize = Math.toIntExact(TransportSettings.TRANSPORT_COMPRESSION_DICTIONARY_SIZE.get(settings).getBytes());
+        this.threadPool = threadPool;
+    }
+
+    /**
+     * A dictionary that the node at the other end of a connection accepted, along with the ID it assigned to it.
+     */
+    record NegotiatedDictionary(int id, ZstdDictionary dictionary) {}
+
+    // sending side
+
+    /**
+     * Samples the given request if it belongs to an action that needs a dictionary that isn't trained yet, and starts the training
+     * once there are enough samples.
+     */
+    void maybeSample(String action, TransportRequest request, Version version) {
+        if (actions.contains(action) == false || trainedDictionaries.containsKey(action)) {
+            return;
+        }
+        final Sampler sampler = samplers.computeIfAbsent(action, a -> new Sampler());
+        if (sampler.isFull()) {
+            return;
+        }
+        final byte[] sample;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            request.writeTo(out);
+            final BytesReference bytes = out.bytes();
+            sample = BytesReference.toBytes(bytes.slice(0, Math.min(bytes.length(), MAX_SAMPLE_SIZE)));
+        } catch (IOException e) {
+            logger.debug(new ParameterizedMessage("failed to sample request of action [{}]", action), e);
+            return;
+        }
+        final List<byte[]> samples = sampler.add(sample);
+        if (samples != null) {
+            threadPool.generic().execute(new AbstractRunnable() {
+                @Override
+                protected void doRun() {
+                    final ZstdDictionary dictionary = ZstdDictionary.train(samples, dictionarySize);
+                    if (dictionary == null) {
+                        logger.debug("requests of action [{}] have nothing in common, not using a compression dictionary", action);
+                    } else {
+                        logger.debug("trained compression dictionary of [{}] bytes for action [{}]", dictionary.size(), action);
+                        trainedDictionaries.put(action, dictionary);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    logger.warn(new ParameterizedMessage("failed to train compression dictionary for action [{}]", action), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * The dictionaries to offer in the handshake of a new connection. Dictionaries are never replaced once trained, so the IDs in the
+     * response to the handshake always refer to the dictionaries that {@link #onHandshakeResponse} finds.
+     */
+    Map<String, ZstdDictionary> offeredDictionaries() {
+        return Map.copyOf(trainedDictionaries);
+    }
+
+    /**
+     * @return the number of dictionaries trained so far, which only ever grows since dictionaries are never replaced once trained
+     */
+    int trainedDictionaryCount() {
+        return trainedDictionaries.size();
+    }
+
+    /**
+     * Records the IDs that the other node assigned to the dictionaries offered in the handshake on the given channel, until the
+     * connection that the channel belongs to picks them up with {@link #takeNegotiatedDictionaries}.
+     */
+    void onHandshakeResponse(TcpChannel channel, Map<String, Integer> dictionaryIds) {
+        if (dictionaryIds.isEmpty()) {
+            return;
+        }
+        final Map<String, NegotiatedDictionary> negotiated = new HashMap<>();
+        dictionaryIds.forEach((action, id) -> {
+            final ZstdDictionary dictionary = trainedDictionaries.get(action);
+            if (dictionary != null) {
+                negotiated.put(action, new NegotiatedDictionary(id, dictionary));
+            }
+        });
+        negotiatedDictionaries.put(channel, Map.copyOf(negotiated));
+        channel.addCloseListener(ActionListener.wrap(() -> negotiatedDictionaries.remove(channel)));
+    }
+
+    /**
+     * @return the dictionaries by action that the handshake on the given channel negotiated, empty if there are none
+     */
+    Map<String, NegotiatedDictionary> takeNegotiatedDictionaries(TcpChannel handshakeChannel) {
+        final Map<String, NegotiatedDictionary> negotiated = negotiatedDictionaries.remove(handshakeChannel);
+        return negotiated == null ? Map.of() : negotiated;
+    }
+
+    // receiving side
+
+    /**
+     * Registers the dictionaries that a handshake offered, which remain registered until the returned registration is closed.
+     */
+    Registration register(Map<String, ZstdDictionary> dictionaries) {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<RegisteredDictionary> registered = new ArrayList<>(dictionaries.size());
+        synchronized (registryMutex) {
+            dictionaries.forEach((action, dictionary) -> {
+                final RegisteredDictionary entry = registeredByContent.computeIfAbsent(dictionary, d -> {
+                    final RegisteredDictionary newEntry = new RegisteredDictionary(nextDictionaryId(), d);
+                    registeredById.put(newEntry.id, newEntry);
+                    return newEntry;
+                });
+                entry.refCount++;
+                registered.add(entry);
+                ids.put(action, entry.id);
+            });
+        }
+        return new Registration(Map.copyOf(ids), registered);
+    }
+
+    private int nextDictionaryId() {
+        assert Thread.holdsLock(registryMutex);
+        do {
+            nextDictionaryId = nextDictionaryId == Integer.MAX_VALUE ? FIRST_DICTIONARY_ID : nextDictionaryId + 1;
+        } while (registeredById.containsKey(nextDictionaryId));
+        return nextDictionaryId;
+    }
+
+    /**
+     * @return the registered dictionary with the given ID, or {@code null} if there is none
+     */
+    @Nullable
+    public ZstdDictionary getDictionary(int id) {
+        final RegisteredDictionary entry = registeredById.get(id);
+        return entry == null ? null : entry.dictionary;
+    }
+
+    int getRegisteredDictionaryCount() {
+        return registeredById.size();
+    }
+
+    /**
+     * The IDs assigned to the dictionaries of a handshake, which releases them when closed.
+     */
+    final class Registration implements Releasable {
+
+        private final Map<String, Integer> ids;
+        private final List<RegisteredDictionary> registered;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Registration(Map<String, Integer> ids, List<RegisteredDictionary> registered) {
+            this.ids = ids;
+            this.registered = registered;
+        }
+
+        Map<String, Integer> ids() {
+            return ids;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                synchronized (registryMutex) {
+                    for (RegisteredDictionary entry : registered) {
+                        assert entry.refCount > 0;
+                        if (--entry.refCount == 0) {
+                            registeredByContent.remove(entry.dictionary);
+                            registeredById.remove(entry.id);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class RegisteredDictionary {
+        private final int id;
+        private final ZstdDictionary dictionary;
+        private int refCount;
+
+        private RegisteredDictionary(int id, ZstdDictionary dictionary) {
+            this.id = id;
+            this.dictionary = dictionary;
+        }
+    }
+
+    private static final class Sampler {
+        private final List<byte[]> samples = new ArrayList<>(SAMPLES_PER_ACTION);
+
+        synchronized boolean isFull() {
+            return samples.size() >= SAMPLES_PER_ACTION;
+        }
+
+        /**
+         * @return all samples if this one completed them, {@code null} otherwise
+         */
+        synchronized List<byte[]> add(byte[] sample) {
+            if (samples.size() >= SAMPLES_PER_ACTION) {
+                return null;
+            }
+            samples.add(sample);
+            return samples.size() == SAMPLES_PER_ACTION ? List.copyOf(samples) : null;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.elasticsearch.common.recycler.Recycler;
 import org.elasticsearch.core.Releasable;
 
 import java.io.IOException;
+import java.util.function.IntFunction;
 
 public interface TransportDecompressor extends Releasable {
 
@@ -33,7 +34,15 @@ public interface TransportDecompressor extends Releasable {
     @Override
     void close();
 
-    static TransportDecompressor getDecompressor(Recycler<BytesRef> recycler, BytesReference bytes) throws IOException {
+    /**
+     * @param dictionaries resolves the dictionary IDs of {@link Compression.Scheme#ZSTD} messages to the dictionaries they were
+     *                     compressed with
+     */
+    static TransportDecompressor getDecompressor(
+        Recycler<BytesRef> recycler,
+        IntFunction<ZstdDictionary> dictionaries,
+        BytesReference bytes
+    ) throws IOException {
         if (bytes.length() < Compression.Scheme.HEADER_LENGTH) {
             return null;
         }
@@ -42,6 +51,8 @@ public interface TransportDecompressor extends Releasable {
             return new DeflateTransportDecompressor(recycler);
         } else if (Compression.Scheme.isLZ4(bytes)) {
             return new Lz4TransportDecompressor(recycler);
+        } else if (Compression.Scheme.isZstd(bytes)) {
+            return new ZstdTransportDecompressor(recycler, dictionaries);
         } else {
             throw createIllegalState(bytes);
         }
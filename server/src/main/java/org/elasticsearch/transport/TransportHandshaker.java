@@ -21,6 +21,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -38,23 +39,26 @@ final class TransportHandshaker {
     private final Version version;
     private final ThreadPool threadPool;
     private final HandshakeRequestSender handshakeRequestSender;
+    private final TransportCompressionDictionaries compressionDictionaries;
     private final boolean ignoreDeserializationErrors;
 
     TransportHandshaker(
         Version version,
         ThreadPool threadPool,
         HandshakeRequestSender handshakeRequestSender,
+        TransportCompressionDictionaries compressionDictionaries,
         boolean ignoreDeserializationErrors
     ) {
         this.version = version;
         this.threadPool = threadPool;
         this.handshakeRequestSender = handshakeRequestSender;
+        this.compressionDictionaries = compressionDictionaries;
         this.ignoreDeserializationErrors = ignoreDeserializationErrors;
     }
 
     void sendHandshake(long requestId, DiscoveryNode node, TcpChannel channel, TimeValue timeout, ActionListener<Version> listener) {
         numHandshakes.inc();
-        final HandshakeResponseHandler handler = new HandshakeResponseHandler(requestId, version, listener);
+        final HandshakeResponseHandler handler = new HandshakeResponseHandler(requestId, version, channel, listener);
         pendingHandshakes.put(requestId, handler);
         channel.addCloseListener(
             ActionListener.wrap(() -> handler.handleLocalException(new TransportException("handshake failed because connection reset")))
@@ -84,9 +88,10 @@ final class TransportHandshaker {
     }
 
     void handleHandshake(TransportChannel channel, long requestId, StreamInput stream) throws IOException {
+        final HandshakeRequest request;
         try {
             // Must read the handshake request to exhaust the stream
-            new HandshakeRequest(stream);
+            request = new HandshakeRequest(stream);
         } catch (Exception e) {
             assert ignoreDeserializationErrors : e;
             throw e;
@@ -105,7 +110,20 @@ final class TransportHandshaker {
             assert ignoreDeserializationErrors : exception;
             throw exception;
         }
-        channel.sendResponse(new HandshakeResponse(this.version));
+        if (request.compressionDictionaries.isEmpty()) {
+            channel.sendResponse(new HandshakeResponse(this.version));
+        } else {
+            final TransportCompressionDictionaries.Registration registration = compressionDictionaries.register(
+                request.compressionDictionaries
+            );
+            if (channel instanceof TcpTransportChannel tcpTransportChannel) {
+                tcpTransportChannel.getChannel().addCloseListener(ActionListener.wrap(registration::close));
+            } else {
+                // no other messages follow the handshake on other channels
+                registration.close();
+            }
+            channel.sendResponse(new HandshakeResponse(this.version, registration.ids()));
+        }
     }
 
     TransportResponseHandler<HandshakeResponse> removeHandlerForHandshake(long requestId) {
@@ -124,12 +142,14 @@ final class TransportHandshaker {
 
         private final long requestId;
         private final Version currentVersion;
+        private final TcpChannel channel;
         private final ActionListener<Version> listener;
         private final AtomicBoolean isDone = new AtomicBoolean(false);
 
-        private HandshakeResponseHandler(long requestId, Version currentVersion, ActionListener<Version> listener) {
+        private HandshakeResponseHandler(long requestId, Version currentVersion, TcpChannel channel, ActionListener<Version> listener) {
             this.requestId = requestId;
             this.currentVersion = currentVersion;
+            this.channel = channel;
             this.listener = listener;
         }
 
@@ -153,6 +173,7 @@ final class TransportHandshaker {
                         )
                     );
                 } else {
+                    compressionDictionaries.onHandshakeResponse(channel, response.compressionDictionaryIds);
                     listener.onResponse(responseVersion);
                 }
             }
@@ -175,9 +196,15 @@ final class TransportHandshaker {
     static final class HandshakeRequest extends TransportRequest {
 
         private final Version version;
+        private final Map<String, ZstdDictionary> compressionDictionaries;
 
         HandshakeRequest(Version version) {
+            this(version, Map.of());
+        }
+
+        HandshakeRequest(Version version, Map<String, ZstdDictionary> compressionDictionaries) {
             this.version = version;
+            this.compressionDictionaries = compressionDictionaries;
         }
 
         HandshakeRequest(StreamInput streamInput) throws IOException {
@@ -190,9 +217,19 @@ final class TransportHandshaker {
             }
             if (remainingMessage == null) {
                 version = null;
+                compressionDictionaries = Map.of();
             } else {
                 try (StreamInput messageStreamInput = remainingMessage.streamInput()) {
                     this.version = Version.readVersion(messageStreamInput);
+                    // nodes before 8.2 stop reading after the version, so anything that follows must be optional
+                    if (messageStreamInput.available() > 0) {
+                        this.compressionDictionaries = messageStreamInput.readMap(
+                            StreamInput::readString,
+                            in -> new ZstdDictionary(in.readByteArray())
+                        );
+                    } else {
+                        this.compressionDictionaries = Map.of();
+                    }
                 }
             }
         }
@@ -203,6 +240,13 @@ final class TransportHandshaker {
             assert version != null;
             try (BytesStreamOutput messageStreamOutput = new BytesStreamOutput(4)) {
                 Version.writeVersion(version, messageStreamOutput);
+                if (compressionDictionaries.isEmpty() == false) {
+                    messageStreamOutput.writeMap(
+                        compressionDictionaries,
+                        StreamOutput::writeString,
+                        (out, dictionary) -> out.writeByteArray(dictionary.content())
+                    );
+                }
                 BytesReference reference = messageStreamOutput.bytes();
                 streamOutput.writeBytesReference(reference);
             }
@@ -212,25 +256,47 @@ final class TransportHandshaker {
     static final class HandshakeResponse extends TransportResponse {
 
         private final Version responseVersion;
+        private final Map<String, Integer> compressionDictionaryIds;
 
         HandshakeResponse(Version responseVersion) {
+            this(responseVersion, Map.of());
+        }
+
+        /**
+         * @param compressionDictionaryIds the IDs assigned to the compression dictionaries of the request by action, which must only be
+         *                                 sent if the request offered any since older nodes don't expect them
+         */
+        HandshakeResponse(Version responseVersion, Map<String, Integer> compressionDictionaryIds) {
             this.responseVersion = responseVersion;
+            this.compressionDictionaryIds = compressionDictionaryIds;
         }
 
         private HandshakeResponse(StreamInput in) throws IOException {
             super(in);
             responseVersion = Version.readVersion(in);
+            if (in.available() > 0) {
+                compressionDictionaryIds = in.readMap(StreamInput::readString, StreamInput::readVInt);
+            } else {
+                compressionDictionaryIds = Map.of();
+            }
         }
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             assert responseVersion != null;
             Version.writeVersion(responseVersion, out);
+            if (compressionDictionaryIds.isEmpty() == false) {
+                out.writeMap(compressionDictionaryIds, StreamOutput::writeString, StreamOutput::writeVInt);
+            }
         }
 
         Version getResponseVersion() {
             return responseVersion;
         }
+
+        Map<String, Integer> getCompressionDictionaryIds() {
+            return compressionDictionaryIds;
+        }
     }
 
     @FunctionalInterface
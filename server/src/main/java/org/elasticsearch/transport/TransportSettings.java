@@ -88,6 +88,19 @@ public final class TransportSettings {
         Compression.Scheme.LZ4,
         Setting.Property.NodeScope
     );
+    public static final Setting<List<String>> TRANSPORT_COMPRESSION_DICTIONARY_ACTIONS = listSetting(
+        "transport.compression.dictionary.actions",
+        emptyList(),
+        Function.identity(),
+        Setting.Property.NodeScope
+    );
+    public static final Setting<ByteSizeValue> TRANSPORT_COMPRESSION_DICTIONARY_SIZE = Setting.byteSizeSetting(
+        "transport.compression.dictionary.size",
+        ByteSizeValue.ofKb(32),
+        ByteSizeValue.ofBytes(1),
+        ByteSizeValue.ofBytes(ZstdDictionary.MAX_SIZE),
+        Setting.Property.NodeScope
+    );
     // the scheduled internal ping interval setting, defaults to disabled (-1)
     public static final Setting<TimeValue> PING_SCHEDULE = timeSetting(
         "transport.ping_schedule",
@@ -222,6 +235,35 @@ public final class TransportSettings {
         Setting.Property.NodeScope
     );
 
+    // Outbound queuing settings
+
+    // bytes a channel may have in flight before further messages queue up and go out by the priority of their connection type, -1
+    // writes every message straight away. 0 is rejected since no message could ever go out.
+    public static final Setting<ByteSizeValue> OUTBOUND_MAX_IN_FLIGHT_BYTES = new Setting<>(
+        "transport.outbound.max_in_flight_bytes",
+        ByteSizeValue.MINUS_ONE.getStringRep(),
+        s -> {
+            final ByteSizeValue value = ByteSizeValue.parseBytesSizeValue(s, "transport.outbound.max_in_flight_bytes");
+            if (value.getBytes() == 0) {
+                throw new IllegalArgumentException(
+                    "failed to parse value [" + s + "] for setting [transport.outbound.max_in_flight_bytes], must be -1 or >= [1b]"
+                );
+            }
+            return value;
+        },
+        Setting.Property.NodeScope
+    );
+
+    // responses larger than this are sent as a sequence of frames with at most this much content each, -1 sends every response in a
+    // single frame
+    public static final Setting<ByteSizeValue> OUTBOUND_RESPONSE_CHUNK_SIZE = Setting.byteSizeSetting(
+        "transport.outbound.response_chunk_size",
+        ByteSizeValue.MINUS_ONE,
+        ByteSizeValue.MINUS_ONE,
+        ByteSizeValue.ofBytes(Integer.MAX_VALUE),
+        Setting.Property.NodeScope
+    );
+
     // Tracer settings
 
     public static final Setting<List<String>> TRACE_LOG_INCLUDE_SETTING = listSetting(
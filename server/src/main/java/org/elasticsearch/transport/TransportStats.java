@@ -14,11 +14,13 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 
 public class TransportStats implements Writeable, ToXContentFragment {
 
@@ -30,6 +32,8 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long txSize;
     private final long[] inboundHandlingTimeBucketFrequencies;
     private final long[] outboundHandlingTimeBucketFrequencies;
+    private final List<OutboundQueueStats> outboundQueueStats;
+    private final List<CompressionStats> compressionStats;
 
     public TransportStats(
         long serverOpen,
@@ -39,7 +43,9 @@ public class TransportStats implements Writeable, ToXContentFragment {
         long txCount,
         long txSize,
         long[] inboundHandlingTimeBucketFrequencies,
-        long[] outboundHandlingTimeBucketFrequencies
+        long[] outboundHandlingTimeBucketFrequencies,
+        List<OutboundQueueStats> outboundQueueStats,
+        List<CompressionStats> compressionStats
     ) {
         this.serverOpen = serverOpen;
         this.totalOutboundConnections = totalOutboundConnections;
@@ -49,6 +55,8 @@ public class TransportStats implements Writeable, ToXContentFragment {
         this.txSize = txSize;
         this.inboundHandlingTimeBucketFrequencies = inboundHandlingTimeBucketFrequencies;
         this.outboundHandlingTimeBucketFrequencies = outboundHandlingTimeBucketFrequencies;
+        this.outboundQueueStats = outboundQueueStats;
+        this.compressionStats = compressionStats;
         assert assertHistogramsConsistent();
     }
 
@@ -72,6 +80,13 @@ public class TransportStats implements Writeable, ToXContentFragment {
             inboundHandlingTimeBucketFrequencies = new long[0];
             outboundHandlingTimeBucketFrequencies = new long[0];
         }
+        if (in.getVersion().onOrAfter(Version.V_8_2_0)) {
+            outboundQueueStats = in.readList(OutboundQueueStats::new);
+            compressionStats = in.readList(CompressionStats::new);
+        } else {
+            outboundQueueStats = List.of();
+            compressionStats = List.of();
+        }
         assert assertHistogramsConsistent();
     }
 
@@ -93,6 +108,10 @@ public class TransportStats implements Writeable, ToXContentFragment {
                 out.writeVLong(handlingTimeBucketFrequency);
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
+            out.writeList(outboundQueueStats);
+            out.writeList(compressionStats);
+        }
     }
 
     public long serverOpen() {
@@ -143,6 +162,20 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return Arrays.copyOf(outboundHandlingTimeBucketFrequencies, outboundHandlingTimeBucketFrequencies.length);
     }
 
+    /**
+     * The outbound queues of the channels of this node by connection type, empty if the stats came from a node before 8.2.
+     */
+    public List<OutboundQueueStats> getOutboundQueueStats() {
+        return outboundQueueStats;
+    }
+
+    /**
+     * The compression stats of the schemes that this node used, empty if the stats came from a node before 8.2.
+     */
+    public List<CompressionStats> getCompressionStats() {
+        return compressionStats;
+    }
+
     private boolean assertHistogramsConsistent() {
         assert inboundHandlingTimeBucketFrequencies.length == outboundHandlingTimeBucketFrequencies.length;
         if (inboundHandlingTimeBucketFrequencies.length == 0) {
@@ -170,6 +203,20 @@ public class TransportStats implements Writeable, ToXContentFragment {
             // Stats came from before v8.1
             assert Version.CURRENT.major == Version.V_8_0_0.major;
         }
+        if (outboundQueueStats.isEmpty() == false) {
+            builder.startObject(Fields.OUTBOUND_QUEUES);
+            for (OutboundQueueStats queueStats : outboundQueueStats) {
+                queueStats.toXContent(builder, params);
+            }
+            builder.endObject();
+        }
+        if (compressionStats.isEmpty() == false) {
+            builder.startObject(Fields.COMPRESSION);
+            for (CompressionStats schemeStats : compressionStats) {
+                schemeStats.toXContent(builder, params);
+            }
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -204,5 +251,140 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
         static final String INBOUND_HANDLING_TIME_HISTOGRAM = "inbound_handling_time_histogram";
         static final String OUTBOUND_HANDLING_TIME_HISTOGRAM = "outbound_handling_time_histogram";
+        static final String OUTBOUND_QUEUES = "outbound_queues";
+        static final String QUEUE_DEPTH = "queue_depth";
+        static final String QUEUED_TOTAL = "queued_total";
+        static final String HEAD_OF_LINE_BLOCKING_TIME = "head_of_line_blocking_time";
+        static final String HEAD_OF_LINE_BLOCKING_TIME_IN_MILLIS = "head_of_line_blocking_time_in_millis";
+        static final String COMPRESSION = "compression";
+        static final String DECOMPRESSION = "decompression";
+        static final String MESSAGES = "messages";
+        static final String UNCOMPRESSED_SIZE = "uncompressed_size";
+        static final String UNCOMPRESSED_SIZE_IN_BYTES = "uncompressed_size_in_bytes";
+        static final String COMPRESSED_SIZE = "compressed_size";
+        static final String COMPRESSED_SIZE_IN_BYTES = "compressed_size_in_bytes";
+        static final String TIME = "time";
+        static final String TIME_IN_MILLIS = "time_in_millis";
+    }
+
+    /**
+     * Statistics of the messages of one connection type that had to wait for the messages ahead of them on their channel.
+     *
+     * @param type the connection type, see {@link TransportRequestOptions.Type}
+     * @param queueDepth the number of messages that are waiting right now
+     * @param queuedCount the total number of messages that had to wait before they were written
+     * @param headOfLineBlockingTimeMillis the total time that messages spent waiting
+     */
+    public record OutboundQueueStats(String type, long queueDepth, long queuedCount, long headOfLineBlockingTimeMillis)
+        implements
+            Writeable,
+            ToXContentFragment {
+
+        public OutboundQueueStats(StreamInput in) throws IOException {
+            this(in.readString(), in.readVLong(), in.readVLong(), in.readVLong());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(type);
+            out.writeVLong(queueDepth);
+            out.writeVLong(queuedCount);
+            out.writeVLong(headOfLineBlockingTimeMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(type);
+            builder.field(Fields.QUEUE_DEPTH, queueDepth);
+            builder.field(Fields.QUEUED_TOTAL, queuedCount);
+            builder.humanReadableField(
+                Fields.HEAD_OF_LINE_BLOCKING_TIME_IN_MILLIS,
+                Fields.HEAD_OF_LINE_BLOCKING_TIME,
+                TimeValue.timeValueMillis(headOfLineBlockingTimeMillis)
+            );
+            builder.endObject();
+            return builder;
+        }
+    }
+
+    /**
+     * Statistics of the messages that one compression scheme compressed and decompressed, showing both how much bandwidth the
+     * scheme saves and how much CPU time it costs.
+     *
+     * @param scheme the compression scheme, see {@link Compression.Scheme}
+     * @param compressedMessages the number of outbound messages that were compressed
+     * @param compressionInputBytes the size of the outbound messages before compression
+     * @param compressionOutputBytes the size of the outbound messages after compression
+     * @param compressionTimeMillis the time spent serializing outbound messages into the compressor
+     * @param decompressedMessages the number of inbound messages that were decompressed
+     * @param decompressionInputBytes the size of the inbound messages before decompression
+     * @param decompressionOutputBytes the size of the inbound messages after decompression
+     * @param decompressionTimeMillis the time spent decompressing inbound messages
+     */
+    public record CompressionStats(
+        String scheme,
+        long compressedMessages,
+        long compressionInputBytes,
+        long compressionOutputBytes,
+        long compressionTimeMillis,
+        long decompressedMessages,
+        long decompressionInputBytes,
+        long decompressionOutputBytes,
+        long decompressionTimeMillis
+    ) implements Writeable, ToXContentFragment {
+
+        public CompressionStats(StreamInput in) throws IOException {
+            this(
+                in.readString(),
+                in.readVLong(),
+                in.readVLong(),
+                in.readVLong(),
+                in.readVLong(),
+                in.readVLong(),
+                in.readVLong(),
+                in.readVLong(),
+                in.readVLong()
+            );
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(scheme);
+            out.writeVLong(compressedMessages);
+            out.writeVLong(compressionInputBytes);
+            out.writeVLong(compressionOutputBytes);
+            out.writeVLong(compressionTimeMillis);
+            out.writeVLong(decompressedMessages);
+            out.writeVLong(decompressionInputBytes);
+            out.writeVLong(decompressionOutputBytes);
+            out.writeVLong(decompressionTimeMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(scheme);
+            builder.startObject(Fields.COMPRESSION);
+            builder.field(Fields.MESSAGES, compressedMessages);
+            builder.humanReadableField(
+                Fields.UNCOMPRESSED_SIZE_IN_BYTES,
+                Fields.UNCOMPRESSED_SIZE,
+                new ByteSizeValue(compressionInputBytes)
+            );
+            builder.humanReadableField(Fields.COMPRESSED_SIZE_IN_BYTES, Fields.COMPRESSED_SIZE, new ByteSizeValue(compressionOutputBytes));
+            builder.humanReadableField(Fields.TIME_IN_MILLIS, Fields.TIME, TimeValue.timeValueMillis(compressionTimeMillis));
+            builder.endObject();
+            builder.startObject(Fields.DECOMPRESSION);
+            builder.field(Fields.MESSAGES, decompressedMessages);
+            builder.humanReadableField(Fields.COMPRESSED_SIZE_IN_BYTES, Fields.COMPRESSED_SIZE, new ByteSizeValue(decompressionInputBytes));
+            builder.humanReadableField(
+                Fields.UNCOMPRESSED_SIZE_IN_BYTES,
+                Fields.UNCOMPRESSED_SIZE,
+                new ByteSizeValue(decompressionOutputBytes)
+            );
+            builder.humanReadableField(Fields.TIME_IN_MILLIS, Fields.TIME, TimeValue.timeValueMillis(decompressionTimeMillis));
+            builder.endObject();
+            builder.endObject();
+            return builder;
+        }
     }
 }
@@ -14,6 +14,8 @@ public final class TransportStatus {
     private static final byte STATUS_ERROR = 1 << 1;
     private static final byte STATUS_COMPRESS = 1 << 2;
     private static final byte STATUS_HANDSHAKE = 1 << 3;
+    // the content of the response continues in the next frame with the same request id, only set from Version.V_8_2_0 on
+    private static final byte STATUS_CHUNKED = 1 << 4;
 
     public static boolean isRequest(byte value) {
         return (value & STATUS_REQRES) == 0;
@@ -55,4 +57,13 @@ public final class TransportStatus {
         value |= STATUS_HANDSHAKE;
         return value;
     }
+
+    static boolean isChunked(byte value) {
+        return (value & STATUS_CHUNKED) != 0;
+    }
+
+    static byte setChunked(byte value) {
+        value |= STATUS_CHUNKED;
+        return value;
+    }
 }
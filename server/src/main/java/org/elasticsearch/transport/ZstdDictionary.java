@@ -0,0 +1,174 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A raw content dictionary for {@link ZstdOutputStream}: bytes that are logically prepended to every frame so that even small messages
+ * find matches for the field names and values that all messages of an action share. The dictionary is identified on the wire by an
+ * ID that the receiving node assigns during the handshake, so the same content may have a different ID on every connection.
+ */
+public final class ZstdDictionary {
+
+    /** The largest dictionary that fits in front of a block without pushing it out of the window. */
+    static final int MAX_SIZE = ZstdFormat.WINDOW_SIZE - ZstdFormat.BLOCK_SIZE;
+
+    private final byte[] content;
+    /** The match finder table of {@link ZstdOutputStream} after indexing the content, so that frames don't need to index it again. */
+    private final int[] hashTable;
+
+    ZstdDictionary(byte[] content) {
+        if (content.length == 0 || content.length > MAX_SIZE) {
+            throw new IllegalArgumentException(
+                "dictionary size must be between 1 and [" + MAX_SIZE + "] bytes but was [" + content.length + "]"
+            );
+        }
+        this.content = content;
+        this.hashTable = ZstdOutputStream.indexDictionary(content);
+    }
+
+    byte[] content() {
+        return content;
+    }
+
+    int[] hashTable() {
+        return hashTable;
+    }
+
+    int size() {
+        return content.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(content, ((ZstdDictionary) o).content);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(content);
+    }
+
+    // dictionary training
+
+    private static final int DMER_LENGTH = 8;
+    private static final int SEGMENT_LENGTH = 256;
+    private static final int COUNTS_LOG = 18;
+
+    /**
+     * Builds a dictionary of at most {@code maxSize} bytes out of the segments of the samples whose 8 byte substrings occur in the
+     * most samples, a simplified version of the cover algorithm of the reference implementation. Segments are picked greedily,
+     * each one only scoring for the substrings that the segments picked before don't cover yet, and the best segments go last so
+     * that they are the closest to the data and cheapest to reference.
+     *
+     * @return the dictionary, or {@code null} if the samples have nothing in common
+     */
+    static ZstdDictionary train(List<byte[]> samples, int maxSize) {
+        final int[] counts = new int[1 << COUNTS_LOG];
+        final int[] lastSample = new int[1 << COUNTS_LOG];
+        for (int i = 0; i < samples.size(); i++) {
+            final byte[] sample = samples.get(i);
+            for (int pos = 0; pos + DMER_LENGTH <= sample.length; pos++) {
+                final int h = dmerHash(sample, pos);
+                if (lastSample[h] != i + 1) {
+                    // only count each substring once per sample, frequent within a single sample is not what a dictionary is for
+                    lastSample[h] = i + 1;
+                    counts[h]++;
+                }
+            }
+        }
+
+        final PriorityQueue<Segment> candidates = new PriorityQueue<>((a, b) -> Long.compare(b.score, a.score));
+        for (int i = 0; i < samples.size(); i++) {
+            final byte[] sample = samples.get(i);
+            for (int start = 0; start + DMER_LENGTH <= sample.length; start += SEGMENT_LENGTH / 2) {
+                final Segment segment = new Segment(i, start, Math.min(SEGMENT_LENGTH, sample.length - start));
+                segment.score = score(samples, segment, counts);
+                if (segment.score > 0) {
+                    candidates.add(segment);
+                }
+            }
+        }
+
+        final List<Segment> selected = new ArrayList<>();
+        int size = 0;
+        while (size < maxSize && candidates.isEmpty() == false) {
+            final Segment segment = candidates.poll();
+            // earlier picks may have covered some of its substrings, only take it if it's still the best
+            final long score = score(samples, segment, counts);
+            if (score <= 0) {
+                continue;
+            }
+            if (candidates.isEmpty() == false && score < candidates.peek().score) {
+                segment.score = score;
+                candidates.add(segment);
+                continue;
+            }
+            final byte[] sample = samples.get(segment.sample);
+            for (int pos = segment.start; pos + DMER_LENGTH <= segment.start + segment.length; pos++) {
+                counts[dmerHash(sample, pos)] = 0;
+            }
+            selected.add(segment);
+            size += segment.length;
+        }
+        if (selected.isEmpty()) {
+            return null;
+        }
+
+        final byte[] content = new byte[Math.min(size, maxSize)];
+        int offset = content.length;
+        for (Segment segment : selected) {
+            final int length = Math.min(segment.length, offset);
+            offset -= length;
+            System.arraycopy(samples.get(segment.sample), segment.start, content, offset, length);
+        }
+        assert offset == 0;
+        return new ZstdDictionary(content);
+    }
+
+    private static long score(List<byte[]> samples, Segment segment, int[] counts) {
+        final byte[] sample = samples.get(segment.sample);
+        long score = 0;
+        for (int pos = segment.start; pos + DMER_LENGTH <= segment.start + segment.length; pos++) {
+            final int count = counts[dmerHash(sample, pos)];
+            // a substring that only one sample has is not worth the space
+            if (count > 1) {
+                score += count;
+            }
+        }
+        return score;
+    }
+
+    private static int dmerHash(byte[] bytes, int pos) {
+        long value = 0;
+        for (int i = 0; i < DMER_LENGTH; i++) {
+            value = (value << 8) | (bytes[pos + i] & 0xFF);
+        }
+        return (int) ((value * 0x9E3779B97F4A7C15L) >>> (64 - COUNTS_LOG));
+    }
+
+    private static final class Segment {
+        final int sample;
+        final int start;
+        final int length;
+        long score;
+
+        Segment(int sample, int start, int length) {
+            this.sample = sample;
+            this.start = start;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+/**
+ * Constants and entropy coding tables of the Zstandard frame format (RFC 8878) shared by {@link ZstdOutputStream} and
+ * {@link ZstdFrameDecoder}. Only the predefined FSE distributions are used, so the tables are built once and never sent over the wire.
+ */
+final class ZstdFormat {
+
+    private ZstdFormat() {}
+
+    /** The magic number that starts every frame, which also serves as the transport compression header. */
+    static final int MAGIC_NUMBER = 0xFD2FB528;
+    static final byte[] MAGIC_BYTES = new byte[] { (byte) 0x28, (byte) 0xB5, (byte) 0x2F, (byte) 0xFD };
+
+    /** Blocks never regenerate more than this many bytes. */
+    static final int BLOCK_SIZE = 64 * 1024;
+    /** Frames written by {@link ZstdOutputStream} reference at most this many preceding bytes, including the dictionary. */
+    static final int WINDOW_LOG = 17;
+    static final int WINDOW_SIZE = 1 << WINDOW_LOG;
+    /** The largest window that {@link ZstdFrameDecoder} accepts, frames from other writers may use up to 8MB. */
+    static final int MAX_WINDOW_SIZE = 1 << 23;
+    static final int MAX_BLOCK_SIZE = 128 * 1024;
+
+    static final int BLOCK_HEADER_SIZE = 3;
+    static final int BLOCK_TYPE_RAW = 0;
+    static final int BLOCK_TYPE_RLE = 1;
+    static final int BLOCK_TYPE_COMPRESSED = 2;
+
+    static final int LITERALS_TYPE_RAW = 0;
+    static final int LITERALS_TYPE_RLE = 1;
+
+    static final int SEQUENCE_MODE_PREDEFINED = 0;
+    static final int SEQUENCE_MODE_RLE = 1;
+
+    static final int MIN_MATCH = 3;
+
+    static final int[] LITERALS_LENGTH_BITS = bits(16, 1, 1, 1, 1, 2, 2, 3, 3, 4, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16);
+    static final int[] LITERALS_LENGTH_BASE = baselines(LITERALS_LENGTH_BITS, 0);
+    static final int[] MATCH_LENGTH_BITS = bits(32, 1, 1, 1, 1, 2, 2, 3, 3, 4, 4, 5, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16);
+    static final int[] MATCH_LENGTH_BASE = baselines(MATCH_LENGTH_BITS, MIN_MATCH);
+
+    // the predefined distributions, where -1 stands for a probability of "less than 1"
+    private static final short[] LITERALS_LENGTH_DEFAULT_DISTRIBUTION = distribution(
+        "4 3 2 2 2 2 2 2 2 2 2 2 2 1 1 1 2 2 2 2 2 2 2 2 2 3 2 1 1 1 1 1 -1 -1 -1 -1"
+    );
+    private static final short[] MATCH_LENGTH_DEFAULT_DISTRIBUTION = distribution(
+        "1 4 3 2 2 2 2 2 2 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 -1 -1 -1 -1 -1 -1 -1"
+    );
+    private static final short[] OFFSET_DEFAULT_DISTRIBUTION = distribution(
+        "1 1 1 1 1 1 2 2 2 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 -1 -1 -1 -1 -1"
+    );
+
+    static final int LITERALS_LENGTH_ACCURACY_LOG = 6;
+    static final int MATCH_LENGTH_ACCURACY_LOG = 6;
+    static final int OFFSET_ACCURACY_LOG = 5;
+    /** The largest offset code of the predefined distribution, which bounds the offsets that frames can use. */
+    static final int MAX_OFFSET_CODE = OFFSET_DEFAULT_DISTRIBUTION.length - 1;
+
+    static final FseDecodingTable LITERALS_LENGTH_DECODING_TABLE = new FseDecodingTable(
+        LITERALS_LENGTH_DEFAULT_DISTRIBUTION,
+        LITERALS_LENGTH_ACCURACY_LOG
+    );
+    static final FseDecodingTable MATCH_LENGTH_DECODING_TABLE = new FseDecodingTable(
+        MATCH_LENGTH_DEFAULT_DISTRIBUTION,
+        MATCH_LENGTH_ACCURACY_LOG
+    );
+    static final FseDecodingTable OFFSET_DECODING_TABLE = new FseDecodingTable(OFFSET_DEFAULT_DISTRIBUTION, OFFSET_ACCURACY_LOG);
+
+    static final FseEncodingTable LITERALS_LENGTH_ENCODING_TABLE = new FseEncodingTable(
+        LITERALS_LENGTH_DEFAULT_DISTRIBUTION,
+        LITERALS_LENGTH_ACCURACY_LOG
+    );
+    static final FseEncodingTable MATCH_LENGTH_ENCODING_TABLE = new FseEncodingTable(
+        MATCH_LENGTH_DEFAULT_DISTRIBUTION,
+        MATCH_LENGTH_ACCURACY_LOG
+    );
+    static final FseEncodingTable OFFSET_ENCODING_TABLE = new FseEncodingTable(OFFSET_DEFAULT_DISTRIBUTION, OFFSET_ACCURACY_LOG);
+
+    private static final byte[] LITERALS_LENGTH_CODES = codes(LITERALS_LENGTH_BASE, 0, 64);
+    private static final byte[] MATCH_LENGTH_CODES = codes(MATCH_LENGTH_BASE, MIN_MATCH, 128);
+
+    /** The number of extra bits of each code, starting with the given number of codes that stand for their own value. */
+    private static int[] bits(int directCodes, int... extraBits) {
+        final int[] bits = new int[directCodes + extraBits.length];
+        System.arraycopy(extraBits, 0, bits, directCodes, extraBits.length);
+        return bits;
+    }
+
+    /** The smallest value of each code, each code covering the values up to the baseline of the next one. */
+    private static int[] baselines(int[] bits, int minValue) {
+        final int[] baselines = new int[bits.length];
+        baselines[0] = minValue;
+        for (int code = 1; code < bits.length; code++) {
+            baselines[code] = baselines[code - 1] + (1 << bits[code - 1]);
+        }
+        return baselines;
+    }
+
+    private static short[] distribution(String probabilities) {
+        final String[] values = probabilities.split(" ");
+        final short[] distribution = new short[values.length];
+        for (int i = 0; i < values.length; i++) {
+            distribution[i] = Short.parseShort(values[i]);
+        }
+        return distribution;
+    }
+
+    private static byte[] codes(int[] baselines, int minValue, int count) {
+        final byte[] codes = new byte[count];
+        int code = 0;
+        for (int value = 0; value < count; value++) {
+            while (code + 1 < baselines.length && baselines[code + 1] - minValue <= value) {
+                code++;
+            }
+            codes[value] = (byte) code;
+        }
+        return codes;
+    }
+
+    static int literalsLengthCode(int literalsLength) {
+        return literalsLength < 64 ? LITERALS_LENGTH_CODES[literalsLength] : highestBit(literalsLength) + 19;
+    }
+
+    /** The code of a match of length {@code MIN_MATCH + matchLengthBase}. */
+    static int matchLengthCode(int matchLengthBase) {
+        return matchLengthBase < 128 ? MATCH_LENGTH_CODES[matchLengthBase] : highestBit(matchLengthBase) + 36;
+    }
+
+    static int highestBit(int value) {
+        assert value > 0 : value;
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Spreads the symbols of a normalized distribution over the states of an FSE table, which must match the reference
+     * implementation exactly since decoders derive the same table from the same distribution.
+     */
+    private static int[] spreadSymbols(short[] distribution, int accuracyLog) {
+        final int tableSize = 1 << accuracyLog;
+        final int[] symbols = new int[tableSize];
+        int highThreshold = tableSize - 1;
+        for (int symbol = 0; symbol < distribution.length; symbol++) {
+            if (distribution[symbol] == -1) {
+                symbols[highThreshold--] = symbol;
+            }
+        }
+        final int mask = tableSize - 1;
+        final int step = (tableSize >>> 1) + (tableSize >>> 3) + 3;
+        int position = 0;
+        for (int symbol = 0; symbol < distribution.length; symbol++) {
+            for (int i = 0; i < distribution[symbol]; i++) {
+                symbols[position] = symbol;
+                do {
+                    position = (position + step) & mask;
+                } while (position > highThreshold);
+            }
+        }
+        assert position == 0 : "distribution doesn't add up to the table size";
+        return symbols;
+    }
+
+    /**
+     * The decoding side of an FSE table: the symbol of each state, and how to read the next state from the bit stream.
+     */
+    static final class FseDecodingTable {
+        final int accuracyLog;
+        final byte[] symbols;
+        final byte[] numberOfBits;
+        final int[] baselines;
+
+        /** A table that always decodes the given symbol without reading any bits. */
+        static FseDecodingTable rle(int symbol) {
+            return new FseDecodingTable(0, new byte[] { (byte) symbol }, new byte[1], new int[1]);
+        }
+
+        private FseDecodingTable(int accuracyLog, byte[] symbols, byte[] numberOfBits, int[] baselines) {
+            this.accuracyLog = accuracyLog;
+            this.symbols = symbols;
+            this.numberOfBits = numberOfBits;
+            this.baselines = baselines;
+        }
+
+        FseDecodingTable(short[] distribution, int accuracyLog) {
+            this.accuracyLog = accuracyLog;
+            final int tableSize = 1 << accuracyLog;
+            final int[] spread = spreadSymbols(distribution, accuracyLog);
+            final int[] nextStates = new int[distribution.length];
+            for (int symbol = 0; symbol < distribution.length; symbol++) {
+                nextStates[symbol] = distribution[symbol] == -1 ? 1 : distribution[symbol];
+            }
+            symbols = new byte[tableSize];
+            numberOfBits = new byte[tableSize];
+            baselines = new int[tableSize];
+            for (int state = 0; state < tableSize; state++) {
+                final int symbol = spread[state];
+                final int nextState = nextStates[symbol]++;
+                final int bits = accuracyLog - highestBit(nextState);
+                symbols[state] = (byte) symbol;
+                numberOfBits[state] = (byte) bits;
+                baselines[state] = (nextState << bits) - tableSize;
+            }
+        }
+    }
+
+    /**
+     * The encoding side of an FSE table. States are kept in {@code [tableSize, 2 * tableSize)} while encoding, as in the reference
+     * implementation, so that the number of bits to flush for a symbol is a single shift.
+     */
+    static final class FseEncodingTable {
+        final int accuracyLog;
+        final int[] nextStates;
+        final int[] deltaNumberOfBits;
+        final int[] deltaFindState;
+
+        FseEncodingTable(short[] distribution, int accuracyLog) {
+            this.accuracyLog = accuracyLog;
+            final int tableSize = 1 << accuracyLog;
+            final int[] spread = spreadSymbols(distribution, accuracyLog);
+            final int[] cumulative = new int[distribution.length + 1];
+            for (int symbol = 0; symbol < distribution.length; symbol++) {
+                cumulative[symbol + 1] = cumulative[symbol] + (distribution[symbol] == -1 ? 1 : distribution[symbol]);
+            }
+            nextStates = new int[tableSize];
+            for (int state = 0; state < tableSize; state++) {
+                nextStates[cumulative[spread[state]]++] = tableSize + state;
+            }
+            deltaNumberOfBits = new int[distribution.length];
+            deltaFindState = new int[distribution.length];
+            int total = 0;
+            for (int symbol = 0; symbol < distribution.length; symbol++) {
+                final int probability = distribution[symbol];
+                if (probability == 0) {
+                    deltaNumberOfBits[symbol] = ((accuracyLog + 1) << 16) - tableSize;
+                } else if (probability == -1 || probability == 1) {
+                    deltaNumberOfBits[symbol] = (accuracyLog << 16) - tableSize;
+                    deltaFindState[symbol] = total - 1;
+                    total++;
+                } else {
+                    final int maxBitsOut = accuracyLog - highestBit(probability - 1);
+                    final int minStatePlus = probability << maxBitsOut;
+                    deltaNumberOfBits[symbol] = (maxBitsOut << 16) - minStatePlus;
+                    deltaFindState[symbol] = total - probability;
+                    total += probability;
+                }
+            }
+        }
+
+        /** The state to start encoding with, given the first symbol to encode (i.e. the last one to decode). */
+        int initialState(int symbol) {
+            final int bitsOut = (deltaNumberOfBits[symbol] + (1 << 15)) >>> 16;
+            final int value = (bitsOut << 16) - deltaNumberOfBits[symbol];
+            return nextStates[(value >>> bitsOut) + deltaFindState[symbol]];
+        }
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import static org.elasticsearch.transport.ZstdFormat.LITERALS_LENGTH_BASE;
+import static org.elasticsearch.transport.ZstdFormat.LITERALS_LENGTH_BITS;
+import static org.elasticsearch.transport.ZstdFormat.MATCH_LENGTH_BASE;
+import static org.elasticsearch.transport.ZstdFormat.MATCH_LENGTH_BITS;
+import static org.elasticsearch.transport.ZstdFormat.MAX_BLOCK_SIZE;
+import static org.elasticsearch.transport.ZstdFormat.MAX_OFFSET_CODE;
+import static org.elasticsearch.transport.ZstdFormat.MAX_WINDOW_SIZE;
+
+/**
+ * Decodes the blocks of a single Zstandard frame (RFC 8878) into a sliding window. It supports everything that
+ * {@link ZstdOutputStream} writes, that is raw, RLE and compressed blocks with raw or RLE literals and sequences that use the predefined
+ * or RLE distributions, with repeat offsets and raw content dictionaries. Huffman coded literals and sequences with custom
+ * distributions, which only the reference implementation writes, are rejected.
+ *
+ * The caller is responsible for framing: it parses the block headers, hands over complete blocks and copies the regenerated bytes out
+ * of {@link #buffer()} before decoding the next block.
+ */
+final class ZstdFrameDecoder {
+
+    private static final int MIN_FRAME_HEADER_SIZE = 5;
+
+    private final IntFunction<ZstdDictionary> dictionaries;
+
+    /** The window, plus the dictionary since frames may reference it until they produced a full window of their own. */
+    private int historySize;
+    private int blockSizeLimit;
+    private boolean hasChecksum;
+    /** Holds up to a window of history followed by the block being decoded, grows with the frame. */
+    private byte[] buffer = new byte[0];
+    private int position;
+    private final int[] repeatOffsets = new int[] { 1, 4, 8 };
+
+    /**
+     * @param dictionaries resolves the ID in a frame header to the dictionary that the frame was compressed with, or {@code null}
+     */
+    ZstdFrameDecoder(IntFunction<ZstdDictionary> dictionaries) {
+        this.dictionaries = dictionaries;
+    }
+
+    /** The number of bytes of frame header needed before {@link #frameHeaderLength} can tell the full length. */
+    static int minFrameHeaderLength() {
+        return MIN_FRAME_HEADER_SIZE;
+    }
+
+    /**
+     * @param descriptor the byte after the magic number
+     * @return the length of the frame header, including the magic number
+     */
+    static int frameHeaderLength(byte descriptor) {
+        final int contentSizeFlag = (descriptor & 0xFF) >>> 6;
+        final boolean singleSegment = (descriptor & 0x20) != 0;
+        final int dictionaryIdFlag = descriptor & 0x03;
+        final int contentSizeLength = contentSizeFlag == 0 ? (singleSegment ? 1 : 0) : 1 << contentSizeFlag;
+        final int dictionaryIdLength = dictionaryIdFlag == 3 ? 4 : dictionaryIdFlag;
+        return MIN_FRAME_HEADER_SIZE + (singleSegment ? 0 : 1) + dictionaryIdLength + contentSizeLength;
+    }
+
+    /**
+     * Reads the frame header that starts at the given offset and prepares the window, which starts out with the content of the
+     * dictionary if the frame uses one.
+     */
+    void decodeFrameHeader(byte[] bytes, int offset) {
+        final int magic = readIntLE(bytes, offset);
+        if (magic != ZstdFormat.MAGIC_NUMBER) {
+            throw new IllegalStateException("unexpected zstd magic number [" + Integer.toHexString(magic) + "]");
+        }
+        final int descriptor = bytes[offset + 4] & 0xFF;
+        if ((descriptor & 0x08) != 0) {
+            throw new IllegalStateException("reserved bit set in zstd frame header");
+        }
+        final int contentSizeFlag = descriptor >>> 6;
+        final boolean singleSegment = (descriptor & 0x20) != 0;
+        final int dictionaryIdFlag = descriptor & 0x03;
+        hasChecksum = (descriptor & 0x04) != 0;
+        int pos = offset + MIN_FRAME_HEADER_SIZE;
+
+        long window = 0;
+        if (singleSegment == false) {
+            final int windowDescriptor = bytes[pos++] & 0xFF;
+            final int exponent = windowDescriptor >>> 3;
+            final long base = 1L << (10 + exponent);
+            window = base + (base >>> 3) * (windowDescriptor & 0x07);
+        }
+        int dictionaryId = 0;
+        switch (dictionaryIdFlag) {
+            case 1 -> dictionaryId = bytes[pos] & 0xFF;
+            case 2 -> dictionaryId = (bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8;
+            case 3 -> dictionaryId = readIntLE(bytes, pos);
+        }
+        pos += dictionaryIdFlag == 3 ? 4 : dictionaryIdFlag;
+        if (singleSegment) {
+            // the window is the whole content
+            window = switch (contentSizeFlag) {
+                case 0 -> bytes[pos] & 0xFF;
+                case 1 -> ((bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8) + 256;
+                case 2 -> readIntLE(bytes, pos) & 0xFFFFFFFFL;
+                default -> (readIntLE(bytes, pos) & 0xFFFFFFFFL) | ((long) readIntLE(bytes, pos + 4)) << 32;
+            };
+        }
+        if (window > MAX_WINDOW_SIZE || window < 0) {
+            throw new IllegalStateException("zstd window size [" + window + "] exceeds the maximum of [" + MAX_WINDOW_SIZE + "]");
+        }
+        final int windowSize = (int) window;
+        blockSizeLimit = Math.min(windowSize, MAX_BLOCK_SIZE);
+
+        position = 0;
+        historySize = windowSize;
+        if (dictionaryId != 0) {
+            final ZstdDictionary dictionary = dictionaries.apply(dictionaryId);
+            if (dictionary == null) {
+                throw new IllegalStateException("unknown zstd dictionary [" + dictionaryId + "]");
+            }
+            ensureCapacity(dictionary.size() + blockSizeLimit);
+            System.arraycopy(dictionary.content(), 0, buffer, 0, dictionary.size());
+            position = dictionary.size();
+            historySize += dictionary.size();
+        }
+    }
+
+    /** Whether the last block of the frame is followed by a 4 byte checksum, which is skipped rather than verified. */
+    boolean hasChecksum() {
+        return hasChecksum;
+    }
+
+    /** The largest number of bytes that a block of the frame may regenerate, which also bounds its compressed size. */
+    int blockSizeLimit() {
+        return blockSizeLimit;
+    }
+
+    /**
+     * Decodes the content of a block into the window.
+     *
+     * @param blockType the type from the block header
+     * @param blockSize the size from the block header, the regenerated size for RLE blocks and the size of the content otherwise
+     * @return the number of regenerated bytes, which end at {@link #position()} in {@link #buffer()}
+     */
+    int decodeBlock(int blockType, int blockSize, byte[] src, int offset) {
+        if (blockSize > blockSizeLimit) {
+            throw new IllegalStateException("zstd block size [" + blockSize + "] exceeds the maximum of [" + blockSizeLimit + "]");
+        }
+        prepareWindow();
+        final int start = position;
+        switch (blockType) {
+            case ZstdFormat.BLOCK_TYPE_RAW -> {
+                System.arraycopy(src, offset, buffer, position, blockSize);
+                position += blockSize;
+            }
+            case ZstdFormat.BLOCK_TYPE_RLE -> {
+                Arrays.fill(buffer, position, position + blockSize, src[offset]);
+                position += blockSize;
+            }
+            case ZstdFormat.BLOCK_TYPE_COMPRESSED -> decodeCompressedBlock(src, offset, offset + blockSize);
+            default -> throw new IllegalStateException("reserved zstd block type");
+        }
+        return position - start;
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int position() {
+        return position;
+    }
+
+    /** Makes room for a full block after the window, sliding the window to the front of the buffer if it is full. */
+    private void prepareWindow() {
+        if (position + blockSizeLimit > buffer.length && position > historySize) {
+            System.arraycopy(buffer, position - historySize, buffer, 0, historySize);
+            position = historySize;
+        }
+        ensureCapacity(position + blockSizeLimit);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            // most frames are much smaller than the window, so only grow as far as they need
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, Math.min(2 * buffer.length, historySize + blockSizeLimit)));
+        }
+    }
+
+    private void decodeCompressedBlock(byte[] src, int offset, int end) {
+        // literals section
+        checkBounds(offset + 1, end);
+        final int literalsHeader = src[offset] & 0xFF;
+        final int literalsType = literalsHeader & 0x03;
+        final int literalsSize;
+        int pos;
+        switch ((literalsHeader >>> 2) & 0x03) {
+            case 0, 2 -> {
+                literalsSize = literalsHeader >>> 3;
+                pos = offset + 1;
+            }
+            case 1 -> {
+                checkBounds(offset + 2, end);
+                literalsSize = (literalsHeader >>> 4) | (src[offset + 1] & 0xFF) << 4;
+                pos = offset + 2;
+            }
+            default -> {
+                checkBounds(offset + 3, end);
+                literalsSize = (literalsHeader >>> 4) | (src[offset + 1] & 0xFF) << 4 | (src[offset + 2] & 0xFF) << 12;
+                pos = offset + 3;
+            }
+        }
+        if (literalsSize > blockSizeLimit) {
+            throw new IllegalStateException("zstd literals size [" + literalsSize + "] exceeds the block size");
+        }
+        final byte[] literals;
+        int literalsPos;
+        if (literalsType == ZstdFormat.LITERALS_TYPE_RAW) {
+            checkBounds(pos + literalsSize, end);
+            literals = src;
+            literalsPos = pos;
+            pos += literalsSize;
+        } else if (literalsType == ZstdFormat.LITERALS_TYPE_RLE) {
+            checkBounds(pos + 1, end);
+            literals = new byte[literalsSize];
+            Arrays.fill(literals, src[pos++]);
+            literalsPos = 0;
+        } else {
+            throw new IllegalStateException("huffman coded zstd literals are not supported");
+        }
+        final int literalsEnd = literalsPos + literalsSize;
+
+        // sequences section
+        checkBounds(pos + 1, end);
+        int sequences = src[pos++] & 0xFF;
+        if (sequences >= 128) {
+            if (sequences == 255) {
+                checkBounds(pos + 2, end);
+                sequences = (src[pos] & 0xFF) + ((src[pos + 1] & 0xFF) << 8) + 0x7F00;
+                pos += 2;
+            } else {
+                checkBounds(pos + 1, end);
+                sequences = ((sequences - 128) << 8) + (src[pos++] & 0xFF);
+            }
+        }
+        if (sequences == 0) {
+            appendLiterals(literals, literalsPos, literalsSize);
+            return;
+        }
+        checkBounds(pos + 1, end);
+        final int modes = src[pos++] & 0xFF;
+        if ((modes & 0x03) != 0) {
+            throw new IllegalStateException("reserved bits set in zstd sequences header");
+        }
+        final ZstdFormat.FseDecodingTable literalsLengthTable;
+        final ZstdFormat.FseDecodingTable offsetTable;
+        final ZstdFormat.FseDecodingTable matchLengthTable;
+        int mode = modes >>> 6;
+        if (mode == ZstdFormat.SEQUENCE_MODE_RLE) {
+            checkBounds(pos + 1, end);
+            literalsLengthTable = rleTable(src[pos++], LITERALS_LENGTH_BITS.length - 1);
+        } else {
+            literalsLengthTable = predefinedTable(mode, ZstdFormat.LITERALS_LENGTH_DECODING_TABLE);
+        }
+        mode = (modes >>> 4) & 0x03;
+        if (mode == ZstdFormat.SEQUENCE_MODE_RLE) {
+            checkBounds(pos + 1, end);
+            offsetTable = rleTable(src[pos++], MAX_OFFSET_CODE);
+        } else {
+            offsetTable = predefinedTable(mode, ZstdFormat.OFFSET_DECODING_TABLE);
+        }
+        mode = (modes >>> 2) & 0x03;
+        if (mode == ZstdFormat.SEQUENCE_MODE_RLE) {
+            checkBounds(pos + 1, end);
+            matchLengthTable = rleTable(src[pos++], MATCH_LENGTH_BITS.length - 1);
+        } else {
+            matchLengthTable = predefinedTable(mode, ZstdFormat.MATCH_LENGTH_DECODING_TABLE);
+        }
+
+        final BitReader reader = new BitReader(src, pos, end);
+        int literalsLengthState = reader.readBits(literalsLengthTable.accuracyLog);
+        int offsetState = reader.readBits(offsetTable.accuracyLog);
+        int matchLengthState = reader.readBits(matchLengthTable.accuracyLog);
+        final int blockEnd = position + blockSizeLimit;
+        for (int i = 0; i < sequences; i++) {
+            final int offsetCode = offsetTable.symbols[offsetState];
+            final int matchLengthCode = matchLengthTable.symbols[matchLengthState];
+            final int literalsLengthCode = literalsLengthTable.symbols[literalsLengthState];
+            final int offsetValue = (1 << offsetCode) + reader.readBits(offsetCode);
+            final int matchLength = MATCH_LENGTH_BASE[matchLengthCode] + reader.readBits(MATCH_LENGTH_BITS[matchLengthCode]);
+            final int literalsLength = LITERALS_LENGTH_BASE[literalsLengthCode] + reader.readBits(LITERALS_LENGTH_BITS[literalsLengthCode]);
+            if (i < sequences - 1) {
+                literalsLengthState = literalsLengthTable.baselines[literalsLengthState] + reader.readBits(
+                    literalsLengthTable.numberOfBits[literalsLengthState]
+                );
+                matchLengthState = matchLengthTable.baselines[matchLengthState] + reader.readBits(
+                    matchLengthTable.numberOfBits[matchLengthState]
+                );
+                offsetState = offsetTable.baselines[offsetState] + reader.readBits(offsetTable.numberOfBits[offsetState]);
+            }
+
+            final int matchOffset = matchOffset(offsetValue, literalsLength);
+            if (literalsPos + literalsLength > literalsEnd || position + literalsLength + matchLength > blockEnd) {
+                throw new IllegalStateException("zstd sequence exceeds the block");
+            }
+            System.arraycopy(literals, literalsPos, buffer, position, literalsLength);
+            literalsPos += literalsLength;
+            position += literalsLength;
+            if (matchOffset > position) {
+                throw new IllegalStateException("zstd offset [" + matchOffset + "] exceeds the window");
+            }
+            copyMatch(matchOffset, matchLength);
+        }
+        if (reader.isFullyConsumed() == false) {
+            throw new IllegalStateException("zstd sequences bit stream not fully consumed");
+        }
+        appendLiterals(literals, literalsPos, literalsEnd - literalsPos);
+    }
+
+    private static ZstdFormat.FseDecodingTable predefinedTable(int mode, ZstdFormat.FseDecodingTable table) {
+        if (mode != ZstdFormat.SEQUENCE_MODE_PREDEFINED) {
+            throw new IllegalStateException("zstd sequences compression mode [" + mode + "] is not supported");
+        }
+        return table;
+    }
+
+    private static ZstdFormat.FseDecodingTable rleTable(byte symbol, int maxSymbol) {
+        if ((symbol & 0xFF) > maxSymbol) {
+            throw new IllegalStateException("invalid zstd RLE symbol [" + (symbol & 0xFF) + "]");
+        }
+        return ZstdFormat.FseDecodingTable.rle(symbol & 0xFF);
+    }
+
+    /** Resolves the offset of a sequence, which may refer to one of the three most recent offsets, and updates those. */
+    private int matchOffset(int offsetValue, int literalsLength) {
+        final int[] repeat = repeatOffsets;
+        if (offsetValue > 3) {
+            final int offset = offsetValue - 3;
+            repeat[2] = repeat[1];
+            repeat[1] = repeat[0];
+            repeat[0] = offset;
+            return offset;
+        }
+        // without literals the repeat codes shift by one, since repeating the previous offset would have extended the previous match
+        final int index = literalsLength == 0 ? offsetValue : offsetValue - 1;
+        final int offset = switch (index) {
+            case 0 -> repeat[0];
+            case 1 -> repeat[1];
+            case 2 -> repeat[2];
+            default -> repeat[0] - 1;
+        };
+        if (index == 0) {
+            return offset;
+        }
+        if (offset <= 0) {
+            throw new IllegalStateException("invalid zstd repeat offset [" + offset + "]");
+        }
+        if (index > 1) {
+            repeat[2] = repeat[1];
+        }
+        repeat[1] = repeat[0];
+        repeat[0] = offset;
+        return offset;
+    }
+
+    private void copyMatch(int offset, int matchLength) {
+        int from = position - offset;
+        if (offset >= matchLength) {
+            System.arraycopy(buffer, from, buffer, position, matchLength);
+            position += matchLength;
+        } else {
+            // the match overlaps the bytes it produces
+            final int end = position + matchLength;
+            while (position < end) {
+                buffer[position++] = buffer[from++];
+            }
+        }
+    }
+
+    private void appendLiterals(byte[] literals, int offset, int length) {
+        System.arraycopy(literals, offset, buffer, position, length);
+        position += length;
+    }
+
+    private static void checkBounds(int required, int end) {
+        if (required > end) {
+            throw new IllegalStateException("truncated zstd block");
+        }
+    }
+
+    private static int readIntLE(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16
+            | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    /**
+     * Reads a bit stream backwards from its end, where the highest set bit of the last byte marks the start of the stream.
+     */
+    private static final class BitReader {
+        private final byte[] bytes;
+        private final int start;
+        private final int end;
+        /** The number of bits that remain to be read, the next read ends right before this bit. */
+        private int bitPosition;
+
+        BitReader(byte[] bytes, int start, int end) {
+            checkBounds(start + 1, end);
+            final int lastByte = bytes[end - 1] & 0xFF;
+            if (lastByte == 0) {
+                throw new IllegalStateException("zstd bit stream lacks an end mark");
+            }
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+            this.bitPosition = (end - 1 - start) * 8 + ZstdFormat.highestBit(lastByte);
+        }
+
+        int readBits(int numberOfBits) {
+            if (numberOfBits == 0) {
+                return 0;
+            }
+            bitPosition -= numberOfBits;
+            if (bitPosition < 0) {
+                throw new IllegalStateException("zstd bit stream overflow");
+            }
+            final int first = start + (bitPosition >>> 3);
+            long value = 0;
+            for (int i = Math.min(end, first + 5) - 1; i >= first; i--) {
+                value = (value << 8) | (bytes[i] & 0xFF);
+            }
+            return (int) ((value >>> (bitPosition & 7)) & ((1L << numberOfBits) - 1));
+        }
+
+        boolean isFullyConsumed() {
+            return bitPosition == 0;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static org.elasticsearch.transport.ZstdFormat.BLOCK_SIZE;
+import static org.elasticsearch.transport.ZstdFormat.LITERALS_LENGTH_BASE;
+import static org.elasticsearch.transport.ZstdFormat.LITERALS_LENGTH_BITS;
+import static org.elasticsearch.transport.ZstdFormat.LITERALS_LENGTH_ENCODING_TABLE;
+import static org.elasticsearch.transport.ZstdFormat.MATCH_LENGTH_BASE;
+import static org.elasticsearch.transport.ZstdFormat.MATCH_LENGTH_BITS;
+import static org.elasticsearch.transport.ZstdFormat.MATCH_LENGTH_ENCODING_TABLE;
+import static org.elasticsearch.transport.ZstdFormat.MIN_MATCH;
+import static org.elasticsearch.transport.ZstdFormat.OFFSET_ENCODING_TABLE;
+import static org.elasticsearch.transport.ZstdFormat.WINDOW_LOG;
+import static org.elasticsearch.transport.ZstdFormat.WINDOW_SIZE;
+
+/**
+ * Writes a single Zstandard frame (RFC 8878). Blocks of 64KB are compressed with a greedy hash based match finder that looks back
+ * up to 128KB, or into the dictionary for the first block, and the resulting sequences are entropy coded with the predefined FSE
+ * distributions of the format. Literals are stored raw, which costs some ratio compared to the reference implementation but keeps
+ * compression at a fraction of the cost of DEFLATE. The frames are valid Zstandard frames that any decoder can read given the same
+ * dictionary.
+ *
+ * Like {@link ReuseBuffersLZ4BlockOutputStream} the window and the match finder table are reused across streams of the same thread.
+ */
+final class ZstdOutputStream extends OutputStream {
+
+    /** The bytes before the current block that matches may reference, which is also where the dictionary goes. */
+    private static final int HISTORY_SIZE = WINDOW_SIZE - BLOCK_SIZE;
+    private static final int HASH_LOG = 14;
+    private static final int MIN_MATCH_LENGTH = 4;
+
+    /**
+     * Everything but the match finder table starts small and grows with the largest message of the thread, since most messages are
+     * much smaller than a block.
+     */
+    private static class Buffers {
+        private byte[] window = new byte[HISTORY_SIZE + 1024];
+        private final int[] hashTable = new int[1 << HASH_LOG];
+        private byte[] literals = new byte[1024];
+        private int[] literalsLengths = new int[64];
+        private int[] matchLengths = new int[64];
+        private int[] offsets = new int[64];
+        private byte[] compressed = new byte[2048];
+        private boolean owned = false;
+
+        private void ensureWindowCapacity(int capacity) {
+            if (window.length < capacity) {
+                final int grown = HISTORY_SIZE + 2 * (window.length - HISTORY_SIZE);
+                window = Arrays.copyOf(window, Math.min(WINDOW_SIZE, Math.max(capacity, grown)));
+            }
+        }
+
+        private void ensureSequencesCapacity(int sequences) {
+            if (offsets.length < sequences) {
+                final int newLength = Math.max(sequences, offsets.length * 2);
+                literalsLengths = Arrays.copyOf(literalsLengths, newLength);
+                matchLengths = Arrays.copyOf(matchLengths, newLength);
+                offsets = Arrays.copyOf(offsets, newLength);
+            }
+        }
+    }
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private final OutputStream out;
+    private final Buffers buffers;
+    private final int[] hashTable;
+    /** The start of the bytes in the window that matches may reference. */
+    private int historyStart;
+    /** The end of the current block in the window. */
+    private int position = HISTORY_SIZE;
+    private boolean closed = false;
+
+    /**
+     * @param dictionaryId the ID under which the receiver knows the dictionary, ignored if there is no dictionary
+     */
+    ZstdOutputStream(OutputStream out, int dictionaryId, @Nullable ZstdDictionary dictionary) throws IOException {
+        this.out = Objects.requireNonNull(out);
+        final Buffers threadBuffers = BUFFERS.get();
+        // nested compression streams are not expected but shouldn't corrupt each other
+        this.buffers = threadBuffers.owned ? new Buffers() : threadBuffers;
+        buffers.owned = true;
+        this.hashTable = buffers.hashTable;
+        if (dictionary == null) {
+            Arrays.fill(hashTable, -1);
+            historyStart = HISTORY_SIZE;
+        } else {
+            System.arraycopy(dictionary.hashTable(), 0, hashTable, 0, hashTable.length);
+            System.arraycopy(dictionary.content(), 0, buffers.window, HISTORY_SIZE - dictionary.size(), dictionary.size());
+            historyStart = HISTORY_SIZE - dictionary.size();
+        }
+        writeFrameHeader(dictionary == null ? 0 : dictionaryId);
+    }
+
+    private void writeFrameHeader(int dictionaryId) throws IOException {
+        final byte[] header = new byte[10];
+        System.arraycopy(ZstdFormat.MAGIC_BYTES, 0, header, 0, 4);
+        int length = 4;
+        // no content size, no checksum, not a single segment
+        header[length++] = (byte) (dictionaryId == 0 ? 0 : 3);
+        header[length++] = (byte) ((WINDOW_LOG - 10) << 3);
+        if (dictionaryId != 0) {
+            writeIntLE(header, length, dictionaryId);
+            length += 4;
+        }
+        out.write(header, 0, length);
+    }
+
+    /** Indexes the given dictionary content as if it preceded the first block of a frame. */
+    static int[] indexDictionary(byte[] content) {
+        assert content.length <= HISTORY_SIZE;
+        final int[] table = new int[1 << HASH_LOG];
+        Arrays.fill(table, -1);
+        final int start = HISTORY_SIZE - content.length;
+        for (int pos = 0; pos + 4 <= content.length; pos++) {
+            table[hash(readIntLE(content, pos))] = start + pos;
+        }
+        return table;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("This stream is already closed");
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (position == WINDOW_SIZE) {
+            // only compress a full block once more data comes, so that the last block is always the one written on close
+            flushBlock(false);
+        }
+        buffers.ensureWindowCapacity(position + 1);
+        buffers.window[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+        while (len > 0) {
+            if (position == WINDOW_SIZE) {
+                flushBlock(false);
+            }
+            final int toCopy = Math.min(len, WINDOW_SIZE - position);
+            buffers.ensureWindowCapacity(position + toCopy);
+            System.arraycopy(b, off, buffers.window, position, toCopy);
+            position += toCopy;
+            off += toCopy;
+            len -= toCopy;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flushBlock(true);
+            closed = true;
+            out.close();
+        } finally {
+            closed = true;
+            buffers.owned = false;
+        }
+    }
+
+    private void flushBlock(boolean lastBlock) throws IOException {
+        final int blockLength = position - HISTORY_SIZE;
+        final byte[] window = buffers.window;
+        int compressedLength = blockLength == 0 ? Integer.MAX_VALUE : compressBlock(HISTORY_SIZE, position);
+        final int blockType;
+        if (compressedLength < blockLength) {
+            blockType = ZstdFormat.BLOCK_TYPE_COMPRESSED;
+        } else {
+            // incompressible, store it as is
+            blockType = ZstdFormat.BLOCK_TYPE_RAW;
+            ensureCompressedCapacity(ZstdFormat.BLOCK_HEADER_SIZE + blockLength);
+            System.arraycopy(window, HISTORY_SIZE, buffers.compressed, ZstdFormat.BLOCK_HEADER_SIZE, blockLength);
+            compressedLength = blockLength;
+        }
+        final byte[] compressed = buffers.compressed;
+        final int blockHeader = (lastBlock ? 1 : 0) | (blockType << 1) | (compressedLength << 3);
+        compressed[0] = (byte) blockHeader;
+        compressed[1] = (byte) (blockHeader >>> 8);
+        compressed[2] = (byte) (blockHeader >>> 16);
+        out.write(compressed, 0, ZstdFormat.BLOCK_HEADER_SIZE + compressedLength);
+
+        if (lastBlock == false) {
+            // slide the window so that the block just written becomes the history of the next one
+            assert blockLength == BLOCK_SIZE;
+            System.arraycopy(window, blockLength, window, 0, HISTORY_SIZE);
+            for (int i = 0; i < hashTable.length; i++) {
+                // entries that fell out of the window can't go any lower, so that they never wrap around on large messages
+                hashTable[i] = Math.max(-1, hashTable[i] - blockLength);
+            }
+            historyStart = Math.max(0, historyStart - blockLength);
+            position = HISTORY_SIZE;
+        }
+    }
+
+    /**
+     * Compresses the block in {@code window[blockStart, blockEnd)} into {@code compressed} after the block header.
+     *
+     * @return the compressed size of the block
+     */
+    private int compressBlock(int blockStart, int blockEnd) {
+        final byte[] window = buffers.window;
+        if (buffers.literals.length < blockEnd - blockStart) {
+            buffers.literals = new byte[Math.max(blockEnd - blockStart, Math.min(BLOCK_SIZE, 2 * buffers.literals.length))];
+        }
+        final byte[] literals = buffers.literals;
+        int literalsSize = 0;
+        int sequences = 0;
+
+        int anchor = blockStart;
+        int pos = blockStart;
+        final int matchLimit = blockEnd - MIN_MATCH_LENGTH;
+        while (pos <= matchLimit) {
+            final int value = readIntLE(window, pos);
+            final int h = hash(value);
+            int ref = hashTable[h];
+            hashTable[h] = pos;
+            if (ref < historyStart || readIntLE(window, ref) != value) {
+                // skip faster over data that doesn't compress
+                pos += 1 + ((pos - anchor) >>> 6);
+                continue;
+            }
+            while (pos > anchor && ref > historyStart && window[pos - 1] == window[ref - 1]) {
+                pos--;
+                ref--;
+            }
+            int matchLength = MIN_MATCH_LENGTH;
+            while (pos + matchLength < blockEnd && window[ref + matchLength] == window[pos + matchLength]) {
+                matchLength++;
+            }
+            final int literalsLength = pos - anchor;
+            System.arraycopy(window, anchor, literals, literalsSize, literalsLength);
+            literalsSize += literalsLength;
+            buffers.ensureSequencesCapacity(sequences + 1);
+            buffers.literalsLengths[sequences] = literalsLength;
+            buffers.matchLengths[sequences] = matchLength;
+            buffers.offsets[sequences] = pos - ref;
+            sequences++;
+            pos += matchLength;
+            anchor = pos;
+            if (pos - 2 <= matchLimit) {
+                hashTable[hash(readIntLE(window, pos - 2))] = pos - 2;
+            }
+        }
+        System.arraycopy(window, anchor, literals, literalsSize, blockEnd - anchor);
+        literalsSize += blockEnd - anchor;
+
+        // up to 3 bytes of literals header, 3 of sequences header and 66 bits per sequence, rounded up
+        ensureCompressedCapacity(ZstdFormat.BLOCK_HEADER_SIZE + 3 + literalsSize + 3 + 9 * sequences + 8);
+        final byte[] compressed = buffers.compressed;
+        int out = ZstdFormat.BLOCK_HEADER_SIZE;
+        // raw literals section
+        if (literalsSize < 32) {
+            compressed[out++] = (byte) (literalsSize << 3);
+        } else if (literalsSize < 4096) {
+            final int header = (1 << 2) | (literalsSize << 4);
+            compressed[out++] = (byte) header;
+            compressed[out++] = (byte) (header >>> 8);
+        } else {
+            final int header = (3 << 2) | (literalsSize << 4);
+            compressed[out++] = (byte) header;
+            compressed[out++] = (byte) (header >>> 8);
+            compressed[out++] = (byte) (header >>> 16);
+        }
+        System.arraycopy(literals, 0, compressed, out, literalsSize);
+        out += literalsSize;
+
+        // sequences section
+        if (sequences < 128) {
+            compressed[out++] = (byte) sequences;
+        } else {
+            assert sequences < 0x7F00;
+            compressed[out++] = (byte) ((sequences >>> 8) + 128);
+            compressed[out++] = (byte) sequences;
+        }
+        if (sequences > 0) {
+            // predefined distributions for all three codes
+            compressed[out++] = 0;
+            out = encodeSequences(compressed, out, sequences);
+        }
+        return out - ZstdFormat.BLOCK_HEADER_SIZE;
+    }
+
+    private void ensureCompressedCapacity(int capacity) {
+        if (buffers.compressed.length < capacity) {
+            buffers.compressed = new byte[Math.max(capacity, 2 * buffers.compressed.length)];
+        }
+    }
+
+    /**
+     * Encodes the sequences backwards into an FSE bit stream, since the decoder reads the stream from its end.
+     */
+    private int encodeSequences(byte[] compressed, int out, int sequences) {
+        final int[] literalsLengths = buffers.literalsLengths;
+        final int[] matchLengths = buffers.matchLengths;
+        final int[] offsets = buffers.offsets;
+        final BitWriter writer = new BitWriter(compressed, out);
+
+        int last = sequences - 1;
+        int literalsLengthCode = ZstdFormat.literalsLengthCode(literalsLengths[last]);
+        int matchLengthCode = ZstdFormat.matchLengthCode(matchLengths[last] - MIN_MATCH);
+        // offsets are always sent as new offsets, which the format shifts by 3 to make room for the repeat codes
+        int offsetValue = offsets[last] + 3;
+        int offsetCode = ZstdFormat.highestBit(offsetValue);
+        int matchLengthState = MATCH_LENGTH_ENCODING_TABLE.initialState(matchLengthCode);
+        int offsetState = OFFSET_ENCODING_TABLE.initialState(offsetCode);
+        int literalsLengthState = LITERALS_LENGTH_ENCODING_TABLE.initialState(literalsLengthCode);
+        writeExtraBits(writer, literalsLengths[last], literalsLengthCode, matchLengths[last], matchLengthCode, offsetValue, offsetCode);
+
+        for (int i = sequences - 2; i >= 0; i--) {
+            literalsLengthCode = ZstdFormat.literalsLengthCode(literalsLengths[i]);
+            matchLengthCode = ZstdFormat.matchLengthCode(matchLengths[i] - MIN_MATCH);
+            offsetValue = offsets[i] + 3;
+            offsetCode = ZstdFormat.highestBit(offsetValue);
+            offsetState = encodeSymbol(writer, OFFSET_ENCODING_TABLE, offsetState, offsetCode);
+            matchLengthState = encodeSymbol(writer, MATCH_LENGTH_ENCODING_TABLE, matchLengthState, matchLengthCode);
+            literalsLengthState = encodeSymbol(writer, LITERALS_LENGTH_ENCODING_TABLE, literalsLengthState, literalsLengthCode);
+            writer.flush();
+            writeExtraBits(writer, literalsLengths[i], literalsLengthCode, matchLengths[i], matchLengthCode, offsetValue, offsetCode);
+        }
+
+        writer.addBits(matchLengthState, MATCH_LENGTH_ENCODING_TABLE.accuracyLog);
+        writer.addBits(offsetState, OFFSET_ENCODING_TABLE.accuracyLog);
+        writer.addBits(literalsLengthState, LITERALS_LENGTH_ENCODING_TABLE.accuracyLog);
+        return writer.close();
+    }
+
+    private static int encodeSymbol(BitWriter writer, ZstdFormat.FseEncodingTable table, int state, int symbol) {
+        final int bitsOut = (state + table.deltaNumberOfBits[symbol]) >>> 16;
+        writer.addBits(state, bitsOut);
+        return table.nextStates[(state >>> bitsOut) + table.deltaFindState[symbol]];
+    }
+
+    private static void writeExtraBits(
+        BitWriter writer,
+        int literalsLength,
+        int literalsLengthCode,
+        int matchLength,
+        int matchLengthCode,
+        int offsetValue,
+        int offsetCode
+    ) {
+        writer.addBits(literalsLength - LITERALS_LENGTH_BASE[literalsLengthCode], LITERALS_LENGTH_BITS[literalsLengthCode]);
+        writer.addBits(matchLength - MATCH_LENGTH_BASE[matchLengthCode], MATCH_LENGTH_BITS[matchLengthCode]);
+        writer.addBits(offsetValue - (1 << offsetCode), offsetCode);
+        writer.flush();
+    }
+
+    /**
+     * Writes bits from the least significant one upwards, each byte being filled before the next one starts.
+     */
+    private static final class BitWriter {
+        private final byte[] bytes;
+        private int position;
+        private long container;
+        private int bitCount;
+
+        BitWriter(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        void addBits(int value, int numberOfBits) {
+            assert bitCount + numberOfBits <= 64;
+            container |= (value & ((1L << numberOfBits) - 1)) << bitCount;
+            bitCount += numberOfBits;
+        }
+
+        void flush() {
+            while (bitCount >= 8) {
+                bytes[position++] = (byte) container;
+                container >>>= 8;
+                bitCount -= 8;
+            }
+        }
+
+        /** Writes the end mark that tells the decoder where the stream starts, and returns the position after the stream. */
+        int close() {
+            addBits(1, 1);
+            flush();
+            if (bitCount > 0) {
+                bytes[position++] = (byte) container;
+            }
+            return position;
+        }
+    }
+
+    private static int hash(int value) {
+        return (value * 0x9E3779B1) >>> (32 - HASH_LOG);
+    }
+
+    private static int readIntLE(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16
+            | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    private static void writeIntLE(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.recycler.Recycler;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.function.IntFunction;
+
+/**
+ * Decompresses a message that was compressed with {@link Compression.Scheme#ZSTD}, which is a single Zstandard frame whose magic
+ * number also serves as the compression header. Like {@link Lz4TransportDecompressor} it only consumes complete blocks, and copies
+ * their content into recycled pages.
+ */
+final class ZstdTransportDecompressor implements TransportDecompressor {
+
+    private static final ThreadLocal<byte[]> COMPRESSED = ThreadLocal.withInitial(() -> BytesRef.EMPTY_BYTES);
+
+    private enum State {
+        HEADER,
+        BLOCK,
+        FINISHED
+    }
+
+    private final ZstdFrameDecoder frameDecoder;
+    private final Recycler<BytesRef> recycler;
+    private final ArrayDeque<Recycler.V<BytesRef>> pages;
+    private int pageOffset = 0;
+    private int pageLength = 0;
+    private State state = State.HEADER;
+
+    /**
+     * @param dictionaries resolves the dictionary ID of the frame, if it has one, to the dictionary it was compressed with
+     */
+    ZstdTransportDecompressor(Recycler<BytesRef> recycler, IntFunction<ZstdDictionary> dictionaries) {
+        this.frameDecoder = new ZstdFrameDecoder(dictionaries);
+        this.recycler = recycler;
+        this.pages = new ArrayDeque<>(4);
+    }
+
+    @Override
+    public int decompress(BytesReference bytesReference) throws IOException {
+        int bytesConsumed = 0;
+        while (state != State.FINISHED) {
+            final int consumed = state == State.HEADER ? decodeFrameHeader(bytesReference) : decodeBlock(bytesReference);
+            if (consumed == 0) {
+                break;
+            }
+            bytesConsumed += consumed;
+            bytesReference = bytesReference.slice(consumed, bytesReference.length() - consumed);
+        }
+        return bytesConsumed;
+    }
+
+    private int decodeFrameHeader(BytesReference reference) throws IOException {
+        if (reference.length() < ZstdFrameDecoder.minFrameHeaderLength()) {
+            return 0;
+        }
+        final int headerLength = ZstdFrameDecoder.frameHeaderLength(reference.get(4));
+        if (reference.length() < headerLength) {
+            return 0;
+        }
+        final BytesRef header = contiguous(reference, headerLength);
+        frameDecoder.decodeFrameHeader(header.bytes, header.offset);
+        state = State.BLOCK;
+        return headerLength;
+    }
+
+    private int decodeBlock(BytesReference reference) throws IOException {
+        if (reference.length() < ZstdFormat.BLOCK_HEADER_SIZE) {
+            return 0;
+        }
+        final int blockHeader = (reference.get(0) & 0xFF) | (reference.get(1) & 0xFF) << 8 | (reference.get(2) & 0xFF) << 16;
+        final boolean lastBlock = (blockHeader & 1) != 0;
+        final int blockType = (blockHeader >>> 1) & 0x03;
+        final int blockSize = blockHeader >>> 3;
+        if (blockSize > frameDecoder.blockSizeLimit()) {
+            throw new IllegalStateException(
+                "zstd block size [" + blockSize + "] exceeds the maximum of [" + frameDecoder.blockSizeLimit() + "]"
+            );
+        }
+        final int contentLength = blockType == ZstdFormat.BLOCK_TYPE_RLE ? 1 : blockSize;
+        final int checksumLength = lastBlock && frameDecoder.hasChecksum() ? 4 : 0;
+        final int blockLength = ZstdFormat.BLOCK_HEADER_SIZE + contentLength;
+        if (reference.length() < blockLength + checksumLength) {
+            return 0;
+        }
+
+        final BytesRef block = contiguous(reference, blockLength);
+        final int decoded = frameDecoder.decodeBlock(blockType, blockSize, block.bytes, block.offset + ZstdFormat.BLOCK_HEADER_SIZE);
+        copyToPages(frameDecoder.buffer(), frameDecoder.position() - decoded, decoded);
+        if (lastBlock) {
+            state = State.FINISHED;
+        }
+        return blockLength + checksumLength;
+    }
+
+    /**
+     * @return the first {@code length} bytes of the reference as a single array, which is only copied if they span several pages
+     */
+    private static BytesRef contiguous(BytesReference reference, int length) throws IOException {
+        final BytesRef first = reference.iterator().next();
+        if (first.length >= length) {
+            return first;
+        }
+        byte[] buffer = COMPRESSED.get();
+        if (buffer.length < length) {
+            buffer = new byte[length];
+            COMPRESSED.set(buffer);
+        }
+        try (StreamInput streamInput = reference.streamInput()) {
+            streamInput.readBytes(buffer, 0, length);
+        }
+        return new BytesRef(buffer, 0, length);
+    }
+
+    private void copyToPages(byte[] decoded, int offset, int length) {
+        while (length > 0) {
+            if (pageOffset == pageLength) {
+                Recycler.V<BytesRef> newPage = recycler.obtain();
+                pageOffset = 0;
+                pageLength = newPage.v().length;
+                assert newPage.v().length > 0;
+                pages.add(newPage);
+            }
+            final BytesRef page = pages.getLast().v();
+            final int toCopy = Math.min(length, pageLength - pageOffset);
+            System.arraycopy(decoded, offset, page.bytes, page.offset + pageOffset, toCopy);
+            pageOffset += toCopy;
+            offset += toCopy;
+            length -= toCopy;
+        }
+    }
+
+    @Override
+    public ReleasableBytesReference pollDecompressedPage(boolean isEOS) {
+        if (pages.isEmpty()) {
+            return null;
+        } else if (pages.size() == 1) {
+            if (isEOS) {
+                Recycler.V<BytesRef> page = pages.pollFirst();
+                BytesArray delegate = new BytesArray(page.v().bytes, page.v().offset, pageOffset);
+                ReleasableBytesReference reference = new ReleasableBytesReference(delegate, page);
+                pageLength = 0;
+                pageOffset = 0;
+                return reference;
+            } else {
+                return null;
+            }
+        } else {
+            Recycler.V<BytesRef> page = pages.pollFirst();
+            return new ReleasableBytesReference(new BytesArray(page.v()), page);
+        }
+    }
+
+    @Override
+    public Compression.Scheme getScheme() {
+        return Compression.Scheme.ZSTD;
+    }
+
+    /**
+     * Returns {@code true} if and only if the end of the compressed frame has been reached.
+     */
+    public boolean isFinished() {
+        return state == State.FINISHED;
+    }
+
+    @Override
+    public void close() {
+        for (Recycler.V<BytesRef> page : pages) {
+            page.close();
+        }
+    }
+}
@@ -250,6 +250,14 @@ public class NodeStatsTests extends ESTestCase {
                         nodeStats.getTransport().getOutboundHandlingTimeBucketFrequencies(),
                         deserializedNodeStats.getTransport().getOutboundHandlingTimeBucketFrequencies()
                     );
+                    assertEquals(
+                        nodeStats.getTransport().getOutboundQueueStats(),
+                        deserializedNodeStats.getTransport().getOutboundQueueStats()
+                    );
+                    assertEquals(
+                        nodeStats.getTransport().getCompressionStats(),
+                        deserializedNodeStats.getTransport().getCompressionStats()
+                    );
                 }
                 if (nodeStats.getHttp() == null) {
                     assertNull(deserializedNodeStats.getHttp());
@@ -336,6 +344,21 @@ public class NodeStatsTests extends ESTestCase {
                             publishStats.getIncompatibleClusterStateDiffReceivedCount(),
                             deserializedPublishStats.getIncompatibleClusterStateDiffReceivedCount()
                         );
+                        final ClusterStateSerializationStats serializationStats = publishStats.getClusterStateSerializationStats();
+                        final ClusterStateSerializationStats deserializedSerializationStats = deserializedPublishStats
+                            .getClusterStateSerializationStats();
+                        assertEquals(
+                            serializationStats.getTotalFullStateSerializationTimeMillis(),
+                            deserializedSerializationStats.getTotalFullStateSerializationTimeMillis()
+                        );
+                        assertEquals(
+                            serializationStats.getTotalDiffComputationTimeMillis(),
+                            deserializedSerializationStats.getTotalDiffComputationTimeMillis()
+                        );
+                        assertEquals(
+                            serializationStats.getTotalDiffSerializationTimeMillis(),
+                            deserializedSerializationStats.getTotalDiffSerializationTimeMillis()
+                        );
                     }
 
                     final ClusterStateUpdateStats clusterStateUpdateStats = discoveryStats.getClusterStateUpdateStats();
@@ -686,7 +709,32 @@ public class NodeStatsTests extends ESTestCase {
                 randomNonNegativeLong(),
                 randomNonNegativeLong(),
                 IntStream.range(0, HandlingTimeTracker.BUCKET_COUNT).mapToLong(i -> randomNonNegativeLong()).toArray(),
-                IntStream.range(0, HandlingTimeTracker.BUCKET_COUNT).mapToLong(i -> randomNonNegativeLong()).toArray()
+                IntStream.range(0, HandlingTimeTracker.BUCKET_COUNT).mapToLong(i -> randomNonNegativeLong()).toArray(),
+                randomList(
+                    0,
+                    5,
+                    () -> new TransportStats.OutboundQueueStats(
+                        randomAlphaOfLength(5),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong()
+                    )
+                ),
+                randomList(
+                    0,
+                    3,
+                    () -> new TransportStats.CompressionStats(
+                        randomAlphaOfLength(5),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong()
+                    )
+                )
             )
             : null;
         HttpStats httpStats = null;
@@ -762,6 +810,9 @@ public class NodeStatsTests extends ESTestCase {
                             randomNonNegativeLong(),
                             randomNonNegativeLong(),
                             randomNonNegativeLong(),
+                            randomNonNegativeLong(),
+                            randomNonNegativeLong(),
+                            randomNonNegativeLong(),
                             randomNonNegativeLong()
                         )
                     )
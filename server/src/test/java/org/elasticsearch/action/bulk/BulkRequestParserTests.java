@@ -279,4 +279,111 @@ public class BulkRequestParserTests extends ESTestCase {
         assertSame(first.getPipeline(), second.getPipeline());
         assertSame(first.routing(), second.routing());
     }
+
+    public void testIncrementalParseConsumesCompleteItemsOnly() throws IOException {
+        final String body = """
+            { "index":{ "_id": "1" } }
+            { "field": "value" }
+            { "delete":{ "_id": "2" } }
+            { "index":{ "_id": "3" } }
+            { "field": "value" }
+            """;
+        final int secondItem = body.indexOf("{ \"delete\"");
+        final int thirdItem = body.indexOf("{ \"index\":{ \"_id\": \"3\"");
+        final List<String> ids = new ArrayList<>();
+        final BulkRequestParser.IncrementalParser parser = new BulkRequestParser(randomBoolean(), RestApiVersion.current())
+            .incrementalParser(
+                "foo",
+                null,
+                null,
+                null,
+                null,
+                false,
+                XContentType.JSON,
+                (indexRequest, type) -> ids.add(indexRequest.id()),
+                req -> fail(),
+                deleteRequest -> ids.add(deleteRequest.id())
+            );
+
+        // an action without its source isn't consumed until the source arrives
+        final int partial = randomIntBetween(thirdItem, body.length() - 1);
+        assertEquals(thirdItem, parser.parse(new BytesArray(body.substring(0, partial)), false));
+        assertEquals(List.of("1", "2"), ids);
+
+        assertEquals(body.length() - thirdItem, parser.parse(new BytesArray(body.substring(thirdItem)), true));
+        assertEquals(List.of("1", "2", "3"), ids);
+
+        // nothing is consumed before the first item is complete
+        ids.clear();
+        assertEquals(0, parser.parse(new BytesArray(body.substring(0, randomIntBetween(0, secondItem - 1))), false));
+        assertEquals(List.of(), ids);
+    }
+
+    public void testIncrementalParseOfRandomPieces() throws IOException {
+        final String body = """
+            { "index":{ "_id": "1" } }
+            { "field": "value" }
+            { "delete":{ "_id": "2" } }
+            { "foo":{ "_id": "3" } }
+            { "field": "value" }
+
+            { "create":{ "_id": "4" } }
+            { "field": "value" }
+            { "update":{ "_id": "5" } }
+            { "doc": { "field": "value" } }
+            """;
+        final List<String> ids = new ArrayList<>();
+        final BulkRequestParser.IncrementalParser parser = new BulkRequestParser(randomBoolean(), RestApiVersion.current())
+            .incrementalParser(
+                "foo",
+                null,
+                null,
+                null,
+                null,
+                false,
+                XContentType.JSON,
+                (indexRequest, type) -> ids.add(indexRequest.id()),
+                updateRequest -> ids.add(updateRequest.id()),
+                deleteRequest -> ids.add(deleteRequest.id())
+            );
+
+        // like a streamed body, the data that isn't consumed is passed again together with the piece that follows it
+        String unconsumed = "";
+        int from = 0;
+        while (from < body.length()) {
+            final int to = randomIntBetween(from + 1, Math.min(body.length(), from + 20));
+            final String data = unconsumed + body.substring(from, to);
+            final int consumed = parser.parse(new BytesArray(data), to == body.length());
+            unconsumed = data.substring(consumed);
+            from = to;
+        }
+        assertEquals("", unconsumed);
+        assertEquals(List.of("1", "2", "4", "5"), ids);
+        assertWarnings(
+            "Unsupported action: [foo]. Supported values are [create], [delete], [index], and [update]. "
+                + "Unsupported actions are currently accepted but will be rejected in a future version."
+        );
+    }
+
+    public void testIncrementalParseRequiresTrailingNewlineOnLastData() throws IOException {
+        final BulkRequestParser.IncrementalParser parser = new BulkRequestParser(randomBoolean(), RestApiVersion.current())
+            .incrementalParser(
+                "foo",
+                null,
+                null,
+                null,
+                null,
+                false,
+                XContentType.JSON,
+                (req, type) -> fail(),
+                req -> fail(),
+                req -> fail()
+            );
+        final BytesArray request = new BytesArray("""
+            { "index":{ "_id": "bar" } }
+            {}""");
+        assertEquals(0, parser.parse(request, false));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> parser.parse(request, true));
+        assertEquals("The bulk request must be terminated by a newline [\\n]", e.getMessage());
+    }
 }
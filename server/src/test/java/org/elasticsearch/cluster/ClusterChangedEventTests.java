@@ -550,6 +550,9 @@ public class ClusterChangedEventTests extends ESTestCase {
         assertThat(new HashSet<>(addsFromEvent), equalTo(addedIndices.stream().map(Index::getName).collect(Collectors.toSet())));
         assertThat(new HashSet<>(delsFromEvent), equalTo(new HashSet<>(delIndices)));
         assertThat(event.metadataChanged(), equalTo(changeClusterUUID || addedIndices.size() > 0 || delIndices.size() > 0));
+        // the indices that are kept keep their metadata instances, so only the added ones changed
+        assertThat(event.indicesWithMetadataChanges(), equalTo(new HashSet<>(addedIndices)));
+        assertSame(event.indicesWithMetadataChanges(), event.indicesWithMetadataChanges());
         final IndexGraveyard newGraveyard = event.state().metadata().indexGraveyard();
         final IndexGraveyard oldGraveyard = event.previousState().metadata().indexGraveyard();
         assertThat(((IndexGraveyard.IndexGraveyardDiff) newGraveyard.diff(oldGraveyard)).getAdded().size(), equalTo(delIndices.size()));
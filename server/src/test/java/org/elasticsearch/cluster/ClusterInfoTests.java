@@ -18,9 +18,12 @@ import org.elasticsearch.test.ESTestCase;
 public class ClusterInfoTests extends ESTestCase {
 
     public void testSerialization() throws Exception {
+        final boolean withForecast = randomBoolean();
         ClusterInfo clusterInfo = new ClusterInfo(
             randomDiskUsage(),
             randomDiskUsage(),
+            withForecast ? randomDiskUsage() : null,
+            withForecast ? randomDiskUsage() : null,
             randomShardSizes(),
             randomDataSetSizes(),
             randomRoutingToDataPath(),
@@ -32,12 +35,27 @@ public class ClusterInfoTests extends ESTestCase {
         ClusterInfo result = new ClusterInfo(output.bytes().streamInput());
         assertEquals(clusterInfo.getNodeLeastAvailableDiskUsages(), result.getNodeLeastAvailableDiskUsages());
         assertEquals(clusterInfo.getNodeMostAvailableDiskUsages(), result.getNodeMostAvailableDiskUsages());
+        assertEquals(clusterInfo.getForecastNodeLeastAvailableDiskUsages(), result.getForecastNodeLeastAvailableDiskUsages());
+        assertEquals(clusterInfo.getForecastNodeMostAvailableDiskUsages(), result.getForecastNodeMostAvailableDiskUsages());
         assertEquals(clusterInfo.shardSizes, result.shardSizes);
         assertEquals(clusterInfo.shardDataSetSizes, result.shardDataSetSizes);
         assertEquals(clusterInfo.routingToDataPath, result.routingToDataPath);
         assertEquals(clusterInfo.reservedSpace, result.reservedSpace);
     }
 
+    public void testForecastFallsBackToMeasuredDiskUsage() {
+        ClusterInfo clusterInfo = new ClusterInfo(
+            randomDiskUsage(),
+            randomDiskUsage(),
+            randomShardSizes(),
+            randomDataSetSizes(),
+            randomRoutingToDataPath(),
+            randomReservedSpace()
+        );
+        assertSame(clusterInfo.getNodeLeastAvailableDiskUsages(), clusterInfo.getForecastNodeLeastAvailableDiskUsages());
+        assertSame(clusterInfo.getNodeMostAvailableDiskUsages(), clusterInfo.getForecastNodeMostAvailableDiskUsages());
+    }
+
     private static ImmutableOpenMap<String, DiskUsage> randomDiskUsage() {
         int numEntries = randomIntBetween(0, 128);
         ImmutableOpenMap.Builder<String, DiskUsage> builder = ImmutableOpenMap.builder(numEntries);
@@ -18,6 +18,9 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingHelper;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardPath;
@@ -29,10 +32,13 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class DiskUsageTests extends ESTestCase {
     public void testDiskUsageCalc() {
@@ -140,6 +146,120 @@ public class DiskUsageTests extends ESTestCase {
         assertEquals(test1Path.getParent().getParent().getParent().toAbsolutePath().toString(), routingToPath.get(test_1));
     }
 
+    public void testForecastDiskUsageFromShardGrowth() {
+        final Index index = new Index("test", "0xdeadbeef");
+        final Path dataPath = createTempDir();
+        final String dataPathString = dataPath.toAbsolutePath().toString();
+        final ShardRouting started = ShardRoutingHelper.moveToStarted(
+            ShardRoutingHelper.initialize(
+                ShardRouting.newUnassigned(
+                    new ShardId(index, 0),
+                    true,
+                    PeerRecoverySource.INSTANCE,
+                    new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo")
+                ),
+                "node1"
+            )
+        );
+        final ShardRouting initializing = ShardRoutingHelper.initialize(
+            ShardRouting.newUnassigned(
+                new ShardId(index, 1),
+                true,
+                PeerRecoverySource.INSTANCE,
+                new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo")
+            ),
+            "node1"
+        );
+
+        final InternalClusterInfoService.ShardGrowthTracker tracker = new InternalClusterInfoService.ShardGrowthTracker();
+        assertThat(tracker.update(shardStats(dataPath, started, 1000L, initializing, 0L), 0L), equalTo(Map.of()));
+
+        // the started copy grew by 100 bytes per second, the recovering one doesn't count
+        final Map<ClusterInfo.NodeAndPath, Double> bytesPerSecondByPath = tracker.update(
+            shardStats(dataPath, started, 2000L, initializing, 5000L),
+            10000L
+        );
+        final ClusterInfo.NodeAndPath nodeAndPath = new ClusterInfo.NodeAndPath("node1", dataPathString);
+        assertThat(bytesPerSecondByPath, equalTo(Map.of(nodeAndPath, 100.0)));
+
+        // shrinking, e.g. after a merge, counts against the smoothed rate
+        assertThat(tracker.update(shardStats(dataPath, started, 1500L, initializing, 6000L), 20000L), equalTo(Map.of(nodeAndPath, 25.0)));
+
+        final ImmutableOpenMap<String, DiskUsage> diskUsages = ImmutableOpenMap.<String, DiskUsage>builder()
+            .fPut("node1", new DiskUsage("node1", "n1", dataPathString, 100000L, 40000L))
+            .fPut("node2", new DiskUsage("node2", "n2", dataPathString, 100000L, 40000L))
+            .build();
+        final ImmutableOpenMap<String, DiskUsage> forecast = InternalClusterInfoService.forecastDiskUsages(
+            diskUsages,
+            Map.of(nodeAndPath, 100.0),
+            TimeValue.timeValueSeconds(100)
+        );
+        assertThat(forecast.get("node1").getFreeBytes(), equalTo(30000L));
+        assertThat(forecast.get("node1").getTotalBytes(), equalTo(100000L));
+        assertThat(forecast.get("node2"), sameInstance(diskUsages.get("node2")));
+
+        final ImmutableOpenMap<String, DiskUsage> farForecast = InternalClusterInfoService.forecastDiskUsages(
+            diskUsages,
+            Map.of(nodeAndPath, 100.0),
+            TimeValue.timeValueHours(1)
+        );
+        assertThat(farForecast.get("node1").getFreeBytes(), equalTo(0L));
+    }
+
+    public void testForecastShardGrowthAfterMerge() {
+        final Path dataPath = createTempDir();
+        final ShardRouting started = ShardRoutingHelper.moveToStarted(
+            ShardRoutingHelper.initialize(
+                ShardRouting.newUnassigned(
+                    new ShardId(new Index("test", "0xdeadbeef"), 0),
+                    true,
+                    PeerRecoverySource.INSTANCE,
+                    new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo")
+                ),
+                "node1"
+            )
+        );
+        final ClusterInfo.NodeAndPath nodeAndPath = new ClusterInfo.NodeAndPath("node1", dataPath.toAbsolutePath().toString());
+
+        final InternalClusterInfoService.ShardGrowthTracker tracker = new InternalClusterInfoService.ShardGrowthTracker();
+        assertThat(tracker.update(new ShardStats[] { shardStats(dataPath, started, 1000L) }, 0L), equalTo(Map.of()));
+
+        // grows by 100 bytes per second
+        assertThat(tracker.update(new ShardStats[] { shardStats(dataPath, started, 2000L) }, 10000L), equalTo(Map.of(nodeAndPath, 100.0)));
+
+        // then merges back down to where it started, so overall it did not grow
+        assertThat(tracker.update(new ShardStats[] { shardStats(dataPath, started, 1000L) }, 20000L), equalTo(Map.of(nodeAndPath, 0.0)));
+
+        // and merges down further: a shrinking copy is reported as not growing, but its smoothed rate remembers the shrinkage
+        assertThat(tracker.update(new ShardStats[] { shardStats(dataPath, started, 500L) }, 30000L), equalTo(Map.of(nodeAndPath, 0.0)));
+        assertThat(tracker.update(new ShardStats[] { shardStats(dataPath, started, 1500L) }, 40000L), equalTo(Map.of(nodeAndPath, 37.5)));
+    }
+
+    public void testDiskForecastHorizonIsBounded() {
+        final Setting<TimeValue> setting = InternalClusterInfoService.INTERNAL_CLUSTER_INFO_DISK_FORECAST_HORIZON_SETTING;
+        assertThat(setting.get(Settings.EMPTY), equalTo(TimeValue.ZERO));
+        assertThat(setting.get(Settings.builder().put(setting.getKey(), "1h").build()), equalTo(TimeValue.timeValueHours(1)));
+        final IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> setting.get(Settings.builder().put(setting.getKey(), "1d").build())
+        );
+        assertThat(e.getMessage(), containsString("must be <= [1h]"));
+    }
+
+    private static ShardStats[] shardStats(Path dataPath, ShardRouting first, long firstSize, ShardRouting second, long secondSize) {
+        return new ShardStats[] { shardStats(dataPath, first, firstSize), shardStats(dataPath, second, secondSize) };
+    }
+
+    private static ShardStats shardStats(Path dataPath, ShardRouting shardRouting, long size) {
+        final Path shardPath = dataPath.resolve("indices")
+            .resolve(shardRouting.index().getUUID())
+            .resolve(Integer.toString(shardRouting.id()));
+        final CommonStats commonStats = new CommonStats();
+        commonStats.store = new StoreStats(size, size, 0L);
+        final ShardPath path = new ShardPath(false, shardPath, shardPath, shardRouting.shardId());
+        return new ShardStats(shardRouting, path, commonStats, null, null, null);
+    }
+
     public void testFillDiskUsage() {
         ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages = ImmutableOpenMap.builder();
         ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages = ImmutableOpenMap.builder();
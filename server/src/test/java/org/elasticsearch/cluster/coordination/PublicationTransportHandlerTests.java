@@ -28,6 +28,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.test.ESTestCase;
@@ -45,6 +46,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -109,6 +111,96 @@ public class PublicationTransportHandlerTests extends ESTestCase {
         assertThat(e.getCause().getMessage(), containsString("Simulated failure of diff serialization"));
     }
 
+    public void testSerializesEachVersionOnceAndSendsAsSoonAsReady() throws InterruptedException {
+        final ThreadPool threadPool = new TestThreadPool("test");
+        try {
+            threadPool.getThreadContext().markAsSystemContext();
+            final DiscoveryNode localNode = new DiscoveryNode("localNode", buildNewFakeTransportAddress(), Version.CURRENT);
+            final DiscoveryNode olderNode = new DiscoveryNode(
+                "olderNode",
+                buildNewFakeTransportAddress(),
+                VersionUtils.getPreviousVersion(Version.CURRENT)
+            );
+            final DiscoveryNode newNode = new DiscoveryNode("newNode", buildNewFakeTransportAddress(), Version.CURRENT);
+            final BytesRefRecycler recycler = new BytesRefRecycler(new MockPageCacheRecycler(Settings.EMPTY));
+            final Map<String, Boolean> sentDiffs = ConcurrentCollections.newConcurrentMap();
+            final MockTransport mockTransport = new MockTransport() {
+                @Override
+                protected void onSendRequest(long requestId, String action, TransportRequest request, DiscoveryNode node) {
+                    final BytesTransportRequest bytesTransportRequest = (BytesTransportRequest) request;
+                    assertThat(bytesTransportRequest.version(), equalTo(node.getVersion()));
+                    assertNull(sentDiffs.put(node.getId(), isDiff(bytesTransportRequest, node)));
+                    handleResponse(
+                        requestId,
+                        new PublishWithJoinResponse(new PublishResponse(randomNonNegativeLong(), randomNonNegativeLong()), Optional.empty())
+                    );
+                }
+
+                @Override
+                public RecyclerBytesStreamOutput newNetworkBytesStream() {
+                    return new RecyclerBytesStreamOutput(recycler);
+                }
+            };
+
+            final TransportService transportService = mockTransport.createTransportService(
+                Settings.EMPTY,
+                threadPool,
+                TransportService.NOOP_TRANSPORT_INTERCEPTOR,
+                x -> localNode,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                Collections.emptySet()
+            );
+            final PublicationTransportHandler handler = new PublicationTransportHandler(
+                transportService,
+                writableRegistry(),
+                pu -> null,
+                (pu, l) -> {}
+            );
+            transportService.start();
+            transportService.acceptIncomingRequests();
+
+            final ClusterState prevClusterState = CoordinationStateTests.clusterState(
+                1L,
+                randomLongBetween(1L, 1000L),
+                DiscoveryNodes.builder().add(localNode).add(olderNode).localNodeId(localNode.getId()).build(),
+                VotingConfiguration.EMPTY_CONFIG,
+                VotingConfiguration.EMPTY_CONFIG,
+                0L
+            );
+            final ClusterState nextClusterState = CoordinationStateTests.clusterState(
+                2L,
+                prevClusterState.version() + 1,
+                DiscoveryNodes.builder(prevClusterState.nodes()).add(newNode).build(),
+                VotingConfiguration.EMPTY_CONFIG,
+                VotingConfiguration.EMPTY_CONFIG,
+                0L
+            );
+
+            final PublicationTransportHandler.PublicationContext context = handler.newPublicationContext(
+                new ClusterStatePublicationEvent("test", prevClusterState, nextClusterState, 0L, 0L)
+            );
+            final CountDownLatch responsesLatch = new CountDownLatch(nextClusterState.nodes().getSize());
+            for (DiscoveryNode discoveryNode : nextClusterState.nodes()) {
+                context.sendPublishRequest(
+                    discoveryNode,
+                    new PublishRequest(nextClusterState),
+                    ActionListener.runAfter(ActionListener.wrap(r -> {}, e -> { throw new AssertionError(e); }), responsesLatch::countDown)
+                );
+            }
+            context.decRef();
+            assertTrue(responsesLatch.await(10, TimeUnit.SECONDS));
+
+            // the publication to the local node does not go through the transport, and falls back to the full state since the handler
+            // has not seen any state before
+            assertThat(sentDiffs, equalTo(Map.of(olderNode.getId(), true, newNode.getId(), false)));
+            final ClusterStateSerializationStats serializationStats = handler.stats().getClusterStateSerializationStats();
+            assertThat(serializationStats.getDiffCount(), equalTo(2L));
+            assertThat(serializationStats.getFullStateCount(), equalTo(1L));
+        } finally {
+            assertTrue(ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS));
+        }
+    }
+
     private static boolean isDiff(BytesTransportRequest request, DiscoveryNode node) {
         try {
             StreamInput in = null;
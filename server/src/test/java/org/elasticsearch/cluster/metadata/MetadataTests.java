@@ -22,6 +22,7 @@ import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
@@ -67,6 +68,7 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -2233,6 +2235,69 @@ public class MetadataTests extends ESTestCase {
         assertThat(metadata.getMappingsByHash().get(newMapping.getSha256()), nullValue());
     }
 
+    public void testMappingsAsHashInDiffs() throws IOException {
+        final MappingMetadata knownMapping = new MappingMetadata(MapperService.SINGLE_MAPPING_NAME, Map.of("known", "mapping"));
+        final MappingMetadata otherMapping = new MappingMetadata(MapperService.SINGLE_MAPPING_NAME, Map.of("other", "mapping"));
+        final MappingMetadata newMapping = new MappingMetadata(MapperService.SINGLE_MAPPING_NAME, Map.of("new", "mapping"));
+
+        final Metadata.Builder beforeBuilder = Metadata.builder();
+        for (int i = 0; i < 4; i++) {
+            beforeBuilder.put(mappingIndex("index-" + i, i % 2 == 0 ? knownMapping : otherMapping));
+        }
+        final Metadata before = beforeBuilder.build();
+
+        final int newIndices = randomIntBetween(1, 10);
+        final Metadata.Builder afterBuilder = Metadata.builder(before);
+        for (int i = 0; i < newIndices; i++) {
+            afterBuilder.put(mappingIndex("new-index-" + i, knownMapping));
+        }
+        afterBuilder.put(mappingIndex("index-with-new-mapping", newMapping));
+        afterBuilder.put(IndexMetadata.builder(before.index("index-0")).putMapping(newMapping).mappingVersion(2));
+        afterBuilder.put(IndexMetadata.builder(before.index("index-1")).putMapping(knownMapping).mappingVersion(2));
+        afterBuilder.put(IndexMetadata.builder(before.index("index-2")).settingsVersion(2));
+        final Metadata after = afterBuilder.build();
+
+        final Diff<Metadata> diff = after.diff(before);
+        final NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(ClusterModule.getNamedWriteables());
+        final BytesStreamOutput out = new BytesStreamOutput();
+        diff.writeTo(out);
+        final StreamInput in = new NamedWriteableAwareStreamInput(out.bytes().streamInput(), namedWriteableRegistry);
+        final Metadata applied = Metadata.readDiffFrom(in).apply(before);
+
+        assertThat(applied.indices().keySet(), equalTo(after.indices().keySet()));
+        for (IndexMetadata indexMetadata : after.indices().values()) {
+            assertThat(applied.index(indexMetadata.getIndex()), equalTo(indexMetadata));
+        }
+        // the indices share the instances of the mappings that the node had already
+        assertThat(applied.index("new-index-0").mapping(), sameInstance(before.getMappingsByHash().get(knownMapping.getSha256())));
+        assertThat(applied.index("index-1").mapping(), sameInstance(before.getMappingsByHash().get(knownMapping.getSha256())));
+        assertThat(applied.index("index-0").mapping(), sameInstance(applied.index("index-with-new-mapping").mapping()));
+        assertThat(applied.getMappingsByHash().keySet(), equalTo(after.getMappingsByHash().keySet()));
+
+        // older nodes get the mappings in full
+        final BytesStreamOutput fullMappingsOut = new BytesStreamOutput();
+        fullMappingsOut.setVersion(Version.V_8_1_0);
+        diff.writeTo(fullMappingsOut);
+        assertThat(fullMappingsOut.bytes().length(), greaterThan(out.bytes().length()));
+        final StreamInput fullMappingsIn = new NamedWriteableAwareStreamInput(
+            fullMappingsOut.bytes().streamInput(),
+            namedWriteableRegistry
+        );
+        fullMappingsIn.setVersion(Version.V_8_1_0);
+        final Metadata appliedFromFullMappings = Metadata.readDiffFrom(fullMappingsIn).apply(before);
+        for (IndexMetadata indexMetadata : after.indices().values()) {
+            assertThat(appliedFromFullMappings.index(indexMetadata.getIndex()), equalTo(indexMetadata));
+        }
+    }
+
+    private static IndexMetadata.Builder mappingIndex(String name, MappingMetadata mapping) {
+        return IndexMetadata.builder(name)
+            .settings(Settings.builder().put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT))
+            .putMapping(mapping)
+            .numberOfShards(1)
+            .numberOfReplicas(0);
+    }
+
     public static Metadata randomMetadata() {
         return randomMetadata(1);
     }
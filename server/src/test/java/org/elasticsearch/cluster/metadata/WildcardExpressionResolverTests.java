@@ -20,6 +20,7 @@ import org.elasticsearch.test.ESTestCase;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -28,6 +29,7 @@ import static org.elasticsearch.cluster.metadata.DataStreamTestHelper.createTime
 import static org.elasticsearch.common.util.set.Sets.newHashSet;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class WildcardExpressionResolverTests extends ESTestCase {
 
@@ -590,6 +592,66 @@ public class WildcardExpressionResolverTests extends ESTestCase {
         }
     }
 
+    public void testMatchesAreCachedPerMetadata() {
+        Metadata.Builder mdBuilder = Metadata.builder()
+            .put(indexBuilder("logs-1").state(State.OPEN))
+            .put(indexBuilder("logs-2").state(State.OPEN).putAlias(AliasMetadata.builder("logs-alias")))
+            .put(indexBuilder("metrics-1").state(State.OPEN));
+        ClusterState state = ClusterState.builder(new ClusterName("_name")).metadata(mdBuilder).build();
+        IndexNameExpressionResolver.Context context = new IndexNameExpressionResolver.Context(
+            state,
+            IndicesOptions.lenientExpandOpen(),
+            SystemIndexAccessLevel.NONE
+        );
+        IndexNameExpressionResolver.Context onlyIndicesContext = new IndexNameExpressionResolver.Context(
+            state,
+            IndicesOptions.fromOptions(false, false, true, false, true, false, true, false),
+            SystemIndexAccessLevel.NONE
+        );
+
+        for (String expression : List.of("logs*", "*-1", "*")) {
+            Map<String, IndexAbstraction> matches = IndexNameExpressionResolver.WildcardExpressionResolver.matches(
+                context,
+                state.metadata(),
+                expression
+            );
+            assertThat(
+                IndexNameExpressionResolver.WildcardExpressionResolver.matches(context, state.metadata(), expression),
+                sameInstance(matches)
+            );
+            // the options that change what may match have matches of their own
+            Map<String, IndexAbstraction> onlyIndicesMatches = IndexNameExpressionResolver.WildcardExpressionResolver.matches(
+                onlyIndicesContext,
+                state.metadata(),
+                expression
+            );
+            assertThat(onlyIndicesMatches.containsKey("logs-alias"), equalTo(false));
+            assertThat(matches.containsKey("logs-alias"), equalTo(expression.equals("*-1") == false));
+        }
+        assertThat(
+            IndexNameExpressionResolver.WildcardExpressionResolver.matches(context, state.metadata(), "logs*").keySet(),
+            equalTo(newHashSet("logs-1", "logs-2", "logs-alias"))
+        );
+
+        // a new metadata doesn't see the matches of the previous one
+        ClusterState newState = ClusterState.builder(state)
+            .metadata(Metadata.builder(state.metadata()).put(indexBuilder("logs-3").state(State.OPEN)))
+            .build();
+        IndexNameExpressionResolver.Context newContext = new IndexNameExpressionResolver.Context(
+            newState,
+            IndicesOptions.lenientExpandOpen(),
+            SystemIndexAccessLevel.NONE
+        );
+        assertThat(
+            IndexNameExpressionResolver.WildcardExpressionResolver.matches(newContext, newState.metadata(), "logs*").keySet(),
+            equalTo(newHashSet("logs-1", "logs-2", "logs-3", "logs-alias"))
+        );
+        assertThat(
+            newHashSet(IndexNameExpressionResolver.WildcardExpressionResolver.resolve(newContext, List.of("logs*"))),
+            equalTo(newHashSet("logs-1", "logs-2", "logs-3"))
+        );
+    }
+
     private static IndexMetadata.Builder indexBuilder(String index) {
         return IndexMetadata.builder(index)
             .settings(
@@ -40,6 +40,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class RoutingTableTests extends ESAllocationTestCase {
 
@@ -396,6 +397,38 @@ public class RoutingTableTests extends ESAllocationTestCase {
         expectThrows(IllegalStateException.class, () -> indexRoutingTable.validate(metadata4));
     }
 
+    public void testRoutingNodeMatchesRoutingNodes() {
+        initPrimaries();
+        startInitializingShards(TEST_INDEX_1);
+        final ClusterState previousState = clusterState;
+        startInitializingShards(TEST_INDEX_2);
+
+        // rerouting keeps the routing of the index that did not change
+        assertThat(
+            clusterState.routingTable().index(TEST_INDEX_1),
+            sameInstance(previousState.routingTable().index(TEST_INDEX_1))
+        );
+        assertThat(
+            clusterState.routingTable().index(TEST_INDEX_2),
+            not(sameInstance(previousState.routingTable().index(TEST_INDEX_2)))
+        );
+
+        for (ClusterState state : List.of(previousState, clusterState)) {
+            final RoutingNodes routingNodes = RoutingNodes.immutable(state.routingTable(), state.nodes());
+            for (String nodeId : state.nodes().getNodes().keySet()) {
+                assertThat(state.routingTable().routingNode(nodeId, state.nodes()), equalTo(routingNodes.node(nodeId)));
+            }
+            assertThat(state.routingTable().routingNode("unknown", state.nodes()), nullValue());
+        }
+
+        // the shards of a node are cached on the index routing table that later states share, so nobody may modify them
+        final String nodeId = clusterState.routingTable().index(TEST_INDEX_1).shard(0).primaryShard().currentNodeId();
+        final List<ShardRouting> shards = clusterState.routingTable().index(TEST_INDEX_1).assignedShardsOnNode(nodeId);
+        assertThat(shards.isEmpty(), equalTo(false));
+        expectThrows(UnsupportedOperationException.class, () -> shards.remove(0));
+        expectThrows(UnsupportedOperationException.class, () -> shards.add(shards.get(0)));
+    }
+
     public void testDistinctNodes() {
         ShardId shardId = new ShardId(new Index("index", "uuid"), 0);
         ShardRouting routing1 = TestShardRouting.newShardRouting(shardId, "node1", randomBoolean(), ShardRoutingState.STARTED);
@@ -26,13 +26,18 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.snapshots.EmptySnapshotsInfoService;
 import org.elasticsearch.test.gateway.TestGatewayAllocator;
 import org.hamcrest.Matchers;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.cluster.routing.RoutingNodesHelper.shardsWithState;
@@ -147,6 +152,128 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         );
     }
 
+    public void testIncrementalReplicaBalance() {
+        final float balanceThreshold = 1.0f;
+        final int maxIndices = between(1, numberOfIndices);
+
+        Settings.Builder settings = Settings.builder();
+        settings.put(
+            ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(),
+            ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString()
+        );
+        settings.put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), 0.0f);
+        settings.put(BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.getKey(), 1.0f);
+        settings.put(BalancedShardsAllocator.THRESHOLD_SETTING.getKey(), balanceThreshold);
+        settings.put(BalancedShardsAllocator.INCREMENTAL_MAX_INDICES_SETTING.getKey(), maxIndices);
+
+        AllocationService strategy = createAllocationService(settings.build(), new TestGatewayAllocator());
+
+        ClusterState clusterState = balanceIncrementally(initCluster(strategy), strategy, maxIndices);
+        assertReplicaBalance(
+            clusterState.getRoutingNodes(),
+            numberOfNodes,
+            numberOfIndices,
+            numberOfReplicas,
+            numberOfShards,
+            balanceThreshold
+        );
+
+        clusterState = balanceIncrementally(addNode(clusterState, strategy), strategy, maxIndices);
+        assertReplicaBalance(
+            clusterState.getRoutingNodes(),
+            numberOfNodes + 1,
+            numberOfIndices,
+            numberOfReplicas,
+            numberOfShards,
+            balanceThreshold
+        );
+    }
+
+    public void testIncrementalBalanceRevisitsThrottledIndex() {
+        // the shards of [test] may not go to node1 at first, so they all end up on node0, then moving them there is throttled
+        final AtomicReference<Decision> testOnNode1 = new AtomicReference<>(Decision.NO);
+        final AllocationService strategy = new AllocationService(
+            new AllocationDeciders(List.of(new AllocationDecider() {
+                @Override
+                public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                    return shardRouting.getIndexName().equals("test") && node.nodeId().equals("node1") ? testOnNode1.get() : Decision.YES;
+                }
+            })),
+            new TestGatewayAllocator(),
+            new BalancedShardsAllocator(
+                Settings.builder().put(BalancedShardsAllocator.INCREMENTAL_MAX_INDICES_SETTING.getKey(), 1).build()
+            ),
+            EmptyClusterInfoService.INSTANCE,
+            EmptySnapshotsInfoService.INSTANCE
+        );
+
+        final Metadata.Builder metadataBuilder = Metadata.builder()
+            .put(IndexMetadata.builder("test").settings(settings(Version.CURRENT)).numberOfShards(4).numberOfReplicas(0));
+        for (int i = 0; i < 9; i++) {
+            metadataBuilder.put(
+                IndexMetadata.builder("other" + i).settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0)
+            );
+        }
+        final Metadata metadata = metadataBuilder.build();
+        final RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (IndexMetadata indexMetadata : metadata.indices().values()) {
+            routingTableBuilder.addAsNew(indexMetadata);
+        }
+        ClusterState clusterState = ClusterState.builder(
+            org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY)
+        )
+            .nodes(DiscoveryNodes.builder().add(newNode("node0")).add(newNode("node1")))
+            .metadata(metadata)
+            .routingTable(routingTableBuilder.build())
+            .build();
+        clusterState = applyStartedShardsUntilNoChange(strategy.reroute(clusterState, "reroute"), strategy);
+        assertThat(numberOfTestShardsOnNode0(clusterState), Matchers.equalTo(4));
+
+        testOnNode1.set(Decision.THROTTLE);
+        for (int i = 0; i < 10; i++) {
+            clusterState = applyStartedShardsUntilNoChange(strategy.reroute(clusterState, "reroute"), strategy);
+        }
+        assertThat(numberOfTestShardsOnNode0(clusterState), Matchers.equalTo(4));
+
+        // the throttled index is still unbalanced, so the next reroute balances it rather than one of the balanced indices
+        testOnNode1.set(Decision.YES);
+        clusterState = strategy.reroute(clusterState, "reroute");
+        assertThat(
+            shardsWithState(clusterState.getRoutingNodes(), ShardRoutingState.RELOCATING).stream()
+                .filter(shardRouting -> shardRouting.getIndexName().equals("test"))
+                .count(),
+            Matchers.greaterThan(0L)
+        );
+    }
+
+    private static int numberOfTestShardsOnNode0(ClusterState clusterState) {
+        return clusterState.getRoutingNodes().node("node0").numberOfOwningShardsForIndex(clusterState.metadata().index("test").getIndex());
+    }
+
+    public void testIncrementalMaxIndicesRejectsZero() {
+        final IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> BalancedShardsAllocator.INCREMENTAL_MAX_INDICES_SETTING.get(
+                Settings.builder().put(BalancedShardsAllocator.INCREMENTAL_MAX_INDICES_SETTING.getKey(), 0).build()
+            )
+        );
+        assertThat(e.getMessage(), Matchers.containsString("must be -1 or at least 1"));
+    }
+
+    /**
+     * Reroutes until enough reroutes in a row changed nothing for the incremental balancer to have looked at every index in them.
+     */
+    private ClusterState balanceIncrementally(ClusterState clusterState, AllocationService strategy, int maxIndices) {
+        final int reroutesToVisitAllIndices = (numberOfIndices + maxIndices - 1) / maxIndices + 1;
+        int unchangedReroutes = 0;
+        while (unchangedReroutes < reroutesToVisitAllIndices) {
+            final ClusterState lastClusterState = clusterState;
+            clusterState = startInitializingShardsAndReroute(strategy, clusterState);
+            unchangedReroutes = lastClusterState.equals(clusterState) ? unchangedReroutes + 1 : 0;
+        }
+        return clusterState;
+    }
+
     private ClusterState initCluster(AllocationService strategy) {
         Metadata.Builder metadataBuilder = Metadata.builder();
         RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
@@ -345,6 +345,83 @@ public class DiskThresholdMonitorTests extends ESAllocationTestCase {
 
     }
 
+    public void testForecastDiskUsageTriggersRerouteButNotFloodStageBlock() {
+        AllocationService allocation = createAllocationService(Settings.EMPTY);
+        Metadata metadata = Metadata.builder()
+            .put(
+                IndexMetadata.builder("test")
+                    .settings(settings(Version.CURRENT).put("index.routing.allocation.require._id", "node1"))
+                    .numberOfShards(1)
+                    .numberOfReplicas(0)
+            )
+            .build();
+        final ClusterState clusterState = applyStartedShardsUntilNoChange(
+            ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+                .metadata(metadata)
+                .routingTable(RoutingTable.builder().addAsNew(metadata.index("test")).build())
+                .nodes(DiscoveryNodes.builder().add(newNormalNode("node1")).add(newNormalNode("node2")))
+                .build(),
+            allocation
+        );
+        AtomicLong currentTime = new AtomicLong();
+        AtomicReference<ActionListener<ClusterState>> listenerReference = new AtomicReference<>();
+        DiskThresholdMonitor monitor = new DiskThresholdMonitor(
+            Settings.EMPTY,
+            () -> clusterState,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            null,
+            currentTime::get,
+            (reason, priority, listener) -> {
+                assertNotNull(listener);
+                assertThat(priority, equalTo(Priority.HIGH));
+                assertTrue(listenerReference.compareAndSet(null, listener));
+            }
+        ) {
+            @Override
+            protected void updateIndicesReadOnly(Set<String> indicesToMarkReadOnly, ActionListener<Void> listener, boolean readOnly) {
+                throw new AssertionError("unexpected");
+            }
+        };
+
+        final ImmutableOpenMap.Builder<String, DiskUsage> allDisksOkBuilder = ImmutableOpenMap.builder();
+        allDisksOkBuilder.put("node1", new DiskUsage("node1", "node1", "/foo/bar", 100, 50));
+        allDisksOkBuilder.put("node2", new DiskUsage("node2", "node2", "/foo/bar", 100, 50));
+        final ImmutableOpenMap<String, DiskUsage> allDisksOk = allDisksOkBuilder.build();
+
+        final ImmutableOpenMap.Builder<String, DiskUsage> forecastBuilder = ImmutableOpenMap.builder();
+        forecastBuilder.put("node1", new DiskUsage("node1", "node1", "/foo/bar", 100, between(0, 4)));
+        forecastBuilder.put("node2", new DiskUsage("node2", "node2", "/foo/bar", 100, 50));
+        final ImmutableOpenMap<String, DiskUsage> forecastAboveFloodStage = forecastBuilder.build();
+
+        // should reroute when receiving info about previously-unknown nodes
+        monitor.onNewInfo(clusterInfo(allDisksOk));
+        assertNotNull(listenerReference.get());
+        listenerReference.getAndSet(null).onResponse(clusterState);
+
+        // a node that is forecast to exceed the flood stage watermark is over the high watermark so shards move away from it, but the
+        // indices on it are only blocked once its measured disk usage exceeds the flood stage watermark
+        currentTime.addAndGet(
+            randomLongBetween(
+                DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_REROUTE_INTERVAL_SETTING.get(Settings.EMPTY).millis(),
+                120000
+            )
+        );
+        monitor.onNewInfo(
+            new ClusterInfo(
+                allDisksOk,
+                allDisksOk,
+                forecastAboveFloodStage,
+                forecastAboveFloodStage,
+                null,
+                null,
+                null,
+                ImmutableOpenMap.of()
+            )
+        );
+        assertNotNull(listenerReference.get());
+        listenerReference.getAndSet(null).onResponse(clusterState);
+    }
+
     public void testAutoReleaseIndices() {
         AtomicReference<Set<String>> indicesToMarkReadOnly = new AtomicReference<>();
         AtomicReference<Set<String>> indicesToRelease = new AtomicReference<>();
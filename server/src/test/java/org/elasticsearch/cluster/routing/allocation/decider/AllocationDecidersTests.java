@@ -25,6 +25,7 @@ import org.hamcrest.Matchers;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AllocationDecidersTests extends ESTestCase {
 
@@ -109,6 +110,91 @@ public class AllocationDecidersTests extends ESTestCase {
         assertThat(multi.getDecisions(), matcher);
     }
 
+    public void testShardIndependentDecisionsAreCachedPerIndexAndNode() {
+        final AtomicInteger independentCalls = new AtomicInteger();
+        final AtomicInteger dependentCalls = new AtomicInteger();
+        final AllocationDeciders allocationDeciders = new AllocationDeciders(List.of(new AllocationDecider() {
+            @Override
+            public boolean isShardIndependent(ShardRouting shardRouting) {
+                return true;
+            }
+
+            @Override
+            public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                independentCalls.incrementAndGet();
+                return Decision.YES;
+            }
+
+            @Override
+            public Decision canRemain(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                independentCalls.incrementAndGet();
+                return Decision.THROTTLE;
+            }
+        }, new AllocationDecider() {
+            @Override
+            public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                dependentCalls.incrementAndGet();
+                return Decision.YES;
+            }
+        }));
+
+        final ShardId firstShardId = new ShardId("test", "testUUID", 0);
+        final ShardId secondShardId = new ShardId("test", "testUUID", 1);
+        final ShardId otherIndexShardId = new ShardId("other", "otherUUID", 0);
+        final RoutingNode routingNode = new RoutingNode("testNode", null);
+        final RoutingNode otherRoutingNode = new RoutingNode("otherNode", null);
+        final ClusterState clusterState = ClusterState.builder(new ClusterName("test")).build();
+        final RoutingAllocation allocation = new RoutingAllocation(allocationDeciders, clusterState, null, null, 0L);
+
+        assertThat(
+            allocationDeciders.canAllocate(unassignedShard(firstShardId), routingNode, allocation).type(),
+            Matchers.equalTo(Decision.Type.YES)
+        );
+        assertThat(
+            allocationDeciders.canAllocate(unassignedShard(secondShardId), routingNode, allocation).type(),
+            Matchers.equalTo(Decision.Type.YES)
+        );
+        assertThat(independentCalls.get(), Matchers.equalTo(1));
+        assertThat(dependentCalls.get(), Matchers.equalTo(2));
+        assertThat(allocation.decisionCache().hits(), Matchers.equalTo(1L));
+        assertThat(allocation.decisionCache().misses(), Matchers.equalTo(1L));
+
+        // the decisions to remain are cached separately, and so are the decisions about other indices and nodes
+        assertThat(
+            allocationDeciders.canRemain(unassignedShard(firstShardId), routingNode, allocation).type(),
+            Matchers.equalTo(Decision.Type.THROTTLE)
+        );
+        assertThat(
+            allocationDeciders.canRemain(unassignedShard(secondShardId), routingNode, allocation).type(),
+            Matchers.equalTo(Decision.Type.THROTTLE)
+        );
+        allocationDeciders.canAllocate(unassignedShard(otherIndexShardId), routingNode, allocation);
+        allocationDeciders.canAllocate(unassignedShard(firstShardId), otherRoutingNode, allocation);
+        assertThat(independentCalls.get(), Matchers.equalTo(4));
+        assertThat(allocation.decisionCache().hits(), Matchers.equalTo(2L));
+        assertThat(allocation.decisionCache().misses(), Matchers.equalTo(4L));
+
+        // decisions aren't cached while debugging since they carry explanations then
+        allocation.debugDecision(true);
+        allocationDeciders.canAllocate(unassignedShard(secondShardId), routingNode, allocation);
+        assertThat(independentCalls.get(), Matchers.equalTo(5));
+        assertThat(allocation.decisionCache().hits(), Matchers.equalTo(2L));
+
+        // a new allocation starts with an empty cache
+        final RoutingAllocation nextAllocation = new RoutingAllocation(allocationDeciders, clusterState, null, null, 0L);
+        allocationDeciders.canAllocate(unassignedShard(firstShardId), routingNode, nextAllocation);
+        assertThat(independentCalls.get(), Matchers.equalTo(6));
+    }
+
+    private static ShardRouting unassignedShard(ShardId shardId) {
+        return ShardRouting.newUnassigned(
+            shardId,
+            true,
+            RecoverySource.ExistingStoreRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "_message")
+        );
+    }
+
     public void testEarlyTermination() {
         final Decision decisionOne = randomFrom(Decision.NO, Decision.single(Decision.Type.NO, "label1", "explanation"));
         final Decision decisionTwo = randomFrom(Decision.NO, Decision.single(Decision.Type.NO, "label2", "explanation"));
@@ -367,6 +367,95 @@ public class DiskThresholdDeciderUnitTests extends ESAllocationTestCase {
         );
     }
 
+    public void testCanRemainUsesForecastLeastAvailableSpace() {
+        ClusterSettings nss = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        DiskThresholdDecider decider = new DiskThresholdDecider(Settings.EMPTY, nss);
+
+        DiscoveryNode node_0 = new DiscoveryNode(
+            "node_0",
+            buildNewFakeTransportAddress(),
+            Collections.emptyMap(),
+            new HashSet<>(DiscoveryNodeRole.roles()),
+            Version.CURRENT
+        );
+
+        Metadata metadata = Metadata.builder()
+            .put(IndexMetadata.builder("test").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0))
+            .build();
+        final IndexMetadata indexMetadata = metadata.index("test");
+
+        ShardRouting test_0 = ShardRouting.newUnassigned(
+            new ShardId(indexMetadata.getIndex(), 0),
+            true,
+            EmptyStoreRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo")
+        );
+        test_0 = ShardRoutingHelper.initialize(test_0, node_0.getId());
+        test_0 = ShardRoutingHelper.moveToStarted(test_0);
+
+        ClusterState clusterState = ClusterState.builder(
+            org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY)
+        )
+            .metadata(metadata)
+            .routingTable(RoutingTable.builder().addAsNew(indexMetadata).build())
+            .nodes(DiscoveryNodes.builder().add(node_0))
+            .build();
+
+        final ImmutableOpenMap<String, DiskUsage> usages = ImmutableOpenMap.<String, DiskUsage>builder()
+            .fPut("node_0", new DiskUsage("node_0", "node_0", "/node0/least", 100, 50)) // 50% used
+            .build();
+        final ImmutableOpenMap<String, DiskUsage> forecastUsages = ImmutableOpenMap.<String, DiskUsage>builder()
+            .fPut("node_0", new DiskUsage("node_0", "node_0", "/node0/least", 100, 5)) // forecast to be 95% used
+            .build();
+        final ImmutableOpenMap<ShardRouting, String> shardRoutingMap = ImmutableOpenMap.<ShardRouting, String>builder()
+            .fPut(test_0, "/node0/least")
+            .build();
+        final ImmutableOpenMap<String, Long> shardSizes = ImmutableOpenMap.<String, Long>builder().fPut("[test][0][p]", 10L).build();
+
+        final ClusterInfo measuredClusterInfo = new ClusterInfo(
+            usages,
+            usages,
+            shardSizes,
+            null,
+            shardRoutingMap,
+            ImmutableOpenMap.of()
+        );
+        RoutingAllocation allocation = new RoutingAllocation(
+            new AllocationDeciders(Collections.singleton(decider)),
+            clusterState,
+            measuredClusterInfo,
+            null,
+            System.nanoTime()
+        );
+        allocation.debugDecision(true);
+        assertEquals(Decision.Type.YES, decider.canRemain(test_0, new RoutingNode("node_0", node_0), allocation).type());
+
+        final ClusterInfo forecastClusterInfo = new ClusterInfo(
+            usages,
+            usages,
+            forecastUsages,
+            forecastUsages,
+            shardSizes,
+            null,
+            shardRoutingMap,
+            ImmutableOpenMap.of()
+        );
+        allocation = new RoutingAllocation(
+            new AllocationDeciders(Collections.singleton(decider)),
+            clusterState,
+            forecastClusterInfo,
+            null,
+            System.nanoTime()
+        );
+        allocation.debugDecision(true);
+        Decision decision = decider.canRemain(test_0, new RoutingNode("node_0", node_0), allocation);
+        assertEquals(Decision.Type.NO, decision.type());
+        assertThat(
+            ((Decision.Single) decision).getExplanation(),
+            containsString("the shard cannot remain on this node because it is above the high watermark cluster setting")
+        );
+    }
+
     public void testShardSizeAndRelocatingSize() {
         ImmutableOpenMap.Builder<String, Long> shardSizes = ImmutableOpenMap.builder();
         shardSizes.put("[test][0][r]", 10L);
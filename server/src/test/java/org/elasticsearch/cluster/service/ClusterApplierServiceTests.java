@@ -13,8 +13,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterStateApplier;
 import org.elasticsearch.cluster.ClusterStateObserver;
 import org.elasticsearch.cluster.LocalNodeMasterListener;
 import org.elasticsearch.cluster.block.ClusterBlocks;
@@ -50,6 +52,7 @@ import static java.util.Collections.emptySet;
 import static org.elasticsearch.test.ClusterServiceUtils.createNoOpNodeConnectionsService;
 import static org.elasticsearch.test.ClusterServiceUtils.setState;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.is;
 
 public class ClusterApplierServiceTests extends ESTestCase {
@@ -85,10 +88,14 @@ public class ClusterApplierServiceTests extends ESTestCase {
     }
 
     private ClusterApplierService createClusterApplierService(boolean makeMaster) {
+        return createClusterApplierService(makeMaster, Settings.EMPTY);
+    }
+
+    private ClusterApplierService createClusterApplierService(boolean makeMaster, Settings settings) {
         final DiscoveryNode localNode = new DiscoveryNode("node1", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT);
         final ClusterApplierService clusterApplierService = new ClusterApplierService(
             "test_node",
-            Settings.builder().put("cluster.name", "ClusterApplierServiceTests").build(),
+            Settings.builder().put(settings).put("cluster.name", "ClusterApplierServiceTests").build(),
             clusterSettings,
             threadPool
         ) {
@@ -378,6 +385,52 @@ public class ClusterApplierServiceTests extends ESTestCase {
         assertTrue(applierCalled.get());
     }
 
+    public void testConcurrentClusterStateAppliers() {
+        clusterApplierService.close();
+        clusterApplierService = createClusterApplierService(
+            true,
+            Settings.builder().put(ClusterApplierService.CLUSTER_SERVICE_APPLIER_CONCURRENCY_SETTING.getKey(), 2).build()
+        );
+
+        final CountDownLatch sequentialApplierCalled = new CountDownLatch(1);
+        final AtomicBoolean appliedConcurrently = new AtomicBoolean();
+        final AtomicReference<String> concurrentApplierThreadName = new AtomicReference<>();
+        final AtomicBoolean concurrentApplierDone = new AtomicBoolean();
+        final AtomicBoolean calledAfterConcurrentApplier = new AtomicBoolean();
+        clusterApplierService.addStateApplier(new ClusterStateApplier() {
+            @Override
+            public void applyClusterState(ClusterChangedEvent event) {
+                concurrentApplierThreadName.set(Thread.currentThread().getName());
+                try {
+                    // only returns true if the applier that was added after this one is called while this one is still running
+                    appliedConcurrently.set(sequentialApplierCalled.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                concurrentApplierDone.set(true);
+            }
+
+            @Override
+            public boolean canApplyConcurrently() {
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "concurrent applier";
+            }
+        });
+        clusterApplierService.addStateApplier(event -> sequentialApplierCalled.countDown());
+        clusterApplierService.addLowPriorityApplier(event -> calledAfterConcurrentApplier.set(concurrentApplierDone.get()));
+
+        setState(clusterApplierService, ClusterState.builder(clusterApplierService.state()).build());
+
+        assertTrue(appliedConcurrently.get());
+        assertThat(concurrentApplierThreadName.get(), containsString(ClusterApplierService.CONCURRENT_APPLIER_THREAD_NAME));
+        assertTrue(calledAfterConcurrentApplier.get());
+        assertThat(clusterApplierService.getStats().getRecordings(), hasKey("concurrent applier"));
+    }
+
     public void testClusterStateApplierBubblesUpExceptionsInApplier() throws InterruptedException {
         AtomicReference<Throwable> error = new AtomicReference<>();
         clusterApplierService.addStateApplier(event -> { throw new RuntimeException("dummy exception"); });
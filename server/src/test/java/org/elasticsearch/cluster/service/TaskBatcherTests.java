@@ -31,6 +31,8 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.containsString;
@@ -49,6 +51,8 @@ public class TaskBatcherTests extends TaskExecutorTests {
 
     class TestTaskBatcher extends TaskBatcher {
 
+        volatile BiFunction<Object, Integer, TimeValue> batchingDelay = (batchingKey, taskCount) -> TimeValue.ZERO;
+
         TestTaskBatcher(Logger logger, PrioritizedEsThreadPoolExecutor threadExecutor) {
             super(logger, threadExecutor);
         }
@@ -74,6 +78,11 @@ public class TaskBatcherTests extends TaskExecutorTests {
                 );
         }
 
+        @Override
+        protected TimeValue getBatchingDelay(Object batchingKey, int taskCount) {
+            return batchingDelay.apply(batchingKey, taskCount);
+        }
+
         class UpdateTask extends BatchedTask {
             final TestListener listener;
 
@@ -320,6 +329,105 @@ public class TaskBatcherTests extends TaskExecutorTests {
         latch.await();
     }
 
+    public void testDeferredBatchCollectsLaterTasks() throws Exception {
+        final int laterTaskCount = between(1, 10);
+        final CountDownLatch deferred = new CountDownLatch(1);
+        final CountDownLatch processed = new CountDownLatch(laterTaskCount + 1);
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final TestExecutor<SimpleTask> executor = tasks -> batchSizes.add(tasks.size());
+        final TestListener listener = new TestListener() {
+            @Override
+            public void processed(String source) {
+                processed.countDown();
+            }
+
+            @Override
+            public void onFailure(String source, Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+
+        try (BlockingTask blockingTask = new BlockingTask(Priority.IMMEDIATE)) {
+            taskBatcher.batchingDelay = (batchingKey, taskCount) -> {
+                if (batchingKey == executor && deferred.getCount() > 0) {
+                    assertThat(taskCount, equalTo(1));
+                    // keep the executor busy until the later tasks are submitted, which the deferred batch must then collect
+                    submitTask("blocking", blockingTask);
+                    deferred.countDown();
+                    return TimeValue.timeValueMillis(between(1, 100));
+                }
+                return TimeValue.ZERO;
+            };
+            submitTask("first", new SimpleTask(0), ClusterStateTaskConfig.build(Priority.NORMAL), executor, listener);
+            deferred.await();
+            for (int i = 1; i <= laterTaskCount; i++) {
+                submitTask("later", new SimpleTask(i), ClusterStateTaskConfig.build(Priority.NORMAL), executor, listener);
+            }
+        }
+
+        processed.await();
+        assertThat(batchSizes, equalTo(List.of(laterTaskCount + 1)));
+    }
+
+    public void testHigherPriorityTaskRunsDeferredBatch() throws Exception {
+        final CountDownLatch deferred = new CountDownLatch(1);
+        final CountDownLatch processed = new CountDownLatch(2);
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final TestExecutor<SimpleTask> executor = tasks -> batchSizes.add(tasks.size());
+        final TestListener listener = new TestListener() {
+            @Override
+            public void processed(String source) {
+                processed.countDown();
+            }
+
+            @Override
+            public void onFailure(String source, Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+
+        // the batch is deferred for far longer than the test waits for it
+        taskBatcher.batchingDelay = (batchingKey, taskCount) -> {
+            if (deferred.getCount() > 0) {
+                deferred.countDown();
+                return TimeValue.timeValueHours(1);
+            }
+            return TimeValue.ZERO;
+        };
+        submitTask("normal", new SimpleTask(0), ClusterStateTaskConfig.build(Priority.NORMAL), executor, listener);
+        deferred.await();
+        submitTask(
+            "urgent",
+            new SimpleTask(1),
+            ClusterStateTaskConfig.build(randomFrom(Priority.URGENT, Priority.IMMEDIATE)),
+            executor,
+            listener
+        );
+
+        assertTrue(processed.await(10, TimeUnit.SECONDS));
+        assertThat(batchSizes, equalTo(List.of(2)));
+    }
+
+    public void testBatchSizeIncludesTheTaskItself() {
+        final TestListener listener = new TestListener() {
+            @Override
+            public void onFailure(String source, Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+        final TestExecutor<SimpleTask> executor = tasks -> {};
+        final TestTaskBatcher.UpdateTask task = taskBatcher.new UpdateTask(
+            Priority.NORMAL,
+            "source",
+            new SimpleTask(0),
+            listener,
+            executor
+        );
+        // neither queued nor running in a batch, like a task whose batch ran already
+        assertThat(taskBatcher.getBatchSize(task, false), equalTo(1));
+        assertThat(taskBatcher.getBatchSize(task, true), equalTo(1));
+    }
+
     private static class SimpleTask {
         private final int id;
 
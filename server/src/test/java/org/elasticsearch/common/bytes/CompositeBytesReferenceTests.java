@@ -13,6 +13,7 @@ import org.apache.lucene.util.BytesRefIterator;
 import org.elasticsearch.common.Randomness;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.hamcrest.Matchers;
 
 import java.io.IOException;
@@ -149,4 +150,45 @@ public class CompositeBytesReferenceTests extends AbstractBytesReferenceTestCase
             equalTo("CompositeBytesReference cannot hold more than 2GB")
         );
     }
+
+    public void testStreamInputReadsValuesSplitAcrossSlices() throws IOException {
+        final int count = randomIntBetween(1, 200);
+        final long[] values = new long[count];
+        final BytesStreamOutput out = new BytesStreamOutput();
+        for (int i = 0; i < count; i++) {
+            values[i] = randomBoolean() ? randomNonNegativeLong() : randomLong();
+            out.writeVLong(values[i] & Long.MAX_VALUE);
+            out.writeVInt((int) values[i] & Integer.MAX_VALUE);
+            out.writeLong(values[i]);
+            out.writeInt((int) values[i]);
+            out.writeShort((short) values[i]);
+        }
+        // cut the bytes into tiny slices so that most values straddle two or more of them
+        final BytesReference bytes = out.bytes();
+        final List<BytesReference> slices = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length();) {
+            final int sliceLength = Math.min(randomIntBetween(1, 3), bytes.length() - offset);
+            slices.add(new BytesArray(BytesReference.toBytes(bytes.slice(offset, sliceLength))));
+            offset += sliceLength;
+        }
+        final BytesReference composite = CompositeBytesReference.of(slices.toArray(new BytesReference[0]));
+        final StreamInput in = randomBoolean() ? composite.streamInput() : ReleasableBytesReference.wrap(composite).streamInput();
+        for (int pass = 0; pass < 2; pass++) {
+            if (pass == 0) {
+                in.mark(Integer.MAX_VALUE);
+            } else {
+                // the mark lies many slices behind the current position
+                in.reset();
+            }
+            for (int i = 0; i < count; i++) {
+                assertThat(in.readVLong(), equalTo(values[i] & Long.MAX_VALUE));
+                assertThat(in.readVInt(), equalTo((int) values[i] & Integer.MAX_VALUE));
+                assertThat(in.readLong(), equalTo(values[i]));
+                assertThat(in.readInt(), equalTo((int) values[i]));
+                assertThat(in.readShort(), equalTo((short) values[i]));
+            }
+            assertThat(in.available(), equalTo(0));
+            assertThat(in.read(), equalTo(-1));
+        }
+    }
 }
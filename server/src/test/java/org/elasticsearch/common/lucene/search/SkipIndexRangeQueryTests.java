@@ -0,0 +1,121 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.index.codec.DocValuesSkipIndex;
+import org.elasticsearch.index.codec.ES82SkipIndexDocValuesFormat;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class SkipIndexRangeQueryTests extends ESTestCase {
+
+    public void testEqualsAndHashCode() {
+        SkipIndexRangeQuery query = new SkipIndexRangeQuery("field", 1, 3);
+        assertEquals(query, new SkipIndexRangeQuery("field", 1, 3));
+        assertEquals(query.hashCode(), new SkipIndexRangeQuery("field", 1, 3).hashCode());
+        assertNotEquals(query, new SkipIndexRangeQuery("other", 1, 3));
+        assertNotEquals(query, new SkipIndexRangeQuery("field", 0, 3));
+        assertNotEquals(query, new SkipIndexRangeQuery("field", 1, 4));
+        assertEquals("[1 TO 3]", query.toString("field"));
+        assertEquals("field:[1 TO 3]", query.toString("other"));
+    }
+
+    public void testRewrite() throws IOException {
+        IndexReader reader = new MultiReader();
+        assertThat(new SkipIndexRangeQuery("field", 3, 1).rewrite(reader), instanceOf(MatchNoDocsQuery.class));
+        assertThat(
+            new SkipIndexRangeQuery("field", Long.MIN_VALUE, Long.MAX_VALUE).rewrite(reader),
+            equalTo(new DocValuesFieldExistsQuery("field"))
+        );
+    }
+
+    public void testSameResultsAsSlowRangeQueryWithSkipIndex() throws IOException {
+        assertSameResultsAsSlowRangeQuery(true);
+    }
+
+    public void testSameResultsAsSlowRangeQueryWithoutSkipIndex() throws IOException {
+        assertSameResultsAsSlowRangeQuery(false);
+    }
+
+    private void assertSameResultsAsSlowRangeQuery(boolean skipIndex) throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = newIndexWriterConfig();
+            if (skipIndex) {
+                iwc.setCodec(TestUtil.alwaysDocValuesFormat(new ES82SkipIndexDocValuesFormat()));
+            }
+            RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+            int numDocs = randomIntBetween(DocValuesSkipIndex.BLOCK_SIZE, DocValuesSkipIndex.BLOCK_SIZE * 4);
+            boolean multiValued = randomBoolean();
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                // mostly increasing values, like a timestamp, so that some blocks can be skipped or matched wholesale
+                if (randomInt(9) > 0) {
+                    doc.add(new SortedNumericDocValuesField("field", i + randomIntBetween(-10, 10)));
+                    if (multiValued && randomBoolean()) {
+                        doc.add(new SortedNumericDocValuesField("field", randomIntBetween(-10, numDocs + 10)));
+                    }
+                }
+                w.addDocument(doc);
+            }
+            if (randomBoolean()) {
+                w.forceMerge(1);
+            }
+            try (IndexReader reader = w.getReader()) {
+                w.close();
+                IndexSearcher searcher = newSearcher(reader);
+                for (int iter = 0; iter < 20; iter++) {
+                    long lower = randomIntBetween(-20, numDocs + 20);
+                    long upper = randomBoolean() ? lower + randomIntBetween(0, DocValuesSkipIndex.BLOCK_SIZE * 2) : randomLong();
+                    Query expected = SortedNumericDocValuesField.newSlowRangeQuery("field", lower, upper);
+                    Query actual = new SkipIndexRangeQuery("field", lower, upper);
+                    assertEquals(searcher.count(expected), searcher.count(actual));
+                }
+            }
+        }
+    }
+
+    public void testSkipIndexIsUsed() throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig().setCodec(TestUtil.alwaysDocValuesFormat(new ES82SkipIndexDocValuesFormat()));
+            try (IndexWriter w = new IndexWriter(dir, iwc)) {
+                for (int i = 0; i < DocValuesSkipIndex.BLOCK_SIZE * 3; i++) {
+                    Document doc = new Document();
+                    doc.add(new SortedNumericDocValuesField("field", i));
+                    w.addDocument(doc);
+                }
+                w.forceMerge(1);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                assertNotNull(DocValuesSkipIndex.of(getOnlyLeafReader(reader).getSortedNumericDocValues("field")));
+                IndexSearcher searcher = new IndexSearcher(reader);
+                assertEquals(0, searcher.count(new SkipIndexRangeQuery("field", -10, -1)));
+                assertEquals(DocValuesSkipIndex.BLOCK_SIZE, searcher.count(new SkipIndexRangeQuery("field", 0, 4095)));
+                assertEquals(2, searcher.count(new SkipIndexRangeQuery("field", 4095, 4096)));
+            }
+        }
+    }
+}
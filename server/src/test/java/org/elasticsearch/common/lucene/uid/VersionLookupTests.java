@@ -19,13 +19,17 @@ import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndVersion;
+import org.elasticsearch.index.codec.ES82BloomFilterPostingsFormat;
 import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.VersionFieldMapper;
 import org.elasticsearch.test.ESTestCase;
 
+import static org.hamcrest.Matchers.lessThan;
+
 /**
  * test per-segment lookup of version-related data structures
  */
@@ -53,19 +57,19 @@ public class VersionLookupTests extends ESTestCase {
         LeafReaderContext segment = reader.leaves().get(0);
         PerThreadIDVersionAndSeqNoLookup lookup = new PerThreadIDVersionAndSeqNoLookup(segment.reader(), IdFieldMapper.NAME);
         // found doc
-        DocIdAndVersion result = lookup.lookupVersion(new BytesRef("6"), randomBoolean(), segment);
+        DocIdAndVersion result = lookup.lookupVersion(new BytesRef("6"), randomBoolean(), segment, null);
         assertNotNull(result);
         assertEquals(87, result.version);
         assertEquals(0, result.docId);
         // not found doc
-        assertNull(lookup.lookupVersion(new BytesRef("7"), randomBoolean(), segment));
+        assertNull(lookup.lookupVersion(new BytesRef("7"), randomBoolean(), segment, null));
         // deleted doc
         writer.deleteDocuments(new Term(IdFieldMapper.NAME, "6"));
         reader.close();
         reader = DirectoryReader.open(writer);
         segment = reader.leaves().get(0);
         lookup = new PerThreadIDVersionAndSeqNoLookup(segment.reader(), IdFieldMapper.NAME);
-        assertNull(lookup.lookupVersion(new BytesRef("6"), randomBoolean(), segment));
+        assertNull(lookup.lookupVersion(new BytesRef("6"), randomBoolean(), segment, null));
         reader.close();
         writer.close();
         dir.close();
@@ -89,7 +93,7 @@ public class VersionLookupTests extends ESTestCase {
         LeafReaderContext segment = reader.leaves().get(0);
         PerThreadIDVersionAndSeqNoLookup lookup = new PerThreadIDVersionAndSeqNoLookup(segment.reader(), IdFieldMapper.NAME);
         // return the last doc when there are duplicates
-        DocIdAndVersion result = lookup.lookupVersion(new BytesRef("6"), randomBoolean(), segment);
+        DocIdAndVersion result = lookup.lookupVersion(new BytesRef("6"), randomBoolean(), segment, null);
         assertNotNull(result);
         assertEquals(87, result.version);
         assertEquals(1, result.docId);
@@ -99,7 +103,7 @@ public class VersionLookupTests extends ESTestCase {
         reader = DirectoryReader.open(writer);
         segment = reader.leaves().get(0);
         lookup = new PerThreadIDVersionAndSeqNoLookup(segment.reader(), IdFieldMapper.NAME);
-        result = lookup.lookupVersion(new BytesRef("6"), randomBoolean(), segment);
+        result = lookup.lookupVersion(new BytesRef("6"), randomBoolean(), segment, null);
         assertNotNull(result);
         assertEquals(87, result.version);
         assertEquals(1, result.docId);
@@ -109,7 +113,52 @@ public class VersionLookupTests extends ESTestCase {
         reader = DirectoryReader.open(writer);
         segment = reader.leaves().get(0);
         lookup = new PerThreadIDVersionAndSeqNoLookup(segment.reader(), IdFieldMapper.NAME);
-        assertNull(lookup.lookupVersion(new BytesRef("6"), randomBoolean(), segment));
+        assertNull(lookup.lookupVersion(new BytesRef("6"), randomBoolean(), segment, null));
+        reader.close();
+        writer.close();
+        dir.close();
+    }
+
+    /**
+     * test version lookup on a segment with a bloom filter on the id field
+     */
+    public void testBloomFilter() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(Lucene.STANDARD_ANALYZER).setCodec(
+            TestUtil.alwaysPostingsFormat(new ES82BloomFilterPostingsFormat(TestUtil.getDefaultPostingsFormat(), 0.01))
+        );
+        IndexWriter writer = new IndexWriter(dir, iwc);
+        int numDocs = between(1, 100);
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new Field(IdFieldMapper.NAME, Integer.toString(i), IdFieldMapper.Defaults.FIELD_TYPE));
+            doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, i));
+            doc.add(new NumericDocValuesField(SeqNoFieldMapper.NAME, i));
+            doc.add(new NumericDocValuesField(SeqNoFieldMapper.PRIMARY_TERM_NAME, 1));
+            writer.addDocument(doc);
+        }
+        writer.forceMerge(1);
+        DirectoryReader reader = DirectoryReader.open(writer);
+        LeafReaderContext segment = reader.leaves().get(0);
+        PerThreadIDVersionAndSeqNoLookup lookup = new PerThreadIDVersionAndSeqNoLookup(segment.reader(), IdFieldMapper.NAME);
+        IdBloomFilterCounters counters = new IdBloomFilterCounters();
+        // ids in the segment always make it through the bloom filter
+        for (int i = 0; i < numDocs; i++) {
+            DocIdAndVersion result = lookup.lookupVersion(new BytesRef(Integer.toString(i)), randomBoolean(), segment, counters);
+            assertNotNull(result);
+            assertEquals(i, result.version);
+        }
+        assertEquals(numDocs, counters.getHitCount());
+        assertEquals(0, counters.getMissCount());
+        assertEquals(0, counters.getFalsePositiveCount());
+        // most of the ids that aren't in the segment are ruled out by the bloom filter
+        int numLookups = 1000;
+        for (int i = 0; i < numLookups; i++) {
+            assertNull(lookup.lookupVersion(new BytesRef("missing-" + i), randomBoolean(), segment, counters));
+        }
+        assertEquals(numDocs + counters.getFalsePositiveCount(), counters.getHitCount());
+        assertEquals(numLookups, counters.getMissCount() + counters.getFalsePositiveCount());
+        assertThat(counters.getFalsePositiveCount(), lessThan(100L));
         reader.close();
         writer.close();
         dir.close();
@@ -13,18 +13,22 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.test.ESTestCase;
 import org.hamcrest.Matcher;
 
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.either;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
 
 /**
@@ -436,6 +440,175 @@ public class EsExecutorsTests extends ESTestCase {
         }
     }
 
+    public void testVirtualLimitsConcurrency() throws Exception {
+        final int max = between(1, 5);
+        final int tasks = max + between(1, 10);
+        final EsVirtualThreadExecutor executor = EsExecutors.newVirtual(
+            getName(),
+            max,
+            randomBoolean(),
+            EsExecutors.daemonThreadFactory("test"),
+            threadContext
+        );
+        final CountDownLatch block = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(max);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            for (int i = 0; i < tasks; i++) {
+                executor.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    started.countDown();
+                    try {
+                        block.await();
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                    running.decrementAndGet();
+                });
+            }
+            started.await();
+            assertThat(executor.getActiveCount(), equalTo(max));
+            assertThat(executor.getQueueSize(), equalTo(tasks - max));
+            assertThat(executor.getLargestActiveCount(), equalTo(max));
+            block.countDown();
+            assertBusy(() -> {
+                assertThat(executor.getCompletedTaskCount(), equalTo((long) tasks));
+                assertThat(executor.getActiveCount(), equalTo(0));
+            });
+            assertThat(executor.getQueueSize(), equalTo(0));
+            assertThat(maxRunning.get(), equalTo(max));
+        } finally {
+            block.countDown();
+            terminate(executor);
+        }
+    }
+
+    public void testVirtualInheritContext() throws InterruptedException {
+        final EsVirtualThreadExecutor executor = EsExecutors.newVirtual(
+            getName(),
+            between(1, 5),
+            randomBoolean(),
+            EsExecutors.daemonThreadFactory("test"),
+            threadContext
+        );
+        final CountDownLatch executed = new CountDownLatch(1);
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putHeader("foo", "bar");
+            executor.execute(() -> {
+                assertEquals("bar", threadContext.getHeader("foo"));
+                executed.countDown();
+            });
+        }
+        try {
+            executed.await();
+        } finally {
+            terminate(executor);
+        }
+    }
+
+    public void testVirtualRejectsAfterShutdown() throws InterruptedException {
+        final EsVirtualThreadExecutor executor = EsExecutors.newVirtual(
+            getName(),
+            between(1, 5),
+            true,
+            EsExecutors.daemonThreadFactory("test"),
+            threadContext
+        );
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        final EsRejectedExecutionException e = expectThrows(EsRejectedExecutionException.class, () -> executor.execute(() -> {}));
+        assertTrue(e.isExecutorShutdown());
+
+        final AtomicBoolean rejected = new AtomicBoolean();
+        final AtomicBoolean after = new AtomicBoolean();
+        executor.execute(new AbstractRunnable() {
+            @Override
+            public void onFailure(Exception e) {
+                fail("should not fail");
+            }
+
+            @Override
+            public void onRejection(Exception e) {
+                assertThat(e, instanceOf(EsRejectedExecutionException.class));
+                rejected.set(true);
+            }
+
+            @Override
+            public void onAfter() {
+                after.set(true);
+            }
+
+            @Override
+            protected void doRun() {
+                fail("should not run");
+            }
+        });
+        assertTrue(rejected.get());
+        assertTrue(after.get());
+        assertThat(executor.getRejectedTaskCount(), equalTo(2L));
+    }
+
+    public void testVirtualShutdownRunsQueuedTasks() throws InterruptedException {
+        final EsVirtualThreadExecutor executor = EsExecutors.newVirtual(
+            getName(),
+            1,
+            randomBoolean(),
+            EsExecutors.daemonThreadFactory("test"),
+            threadContext
+        );
+        final CountDownLatch block = new CountDownLatch(1);
+        final int tasks = between(1, 10);
+        final AtomicInteger executed = new AtomicInteger();
+        executor.execute(() -> {
+            try {
+                block.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        });
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(executed::incrementAndGet);
+        }
+        executor.shutdown();
+        assertTrue(executor.isShutdown());
+        assertFalse(executor.isTerminated());
+        block.countDown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertThat(executed.get(), equalTo(tasks));
+        assertThat(executor.getCompletedTaskCount(), equalTo(tasks + 1L));
+    }
+
+    public void testVirtualShutdownNowReturnsQueuedTasks() throws InterruptedException {
+        final EsVirtualThreadExecutor executor = EsExecutors.newVirtual(
+            getName(),
+            1,
+            randomBoolean(),
+            EsExecutors.daemonThreadFactory("test"),
+            threadContext
+        );
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        final Runnable queued = () -> fail("should not run");
+        executor.execute(queued);
+        started.await();
+
+        final List<Runnable> pending = executor.shutdownNow();
+        assertThat(pending, hasSize(1));
+        assertSame(queued, pending.get(0));
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+    }
+
     public void testNodeProcessorsBound() {
         final Setting<Integer> processorsSetting = EsExecutors.NODE_PROCESSORS_SETTING;
         final int available = Runtime.getRuntime().availableProcessors();
@@ -87,6 +87,7 @@ import static org.elasticsearch.gateway.PersistedClusterStateService.INDEX_TYPE_
 import static org.elasticsearch.gateway.PersistedClusterStateService.IS_LAST_PAGE;
 import static org.elasticsearch.gateway.PersistedClusterStateService.IS_NOT_LAST_PAGE;
 import static org.elasticsearch.gateway.PersistedClusterStateService.LAST_PAGE_FIELD_NAME;
+import static org.elasticsearch.gateway.PersistedClusterStateService.MAPPING_TYPE_NAME;
 import static org.elasticsearch.gateway.PersistedClusterStateService.METADATA_DIRECTORY_NAME;
 import static org.elasticsearch.gateway.PersistedClusterStateService.PAGE_FIELD_NAME;
 import static org.elasticsearch.gateway.PersistedClusterStateService.TYPE_FIELD_NAME;
@@ -1150,6 +1151,86 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
         }
     }
 
+    public void testStoresEachMappingOnce() throws IOException {
+        final Path dataPath = createTempDir();
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(new Path[] { dataPath })) {
+            final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
+
+            final String sharedMapping = """
+                {"_doc":{"properties":{"shared":{"type":"keyword"}}}}""";
+            final String otherMapping = """
+                {"_doc":{"properties":{"other":{"type":"long"}}}}""";
+            final int sharingIndices = between(2, 10);
+            final Metadata.Builder metadataBuilder = Metadata.builder();
+            for (int i = 0; i < sharingIndices; i++) {
+                metadataBuilder.put(mappingIndexMetadata("shared-" + i, sharedMapping), false);
+            }
+            metadataBuilder.put(mappingIndexMetadata("other", otherMapping), false);
+            final ClusterState clusterState = clusterStateFromMetadata(1L, metadataBuilder.build());
+
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                writer.writeFullStateAndCommit(1L, clusterState);
+                assertThat(countDocuments(dataPath, MAPPING_TYPE_NAME), equalTo(2));
+                assertThat(countDocuments(dataPath, INDEX_TYPE_NAME), equalTo(sharingIndices + 1));
+
+                // updating an index without changing its mapping leaves the mappings alone
+                final IndexMetadata shared0 = clusterState.metadata().index("shared-0");
+                final ClusterState termUpdated = clusterStateFromMetadata(
+                    2L,
+                    Metadata.builder(clusterState.metadata())
+                        .put(IndexMetadata.builder(shared0).primaryTerm(0, 2L))
+                        .build()
+                );
+                writer.writeIncrementalStateAndCommit(1L, clusterState, termUpdated);
+                assertThat(countDocuments(dataPath, MAPPING_TYPE_NAME), equalTo(2));
+
+                // replacing the only use of a mapping drops it
+                final IndexMetadata other = termUpdated.metadata().index("other");
+                final ClusterState mappingUpdated = clusterStateFromMetadata(
+                    3L,
+                    Metadata.builder(termUpdated.metadata())
+                        .put(IndexMetadata.builder(other).putMapping(sharedMapping))
+                        .build()
+                );
+                writer.writeIncrementalStateAndCommit(1L, termUpdated, mappingUpdated);
+                assertThat(countDocuments(dataPath, MAPPING_TYPE_NAME), equalTo(1));
+
+                final ClusterState loadedState = loadPersistedClusterState(persistedClusterStateService);
+                assertThat(
+                    loadedState.metadata().getMappingsByHash().keySet(),
+                    equalTo(mappingUpdated.metadata().getMappingsByHash().keySet())
+                );
+                for (IndexMetadata indexMetadata : mappingUpdated.metadata()) {
+                    final IndexMetadata loadedIndexMetadata = loadedState.metadata().index(indexMetadata.getIndex());
+                    assertThat(loadedIndexMetadata.mapping(), equalTo(indexMetadata.mapping()));
+                    assertThat(loadedIndexMetadata.primaryTerm(0), equalTo(indexMetadata.primaryTerm(0)));
+                }
+            }
+        }
+    }
+
+    private static IndexMetadata mappingIndexMetadata(String name, String mapping) {
+        return IndexMetadata.builder(name)
+            .settings(
+                Settings.builder()
+                    .put(IndexMetadata.INDEX_NUMBER_OF_SHARDS_SETTING.getKey(), 1)
+                    .put(IndexMetadata.INDEX_NUMBER_OF_REPLICAS_SETTING.getKey(), 0)
+                    .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexMetadata.SETTING_INDEX_UUID, UUIDs.randomBase64UUID(random()))
+            )
+            .putMapping(mapping)
+            .build();
+    }
+
+    private static int countDocuments(Path dataPath, String typeName) throws IOException {
+        try (
+            Directory directory = new NIOFSDirectory(dataPath.resolve(METADATA_DIRECTORY_NAME));
+            DirectoryReader reader = DirectoryReader.open(directory)
+        ) {
+            return new IndexSearcher(reader).count(new TermQuery(new Term(TYPE_FIELD_NAME, typeName)));
+        }
+    }
+
     @TestLogging(value = "org.elasticsearch.gateway:WARN", reason = "to ensure that we log gateway events on WARN level")
     public void testSlowLogging() throws IOException, IllegalAccessException {
         final long slowWriteLoggingThresholdMillis;
@@ -0,0 +1,59 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.index.BasePostingsFormatTestCase;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+
+public class ES82BloomFilterPostingsFormatTests extends BasePostingsFormatTestCase {
+
+    private final Codec codec = TestUtil.alwaysPostingsFormat(
+        new ES82BloomFilterPostingsFormat(TestUtil.getDefaultPostingsFormat(), 0.01)
+    );
+
+    @Override
+    protected Codec getCodec() {
+        return codec;
+    }
+
+    public void testBloomFilterHasNoFalseNegatives() {
+        int numTerms = TestUtil.nextInt(random(), 1, 10_000);
+        ES82BloomFilterPostingsFormat.BloomFilter filter = ES82BloomFilterPostingsFormat.BloomFilter.create(numTerms, 0.01);
+        for (int i = 0; i < numTerms; i++) {
+            filter.add(new BytesRef("term-" + i));
+        }
+        for (int i = 0; i < numTerms; i++) {
+            assertTrue(filter.mayContain(new BytesRef("term-" + i)));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mayContain(new BytesRef("other-" + i))) {
+                falsePositives++;
+            }
+        }
+        // 1% expected, leave plenty of room for randomness
+        assertTrue("too many false positives: " + falsePositives, falsePositives < 500);
+    }
+
+    public void testBloomFilterSize() {
+        ES82BloomFilterPostingsFormat.BloomFilter filter = ES82BloomFilterPostingsFormat.BloomFilter.create(1000, 0.01);
+        // about 9.6 bits per item and 7 hash functions for a 1% false positive probability
+        assertEquals(9600, filter.numBits());
+        assertEquals(7, filter.numHashFunctions());
+    }
+
+    public void testInvalidFpp() {
+        expectThrows(
+            IllegalArgumentException.class,
+            () -> new ES82BloomFilterPostingsFormat(TestUtil.getDefaultPostingsFormat(), random().nextBoolean() ? 0 : 1)
+        );
+    }
+}
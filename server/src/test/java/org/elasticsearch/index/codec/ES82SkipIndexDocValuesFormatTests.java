@@ -0,0 +1,77 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.BaseDocValuesFormatTestCase;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.TestUtil;
+
+import java.io.IOException;
+
+public class ES82SkipIndexDocValuesFormatTests extends BaseDocValuesFormatTestCase {
+
+    private final Codec codec = TestUtil.alwaysDocValuesFormat(new ES82SkipIndexDocValuesFormat());
+
+    @Override
+    protected Codec getCodec() {
+        return codec;
+    }
+
+    public void testSkipIndex() throws IOException {
+        int numDocs = DocValuesSkipIndex.BLOCK_SIZE * 2 + TestUtil.nextInt(random(), 1, DocValuesSkipIndex.BLOCK_SIZE);
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig().setCodec(codec);
+            try (IndexWriter w = new IndexWriter(dir, iwc)) {
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    // the second block has no values at all
+                    if (DocValuesSkipIndex.block(i) != 1) {
+                        doc.add(new SortedNumericDocValuesField("single", i));
+                        doc.add(new SortedNumericDocValuesField("multi", i));
+                        doc.add(new SortedNumericDocValuesField("multi", -i));
+                    }
+                    w.addDocument(doc);
+                }
+                w.forceMerge(1);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                LeafReader leaf = getOnlyLeafReader(reader);
+
+                SortedNumericDocValues single = leaf.getSortedNumericDocValues("single");
+                assertNotNull("single valued fields stay unwrappable", DocValues.unwrapSingleton(single));
+                DocValuesSkipIndex skipIndex = DocValuesSkipIndex.of(single);
+                assertNotNull(skipIndex);
+                assertEquals(3, skipIndex.numBlocks());
+                int blockSize = DocValuesSkipIndex.BLOCK_SIZE;
+                assertTrue(skipIndex.within(0, 0, blockSize - 1));
+                assertFalse(skipIndex.within(0, 1, blockSize - 1));
+                assertFalse(skipIndex.intersects(0, blockSize, Long.MAX_VALUE));
+                assertFalse(skipIndex.intersects(1, Long.MIN_VALUE, Long.MAX_VALUE));
+                assertTrue(skipIndex.intersects(2, blockSize * 2, blockSize * 2));
+                assertTrue(skipIndex.intersects(0, numDocs - 1));
+                assertFalse(skipIndex.intersects(numDocs, Long.MAX_VALUE));
+
+                DocValuesSkipIndex multiSkipIndex = DocValuesSkipIndex.of(leaf.getSortedNumericDocValues("multi"));
+                assertNotNull(multiSkipIndex);
+                assertTrue(multiSkipIndex.within(0, -(blockSize - 1), blockSize - 1));
+                assertFalse(multiSkipIndex.within(0, 0, blockSize - 1));
+                assertTrue(multiSkipIndex.intersects(2, -(blockSize * 2), -(blockSize * 2)));
+            }
+        }
+    }
+}
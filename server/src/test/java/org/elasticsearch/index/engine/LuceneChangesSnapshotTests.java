@@ -14,6 +14,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceLoader;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.SnapshotMatchers;
 import org.elasticsearch.index.translog.Translog;
@@ -89,7 +90,8 @@ public class LuceneChangesSnapshotTests extends EngineTestCase {
                     toSeqNo,
                     false,
                     randomBoolean(),
-                    randomBoolean()
+                    randomBoolean(),
+                    SourceLoader.FROM_STORED_SOURCE
                 )
             ) {
                 searcher = null;
@@ -107,7 +109,8 @@ public class LuceneChangesSnapshotTests extends EngineTestCase {
                     toSeqNo,
                     true,
                     randomBoolean(),
-                    randomBoolean()
+                    randomBoolean(),
+                    SourceLoader.FROM_STORED_SOURCE
                 )
             ) {
                 searcher = null;
@@ -131,7 +134,8 @@ public class LuceneChangesSnapshotTests extends EngineTestCase {
                     toSeqNo,
                     false,
                     randomBoolean(),
-                    randomBoolean()
+                    randomBoolean(),
+                    SourceLoader.FROM_STORED_SOURCE
                 )
             ) {
                 searcher = null;
@@ -148,7 +152,8 @@ public class LuceneChangesSnapshotTests extends EngineTestCase {
                     toSeqNo,
                     true,
                     randomBoolean(),
-                    randomBoolean()
+                    randomBoolean(),
+                    SourceLoader.FROM_STORED_SOURCE
                 )
             ) {
                 searcher = null;
@@ -170,7 +175,8 @@ public class LuceneChangesSnapshotTests extends EngineTestCase {
                     toSeqNo,
                     true,
                     randomBoolean(),
-                    randomBoolean()
+                    randomBoolean(),
+                    SourceLoader.FROM_STORED_SOURCE
                 )
             ) {
                 searcher = null;
@@ -231,7 +237,8 @@ public class LuceneChangesSnapshotTests extends EngineTestCase {
                 maxSeqNo,
                 false,
                 randomBoolean(),
-                accessStats
+                accessStats,
+                SourceLoader.FROM_STORED_SOURCE
             )
         ) {
             if (accessStats) {
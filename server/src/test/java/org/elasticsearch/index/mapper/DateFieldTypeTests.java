@@ -23,6 +23,7 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.lucene.search.SkipIndexRangeQuery;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.common.time.DateFormatters;
@@ -204,7 +205,7 @@ public class DateFieldTypeTests extends FieldTypeTestCase {
         assertEquals(expected, ft.termQuery(date, context));
 
         ft = new DateFieldType("field", false);
-        expected = SortedNumericDocValuesField.newSlowRangeQuery("field", instant, instant + 999);
+        expected = new SkipIndexRangeQuery("field", instant, instant + 999);
         assertEquals(expected, ft.termQuery(date, context));
 
         MappedFieldType unsearchable = new DateFieldType(
@@ -261,7 +262,7 @@ public class DateFieldTypeTests extends FieldTypeTestCase {
         assertEquals(expected, ft.rangeQuery(date1, date2, true, true, null, null, null, context).rewrite(new MultiReader()));
 
         MappedFieldType ft2 = new DateFieldType("field", false);
-        Query expected2 = SortedNumericDocValuesField.newSlowRangeQuery("field", instant1, instant2);
+        Query expected2 = new SkipIndexRangeQuery("field", instant1, instant2);
         assertEquals(expected2, ft2.rangeQuery(date1, date2, true, true, null, null, null, context).rewrite(new MultiReader()));
 
         instant1 = nowInMillis;
@@ -274,7 +275,7 @@ public class DateFieldTypeTests extends FieldTypeTestCase {
         );
         assertEquals(expected, ft.rangeQuery("now", instant2, true, true, null, null, null, context));
 
-        expected2 = new DateRangeIncludingNowQuery(SortedNumericDocValuesField.newSlowRangeQuery("field", instant1, instant2));
+        expected2 = new DateRangeIncludingNowQuery(new SkipIndexRangeQuery("field", instant1, instant2));
         assertEquals(expected2, ft2.rangeQuery("now", instant2, true, true, null, null, null, context));
 
         MappedFieldType unsearchable = new DateFieldType(
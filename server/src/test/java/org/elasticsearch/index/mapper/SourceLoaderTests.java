@@ -0,0 +1,191 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.geo.GeoEncodingUtils;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class SourceLoaderTests extends MapperServiceTestCase {
+    public void testNonSynthetic() throws IOException {
+        DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> b.field("type", "keyword")));
+        assertFalse(mapper.mappers().isSourceSynthetic());
+        assertThat(mapper.mappers().sourceLoader(), equalTo(SourceLoader.FROM_STORED_SOURCE));
+        assertFalse(mapper.mappers().sourceLoader().reordersFieldValues());
+    }
+
+    public void testEmptyObject() throws IOException {
+        DocumentMapper mapper = createSyntheticDocumentMapper(b -> b.startObject("o").field("type", "object").endObject());
+        assertTrue(mapper.mappers().isSourceSynthetic());
+        assertTrue(mapper.mappers().sourceLoader().reordersFieldValues());
+        assertThat(syntheticSource(mapper, b -> {}), equalTo("{}"));
+    }
+
+    public void testKeyword() throws IOException {
+        DocumentMapper mapper = createSyntheticDocumentMapper(b -> b.startObject("kwd").field("type", "keyword").endObject());
+        assertThat(syntheticSource(mapper, b -> b.field("kwd", "foo")), equalTo("{\"kwd\":\"foo\"}"));
+        // doc values sort and deduplicate keywords
+        assertThat(syntheticSource(mapper, b -> b.array("kwd", "foo", "bar", "foo")), equalTo("{\"kwd\":[\"bar\",\"foo\"]}"));
+    }
+
+    public void testNumbers() throws IOException {
+        DocumentMapper mapper = createSyntheticDocumentMapper(b -> {
+            b.startObject("l").field("type", "long").endObject();
+            b.startObject("d").field("type", "double").endObject();
+            b.startObject("f").field("type", "float").endObject();
+            b.startObject("h").field("type", "half_float").endObject();
+        });
+        assertThat(
+            syntheticSource(mapper, b -> b.field("l", 7).field("d", 1.5).field("f", 2.5).field("h", -0.5)),
+            equalTo("{\"d\":1.5,\"f\":2.5,\"h\":-0.5,\"l\":7}")
+        );
+        // doc values sort numbers but keep duplicates
+        assertThat(syntheticSource(mapper, b -> b.array("l", 3, 1, 3)), equalTo("{\"l\":[1,3,3]}"));
+    }
+
+    public void testIp() throws IOException {
+        DocumentMapper mapper = createSyntheticDocumentMapper(b -> b.startObject("ip").field("type", "ip").endObject());
+        assertThat(syntheticSource(mapper, b -> b.field("ip", "192.168.0.1")), equalTo("{\"ip\":\"192.168.0.1\"}"));
+        assertThat(syntheticSource(mapper, b -> b.field("ip", "::1")), equalTo("{\"ip\":\"::1\"}"));
+    }
+
+    public void testDate() throws IOException {
+        DocumentMapper mapper = createSyntheticDocumentMapper(b -> b.startObject("date").field("type", "date").endObject());
+        assertThat(
+            syntheticSource(mapper, b -> b.field("date", "2022-03-01T12:00:00Z")),
+            equalTo("{\"date\":\"2022-03-01T12:00:00.000Z\"}")
+        );
+    }
+
+    public void testGeoPoint() throws IOException {
+        DocumentMapper mapper = createSyntheticDocumentMapper(b -> b.startObject("point").field("type", "geo_point").endObject());
+        double lat = GeoEncodingUtils.decodeLatitude(GeoEncodingUtils.encodeLatitude(41.12));
+        double lon = GeoEncodingUtils.decodeLongitude(GeoEncodingUtils.encodeLongitude(-71.34));
+        assertThat(
+            syntheticSource(mapper, b -> b.startObject("point").field("lat", 41.12).field("lon", -71.34).endObject()),
+            equalTo("{\"point\":{\"lat\":" + lat + ",\"lon\":" + lon + "}}")
+        );
+    }
+
+    public void testObjects() throws IOException {
+        DocumentMapper mapper = createSyntheticDocumentMapper(b -> {
+            b.startObject("o").startObject("properties");
+            {
+                b.startObject("kwd").field("type", "keyword").endObject();
+                b.startObject("inner").startObject("properties");
+                {
+                    b.startObject("l").field("type", "long").endObject();
+                }
+                b.endObject().endObject();
+            }
+            b.endObject().endObject();
+            b.startObject("a").field("type", "keyword").endObject();
+        });
+        assertThat(
+            syntheticSource(mapper, b -> b.field("a", "x").startObject("o").field("kwd", "y").endObject()),
+            equalTo("{\"a\":\"x\",\"o\":{\"kwd\":\"y\"}}")
+        );
+        assertThat(syntheticSource(mapper, b -> b.field("o.inner.l", 3)), equalTo("{\"o\":{\"inner\":{\"l\":3}}}"));
+    }
+
+    public void testMultiFieldsAreSkipped() throws IOException {
+        DocumentMapper mapper = createSyntheticDocumentMapper(b -> {
+            b.startObject("kwd").field("type", "keyword");
+            b.startObject("fields").startObject("num").field("type", "long").endObject().endObject();
+            b.endObject();
+        });
+        assertThat(syntheticSource(mapper, b -> b.field("kwd", "7")), equalTo("{\"kwd\":\"7\"}"));
+    }
+
+    public void testUnsupportedFields() {
+        Exception e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createSyntheticDocumentMapper(b -> b.startObject("txt").field("type", "text").endObject())
+        );
+        assertThat(e.getMessage(), equalTo("field [txt] of type [text] doesn't support synthetic source"));
+
+        e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createSyntheticDocumentMapper(b -> b.startObject("n").field("type", "nested").endObject())
+        );
+        assertThat(e.getMessage(), equalTo("field [n] of type [nested] doesn't support synthetic source"));
+
+        e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createSyntheticDocumentMapper(b -> b.startObject("l").field("type", "long").field("doc_values", false).endObject())
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo("field [l] of type [long] doesn't support synthetic source because it doesn't have doc values")
+        );
+
+        e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createSyntheticDocumentMapper(b -> b.startObject("kwd").field("type", "keyword").field("ignore_above", 10).endObject())
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo("field [kwd] of type [keyword] doesn't support synthetic source because it declares ignore_above")
+        );
+    }
+
+    public void testSyntheticSourceConflicts() {
+        Exception e = expectThrows(
+            MapperParsingException.class,
+            () -> createDocumentMapper(
+                topMapping(b -> b.startObject("_source").field("synthetic", true).field("enabled", false).endObject())
+            )
+        );
+        assertThat(e.getMessage(), equalTo("Failed to parse mapping: [_source] can't be both disabled and synthetic"));
+
+        e = expectThrows(
+            MapperParsingException.class,
+            () -> createDocumentMapper(
+                topMapping(b -> b.startObject("_source").field("synthetic", true).array("includes", "foo*").endObject())
+            )
+        );
+        assertThat(e.getMessage(), equalTo("Failed to parse mapping: [_source] synthetic doesn't support [includes] or [excludes]"));
+    }
+
+    public void testSyntheticSourceIsNotStored() throws IOException {
+        DocumentMapper mapper = createSyntheticDocumentMapper(b -> b.startObject("kwd").field("type", "keyword").endObject());
+        ParsedDocument doc = mapper.parse(source(b -> b.field("kwd", "foo")));
+        assertNull(doc.rootDoc().getField(SourceFieldMapper.NAME));
+        // the original source is still kept around for operation based recovery
+        assertNotNull(doc.rootDoc().getField(SourceFieldMapper.RECOVERY_SOURCE_NAME));
+    }
+
+    private DocumentMapper createSyntheticDocumentMapper(CheckedConsumer<XContentBuilder, IOException> properties) throws IOException {
+        return createDocumentMapper(topMapping(b -> {
+            b.startObject("_source").field("synthetic", true).endObject();
+            b.startObject("properties");
+            properties.accept(b);
+            b.endObject();
+        }));
+    }
+
+    private String syntheticSource(DocumentMapper mapper, CheckedConsumer<XContentBuilder, IOException> build) throws IOException {
+        try (Directory directory = newDirectory()) {
+            RandomIndexWriter iw = new RandomIndexWriter(random(), directory);
+            iw.addDocument(mapper.parse(source(build)).rootDoc());
+            iw.close();
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                SourceLoader.Leaf leaf = mapper.mappers().sourceLoader().leaf(getOnlyLeafReader(reader));
+                return leaf.source(null, 0).utf8ToString();
+            }
+        }
+    }
+}
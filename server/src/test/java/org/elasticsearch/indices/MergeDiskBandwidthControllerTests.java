@@ -0,0 +1,100 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardTestCase;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class MergeDiskBandwidthControllerTests extends IndexShardTestCase {
+
+    static class MockController extends MergeDiskBandwidthController {
+
+        final Map<Path, Double> writeRates = new HashMap<>();
+        final Map<IndexShard, Double> limits = new HashMap<>();
+
+        MockController(Settings settings, List<IndexShard> shards) {
+            super(
+                Settings.builder().put(MAX_BYTES_PER_SEC_SETTING.getKey(), "100mb").put(settings).build(),
+                null,
+                null,
+                shards
+            );
+        }
+
+        @Override
+        protected Map<Path, Double> sampleWriteMBPerSec() {
+            return new HashMap<>(writeRates);
+        }
+
+        @Override
+        protected void setMergeIoRateLimit(IndexShard shard, double mbPerSec) {
+            limits.put(shard, mbPerSec);
+        }
+    }
+
+    public void testNextBudget() {
+        // scales down proportionally when the disk is over its target
+        assertThat(MergeDiskBandwidthController.nextBudget(100, 200, 5, 100), closeTo(50, 0.001));
+        // never goes below the floor
+        assertThat(MergeDiskBandwidthController.nextBudget(10, 1000, 5, 100), closeTo(5, 0.001));
+        // grows by half of the headroom
+        assertThat(MergeDiskBandwidthController.nextBudget(20, 60, 5, 100), closeTo(40, 0.001));
+        // never goes above the target
+        assertThat(MergeDiskBandwidthController.nextBudget(90, 0, 5, 100), closeTo(100, 0.001));
+    }
+
+    public void testBudgetConvergesUnderSustainedLoad() {
+        double budget = 100;
+        for (int i = 0; i < 10; i++) {
+            budget = MergeDiskBandwidthController.nextBudget(budget, 150, 5, 100);
+        }
+        assertThat(budget, closeTo(5, 0.001));
+        budget = MergeDiskBandwidthController.nextBudget(budget, 10, 5, 100);
+        assertThat(budget, closeTo(50, 0.001));
+    }
+
+    public void testShardsWithoutDiskStatsAreNotThrottled() throws Exception {
+        IndexShard shard = newStartedShard();
+        try {
+            MockController controller = new MockController(Settings.EMPTY, List.of(shard));
+            controller.run();
+            assertThat(controller.limits.get(shard), equalTo(Double.POSITIVE_INFINITY));
+        } finally {
+            closeShards(shard);
+        }
+    }
+
+    public void testBudgetIsReducedWhenDiskIsBusy() throws Exception {
+        IndexShard shard = newStartedShard();
+        try {
+            MockController controller = new MockController(Settings.EMPTY, List.of(shard));
+            controller.writeRates.put(shard.shardPath().getRootDataPath(), 50.0);
+            controller.run();
+            assertThat(controller.limits.get(shard), closeTo(100, 0.001));
+
+            controller.writeRates.put(shard.shardPath().getRootDataPath(), 400.0);
+            controller.run();
+            assertThat(controller.limits.get(shard), closeTo(25, 0.001));
+
+            controller.run();
+            assertThat(controller.limits.get(shard), lessThan(25.0));
+        } finally {
+            closeShards(shard);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+public class NodeRefreshSchedulerTests extends IndexShardTestCase {
+
+    static class MockScheduler extends NodeRefreshScheduler {
+
+        final List<IndexShard> started = new ArrayList<>();
+        long currentTimeMillis;
+
+        MockScheduler(Settings settings, List<IndexShard> shards) {
+            super(Settings.builder().put(INTERVAL_SETTING.getKey(), "200ms").put(settings).build(), null, shards);
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return currentTimeMillis;
+        }
+
+        @Override
+        protected void refreshAsync(IndexShard shard) {
+            started.add(shard);
+        }
+
+        void completeRefreshes() {
+            for (IndexShard shard : started) {
+                shard.scheduledRefresh();
+                onRefreshDone(shard);
+            }
+            started.clear();
+        }
+    }
+
+    public void testRefreshesShardOnceDue() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        try {
+            MockScheduler scheduler = new MockScheduler(Settings.EMPTY, List.of(shard));
+            // the first run registers the shard with a deadline one refresh interval away
+            scheduler.run();
+            indexDoc(shard, "_doc", "1");
+
+            scheduler.currentTimeMillis = 700;
+            scheduler.run();
+            assertThat(scheduler.started, empty());
+
+            // the deadline falls before the next run, so the refresh happens now
+            scheduler.currentTimeMillis = 850;
+            scheduler.run();
+            assertThat(scheduler.started, contains(shard));
+            assertThat(scheduler.refreshingCount(), equalTo(1));
+
+            // a refresh that is in flight isn't started again
+            scheduler.currentTimeMillis = 2000;
+            scheduler.run();
+            assertThat(scheduler.started, hasSize(1));
+
+            scheduler.completeRefreshes();
+            assertThat(scheduler.refreshingCount(), equalTo(0));
+            assertFalse(shard.scheduledRefreshNeeded());
+        } finally {
+            closeShards(shard);
+        }
+    }
+
+    public void testSkipsShardsWithoutPendingWrites() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        try {
+            MockScheduler scheduler = new MockScheduler(Settings.EMPTY, List.of(shard));
+            scheduler.run();
+            scheduler.currentTimeMillis = 1000;
+            scheduler.run();
+            assertThat(scheduler.started, empty());
+            assertThat(scheduler.refreshingCount(), equalTo(0));
+        } finally {
+            closeShards(shard);
+        }
+    }
+
+    public void testBoundsConcurrentRefreshes() throws Exception {
+        final int numShards = randomIntBetween(3, 6);
+        final List<IndexShard> shards = new ArrayList<>();
+        try {
+            for (int i = 0; i < numShards; i++) {
+                shards.add(newStartedShard(true));
+            }
+            MockScheduler scheduler = new MockScheduler(
+                Settings.builder().put(NodeRefreshScheduler.MAX_CONCURRENT_REFRESHES_SETTING.getKey(), 2).build(),
+                shards
+            );
+            scheduler.run();
+            for (IndexShard shard : shards) {
+                indexDoc(shard, "_doc", "1");
+            }
+
+            scheduler.currentTimeMillis = 1000;
+            scheduler.run();
+            assertThat(scheduler.started, hasSize(2));
+            assertThat(scheduler.refreshingCount(), equalTo(2));
+
+            scheduler.completeRefreshes();
+            scheduler.run();
+            assertThat(scheduler.started, hasSize(Math.min(2, numShards - 2)));
+        } finally {
+            closeShards(shards);
+        }
+    }
+
+    public void testIgnoresShardsWithPeriodicRefreshesDisabled() throws Exception {
+        IndexShard shard = newStartedShard(true, Settings.builder().put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), -1).build());
+        try {
+            MockScheduler scheduler = new MockScheduler(Settings.EMPTY, List.of(shard));
+            scheduler.run();
+            indexDoc(shard, "_doc", "1");
+            scheduler.currentTimeMillis = 60_000;
+            scheduler.run();
+            assertThat(scheduler.started, empty());
+            assertTrue(shard.scheduledRefreshNeeded());
+        } finally {
+            closeShards(shard);
+        }
+    }
+}
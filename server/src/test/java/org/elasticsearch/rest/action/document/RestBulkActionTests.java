@@ -11,21 +11,35 @@ package org.elasticsearch.rest.action.document;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkRequestParser;
 import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.internal.node.NodeClient;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.http.HttpBodyStream;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.client.NoOpNodeClient;
+import org.elasticsearch.test.rest.FakeRestChannel;
 import org.elasticsearch.test.rest.FakeRestRequest;
 import org.elasticsearch.xcontent.XContentType;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.mock;
@@ -61,4 +75,174 @@ public class RestBulkActionTests extends ESTestCase {
             assertThat(bulkCalled.get(), equalTo(true));
         }
     }
+
+    public void testStreamingBulkParsesLinesSplitAcrossChunks() throws Exception {
+        final List<BulkRequest> batches = new ArrayList<>();
+        final List<ActionListener<BulkResponse>> batchListeners = new ArrayList<>();
+        try (NodeClient client = new NoOpNodeClient(getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                batches.add(request);
+                batchListeners.add(listener);
+            }
+        }) {
+            final StringBuilder body = new StringBuilder();
+            final int numItems = between(1, 10);
+            for (int i = 0; i < numItems; i++) {
+                body.append("{\"index\":{\"_id\":\"").append(i).append("\"}}\n{\"field\":\"value\"}\n");
+            }
+            final byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+
+            final TestBodyStream bodyStream = new TestBodyStream();
+            final FakeRestChannel channel = new FakeRestChannel(new FakeRestRequest(), true, 1);
+            startStreamingBulk(client, bodyStream, ByteSizeValue.ofMb(1), ByteSizeValue.ofMb(1), channel);
+            assertThat(bodyStream.requestedChunks, equalTo(1));
+
+            // cut the body at random places, so that chunks end in the middle of lines and lines span several chunks
+            final AtomicInteger released = new AtomicInteger();
+            int from = 0;
+            int chunks = 0;
+            while (from < bytes.length) {
+                final int length = between(1, Math.min(20, bytes.length - from));
+                final boolean isLast = from + length == bytes.length;
+                bodyStream.handler.onNext(chunk(bytes, from, length, released), isLast);
+                from += length;
+                chunks += 1;
+                assertThat(bodyStream.requestedChunks, equalTo(isLast ? chunks : chunks + 1));
+            }
+            assertThat(released.get(), equalTo(chunks));
+
+            assertThat(batches, hasSize(1));
+            assertThat(batches.get(0).requests(), hasSize(numItems));
+            for (int i = 0; i < numItems; i++) {
+                final IndexRequest indexRequest = (IndexRequest) batches.get(0).requests().get(i);
+                assertThat(indexRequest.index(), equalTo("test"));
+                assertThat(indexRequest.id(), equalTo(Integer.toString(i)));
+            }
+
+            batchListeners.get(0).onResponse(new BulkResponse(new BulkItemResponse[0], 0L));
+            assertThat(channel.responses().get(), equalTo(1));
+            assertThat(channel.errors().get(), equalTo(0));
+        }
+    }
+
+    public void testStreamingBulkRejectsLineLongerThanMaxContentLength() throws Exception {
+        final List<BulkRequest> batches = new ArrayList<>();
+        try (NodeClient client = new NoOpNodeClient(getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                batches.add(request);
+            }
+        }) {
+            final TestBodyStream bodyStream = new TestBodyStream();
+            final FakeRestChannel channel = new FakeRestChannel(new FakeRestRequest(), true, 1);
+            startStreamingBulk(client, bodyStream, ByteSizeValue.ofMb(1), ByteSizeValue.ofBytes(64), channel);
+
+            // a complete line followed by the start of one that never ends
+            final byte[] bytes = ("{\"index\":{\"_id\":\"0\"}}\n{\"field\":\"" + "x".repeat(100)).getBytes(StandardCharsets.UTF_8);
+            final AtomicInteger released = new AtomicInteger();
+            bodyStream.handler.onNext(chunk(bytes, 0, 40, released), false);
+            assertThat(channel.errors().get(), equalTo(0));
+            assertThat(bodyStream.requestedChunks, equalTo(2));
+
+            bodyStream.handler.onNext(chunk(bytes, 40, 40, released), false);
+            assertThat(channel.errors().get(), equalTo(1));
+            assertThat(channel.capturedResponse().status(), equalTo(RestStatus.REQUEST_ENTITY_TOO_LARGE));
+            assertThat(channel.capturedResponse().content().utf8ToString(), containsString("bulk request line is longer than [64b]"));
+            assertThat(bodyStream.requestedChunks, equalTo(2));
+
+            // the rest of the body is dropped
+            bodyStream.handler.onNext(chunk(bytes, 80, bytes.length - 80, released), true);
+            assertThat(released.get(), equalTo(3));
+            assertThat(batches, hasSize(0));
+            assertThat(channel.errors().get(), equalTo(1));
+        }
+    }
+
+    public void testStreamingBulkStopsWhenConnectionClosesEarly() throws Exception {
+        final List<BulkRequest> batches = new ArrayList<>();
+        final List<ActionListener<BulkResponse>> batchListeners = new ArrayList<>();
+        try (NodeClient client = new NoOpNodeClient(getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                batches.add(request);
+                batchListeners.add(listener);
+            }
+        }) {
+            final TestBodyStream bodyStream = new TestBodyStream();
+            final FakeRestChannel channel = new FakeRestChannel(new FakeRestRequest(), true, 1);
+            // every item fills a batch
+            startStreamingBulk(client, bodyStream, ByteSizeValue.ofBytes(1), ByteSizeValue.ofMb(1), channel);
+
+            final byte[] bytes = "{\"index\":{\"_id\":\"0\"}}\n{\"field\":\"value\"}\n{\"index\":{\"_id\":\"1\"}}\n{\"fie"
+                .getBytes(StandardCharsets.UTF_8);
+            final AtomicInteger released = new AtomicInteger();
+            bodyStream.handler.onNext(chunk(bytes, 0, bytes.length, released), false);
+            assertThat(batches, hasSize(1));
+            assertThat(batches.get(0).requests(), hasSize(1));
+
+            bodyStream.handler.close();
+
+            // the batch in flight still completes, but there is no one to send the response to
+            batchListeners.get(0).onResponse(new BulkResponse(new BulkItemResponse[0], 0L));
+            assertThat(channel.responses().get(), equalTo(0));
+            assertThat(channel.errors().get(), equalTo(0));
+
+            // nor are any chunks that were already on their way parsed
+            final byte[] rest = "ld\":\"value\"}\n".getBytes(StandardCharsets.UTF_8);
+            bodyStream.handler.onNext(chunk(rest, 0, rest.length, released), true);
+            assertThat(released.get(), equalTo(2));
+            assertThat(batches, hasSize(1));
+            assertThat(channel.responses().get(), equalTo(0));
+        }
+    }
+
+    private static void startStreamingBulk(
+        NodeClient client,
+        HttpBodyStream bodyStream,
+        ByteSizeValue batchSize,
+        ByteSizeValue maxContentLength,
+        RestChannel channel
+    ) {
+        final RestBulkAction.StreamingBulk streamingBulk = new RestBulkAction.StreamingBulk(
+            client,
+            new BulkRequest(),
+            bodyStream,
+            batchSize.getBytes(),
+            maxContentLength,
+            XContentType.JSON
+        );
+        final BulkRequestParser.IncrementalParser parser = new BulkRequestParser(true, RestApiVersion.current()).incrementalParser(
+            "test",
+            null,
+            null,
+            null,
+            null,
+            true,
+            XContentType.JSON,
+            (indexRequest, type) -> streamingBulk.add(indexRequest),
+            streamingBulk::add,
+            streamingBulk::add
+        );
+        streamingBulk.start(channel, parser);
+    }
+
+    private static ReleasableBytesReference chunk(byte[] bytes, int from, int length, AtomicInteger released) {
+        return new ReleasableBytesReference(new BytesArray(bytes, from, length), released::incrementAndGet);
+    }
+
+    private static class TestBodyStream implements HttpBodyStream {
+        private HttpBodyStream.ChunkHandler handler;
+        private int requestedChunks;
+
+        @Override
+        public void setHandler(ChunkHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void next() {
+            requestedChunks += 1;
+        }
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search;
+
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.TaskCancelHelper;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.emptyMap;
+
+public class QueryPhaseCoalescerTests extends ESTestCase {
+
+    private static QueryPhaseCoalescer.Key randomKey() {
+        return new QueryPhaseCoalescer.Key(new Object(), MappingLookup.EMPTY.cacheKey(), new BytesArray(randomByteArrayOfLength(32)));
+    }
+
+    private static CancellableTask randomTask() {
+        return new CancellableTask(randomNonNegativeLong(), "transport", "action", "", TaskId.EMPTY_TASK_ID, emptyMap());
+    }
+
+    private static QueryPhaseCoalescer newCoalescer() {
+        return new QueryPhaseCoalescer(new ThreadContext(Settings.EMPTY));
+    }
+
+    /**
+     * Starts a query phase that runs until it is released, and waits for it to start.
+     */
+    private static Thread startLeader(
+        QueryPhaseCoalescer coalescer,
+        QueryPhaseCoalescer.Key key,
+        CountDownLatch release,
+        boolean fail,
+        boolean shareResult,
+        PlainActionFuture<BytesReference> future
+    ) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final Thread leader = new Thread(() -> coalescer.execute(key, () -> {
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            if (fail) {
+                throw new TaskCancelledException("cancelled");
+            }
+        }, () -> shareResult, out -> out.writeVInt(42), randomTask(), EsExecutors.DIRECT_EXECUTOR_SERVICE, future));
+        leader.start();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    public void testSequentialExecutionsDoNotShareResults() {
+        final QueryPhaseCoalescer coalescer = newCoalescer();
+        final QueryPhaseCoalescer.Key key = randomKey();
+        final AtomicInteger executions = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            final PlainActionFuture<BytesReference> future = new PlainActionFuture<>();
+            coalescer.execute(
+                key,
+                executions::incrementAndGet,
+                () -> true,
+                out -> fail("nobody waits for the result"),
+                randomTask(),
+                EsExecutors.DIRECT_EXECUTOR_SERVICE,
+                future
+            );
+            assertNull(future.actionGet());
+        }
+        assertEquals(3, executions.get());
+        assertEquals(0, coalescer.coalescedCount());
+    }
+
+    public void testConcurrentExecutionsShareResult() throws Exception {
+        final QueryPhaseCoalescer coalescer = newCoalescer();
+        final QueryPhaseCoalescer.Key key = randomKey();
+        final CountDownLatch release = new CountDownLatch(1);
+        final PlainActionFuture<BytesReference> leaderFuture = new PlainActionFuture<>();
+        final Thread leader = startLeader(coalescer, key, release, false, true, leaderFuture);
+
+        final PlainActionFuture<BytesReference> waiterFuture = new PlainActionFuture<>();
+        coalescer.execute(
+            key,
+            () -> fail("the waiter must not execute"),
+            () -> true,
+            out -> fail("nobody waits for the waiter"),
+            randomTask(),
+            EsExecutors.DIRECT_EXECUTOR_SERVICE,
+            waiterFuture
+        );
+        // waiting doesn't block the caller
+        assertFalse(waiterFuture.isDone());
+        assertEquals(1, coalescer.waitingCount());
+
+        release.countDown();
+        assertEquals(42, waiterFuture.get(10, TimeUnit.SECONDS).streamInput().readVInt());
+        leader.join();
+        assertNull(leaderFuture.actionGet());
+        assertEquals(1, coalescer.coalescedCount());
+        assertEquals(0, coalescer.waitingCount());
+    }
+
+    public void testWaitersExecuteThemselvesWhenLeaderFails() throws Exception {
+        doTestWaitersExecuteThemselves(true, true);
+    }
+
+    public void testWaitersExecuteThemselvesWhenLeaderResultCannotBeShared() throws Exception {
+        doTestWaitersExecuteThemselves(false, false);
+    }
+
+    private void doTestWaitersExecuteThemselves(boolean fail, boolean shareResult) throws Exception {
+        final QueryPhaseCoalescer coalescer = newCoalescer();
+        final QueryPhaseCoalescer.Key key = randomKey();
+        final CountDownLatch release = new CountDownLatch(1);
+        final PlainActionFuture<BytesReference> leaderFuture = new PlainActionFuture<>();
+        final Thread leader = startLeader(coalescer, key, release, fail, shareResult, leaderFuture);
+
+        final AtomicBoolean executed = new AtomicBoolean();
+        final PlainActionFuture<BytesReference> waiterFuture = new PlainActionFuture<>();
+        coalescer.execute(
+            key,
+            () -> assertTrue(executed.compareAndSet(false, true)),
+            () -> true,
+            out -> fail("nobody waits for the waiter"),
+            randomTask(),
+            EsExecutors.DIRECT_EXECUTOR_SERVICE,
+            waiterFuture
+        );
+        assertFalse(executed.get());
+
+        release.countDown();
+        assertNull(waiterFuture.get(10, TimeUnit.SECONDS));
+        assertTrue(executed.get());
+        leader.join();
+        if (fail) {
+            expectThrows(TaskCancelledException.class, leaderFuture::actionGet);
+        } else {
+            assertNull(leaderFuture.actionGet());
+        }
+        assertEquals(0, coalescer.coalescedCount());
+    }
+
+    public void testWaiterHonoursItsOwnCancellation() throws Exception {
+        final QueryPhaseCoalescer coalescer = newCoalescer();
+        final QueryPhaseCoalescer.Key key = randomKey();
+        final CountDownLatch release = new CountDownLatch(1);
+        final PlainActionFuture<BytesReference> leaderFuture = new PlainActionFuture<>();
+        final Thread leader = startLeader(coalescer, key, release, false, true, leaderFuture);
+
+        final CancellableTask waiterTask = randomTask();
+        final PlainActionFuture<BytesReference> waiterFuture = new PlainActionFuture<>();
+        coalescer.execute(
+            key,
+            () -> fail("the waiter must not execute"),
+            () -> true,
+            out -> fail("nobody waits for the waiter"),
+            waiterTask,
+            EsExecutors.DIRECT_EXECUTOR_SERVICE,
+            waiterFuture
+        );
+        assertEquals(1, coalescer.waitingCount());
+        TaskCancelHelper.cancel(waiterTask, "test");
+        expectThrows(TaskCancelledException.class, waiterFuture::actionGet);
+        assertEquals(0, coalescer.waitingCount());
+
+        release.countDown();
+        leader.join();
+        assertNull(leaderFuture.actionGet());
+        assertEquals(0, coalescer.coalescedCount());
+    }
+}
@@ -13,8 +13,14 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchTimeoutException;
 import org.elasticsearch.action.ActionListener;
@@ -115,6 +121,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
@@ -144,6 +151,7 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
     protected Collection<Class<? extends Plugin>> getPlugins() {
         return pluginList(
             FailOnRewriteQueryPlugin.class,
+            BlockingQueryPlugin.class,
             CustomScriptPlugin.class,
             ReaderWrapperCountPlugin.class,
             InternalOrPrivateSettingsPlugin.class,
@@ -821,6 +829,81 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         }
     }
 
+    public static class BlockingQueryPlugin extends Plugin implements SearchPlugin {
+
+        static final AtomicInteger executions = new AtomicInteger();
+        static volatile CountDownLatch release = new CountDownLatch(0);
+
+        @Override
+        public List<QuerySpec<?>> getQueries() {
+            return singletonList(
+                new QuerySpec<>(
+                    BlockingQueryBuilder.NAME,
+                    BlockingQueryBuilder::new,
+                    parseContext -> { throw new UnsupportedOperationException("No query parser for this plugin"); }
+                )
+            );
+        }
+    }
+
+    /**
+     * Matches all documents, but only once {@link BlockingQueryPlugin#release} lets the query phases that execute it proceed.
+     */
+    public static class BlockingQueryBuilder extends DummyQueryBuilder {
+
+        static final String NAME = "blocking_query";
+
+        public BlockingQueryBuilder(StreamInput in) throws IOException {
+            super(in);
+        }
+
+        public BlockingQueryBuilder() {}
+
+        @Override
+        protected Query doToQuery(SearchExecutionContext context) {
+            return new BlockingQuery();
+        }
+
+        @Override
+        public String getWriteableName() {
+            return NAME;
+        }
+    }
+
+    private static class BlockingQuery extends Query {
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+            BlockingQueryPlugin.executions.incrementAndGet();
+            try {
+                BlockingQueryPlugin.release.await();
+            } catch (InterruptedException e) {
+                throw new ThreadInterruptedException(e);
+            }
+            return new MatchAllDocsQuery().createWeight(searcher, scoreMode, boost);
+        }
+
+        @Override
+        public String toString(String field) {
+            return "blocking";
+        }
+
+        @Override
+        public void visit(QueryVisitor visitor) {
+            visitor.visitLeaf(this);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return sameClassAs(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return classHash();
+        }
+    }
+
     private static class ShardScrollRequestTest extends ShardSearchRequest {
         private Scroll scroll;
 
@@ -1292,6 +1375,54 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         );
     }
 
+    public void testCoalesceIdenticalQueryPhases() throws Exception {
+        createIndex("index");
+        client().prepareIndex("index").setId("1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        assertAcked(
+            client().admin()
+                .cluster()
+                .prepareUpdateSettings()
+                .setPersistentSettings(Settings.builder().put(SearchService.COALESCE_IDENTICAL_QUERIES_SETTING.getKey(), true))
+        );
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndexShard indexShard = getInstanceFromNode(IndicesService.class).indexServiceSafe(resolveIndex("index")).getShard(0);
+        // the request cache would coalesce the query phases itself
+        final Supplier<ShardSearchRequest> shardRequest = () -> new ShardSearchRequest(
+            OriginalIndices.NONE,
+            new SearchRequest().allowPartialSearchResults(true)
+                .requestCache(false)
+                .source(new SearchSourceBuilder().query(new BlockingQueryBuilder())),
+            indexShard.shardId(),
+            0,
+            1,
+            AliasFilter.EMPTY,
+            1.0f,
+            -1,
+            null
+        );
+
+        BlockingQueryPlugin.executions.set(0);
+        BlockingQueryPlugin.release = new CountDownLatch(1);
+        try {
+            final PlainActionFuture<SearchPhaseResult> leader = new PlainActionFuture<>();
+            service.executeQueryPhase(shardRequest.get(), new SearchShardTask(1L, "", "", "", null, emptyMap()), leader);
+            assertBusy(() -> assertThat(BlockingQueryPlugin.executions.get(), equalTo(1)));
+
+            final PlainActionFuture<SearchPhaseResult> follower = new PlainActionFuture<>();
+            service.executeQueryPhase(shardRequest.get(), new SearchShardTask(2L, "", "", "", null, emptyMap()), follower);
+            assertBusy(() -> assertThat(service.waitingQueryPhaseCount(), equalTo(1)));
+
+            BlockingQueryPlugin.release.countDown();
+            assertThat(leader.get().queryResult().topDocs().topDocs.totalHits.value, equalTo(1L));
+            assertThat(follower.get().queryResult().topDocs().topDocs.totalHits.value, equalTo(1L));
+            assertThat(BlockingQueryPlugin.executions.get(), equalTo(1));
+            assertThat(service.coalescedQueryPhaseCount(), equalTo(1L));
+            assertThat(service.waitingQueryPhaseCount(), equalTo(0));
+        } finally {
+            BlockingQueryPlugin.release.countDown();
+        }
+    }
+
     public void testMatchNoDocsEmptyResponse() throws InterruptedException {
         createIndex("index");
         Thread currentThread = Thread.currentThread();
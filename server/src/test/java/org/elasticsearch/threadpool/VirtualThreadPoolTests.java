@@ -0,0 +1,162 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.threadpool;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsVirtualThreadExecutor;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class VirtualThreadPoolTests extends ESThreadPoolTestCase {
+
+    public void testVirtualThreadPoolConfiguration() throws InterruptedException {
+        final String threadPoolName = randomFrom(ThreadPool.VIRTUAL_THREAD_POOL_CANDIDATES);
+        final int max = randomIntBetween(1, 16);
+        final Settings settings = Settings.builder()
+            .put("node.name", "testVirtualThreadPoolConfiguration")
+            .putList(ThreadPool.VIRTUAL_THREAD_POOLS_SETTING.getKey(), threadPoolName)
+            .put("thread_pool." + threadPoolName + ".max", max)
+            .build();
+
+        ThreadPool threadPool = null;
+        try {
+            threadPool = new ThreadPool(settings);
+            final ThreadPool.Info info = info(threadPool, threadPoolName);
+            assertThat(info.getThreadPoolType(), equalTo(ThreadPool.ThreadPoolType.VIRTUAL));
+            assertThat(info.getMax(), equalTo(max));
+            assertThat(threadPool.executor(threadPoolName), instanceOf(EsVirtualThreadExecutor.class));
+            final EsVirtualThreadExecutor executor = (EsVirtualThreadExecutor) threadPool.executor(threadPoolName);
+            assertThat(executor.getMaxConcurrency(), equalTo(max));
+
+            for (String other : ThreadPool.VIRTUAL_THREAD_POOL_CANDIDATES) {
+                if (other.equals(threadPoolName) == false) {
+                    assertThat(info(threadPool, other).getThreadPoolType(), equalTo(ThreadPool.ThreadPoolType.SCALING));
+                }
+            }
+        } finally {
+            terminateThreadPoolIfNeeded(threadPool);
+        }
+    }
+
+    public void testVirtualThreadPoolStats() throws Exception {
+        // not the generic pool, which the thread pool itself may use while the test restricts it to one task at a time
+        final String threadPoolName = randomFrom(ThreadPool.Names.MANAGEMENT, ThreadPool.Names.SNAPSHOT_META);
+        final Settings settings = Settings.builder()
+            .put("node.name", "testVirtualThreadPoolStats")
+            .putList(ThreadPool.VIRTUAL_THREAD_POOLS_SETTING.getKey(), threadPoolName)
+            .put("thread_pool." + threadPoolName + ".max", 1)
+            .build();
+
+        ThreadPool threadPool = null;
+        try {
+            threadPool = new ThreadPool(settings);
+            final CountDownLatch block = new CountDownLatch(1);
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch executed = new CountDownLatch(2);
+            threadPool.executor(threadPoolName).execute(() -> {
+                started.countDown();
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                executed.countDown();
+            });
+            threadPool.executor(threadPoolName).execute(executed::countDown);
+            started.await();
+
+            final ThreadPoolStats.Stats stats = stats(threadPool, threadPoolName);
+            assertThat(stats.getThreads(), equalTo(1));
+            assertThat(stats.getActive(), equalTo(1));
+            assertThat(stats.getQueue(), equalTo(1));
+            assertThat(stats.getLargest(), equalTo(1));
+
+            block.countDown();
+            assertTrue(executed.await(10, TimeUnit.SECONDS));
+            final ThreadPool finalThreadPool = threadPool;
+            assertBusy(() -> assertThat(stats(finalThreadPool, threadPoolName).getCompleted(), equalTo(2L)));
+        } finally {
+            terminateThreadPoolIfNeeded(threadPool);
+        }
+    }
+
+    public void testTerminateWaitsForVirtualTasks() throws InterruptedException {
+        final String threadPoolName = randomFrom(ThreadPool.VIRTUAL_THREAD_POOL_CANDIDATES);
+        final Settings settings = Settings.builder()
+            .put("node.name", "testTerminateWaitsForVirtualTasks")
+            .putList(ThreadPool.VIRTUAL_THREAD_POOLS_SETTING.getKey(), threadPoolName)
+            .build();
+
+        ThreadPool threadPool = null;
+        try {
+            threadPool = new ThreadPool(settings);
+            final EsVirtualThreadExecutor executor = (EsVirtualThreadExecutor) threadPool.executor(threadPoolName);
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch block = new CountDownLatch(1);
+            final CountDownLatch interrupted = new CountDownLatch(1);
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            threadPool.shutdown();
+            assertTrue(executor.isShutdown());
+            // the task is still running, so the pool cannot terminate yet
+            assertFalse(threadPool.awaitTermination(10, TimeUnit.MILLISECONDS));
+            assertFalse(executor.isTerminated());
+
+            threadPool.shutdownNow();
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            assertTrue(threadPool.awaitTermination(10, TimeUnit.SECONDS));
+            assertTrue(executor.isTerminated());
+        } finally {
+            terminateThreadPoolIfNeeded(threadPool);
+        }
+    }
+
+    public void testOnlyBlockingThreadPoolsCanUseVirtualThreads() {
+        final String threadPoolName = randomFrom(ThreadPool.Names.SEARCH, ThreadPool.Names.WRITE, ThreadPool.Names.GET);
+        final Settings settings = Settings.builder()
+            .put("node.name", "testOnlyBlockingThreadPoolsCanUseVirtualThreads")
+            .putList(ThreadPool.VIRTUAL_THREAD_POOLS_SETTING.getKey(), threadPoolName)
+            .build();
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new ThreadPool(settings));
+        assertThat(e.getMessage(), containsString("thread pool [" + threadPoolName + "] cannot use virtual threads"));
+    }
+
+    public void testInfoIsScalingOnOlderVersions() throws IOException {
+        final ThreadPool.Info info = new ThreadPool.Info("foo", ThreadPool.ThreadPoolType.VIRTUAL, 0, between(1, 16), null, null);
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.setVersion(
+                VersionUtils.randomVersionBetween(random(), Version.V_7_0_0, VersionUtils.getPreviousVersion(Version.V_8_2_0))
+            );
+            info.writeTo(output);
+            final StreamInput input = output.bytes().streamInput();
+            input.setVersion(output.getVersion());
+            final ThreadPool.Info read = new ThreadPool.Info(input);
+            assertThat(read.getThreadPoolType(), equalTo(ThreadPool.ThreadPoolType.SCALING));
+            assertThat(read.getMax(), equalTo(info.getMax()));
+        }
+    }
+}
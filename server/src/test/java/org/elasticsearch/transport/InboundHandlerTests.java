@@ -64,7 +64,13 @@ public class InboundHandlerTests extends ESTestCase {
         channel = new FakeTcpChannel(randomBoolean(), buildNewFakeTransportAddress().address(), buildNewFakeTransportAddress().address());
         NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(Collections.emptyList());
         final boolean ignoreDeserializationErrors = true; // suppress assertions to test production error-handling
-        TransportHandshaker handshaker = new TransportHandshaker(version, threadPool, (n, c, r, v) -> {}, ignoreDeserializationErrors);
+        TransportHandshaker handshaker = new TransportHandshaker(
+            version,
+            threadPool,
+            (n, c, r, v) -> {},
+            new TransportCompressionDictionaries(Settings.EMPTY, threadPool),
+            ignoreDeserializationErrors
+        );
         TransportKeepAlive keepAlive = new TransportKeepAlive(threadPool, TcpChannel::sendMessage);
         OutboundHandler outboundHandler = new OutboundHandler(
             "node",
@@ -73,7 +79,8 @@ public class InboundHandlerTests extends ESTestCase {
             threadPool,
             new BytesRefRecycler(PageCacheRecycler.NON_RECYCLING_INSTANCE),
             new HandlingTimeTracker(),
-            false
+            false,
+            -1
         );
         requestHandlers = new Transport.RequestHandlers();
         responseHandlers = new Transport.ResponseHandlers();
@@ -198,8 +198,10 @@ public class InboundPipelineTests extends ESTestCase {
         } else {
             if (version.before(Compression.Scheme.LZ4_VERSION)) {
                 return Compression.Scheme.DEFLATE;
-            } else {
+            } else if (version.before(Compression.Scheme.ZSTD_VERSION)) {
                 return randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4);
+            } else {
+                return randomFrom(Compression.Scheme.values());
             }
         }
     }
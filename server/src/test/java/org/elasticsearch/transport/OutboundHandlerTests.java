@@ -25,7 +25,9 @@ import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.common.network.NetworkAddress;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.TimeValue;
@@ -39,7 +41,12 @@ import org.junit.After;
 import org.junit.Before;
 
 import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -47,10 +54,16 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class OutboundHandlerTests extends ESTestCase {
 
@@ -71,8 +84,8 @@ public class OutboundHandlerTests extends ESTestCase {
         TransportAddress transportAddress = buildNewFakeTransportAddress();
         node = new DiscoveryNode("", transportAddress, Version.CURRENT);
         StatsTracker statsTracker = new StatsTracker();
-        compressionScheme = randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4);
-        handler = new OutboundHandler("node", Version.CURRENT, statsTracker, threadPool, recycler, new HandlingTimeTracker(), false);
+        compressionScheme = randomFrom(Compression.Scheme.values());
+        handler = new OutboundHandler("node", Version.CURRENT, statsTracker, threadPool, recycler, new HandlingTimeTracker(), false, -1);
 
         final LongSupplier millisSupplier = () -> TimeValue.nsecToMSec(System.nanoTime());
         final InboundDecoder decoder = new InboundDecoder(Version.CURRENT, this.recycler);
@@ -258,6 +271,66 @@ public class OutboundHandlerTests extends ESTestCase {
         assertEquals("header_value", header.getHeaders().v1().get("header"));
     }
 
+    public void testSendResponseInChunks() throws IOException {
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        threadContext.putHeader("header", "header_value");
+        final int chunkSize = between(1, 64);
+        handler.setResponseChunkSize(ByteSizeValue.ofBytes(chunkSize));
+        final List<BytesReference> frames = new ArrayList<>();
+        final List<ActionListener<Void>> writes = new ArrayList<>();
+        final FakeTcpChannel chunkingChannel = new FakeTcpChannel() {
+            @Override
+            public void sendMessage(BytesReference reference, ActionListener<Void> listener) {
+                frames.add(reference);
+                writes.add(listener);
+            }
+        };
+        final AtomicBoolean sent = new AtomicBoolean();
+        handler.setMessageListener(new TransportMessageListener() {
+            @Override
+            public void onResponseSent(long requestId, String action, TransportResponse response) {
+                if (requestId == 1) {
+                    assertTrue(sent.compareAndSet(false, true));
+                }
+            }
+        });
+
+        // compressed responses are compressed chunk by chunk
+        final Compression.Scheme scheme = randomBoolean() ? compressionScheme : null;
+        final String value = randomAlphaOfLength(between(chunkSize * 2, chunkSize * 20));
+        handler.sendResponse(Version.CURRENT, chunkingChannel, 1, "action", new TestResponse(value), scheme, false);
+        // the next chunk is only written once the one before it was written, and other messages go out in between
+        assertThat(frames, hasSize(1));
+        handler.sendResponse(Version.CURRENT, chunkingChannel, 2, "action", new TestResponse("other"), null, false);
+        assertThat(frames, hasSize(2));
+
+        pipeline.handleBytes(chunkingChannel, new ReleasableBytesReference(frames.get(0), () -> {}));
+        assertNull(message.get());
+        pipeline.handleBytes(chunkingChannel, new ReleasableBytesReference(frames.get(1), () -> {}));
+        assertEquals(2, message.get().v1().getRequestId());
+        assertEquals("other", new TestResponse(message.get().v2().streamInput()).value);
+
+        int frame = 2;
+        writes.get(0).onResponse(null);
+        while (sent.get() == false) {
+            assertThat(frames, hasSize(frame + 1));
+            if (scheme == null) {
+                assertThat(frames.get(frame).length(), lessThanOrEqualTo(TcpHeader.headerSize(Version.CURRENT) + 2 + chunkSize));
+            }
+            pipeline.handleBytes(chunkingChannel, new ReleasableBytesReference(frames.get(frame), () -> {}));
+            writes.get(frame).onResponse(null);
+            frame++;
+        }
+        assertThat(frames, hasSize(frame));
+
+        final Header header = message.get().v1();
+        assertEquals(1, header.getRequestId());
+        assertTrue(header.isResponse());
+        assertEquals(scheme != null, header.isCompressed());
+        assertEquals("header_value", header.getHeaders().v1().get("header"));
+        assertEquals(value, new TestResponse(message.get().v2().streamInput()).value);
+    }
+
     public void testErrorResponse() throws IOException {
         ThreadContext threadContext = threadPool.getThreadContext();
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
@@ -348,4 +421,116 @@ public class OutboundHandlerTests extends ESTestCase {
             mockAppender.stop();
         }
     }
+
+    public void testMaxInFlightBytesSetting() {
+        final String key = TransportSettings.OUTBOUND_MAX_IN_FLIGHT_BYTES.getKey();
+        assertThat(TransportSettings.OUTBOUND_MAX_IN_FLIGHT_BYTES.get(Settings.EMPTY), equalTo(ByteSizeValue.MINUS_ONE));
+        assertThat(
+            TransportSettings.OUTBOUND_MAX_IN_FLIGHT_BYTES.get(Settings.builder().put(key, "1b").build()),
+            equalTo(ByteSizeValue.ofBytes(1))
+        );
+        // with nothing allowed in flight every message would queue up forever
+        final IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> TransportSettings.OUTBOUND_MAX_IN_FLIGHT_BYTES.get(Settings.builder().put(key, randomFrom("0", "0b", "0kb")).build())
+        );
+        assertThat(e.getMessage(), containsString("must be -1 or >= [1b]"));
+    }
+
+    public void testQueuedMessagesAreSentByPriority() throws IOException {
+        final OutboundHandler queuingHandler = new OutboundHandler(
+            "node",
+            Version.CURRENT,
+            new StatsTracker(),
+            threadPool,
+            recycler,
+            new HandlingTimeTracker(),
+            false,
+            1
+        );
+        final List<String> sent = new ArrayList<>();
+        queuingHandler.setMessageListener(new TransportMessageListener() {
+            @Override
+            public void onRequestSent(
+                DiscoveryNode node,
+                long requestId,
+                String action,
+                TransportRequest request,
+                TransportRequestOptions options
+            ) {
+                sent.add(options.type() + "-" + requestId);
+            }
+        });
+        final List<ActionListener<Void>> writes = new ArrayList<>();
+        final FakeTcpChannel queuingChannel = new FakeTcpChannel() {
+            @Override
+            public void sendMessage(BytesReference reference, ActionListener<Void> listener) {
+                writes.add(listener);
+            }
+        };
+
+        sendRequest(queuingHandler, queuingChannel, 0, TransportRequestOptions.Type.RECOVERY);
+        sendRequest(queuingHandler, queuingChannel, 1, TransportRequestOptions.Type.BULK);
+        sendRequest(queuingHandler, queuingChannel, 2, TransportRequestOptions.Type.RECOVERY);
+        queuingHandler.sendBytes(queuingChannel, new BytesArray("ping"), ActionListener.wrap(() -> sent.add("PING")));
+        // only the first message is in flight, the others wait for it
+        assertThat(writes, hasSize(1));
+        assertThat(queueDepths(queuingHandler), equalTo(Map.of("recovery", 1L, "bulk", 1L, "reg", 0L, "state", 0L, "ping", 1L)));
+
+        for (int i = 0; i < 4; i++) {
+            writes.get(i).onResponse(null);
+        }
+        assertThat(sent, contains("RECOVERY-0", "PING", "BULK-1", "RECOVERY-2"));
+        for (TransportStats.OutboundQueueStats stats : queuingHandler.getOutboundQueueStats()) {
+            assertThat(stats.queueDepth(), equalTo(0L));
+            assertThat(stats.queuedCount(), equalTo(stats.type().equals("reg") || stats.type().equals("state") ? 0L : 1L));
+            assertThat(stats.headOfLineBlockingTimeMillis(), greaterThanOrEqualTo(0L));
+        }
+    }
+
+    public void testQueuedMessagesFailWhenChannelCloses() throws Exception {
+        final OutboundHandler queuingHandler = new OutboundHandler(
+            "node",
+            Version.CURRENT,
+            new StatsTracker(),
+            threadPool,
+            recycler,
+            new HandlingTimeTracker(),
+            false,
+            1
+        );
+        final PlainActionFuture<Void> first = PlainActionFuture.newFuture();
+        final PlainActionFuture<Void> second = PlainActionFuture.newFuture();
+        queuingHandler.sendBytes(channel, new BytesArray("first"), first);
+        queuingHandler.sendBytes(channel, new BytesArray("second"), second);
+        assertEquals(new BytesArray("first"), channel.getMessageCaptor().get());
+        assertFalse(second.isDone());
+
+        channel.close();
+        assertThat(expectThrows(ExecutionException.class, second::get).getCause(), instanceOf(ClosedChannelException.class));
+        assertFalse(first.isDone());
+        channel.getListenerCaptor().get().onResponse(null);
+        assertTrue(first.isDone());
+    }
+
+    private void sendRequest(OutboundHandler outboundHandler, TcpChannel tcpChannel, long requestId, TransportRequestOptions.Type type)
+        throws IOException {
+        outboundHandler.sendRequest(
+            node,
+            tcpChannel,
+            requestId,
+            "internal:test",
+            new TestRequest("message"),
+            TransportRequestOptions.of(null, type),
+            Version.CURRENT,
+            compressionScheme,
+            false
+        );
+    }
+
+    private static Map<String, Long> queueDepths(OutboundHandler outboundHandler) {
+        return outboundHandler.getOutboundQueueStats()
+            .stream()
+            .collect(Collectors.toMap(TransportStats.OutboundQueueStats::type, TransportStats.OutboundQueueStats::queueDepth));
+    }
 }
@@ -607,7 +607,8 @@ public class TcpTransportTests extends ESTestCase {
                     testThreadPool,
                     new BytesRefRecycler(new MockPageCacheRecycler(Settings.EMPTY)),
                     new HandlingTimeTracker(),
-                    false
+                    false,
+                    -1
                 )
             );
 
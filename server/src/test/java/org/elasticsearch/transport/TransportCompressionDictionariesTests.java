@@ -0,0 +1,133 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+
+public class TransportCompressionDictionariesTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        terminate(threadPool);
+        super.tearDown();
+    }
+
+    public void testTrainsDictionariesForConfiguredActions() throws Exception {
+        final int dictionarySize = between(256, 4096);
+        final TransportCompressionDictionaries dictionaries = new TransportCompressionDictionaries(
+            Settings.builder()
+                .putList(TransportSettings.TRANSPORT_COMPRESSION_DICTIONARY_ACTIONS.getKey(), "indices:data/write/bulk[s]")
+                .put(TransportSettings.TRANSPORT_COMPRESSION_DICTIONARY_SIZE.getKey(), dictionarySize + "b")
+                .build(),
+            threadPool
+        );
+
+        for (int i = 0; i < TransportCompressionDictionaries.SAMPLES_PER_ACTION; i++) {
+            dictionaries.maybeSample("indices:data/read/search", new TestRequest(), Version.CURRENT);
+        }
+        for (int i = 0; i < TransportCompressionDictionaries.SAMPLES_PER_ACTION - 1; i++) {
+            dictionaries.maybeSample("indices:data/write/bulk[s]", new TestRequest(), Version.CURRENT);
+        }
+        assertThat(dictionaries.offeredDictionaries(), anEmptyMap());
+
+        dictionaries.maybeSample("indices:data/write/bulk[s]", new TestRequest(), Version.CURRENT);
+        assertBusy(() -> assertThat(dictionaries.offeredDictionaries(), aMapWithSize(1)));
+        final ZstdDictionary dictionary = dictionaries.offeredDictionaries().get("indices:data/write/bulk[s]");
+        assertNotNull(dictionary);
+        assertThat(dictionary.size(), lessThanOrEqualTo(dictionarySize));
+        // the field names of the documents are what they have in common
+        assertThat(dictionary.size(), greaterThanOrEqualTo("\"@timestamp\":".length()));
+    }
+
+    public void testRegistrationsShareIdenticalDictionaries() {
+        final TransportCompressionDictionaries dictionaries = new TransportCompressionDictionaries(Settings.EMPTY, threadPool);
+        final byte[] content = randomByteArrayOfLength(between(1, 1024));
+        final ZstdDictionary other = new ZstdDictionary(
+            randomValueOtherThanMany(c -> Arrays.equals(c, content), () -> randomByteArrayOfLength(between(1, 1024)))
+        );
+
+        final TransportCompressionDictionaries.Registration first = dictionaries.register(
+            Map.of("action-a", new ZstdDictionary(content), "action-b", other)
+        );
+        final TransportCompressionDictionaries.Registration second = dictionaries.register(Map.of("action-a", new ZstdDictionary(content)));
+        assertEquals(2, dictionaries.getRegisteredDictionaryCount());
+        final int id = first.ids().get("action-a");
+        assertEquals(id, (int) second.ids().get("action-a"));
+        assertNotEquals(id, (int) first.ids().get("action-b"));
+        assertThat(id, greaterThanOrEqualTo(1 << 15));
+        assertEquals(new ZstdDictionary(content), dictionaries.getDictionary(id));
+
+        first.close();
+        // closing twice must not release the dictionaries of the other registration
+        first.close();
+        assertEquals(1, dictionaries.getRegisteredDictionaryCount());
+        assertEquals(new ZstdDictionary(content), dictionaries.getDictionary(id));
+        assertNull(dictionaries.getDictionary(first.ids().get("action-b")));
+
+        second.close();
+        assertEquals(0, dictionaries.getRegisteredDictionaryCount());
+        assertNull(dictionaries.getDictionary(id));
+    }
+
+    public void testNegotiatedDictionariesAreDroppedWhenChannelCloses() throws Exception {
+        final TransportCompressionDictionaries dictionaries = new TransportCompressionDictionaries(
+            Settings.builder().putList(TransportSettings.TRANSPORT_COMPRESSION_DICTIONARY_ACTIONS.getKey(), "internal:test").build(),
+            threadPool
+        );
+        for (int i = 0; i < TransportCompressionDictionaries.SAMPLES_PER_ACTION; i++) {
+            dictionaries.maybeSample("internal:test", new TestRequest(), Version.CURRENT);
+        }
+        assertBusy(() -> assertThat(dictionaries.offeredDictionaries(), not(anEmptyMap())));
+
+        final FakeTcpChannel channel = new FakeTcpChannel();
+        dictionaries.onHandshakeResponse(channel, Map.of("internal:test", 1 << 15, "internal:unknown", (1 << 15) + 1));
+        final Map<String, TransportCompressionDictionaries.NegotiatedDictionary> negotiated = dictionaries.takeNegotiatedDictionaries(
+            channel
+        );
+        final ZstdDictionary dictionary = dictionaries.offeredDictionaries().get("internal:test");
+        assertEquals(Map.of("internal:test", new TransportCompressionDictionaries.NegotiatedDictionary(1 << 15, dictionary)), negotiated);
+        assertThat(dictionaries.takeNegotiatedDictionaries(channel), anEmptyMap());
+
+        final FakeTcpChannel closedChannel = new FakeTcpChannel();
+        dictionaries.onHandshakeResponse(closedChannel, Map.of("internal:test", 1 << 15));
+        closedChannel.close();
+        assertThat(dictionaries.takeNegotiatedDictionaries(closedChannel), anEmptyMap());
+    }
+
+    private static class TestRequest extends TransportRequest {
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString("{\"@timestamp\":\"" + randomNonNegativeLong() + "\",\"message\":\"" + randomAlphaOfLength(20) + "\"}");
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.tasks.TaskId;
 import org.elasticsearch.test.ESTestCase;
@@ -19,6 +20,7 @@ import org.elasticsearch.threadpool.TestThreadPool;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.containsString;
@@ -33,6 +35,7 @@ public class TransportHandshakerTests extends ESTestCase {
     private TcpChannel channel;
     private TestThreadPool threadPool;
     private TransportHandshaker.HandshakeRequestSender requestSender;
+    private TransportCompressionDictionaries compressionDictionaries;
 
     @Override
     public void setUp() throws Exception {
@@ -52,7 +55,8 @@ public class TransportHandshakerTests extends ESTestCase {
             Version.CURRENT
         );
         threadPool = new TestThreadPool("thread-poll");
-        handshaker = new TransportHandshaker(Version.CURRENT, threadPool, requestSender, false);
+        compressionDictionaries = new TransportCompressionDictionaries(Settings.EMPTY, threadPool);
+        handshaker = new TransportHandshaker(Version.CURRENT, threadPool, requestSender, compressionDictionaries, false);
     }
 
     @Override
@@ -85,6 +89,35 @@ public class TransportHandshakerTests extends ESTestCase {
         assertEquals(Version.CURRENT, versionFuture.actionGet());
     }
 
+    public void testHandshakeRegistersCompressionDictionaries() throws IOException {
+        PlainActionFuture<Version> versionFuture = PlainActionFuture.newFuture();
+        long reqId = randomLongBetween(1, 10);
+        handshaker.sendHandshake(reqId, node, channel, new TimeValue(30, TimeUnit.SECONDS), versionFuture);
+
+        ZstdDictionary dictionary = new ZstdDictionary(randomByteArrayOfLength(between(1, 1024)));
+        Map<String, ZstdDictionary> offered = Map.of("action-a", dictionary, "action-b", dictionary);
+        TransportHandshaker.HandshakeRequest handshakeRequest = new TransportHandshaker.HandshakeRequest(Version.CURRENT, offered);
+        BytesStreamOutput bytesStreamOutput = new BytesStreamOutput();
+        handshakeRequest.writeTo(bytesStreamOutput);
+        final PlainActionFuture<TransportResponse> responseFuture = PlainActionFuture.newFuture();
+        handshaker.handleHandshake(new TestTransportChannel(responseFuture), reqId, bytesStreamOutput.bytes().streamInput());
+
+        BytesStreamOutput responseBytes = new BytesStreamOutput();
+        responseFuture.actionGet().writeTo(responseBytes);
+        TransportResponseHandler<TransportHandshaker.HandshakeResponse> handler = handshaker.removeHandlerForHandshake(reqId);
+        TransportHandshaker.HandshakeResponse response = handler.read(responseBytes.bytes().streamInput());
+        handler.handleResponse(response);
+        assertEquals(Version.CURRENT, versionFuture.actionGet());
+
+        Map<String, Integer> ids = response.getCompressionDictionaryIds();
+        assertEquals(offered.keySet(), ids.keySet());
+        // identical dictionaries share an ID
+        assertEquals(ids.get("action-a"), ids.get("action-b"));
+        // the channel isn't backed by a connection, so the dictionaries are released right away
+        assertEquals(0, compressionDictionaries.getRegisteredDictionaryCount());
+        assertNull(compressionDictionaries.getDictionary(ids.get("action-a")));
+    }
+
     public void testHandshakeRequestFutureVersionsCompatibility() throws IOException {
         long reqId = randomLongBetween(1, 10);
         handshaker.sendHandshake(reqId, node, channel, new TimeValue(30, TimeUnit.SECONDS), PlainActionFuture.newFuture());
@@ -0,0 +1,295 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ZstdTransportDecompressorTests extends ESTestCase {
+
+    private final Recycler<BytesRef> recycler = new BytesRefRecycler(new MockPageCacheRecycler(Settings.EMPTY));
+
+    public void testSimpleCompression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            byte randomByte = randomByte();
+            try (OutputStream zstdStream = Compression.Scheme.zstdOutputStream(Streams.noCloseStream(output), 0, null)) {
+                zstdStream.write(randomByte);
+            }
+
+            BytesReference bytes = output.bytes();
+            assertTrue(Compression.Scheme.isZstd(bytes));
+
+            try (ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler, id -> null)) {
+                int bytesConsumed = decompressor.decompress(bytes);
+                assertEquals(bytes.length(), bytesConsumed);
+                assertTrue(decompressor.isFinished());
+                ReleasableBytesReference releasableBytesReference = decompressor.pollDecompressedPage(true);
+                assertEquals(1, releasableBytesReference.length());
+                assertEquals(randomByte, releasableBytesReference.get(0));
+                releasableBytesReference.close();
+            }
+        }
+    }
+
+    public void testMultiPageCompression() throws IOException {
+        int intsToWrite = 50000;
+        int uncompressedLength = intsToWrite * 4;
+
+        BytesReference bytes = compressInts(intsToWrite);
+        // Since 200 / 255 data is repeated, we should get a compression ratio of at least 50%
+        assertThat(bytes.length(), lessThan(uncompressedLength / 2));
+
+        try (ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler, id -> null)) {
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            assertTrue(decompressor.isFinished());
+            assertInts(intsToWrite, pollAll(decompressor));
+        }
+    }
+
+    public void testIncrementalMultiPageCompression() throws IOException {
+        int intsToWrite = 50000;
+
+        BytesReference bytes = compressInts(intsToWrite);
+
+        try (ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler, id -> null)) {
+            int split1 = (int) (bytes.length() * 0.3);
+            int split2 = (int) (bytes.length() * 0.65);
+            BytesReference inbound1 = bytes.slice(0, split1);
+            BytesReference inbound2 = bytes.slice(split1, split2 - split1);
+            BytesReference inbound3 = bytes.slice(split2, bytes.length() - split2);
+
+            int bytesConsumed1 = decompressor.decompress(inbound1);
+            BytesReference next = CompositeBytesReference.of(inbound1.slice(bytesConsumed1, inbound1.length() - bytesConsumed1), inbound2);
+            int bytesConsumed2 = decompressor.decompress(next);
+            BytesReference next2 = CompositeBytesReference.of(next.slice(bytesConsumed2, next.length() - bytesConsumed2), inbound3);
+            int bytesConsumed3 = decompressor.decompress(next2);
+            assertEquals(bytes.length(), bytesConsumed1 + bytesConsumed2 + bytesConsumed3);
+            assertTrue(decompressor.isFinished());
+            assertInts(intsToWrite, pollAll(decompressor));
+        }
+    }
+
+    public void testByteByByteDecompression() throws IOException {
+        byte[] uncompressed = randomAlphaOfLengthBetween(1, 100_000).getBytes(StandardCharsets.UTF_8);
+        BytesReference bytes = compress(uncompressed, 0, null);
+
+        try (ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler, id -> null)) {
+            int consumed = 0;
+            int available = 0;
+            while (decompressor.isFinished() == false) {
+                available = Math.min(bytes.length() - consumed, available + randomIntBetween(1, 1024));
+                int bytesConsumed = decompressor.decompress(bytes.slice(consumed, available));
+                consumed += bytesConsumed;
+                available -= bytesConsumed;
+            }
+            assertEquals(bytes.length(), consumed);
+            assertEquals(new BytesArray(uncompressed), pollAll(decompressor));
+        }
+    }
+
+    public void testIncompressibleContent() throws IOException {
+        byte[] uncompressed = randomByteArrayOfLength(randomIntBetween(1, 300_000));
+        BytesReference bytes = compress(uncompressed, 0, null);
+        // incompressible blocks are stored as they are, which only adds the frame and block headers
+        assertThat(bytes.length(), lessThan(uncompressed.length + 64));
+
+        try (ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler, id -> null)) {
+            assertEquals(bytes.length(), decompressor.decompress(bytes));
+            assertEquals(new BytesArray(uncompressed), pollAll(decompressor));
+        }
+    }
+
+    public void testDictionaryCompression() throws IOException {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < TransportCompressionDictionaries.SAMPLES_PER_ACTION; i++) {
+            samples.add(randomDocument());
+        }
+        ZstdDictionary dictionary = ZstdDictionary.train(samples, 4096);
+        assertNotNull(dictionary);
+
+        int dictionaryId = randomIntBetween(1, Integer.MAX_VALUE);
+        byte[] uncompressed = randomDocument();
+        BytesReference withDictionary = compress(uncompressed, dictionaryId, dictionary);
+        BytesReference withoutDictionary = compress(uncompressed, 0, null);
+        assertThat(withDictionary.length(), lessThan(withoutDictionary.length()));
+
+        IntFunction<ZstdDictionary> dictionaries = id -> id == dictionaryId ? dictionary : null;
+        try (ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler, dictionaries)) {
+            assertEquals(withDictionary.length(), decompressor.decompress(withDictionary));
+            assertEquals(new BytesArray(uncompressed), pollAll(decompressor));
+        }
+
+        try (ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler, id -> null)) {
+            IllegalStateException e = expectThrows(IllegalStateException.class, () -> decompressor.decompress(withDictionary));
+            assertThat(e.getMessage(), containsString("[" + dictionaryId + "]"));
+        }
+    }
+
+    // The frames below were compressed by the reference implementation (libzstd 1.5.4) at level 3, with a checksum unless noted
+    // otherwise, and only use the block and sequence modes that ZstdFrameDecoder supports.
+
+    public void testReferenceRawBlock() throws IOException {
+        // short content is stored in a raw block
+        assertReferenceFrame("28b52ffd240d690000456c6173746963736561726368725fc9f2", "Elasticsearch".getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void testReferenceCompressedBlock() throws IOException {
+        // raw literals and sequences with the predefined distributions
+        assertReferenceFrame(
+            "28b52ffd24745d0100f8596f75206b6e6f772c20666f72207365617263682e20616e616c797469637303003c06403072" + "3ccfd90494ed64b8",
+            ("You know, for search. ".repeat(3) + "You know, for analytics. ".repeat(2)).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    public void testReferenceRleBlock() throws IOException {
+        // a full compressed block followed by an RLE block, without a checksum
+        final byte[] expected = new byte[4 * 32768 + 1000];
+        for (int i = 0; i < 4 * 32768; i++) {
+            expected[i] = (byte) ('a' + i % 4);
+        }
+        assertReferenceFrame("28b52ffda0e803020064000020616263640100f9ffe78e08431f0000", expected);
+    }
+
+    public void testReferenceFrameWithoutContentSize() throws IOException {
+        // compressed as a stream, so the frame header has a window descriptor rather than the content size
+        assertReferenceFrame(
+            "28b52ffd0458250200a4037b224074696d657374616d70223a22323032322d30332d3031222c22686f7374223a7b226e"
+                + "616d65223a226e6f64652d30227d7d2c3231227d7d0200a0168541050553d63364",
+            "{\"@timestamp\":\"2022-03-01\",\"host\":{\"name\":\"node-0\"}},{\"@timestamp\":\"2022-03-02\",\"host\":{\"name\":\"node-1\"}}"
+                .getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    public void testTruncatedLiteralsHeader() throws IOException {
+        // a compressed block of a single byte, whose literals header says that the header takes two or three bytes
+        final byte literalsHeader = randomFrom((byte) 0x04, (byte) 0x0C);
+        final BytesReference bytes = new BytesArray(
+            new byte[] { 0x28, (byte) 0xB5, 0x2F, (byte) 0xFD, 0x20, 0x10, 0x0D, 0x00, 0x00, literalsHeader }
+        );
+
+        try (ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler, id -> null)) {
+            IllegalStateException e = expectThrows(IllegalStateException.class, () -> decompressor.decompress(bytes));
+            assertThat(e.getMessage(), containsString("truncated zstd block"));
+        }
+    }
+
+    private void assertReferenceFrame(String compressedHex, byte[] expected) throws IOException {
+        BytesReference bytes = new BytesArray(HexFormat.of().parseHex(compressedHex));
+        assertTrue(Compression.Scheme.isZstd(bytes));
+
+        try (ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler, id -> null)) {
+            int split = randomIntBetween(0, bytes.length());
+            int bytesConsumed = decompressor.decompress(bytes.slice(0, split));
+            bytesConsumed += decompressor.decompress(bytes.slice(bytesConsumed, bytes.length() - bytesConsumed));
+            assertEquals(bytes.length(), bytesConsumed);
+            assertTrue(decompressor.isFinished());
+            assertEquals(new BytesArray(expected), pollAll(decompressor));
+        }
+    }
+
+    private static byte[] randomDocument() {
+        return ("{\"@timestamp\":\""
+            + randomNonNegativeLong()
+            + "\",\"host\":{\"name\":\""
+            + randomAlphaOfLength(8)
+            + "\"},\"event\":{\"dataset\":\"nginx.access\",\"duration\":"
+            + randomInt()
+            + "},\"message\":\""
+            + randomAlphaOfLengthBetween(10, 50)
+            + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static BytesReference compress(byte[] uncompressed, int dictionaryId, ZstdDictionary dictionary) throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (OutputStream zstdStream = Compression.Scheme.zstdOutputStream(Streams.noCloseStream(output), dictionaryId, dictionary)) {
+                zstdStream.write(uncompressed);
+            }
+            return output.copyBytes();
+        }
+    }
+
+    private static BytesReference compressInts(int intsToWrite) throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (
+                StreamOutput zstdStream = new OutputStreamStreamOutput(
+                    Compression.Scheme.zstdOutputStream(Streams.flushOnCloseStream(output), 0, null)
+                )
+            ) {
+                for (int i = 0; i < intsToWrite; ++i) {
+                    int lowByte = (i & 0xFF);
+                    if (lowByte < 128) {
+                        zstdStream.writeInt(0);
+                    } else if (lowByte < 200) {
+                        zstdStream.writeInt(1);
+                    } else {
+                        zstdStream.writeInt(i);
+                    }
+                }
+            }
+            return output.copyBytes();
+        }
+    }
+
+    private static BytesReference pollAll(ZstdTransportDecompressor decompressor) {
+        List<ReleasableBytesReference> polled = new ArrayList<>();
+        ReleasableBytesReference page;
+        while ((page = decompressor.pollDecompressedPage(false)) != null) {
+            polled.add(page);
+        }
+        if ((page = decompressor.pollDecompressedPage(true)) != null) {
+            polled.add(page);
+        }
+        assertNull(decompressor.pollDecompressedPage(true));
+        try {
+            return new BytesArray(BytesReference.toBytes(CompositeBytesReference.of(polled.toArray(new BytesReference[0]))));
+        } finally {
+            Releasables.close(polled);
+        }
+    }
+
+    private static void assertInts(int intsWritten, BytesReference decompressed) throws IOException {
+        assertEquals(intsWritten * 4, decompressed.length());
+        StreamInput streamInput = decompressed.streamInput();
+        for (int i = 0; i < intsWritten; ++i) {
+            int lowByte = (i & 0xFF);
+            if (lowByte < 128) {
+                assertEquals(0, streamInput.readInt());
+            } else if (lowByte < 200) {
+                assertEquals(1, streamInput.readInt());
+            } else {
+                assertEquals(i, streamInput.readInt());
+            }
+        }
+    }
+}
@@ -99,6 +99,8 @@ public class MockInternalClusterInfoService extends InternalClusterInfoService {
             super(
                 delegate.getNodeLeastAvailableDiskUsages(),
                 delegate.getNodeMostAvailableDiskUsages(),
+                delegate.getForecastNodeLeastAvailableDiskUsages(),
+                delegate.getForecastNodeMostAvailableDiskUsages(),
                 delegate.shardSizes,
                 delegate.shardDataSetSizes,
                 delegate.routingToDataPath,
@@ -614,10 +614,7 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
 
             Settings settingsWithCompress = Settings.builder()
                 .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), Compression.Enabled.TRUE)
-                .put(
-                    TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(),
-                    randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4)
-                )
+                .put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), randomFrom(Compression.Scheme.values()))
                 .build();
             ConnectionProfile connectionProfile = ConnectionProfile.buildDefaultConnectionProfile(settingsWithCompress);
             connectToNode(serviceC, serviceA.getLocalDiscoNode(), connectionProfile);
@@ -671,10 +668,7 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
 
             Settings settingsWithCompress = Settings.builder()
                 .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), Compression.Enabled.TRUE)
-                .put(
-                    TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(),
-                    randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4)
-                )
+                .put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), randomFrom(Compression.Scheme.values()))
                 .build();
             ConnectionProfile connectionProfile = ConnectionProfile.buildDefaultConnectionProfile(settingsWithCompress);
             connectToNode(serviceC, serviceA.getLocalDiscoNode(), connectionProfile);
@@ -731,10 +725,7 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
 
             Settings settingsWithCompress = Settings.builder()
                 .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), Compression.Enabled.INDEXING_DATA)
-                .put(
-                    TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(),
-                    randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4)
-                )
+                .put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), randomFrom(Compression.Scheme.values()))
                 .build();
             ConnectionProfile connectionProfile = ConnectionProfile.buildDefaultConnectionProfile(settingsWithCompress);
             connectToNode(serviceC, serviceA.getLocalDiscoNode(), connectionProfile);
@@ -788,6 +779,54 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
         }
     }
 
+    public void testCompressionDictionaryIsNegotiatedOnOpenConnection() throws Exception {
+        assumeTrue("only tcp transport negotiates compression dictionaries", serviceA.getOriginalTransport() instanceof TcpTransport);
+        final String action = "internal:sayHello";
+        serviceA.registerRequestHandler(
+            action,
+            ThreadPool.Names.GENERIC,
+            StringMessageRequest::new,
+            (request, channel, task) -> channel.sendResponse(new StringMessageResponse("hello " + request.message))
+        );
+        final Settings settings = Settings.builder()
+            .putList(TransportSettings.TRANSPORT_COMPRESSION_DICTIONARY_ACTIONS.getKey(), action)
+            .build();
+        try (MockTransportService serviceC = buildService("TS_C", CURRENT_VERSION, settings)) {
+            Settings settingsWithCompress = Settings.builder()
+                .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), Compression.Enabled.TRUE)
+                .put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), Compression.Scheme.ZSTD)
+                .build();
+            connectToNode(serviceC, nodeA, ConnectionProfile.buildDefaultConnectionProfile(settingsWithCompress));
+            final TcpTransport transportA = (TcpTransport) serviceA.getOriginalTransport();
+            final TcpTransport transportC = (TcpTransport) serviceC.getOriginalTransport();
+            assertEquals(0, transportA.getCompressionDictionaries().getRegisteredDictionaryCount());
+
+            // the dictionary is trained from requests on the connection that is already open
+            for (int i = 0; i < TransportCompressionDictionaries.SAMPLES_PER_ACTION; i++) {
+                sayHello(serviceC, action, "{\"user\":\"" + randomAlphaOfLength(8) + "\",\"message\":\"hello world\"}");
+            }
+            assertBusy(() -> assertEquals(1, transportC.getCompressionDictionaries().trainedDictionaryCount()));
+
+            // the next request offers it in another handshake on the same connection, and the requests after that use it
+            sayHello(serviceC, action, "{\"user\":\"" + randomAlphaOfLength(8) + "\",\"message\":\"hello world\"}");
+            assertBusy(() -> assertEquals(1, transportA.getCompressionDictionaries().getRegisteredDictionaryCount()));
+            for (int i = 0; i < 10; i++) {
+                sayHello(serviceC, action, "{\"user\":\"" + randomAlphaOfLength(8) + "\",\"message\":\"hello world\"}");
+            }
+        }
+    }
+
+    private void sayHello(TransportService service, String action, String message) {
+        final PlainActionFuture<StringMessageResponse> future = new PlainActionFuture<>();
+        service.sendRequest(
+            nodeA,
+            action,
+            new StringMessageRequest(message),
+            new ActionListenerResponseHandler<>(future, StringMessageResponse::new)
+        );
+        assertEquals("hello " + message, future.actionGet().message);
+    }
+
     public void testErrorMessage() throws InterruptedException {
         serviceA.registerRequestHandler(
             "internal:sayHelloException",
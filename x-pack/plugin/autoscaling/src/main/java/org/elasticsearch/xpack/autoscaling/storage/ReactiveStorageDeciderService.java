@@ -647,6 +647,16 @@ public class ReactiveStorageDeciderService implements AutoscalingDeciderService
                 }
             }
 
+            @Override
+            public ImmutableOpenMap<String, DiskUsage> getForecastNodeLeastAvailableDiskUsages() {
+                return delegate.getForecastNodeLeastAvailableDiskUsages();
+            }
+
+            @Override
+            public ImmutableOpenMap<String, DiskUsage> getForecastNodeMostAvailableDiskUsages() {
+                return delegate.getForecastNodeMostAvailableDiskUsages();
+            }
+
             @Override
             public Optional<Long> getShardDataSetSize(ShardId shardId) {
                 return delegate.getShardDataSetSize(shardId);
@@ -36,6 +36,12 @@ public final class DataTierAllocationDecider extends AllocationDecider {
 
     private DataTierAllocationDecider() {}
 
+    @Override
+    public boolean isShardIndependent(ShardRouting shardRouting) {
+        // only the tier preference of the index and the roles of the node matter
+        return true;
+    }
+
     @Override
     public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
         return shouldFilter(shardRouting, node.node(), allocation);
@@ -336,6 +336,12 @@ public class IndexLifecycleService
         }
     }
 
+    @Override
+    public boolean canApplyConcurrently() {
+        // the policy registry is only used by ILM itself, and not by any other applier
+        return true;
+    }
+
     private void cancelJob() {
         if (scheduler.get() != null) {
             scheduler.get().remove(XPackField.INDEX_LIFECYCLE);
@@ -170,6 +170,11 @@ public class SecurityRestFilter implements RestHandler {
         return restHandler.allowsUnsafeBuffers();
     }
 
+    @Override
+    public boolean allowsStreamedBody() {
+        return restHandler.allowsStreamedBody();
+    }
+
     @Override
     public List<Route> routes() {
         return restHandler.routes();
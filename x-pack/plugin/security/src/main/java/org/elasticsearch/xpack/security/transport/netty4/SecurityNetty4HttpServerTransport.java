@@ -27,6 +27,7 @@ import org.elasticsearch.xpack.security.transport.SecurityHttpExceptionHandler;
 import org.elasticsearch.xpack.security.transport.filter.IPFilter;
 
 import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
 
 import static org.elasticsearch.xpack.core.XPackSettings.HTTP_SSL_ENABLED;
 
@@ -37,6 +38,7 @@ public class SecurityNetty4HttpServerTransport extends Netty4HttpServerTransport
     private final IPFilter ipFilter;
     private final SSLService sslService;
     private final SslConfiguration sslConfiguration;
+    private final boolean http2Enabled;
 
     public SecurityNetty4HttpServerTransport(
         Settings settings,
@@ -66,6 +68,7 @@ public class SecurityNetty4HttpServerTransport extends Netty4HttpServerTransport
         } else {
             this.sslConfiguration = null;
         }
+        this.http2Enabled = SETTING_HTTP_HTTP2_ENABLED.get(settings);
     }
 
     @Override
@@ -95,6 +98,12 @@ public class SecurityNetty4HttpServerTransport extends Netty4HttpServerTransport
             if (sslConfiguration != null) {
                 SSLEngine sslEngine = sslService.createSSLEngine(sslConfiguration, null, -1);
                 sslEngine.setUseClientMode(false);
+                if (http2Enabled) {
+                    // clients that negotiate h2 start the connection with the HTTP/2 preface, which switches the channel to HTTP/2
+                    final SSLParameters sslParameters = sslEngine.getSSLParameters();
+                    sslParameters.setApplicationProtocols(new String[] { "h2", "http/1.1" });
+                    sslEngine.setSSLParameters(sslParameters);
+                }
                 ch.pipeline().addFirst("ssl", new SslHandler(sslEngine));
             }
             ch.pipeline().addFirst("ip_filter", new IpFilterRemoteAddressFilter(ipFilter, IPFilter.HTTP_PROFILE_NAME));